@@ -0,0 +1,137 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.config.util.XStreamPersister;
+import org.geoserver.config.util.XStreamPersisterFactory;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Compares loading the catalog at startup from the XML files of a data directory against loading
+ * it from a {@link CatalogSnapshotFile}, for synthetic catalogs of different sizes.
+ *
+ * <p>The {@code xml} benchmark walks the data directory, parses each file with {@link
+ * XStreamPersister} and {@link DefaultCatalogFacade#resolve() resolves} the loaded objects, the
+ * bulk of the work {@code DefaultGeoServerLoader} does, without the rest of the GeoServer
+ * configuration. The {@code snapshot} benchmark loads the same catalog from its snapshot file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class CatalogColdStartBenchmark {
+
+    private static final int WORKSPACES = 10;
+
+    @Param({"10000", "50000", "100000"})
+    public int layers;
+
+    private Path dataDirectory;
+
+    private CatalogSnapshotFile snapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        SyntheticCatalog.populate(facade, WORKSPACES, layers / WORKSPACES);
+
+        dataDirectory = Files.createTempDirectory("catalog-cold-start");
+        SyntheticCatalog.writeDataDirectory(facade, dataDirectory);
+        snapshot = new CatalogSnapshotFile(dataDirectory.resolve("catalog.snapshot"));
+        snapshot.save(facade, System.currentTimeMillis());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public DefaultCatalogFacade xml() throws IOException {
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        XStreamPersister xp = new XStreamPersisterFactory().createXMLPersister();
+        xp.setCatalog(facade.getCatalog());
+
+        Path stylesDir = dataDirectory.resolve("styles");
+        try (DirectoryStream<Path> styles = Files.newDirectoryStream(stylesDir)) {
+            for (Path file : styles) {
+                facade.styles.add(read(file, StyleInfo.class, xp));
+            }
+        }
+        Path workspacesDir = dataDirectory.resolve("workspaces");
+        try (DirectoryStream<Path> workspaces = Files.newDirectoryStream(workspacesDir)) {
+            for (Path ws : workspaces) {
+                facade.workspaces.add(read(ws.resolve("workspace.xml"), WorkspaceInfo.class, xp));
+                facade.namespaces.add(read(ws.resolve("namespace.xml"), NamespaceInfo.class, xp));
+                readStores(ws, facade, xp);
+            }
+        }
+        facade.resolve();
+        return facade;
+    }
+
+    private void readStores(Path workspace, DefaultCatalogFacade facade, XStreamPersister xp)
+            throws IOException {
+        try (DirectoryStream<Path> stores =
+                Files.newDirectoryStream(workspace, Files::isDirectory)) {
+            for (Path store : stores) {
+                facade.stores.add(read(store.resolve("datastore.xml"), StoreInfo.class, xp));
+                try (DirectoryStream<Path> resources =
+                        Files.newDirectoryStream(store, Files::isDirectory)) {
+                    for (Path resource : resources) {
+                        Path ft = resource.resolve("featuretype.xml");
+                        facade.resources.add(read(ft, FeatureTypeInfo.class, xp));
+                        facade.layers.add(read(resource.resolve("layer.xml"), LayerInfo.class, xp));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public DefaultCatalogFacade snapshot() throws IOException {
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        snapshot.load(facade);
+        return facade;
+    }
+
+    private static <T> T read(Path file, Class<T> type, XStreamPersister xp) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return xp.load(in, type);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.util.CloseableIterator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the query methods of {@link AbstractCatalogFacade} over the layers of a synthetic
+ * catalog: paged listing with and without sorting, counting, and the overhead of wrapping the
+ * returned objects in {@link ModificationProxy modification proxies}, comparing the facade against
+ * its {@link AbstractCatalogFacade#readOnlyView() read-only view} ({@code *Unproxied} benchmarks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogFacadeBenchmark {
+
+    private static final int WORKSPACES = 10;
+
+    private static final int PAGE_SIZE = 25;
+
+    @Param({"1000", "100000"})
+    public int layers;
+
+    private DefaultCatalogFacade facade;
+
+    private ReadOnlyCatalogFacade readOnly;
+
+    private String[] ids;
+
+    private Filter filter;
+
+    private SortBy sortBy;
+
+    @Setup
+    public void setUp() {
+        facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        SyntheticCatalog.populate(facade, WORKSPACES, layers / WORKSPACES);
+        readOnly = facade.readOnlyView();
+        ids = facade.layers.findAll().stream().map(LayerInfo::getId).toArray(String[]::new);
+        filter = Predicates.equal("enabled", Boolean.TRUE);
+        sortBy = Predicates.sortBy("name", true);
+    }
+
+    private String nextId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private int nextOffset() {
+        return ThreadLocalRandom.current().nextInt(Math.max(1, layers / 2 - PAGE_SIZE));
+    }
+
+    /** A random page of the enabled layers sorted by name */
+    @Benchmark
+    public int listSortedPage() {
+        return consume(facade.list(LayerInfo.class, filter, nextOffset(), PAGE_SIZE, sortBy));
+    }
+
+    /** A random page of the enabled layers in natural order */
+    @Benchmark
+    public int listPage() {
+        return consume(facade.list(LayerInfo.class, filter, nextOffset(), PAGE_SIZE));
+    }
+
+    @Benchmark
+    public int count() {
+        return facade.count(LayerInfo.class, filter);
+    }
+
+    @Benchmark
+    public int countAll() {
+        return facade.count(LayerInfo.class, Filter.INCLUDE);
+    }
+
+    /** Looks up a layer and reads a property of its resource, through modification proxies */
+    @Benchmark
+    public String getLayer() {
+        return facade.getLayer(nextId()).getResource().getName();
+    }
+
+    @Benchmark
+    public String getLayerUnproxied() {
+        return readOnly.getLayer(nextId()).getResource().getName();
+    }
+
+    @Benchmark
+    public List<LayerInfo> getLayers() {
+        return facade.getLayers();
+    }
+
+    @Benchmark
+    public List<LayerInfo> getLayersUnproxied() {
+        return readOnly.getLayers();
+    }
+
+    private int consume(CloseableIterator<LayerInfo> it) {
+        int count = 0;
+        try {
+            while (it.hasNext()) {
+                it.next().getName();
+                count++;
+            }
+        } finally {
+            it.close();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Reports the heap footprint of the in-memory catalog facades, in bytes per {@code CatalogInfo}
+ * by type, for a synthetic catalog of a given number of layers, to help sizing the heap of the
+ * services.
+ *
+ * <p>The footprint of each type accounts for the objects themselves (excluding the objects of
+ * other types they reference), the repository structures (maps and indexes) are reported
+ * separately, as the difference between the whole facade footprint and the one of all its
+ * objects. Note real catalog objects are usually larger than the synthetic ones (metadata,
+ * keywords, bounding boxes, etc.), so the per object figures are a lower bound, while the
+ * repository overhead per object is representative.
+ *
+ * <p>Run with {@code mvn -P benchmarks -pl :gs-cloud-catalog-benchmarks exec:java
+ * -Dexec.mainClass=org.geoserver.catalog.plugin.CatalogFootprintReport -Dexec.args="<layers>"}
+ */
+public class CatalogFootprintReport {
+
+    private static final int WORKSPACES = 10;
+
+    public static void main(String[] args) {
+        final int layers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final PrintStream out = System.out;
+        report("default", () -> new DefaultCatalogFacade(), layers, out);
+        report("compact", () -> new DefaultCatalogFacade(null, true), layers, out);
+        report("snapshot", () -> new SnapshotCatalogFacade(), layers, out);
+    }
+
+    private static void report(
+            String name,
+            Supplier<? extends AbstractCatalogFacade> factory,
+            int layers,
+            PrintStream out) {
+
+        AbstractCatalogFacade facade =
+                SyntheticCatalog.populate(factory.get(), WORKSPACES, layers / WORKSPACES);
+
+        out.printf("%n%s catalog facade, %,d layers%n", name, layers);
+        out.printf("%-15s %10s %15s %12s%n", "type", "count", "bytes", "bytes/object");
+
+        // objects only reference objects of the types before them in this order
+        List<Object> objects = new ArrayList<>();
+        long cumulative = 0;
+        cumulative = row(out, "workspace", facade.workspaces.findAll(), objects, cumulative);
+        cumulative = row(out, "namespace", facade.namespaces.findAll(), objects, cumulative);
+        cumulative = row(out, "store", facade.stores.findAll(), objects, cumulative);
+        cumulative = row(out, "style", facade.styles.findAll(), objects, cumulative);
+        cumulative = row(out, "resource", facade.resources.findAll(), objects, cumulative);
+        cumulative = row(out, "layer", facade.layers.findAll(), objects, cumulative);
+        cumulative = row(out, "layergroup", facade.layerGroups.findAll(), objects, cumulative);
+        cumulative = row(out, "map", facade.maps.findAll(), objects, cumulative);
+
+        final long total = GraphLayout.parseInstance(facade).totalSize();
+        final long overhead = total - cumulative;
+        final int count = objects.size();
+        out.printf(
+                "%-15s %10d %,15d %,12d%n",
+                "repositories", count, overhead, count == 0 ? 0 : overhead / count);
+        out.printf(
+                "%-15s %10d %,15d %,12d%n",
+                "total", count, total, count == 0 ? 0 : total / count);
+        out.printf("%-15s %10d %,15d %,12d%n", "per layer", layers, total, total / layers);
+    }
+
+    private static long row(
+            PrintStream out,
+            String type,
+            List<?> values,
+            List<Object> objects,
+            long previousSize) {
+        objects.addAll(values);
+        long size =
+                objects.isEmpty() ? 0 : GraphLayout.parseInstance(objects.toArray()).totalSize();
+        long typeSize = size - previousSize;
+        out.printf(
+                "%-15s %10d %,15d %,12d%n",
+                type, values.size(), typeSize, values.isEmpty() ? 0 : typeSize / values.size());
+        return size;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.Predicates;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the read operations of {@link CatalogInfoLookup} over the layers of a synthetic
+ * catalog: lookups by id and by name, and listing by predicate.
+ *
+ * <p>{@code listLoop} and {@code listStream} compare the hand written loop of {@link
+ * CatalogInfoLookup#list(Class, Predicate)} against filtering a {@link
+ * CatalogInfoLookup#stream(Filter, Class) stream} over the same objects, the claim in {@link
+ * CatalogInfoLookup}'s javadoc. {@code findAllFilter} and {@code count} go through the OGC {@link
+ * Filter} path, including query planning and the compiled property accessors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogInfoLookupReadBenchmark {
+
+    private static final int WORKSPACES = 10;
+
+    @Param({"1000", "100000"})
+    public int layers;
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private CatalogInfoLookup<LayerInfo> lookup;
+
+    private String[] ids;
+
+    private Name[] names;
+
+    private Predicate<LayerInfo> predicate;
+
+    private Filter filter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        DefaultCatalogFacade facade = new DefaultCatalogFacade(null, compact);
+        SyntheticCatalog.populate(facade, WORKSPACES, layers / WORKSPACES);
+        lookup = (CatalogInfoLookup<LayerInfo>) facade.layers;
+
+        List<LayerInfo> all = lookup.findAll();
+        ids = all.stream().map(LayerInfo::getId).toArray(String[]::new);
+        names = all.stream().map(CatalogInfoLookup.LAYER_NAME_MAPPER).toArray(Name[]::new);
+        // matches half the layers of a single workspace
+        predicate =
+                l ->
+                        l.isEnabled()
+                                && "ws3".equals(
+                                        l.getResource().getStore().getWorkspace().getName());
+        filter =
+                Predicates.and(
+                        Predicates.equal("resource.store.workspace.name", "ws3"),
+                        Predicates.equal("enabled", Boolean.TRUE));
+    }
+
+    private int next() {
+        return ThreadLocalRandom.current().nextInt(ids.length);
+    }
+
+    @Benchmark
+    public LayerInfo findById() {
+        return lookup.findById(ids[next()], LayerInfo.class);
+    }
+
+    @Benchmark
+    public LayerInfo findByName() {
+        return lookup.findByName(names[next()], LayerInfo.class);
+    }
+
+    @Benchmark
+    public List<LayerInfo> listLoop() {
+        return lookup.list(LayerInfo.class, predicate);
+    }
+
+    @Benchmark
+    public List<LayerInfo> listStream() {
+        return lookup.stream(Filter.INCLUDE, LayerInfo.class)
+                .filter(predicate)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LayerInfo> findAllFilter() {
+        return lookup.findAll(filter, LayerInfo.class);
+    }
+
+    @Benchmark
+    public long count() {
+        return lookup.count(LayerInfo.class, filter);
+    }
+}
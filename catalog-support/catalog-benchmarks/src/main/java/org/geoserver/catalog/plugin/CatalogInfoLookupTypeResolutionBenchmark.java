@@ -0,0 +1,155 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.CoverageStoreInfoImpl;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.impl.StoreInfoImpl;
+import org.geoserver.catalog.impl.WMSStoreInfoImpl;
+import org.geoserver.catalog.impl.WMTSStoreInfoImpl;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.StoreInfoLookup;
+import org.opengis.feature.type.Name;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link CatalogInfoLookup#findById} and {@link CatalogInfoLookup#findByName} resolving
+ * the concrete class maps through the cached type resolution against the former approach of
+ * iterating over all the concrete classes checking {@link Class#isAssignableFrom} on each call
+ * ({@code legacy*} benchmarks).
+ *
+ * <p>Uses a {@link StoreInfoLookup} as it's the repository with the most concrete classes (data,
+ * coverage, WMS, and WMTS stores), queried both by the {@link StoreInfo} super type and by the
+ * {@link DataStoreInfo} concrete type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogInfoLookupTypeResolutionBenchmark {
+
+    @Param({"100", "10000"})
+    public int storesPerType;
+
+    private StoreInfoLookup lookup;
+
+    private String[] ids;
+    private Name[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        lookup = new StoreInfoLookup();
+        WorkspaceInfoImpl workspace = new WorkspaceInfoImpl();
+        workspace.setId("ws-id");
+        workspace.setName("ws");
+
+        final int count = 4 * storesPerType;
+        ids = new String[count];
+        names = new Name[count];
+        int i = 0;
+        for (int n = 0; n < storesPerType; n++) {
+            i = add(new DataStoreInfoImpl(null), workspace, "ds" + n, i);
+            i = add(new CoverageStoreInfoImpl(null), workspace, "cs" + n, i);
+            i = add(new WMSStoreInfoImpl(null), workspace, "wms" + n, i);
+            i = add(new WMTSStoreInfoImpl(null), workspace, "wmts" + n, i);
+        }
+    }
+
+    private int add(StoreInfoImpl store, WorkspaceInfo workspace, String name, int index) {
+        store.setId(name + "-id");
+        store.setName(name);
+        store.setWorkspace(workspace);
+        lookup.add(store);
+        ids[index] = store.getId();
+        names[index] = CatalogInfoLookup.STORE_NAME_MAPPER.apply(store);
+        return index + 1;
+    }
+
+    private int next() {
+        int i = next;
+        next = (i + 1) % ids.length;
+        return i;
+    }
+
+    @Benchmark
+    public StoreInfo findById() {
+        return lookup.findById(ids[next()], StoreInfo.class);
+    }
+
+    @Benchmark
+    public StoreInfo legacyFindById() {
+        return legacyFindById(ids[next()], StoreInfo.class);
+    }
+
+    @Benchmark
+    public DataStoreInfo findDataStoreById() {
+        return lookup.findById(ids[next()], DataStoreInfo.class);
+    }
+
+    @Benchmark
+    public DataStoreInfo legacyFindDataStoreById() {
+        return legacyFindById(ids[next()], DataStoreInfo.class);
+    }
+
+    @Benchmark
+    public StoreInfo findByName() {
+        return lookup.findByName(names[next()], StoreInfo.class);
+    }
+
+    @Benchmark
+    public StoreInfo legacyFindByName() {
+        return legacyFindByName(names[next()], StoreInfo.class);
+    }
+
+    /** The former {@link CatalogInfoLookup#findById} implementation */
+    private <U extends StoreInfo> U legacyFindById(String id, Class<U> clazz) {
+        for (Class<StoreInfo> key : lookup.idMultiMap.keySet()) {
+            if (clazz.isAssignableFrom(key)) {
+                Map<String, StoreInfo> valueMap = lookup.idMultiMap.get(key);
+                if (valueMap != null) {
+                    StoreInfo t = valueMap.get(id);
+                    if (t != null) {
+                        return clazz.cast(t);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The former {@link CatalogInfoLookup#findByName} implementation */
+    private <U extends StoreInfo> U legacyFindByName(Name name, Class<U> clazz) {
+        for (Class<StoreInfo> key : lookup.nameMultiMap.keySet()) {
+            if (clazz.isAssignableFrom(key)) {
+                Map<Name, StoreInfo> valueMap = lookup.nameMultiMap.get(key);
+                if (valueMap != null) {
+                    StoreInfo t = valueMap.get(name);
+                    if (t != null) {
+                        return clazz.cast(t);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
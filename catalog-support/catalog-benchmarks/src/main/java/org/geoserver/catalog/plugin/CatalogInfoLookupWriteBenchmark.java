@@ -0,0 +1,96 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.StoreInfoLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the write throughput of {@link CatalogInfoLookup} with several threads adding, renaming
+ * and removing objects of the same concrete type, the case that used to serialize all writers on
+ * a single per type monitor.
+ *
+ * <p>Run with different thread counts through JMH's {@code -t} option to compare the scaling, e.g.
+ * {@code -t 1} vs {@code -t 8}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogInfoLookupWriteBenchmark {
+
+    /** Number of stores in the lookup before the writers start */
+    @Param({"10000"})
+    public int stores;
+
+    private StoreInfoLookup lookup;
+
+    private WorkspaceInfoImpl workspace;
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        lookup = new StoreInfoLookup();
+        workspace = new WorkspaceInfoImpl();
+        workspace.setId("ws-id");
+        workspace.setName("ws");
+        for (int i = 0; i < stores; i++) {
+            lookup.add(store("preloaded-" + i));
+        }
+    }
+
+    private DataStoreInfoImpl store(String name) {
+        DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+        store.setId(name + "-id");
+        store.setName(name);
+        store.setWorkspace(workspace);
+        return store;
+    }
+
+    /** Per thread sequence of objects to write, so that threads never write the same object */
+    @State(Scope.Thread)
+    public static class Writer {
+        private String prefix;
+        private int next;
+
+        @Setup
+        public void setUp(CatalogInfoLookupWriteBenchmark benchmark) {
+            prefix = "thread" + benchmark.threadIds.incrementAndGet() + "-";
+        }
+
+        String nextName() {
+            return prefix + next++;
+        }
+    }
+
+    /** Adds, renames, and removes an object, three writes per operation */
+    @Benchmark
+    public void addRenameRemove(Writer writer) {
+        DataStoreInfoImpl store = store(writer.nextName());
+        lookup.add(store);
+        store.setName(store.getName() + "-renamed");
+        lookup.update(store);
+        lookup.remove(store);
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Data;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.impl.StyleInfoImpl;
+import org.geoserver.catalog.util.CloseableIterator;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.opengis.filter.Filter;
+
+/**
+ * Replays a configurable mix of catalog reads and writes against any {@link CatalogFacade} from a
+ * number of threads, and reports the throughput and latency percentiles of each operation, so that
+ * different backends can be compared under the same workload.
+ *
+ * <p>The facade must already hold a catalog, for example one generated by {@link
+ * SyntheticCatalog#populate(CatalogFacade, SyntheticCatalog.Spec)}. The driver works with the
+ * layers and resources it finds at start up, and its writes leave the catalog as they found it
+ * (updates change resource titles, added styles are removed right away).
+ *
+ * <p>{@link #main(String[])} drives the in-memory facades, e.g. {@code mvn -P benchmarks -pl
+ * :gs-cloud-catalog-benchmarks exec:java
+ * -Dexec.mainClass=org.geoserver.catalog.plugin.CatalogLoadDriver -Dexec.args="snapshot 100000 8
+ * 30"}. Other backends (jdbcconfig, cached) can be driven through {@link #run(Workload)} once
+ * their facade is set up.
+ */
+public class CatalogLoadDriver {
+
+    /** Catalog operations the driver replays */
+    public enum Operation {
+        /** Look up a layer by id */
+        GET_BY_ID,
+        /** Look up a layer by name */
+        GET_BY_NAME,
+        /** List a page of 25 enabled layers */
+        LIST,
+        /** Count the enabled layers */
+        COUNT,
+        /** Change the title of a resource */
+        UPDATE,
+        /** Add a style and remove it */
+        ADD_REMOVE
+    }
+
+    /** Threads, duration, and operation mix of a run */
+    public static @Data class Workload {
+        private int threads = 8;
+        private int warmupSeconds = 5;
+        private int durationSeconds = 30;
+        /** Relative weight of each operation, operations with no or zero weight aren't run */
+        private Map<Operation, Integer> mix = defaultMix();
+
+        private static Map<Operation, Integer> defaultMix() {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            mix.put(Operation.GET_BY_ID, 40);
+            mix.put(Operation.GET_BY_NAME, 30);
+            mix.put(Operation.LIST, 15);
+            mix.put(Operation.COUNT, 5);
+            mix.put(Operation.UPDATE, 8);
+            mix.put(Operation.ADD_REMOVE, 2);
+            return mix;
+        }
+
+        /**
+         * Parses a mix like {@code "GET_BY_ID=90,UPDATE=10"}, operations not in the list are not
+         * run
+         */
+        public static Map<Operation, Integer> parseMix(@NonNull String mix) {
+            Map<Operation, Integer> parsed = new EnumMap<>(Operation.class);
+            for (String entry : mix.split(",")) {
+                String[] kvp = entry.trim().split("=");
+                if (kvp.length != 2) {
+                    throw new IllegalArgumentException("Expected <operation>=<weight>: " + entry);
+                }
+                Operation op = Operation.valueOf(kvp[0].trim().toUpperCase());
+                parsed.put(op, Integer.valueOf(kvp[1].trim()));
+            }
+            return parsed;
+        }
+    }
+
+    private static final int PAGE_SIZE = 25;
+
+    private final CatalogFacade facade;
+
+    private final AtomicLong styleIds = new AtomicLong();
+
+    private String[] layerIds;
+
+    private String[] layerNames;
+
+    private String[] resourceIds;
+
+    private int enabledLayers;
+
+    private final Filter enabled = Predicates.equal("enabled", Boolean.TRUE);
+
+    public CatalogLoadDriver(@NonNull CatalogFacade facade) {
+        this.facade = facade;
+    }
+
+    /**
+     * Runs {@code workload} against the facade
+     *
+     * @return the latencies of each operation, measured after the warm up period
+     */
+    public Map<Operation, LatencyHistogram> run(@NonNull Workload workload) throws Exception {
+        List<LayerInfo> layers = facade.getLayers();
+        if (layers.isEmpty()) {
+            throw new IllegalStateException("The catalog has no layers");
+        }
+        layerIds = layers.stream().map(LayerInfo::getId).toArray(String[]::new);
+        layerNames = layers.stream().map(LayerInfo::getName).toArray(String[]::new);
+        resourceIds = layers.stream().map(l -> l.getResource().getId()).toArray(String[]::new);
+        enabledLayers = facade.count(LayerInfo.class, enabled);
+
+        final Operation[] ops = toWeightedArray(workload.getMix());
+        final long start = System.nanoTime();
+        final long measureFrom = start + TimeUnit.SECONDS.toNanos(workload.getWarmupSeconds());
+        final long end = measureFrom + TimeUnit.SECONDS.toNanos(workload.getDurationSeconds());
+
+        ExecutorService executor = Executors.newFixedThreadPool(workload.getThreads());
+        try {
+            List<Future<Map<Operation, LatencyHistogram>>> results = new ArrayList<>();
+            for (int t = 0; t < workload.getThreads(); t++) {
+                results.add(executor.submit(() -> runThread(ops, measureFrom, end)));
+            }
+            Map<Operation, LatencyHistogram> merged = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, LatencyHistogram>> result : results) {
+                for (Map.Entry<Operation, LatencyHistogram> e : result.get().entrySet()) {
+                    merged.computeIfAbsent(e.getKey(), o -> new LatencyHistogram())
+                            .add(e.getValue());
+                }
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Operation[] toWeightedArray(Map<Operation, Integer> mix) {
+        List<Operation> weighted = new ArrayList<>();
+        mix.forEach(
+                (op, weight) -> {
+                    for (int i = 0; weight != null && i < weight; i++) weighted.add(op);
+                });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("No operations in the mix: " + mix);
+        }
+        return weighted.toArray(new Operation[0]);
+    }
+
+    private Map<Operation, LatencyHistogram> runThread(
+            Operation[] ops, long measureFrom, long end) {
+        final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < end) {
+            final Operation op = ops[random.nextInt(ops.length)];
+            final long opStart = now;
+            execute(op, random);
+            now = System.nanoTime();
+            if (opStart >= measureFrom) {
+                histograms.computeIfAbsent(op, o -> new LatencyHistogram()).record(now - opStart);
+            }
+        }
+        return histograms;
+    }
+
+    private void execute(Operation op, ThreadLocalRandom random) {
+        final int i = random.nextInt(layerIds.length);
+        switch (op) {
+            case GET_BY_ID:
+                facade.getLayer(layerIds[i]);
+                break;
+            case GET_BY_NAME:
+                facade.getLayerByName(layerNames[i]);
+                break;
+            case LIST:
+                int offset = random.nextInt(Math.max(1, enabledLayers - PAGE_SIZE));
+                try (CloseableIterator<LayerInfo> it =
+                        facade.list(LayerInfo.class, enabled, offset, PAGE_SIZE)) {
+                    while (it.hasNext()) {
+                        it.next();
+                    }
+                }
+                break;
+            case COUNT:
+                facade.count(LayerInfo.class, enabled);
+                break;
+            case UPDATE:
+                ResourceInfo resource = facade.getResource(resourceIds[i], ResourceInfo.class);
+                if (resource != null) {
+                    resource.setTitle("title " + random.nextInt());
+                    facade.save(resource);
+                }
+                break;
+            case ADD_REMOVE:
+                String name = "load-driver-style-" + styleIds.incrementAndGet();
+                StyleInfoImpl style = new StyleInfoImpl(null);
+                style.setId(name + "-id");
+                style.setName(name);
+                style.setFilename(name + ".sld");
+                StyleInfo added = facade.add(style);
+                facade.remove(added);
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(op));
+        }
+    }
+
+    /** Prints a table of the throughput and latency percentiles in microseconds */
+    public static void report(
+            Map<Operation, LatencyHistogram> results, int durationSeconds, PrintStream out) {
+        out.printf(
+                "%-12s %12s %12s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "mean", "p50", "p90", "p99", "p99.9", "max");
+        LatencyHistogram total = new LatencyHistogram();
+        results.forEach(
+                (op, histogram) -> {
+                    row(out, op.name(), histogram, durationSeconds);
+                    total.add(histogram);
+                });
+        row(out, "total", total, durationSeconds);
+    }
+
+    private static void row(
+            PrintStream out, String name, LatencyHistogram histogram, int durationSeconds) {
+        out.printf(
+                "%-12s %,12d %,12.0f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name,
+                histogram.getCount(),
+                histogram.getCount() / (double) durationSeconds,
+                histogram.getMean() / 1000d,
+                histogram.getPercentile(50) / 1000d,
+                histogram.getPercentile(90) / 1000d,
+                histogram.getPercentile(99) / 1000d,
+                histogram.getPercentile(99.9) / 1000d,
+                histogram.getMax() / 1000d);
+    }
+
+    /**
+     * Drives one of the in-memory facades over a synthetic catalog, arguments are the facade
+     * ({@code default}, {@code compact}, or {@code snapshot}), the number of layers, the number of
+     * threads, the duration in seconds, and optionally the operation mix as parsed by {@link
+     * Workload#parseMix(String)}
+     */
+    public static void main(String[] args) throws Exception {
+        final String facadeName = args.length > 0 ? args[0] : "default";
+        final int layers = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Workload workload = new Workload();
+        if (args.length > 2) workload.setThreads(Integer.parseInt(args[2]));
+        if (args.length > 3) workload.setDurationSeconds(Integer.parseInt(args[3]));
+        if (args.length > 4) workload.setMix(Workload.parseMix(args[4]));
+
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+        final AbstractCatalogFacade facade;
+        switch (facadeName) {
+            case "default":
+                facade = new DefaultCatalogFacade();
+                break;
+            case "compact":
+                facade = new DefaultCatalogFacade(null, true);
+                break;
+            case "snapshot":
+                facade = new SnapshotCatalogFacade();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown catalog facade: " + facadeName);
+        }
+        new CatalogImpl(facade);
+        SyntheticCatalog.Spec spec = new SyntheticCatalog.Spec();
+        spec.setFeatureTypesPerStore(
+                Math.max(1, layers / (spec.getWorkspaces() * spec.getStoresPerWorkspace())));
+        SyntheticCatalog.populate(facade, spec);
+
+        System.out.printf(
+                "%s catalog facade, %,d layers, %d threads, %ds%n",
+                facadeName,
+                spec.getLayerCount(),
+                workload.getThreads(),
+                workload.getDurationSeconds());
+        Map<Operation, LatencyHistogram> results = new CatalogLoadDriver(facade).run(workload);
+        report(results, workload.getDurationSeconds(), System.out);
+    }
+
+    /**
+     * Fixed size log-linear histogram of latencies in nanoseconds, exact up to 128ns and with a
+     * relative error under 2% above, so that recording is allocation free and the memory doesn't
+     * grow with the number of samples
+     */
+    public static class LatencyHistogram {
+
+        private static final int SUB_BUCKETS = 64;
+
+        private final long[] counts = new long[(64 - 6) * SUB_BUCKETS + 2 * SUB_BUCKETS];
+
+        private long count;
+
+        private long sum;
+
+        private long max;
+
+        public void record(long nanos) {
+            final long value = Math.max(0, nanos);
+            counts[index(value)]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        public void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : sum / (double) count;
+        }
+
+        /** @return the highest value of the bucket holding the {@code percentile}th value */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100d));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, highestValue(i));
+                }
+            }
+            return max;
+        }
+
+        /** Values under 128 get a bucket each, others are bucketed by their 7 highest bits */
+        private static int index(long value) {
+            if (value < 2 * SUB_BUCKETS) {
+                return (int) value;
+            }
+            final int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+            return shift * SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        private static long highestValue(int index) {
+            if (index < 2 * SUB_BUCKETS) {
+                return index;
+            }
+            final int shift = index / SUB_BUCKETS - 1;
+            final long mantissa = index - shift * SUB_BUCKETS;
+            return ((mantissa + 1) << shift) - 1;
+        }
+    }
+}
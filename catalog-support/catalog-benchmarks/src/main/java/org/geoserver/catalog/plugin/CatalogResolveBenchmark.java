@@ -0,0 +1,112 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.impl.FeatureTypeInfoImpl;
+import org.geoserver.catalog.impl.LayerInfoImpl;
+import org.geoserver.catalog.impl.NamespaceInfoImpl;
+import org.geoserver.catalog.impl.ResolvingProxy;
+import org.geoserver.catalog.impl.StyleInfoImpl;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link DefaultCatalogFacade#resolve()} phase of the catalog startup, resolving the
+ * objects of each type sequentially or in parallel, over a catalog whose objects still reference
+ * each other through {@link ResolvingProxy resolving proxies}, as they're read from the data
+ * directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CatalogResolveBenchmark {
+
+    private static final int WORKSPACES = 10;
+
+    @Param({"50000"})
+    public int layers;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DefaultCatalogFacade facade;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        facade.setParallelResolve(parallel);
+
+        StyleInfoImpl style = new StyleInfoImpl(null);
+        style.setId("style-id");
+        style.setName("style");
+        style.setFilename("style.sld");
+        facade.styles.add(style);
+
+        final int layersPerWorkspace = layers / WORKSPACES;
+        for (int w = 0; w < WORKSPACES; w++) {
+            WorkspaceInfoImpl workspace = new WorkspaceInfoImpl();
+            workspace.setId("ws" + w + "-id");
+            workspace.setName("ws" + w);
+            facade.workspaces.add(workspace);
+
+            NamespaceInfoImpl namespace = new NamespaceInfoImpl();
+            namespace.setId("ns" + w + "-id");
+            namespace.setPrefix(workspace.getName());
+            namespace.setURI("http://example.com/" + workspace.getName());
+            facade.namespaces.add(namespace);
+
+            DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+            store.setId("ds" + w + "-id");
+            store.setName("ds" + w);
+            store.setWorkspace(ResolvingProxy.create(workspace.getId(), WorkspaceInfo.class));
+            facade.stores.add(store);
+
+            for (int l = 0; l < layersPerWorkspace; l++) {
+                final String name = String.format("ws%d_layer%d", w, l);
+                FeatureTypeInfoImpl resource = new FeatureTypeInfoImpl(null);
+                resource.setId(name + "-ft-id");
+                resource.setName(name);
+                resource.setNativeName(name);
+                resource.setNamespace(
+                        ResolvingProxy.create(namespace.getId(), NamespaceInfo.class));
+                resource.setStore(ResolvingProxy.create(store.getId(), StoreInfo.class));
+                facade.resources.add(resource);
+
+                LayerInfoImpl layer = new LayerInfoImpl();
+                layer.setId(name + "-layer-id");
+                // the layer name is derived from its resource, so it can't be a proxy here
+                layer.setResource(resource);
+                layer.setDefaultStyle(ResolvingProxy.create(style.getId(), StyleInfo.class));
+                facade.layers.add(layer);
+            }
+        }
+    }
+
+    @Benchmark
+    public void resolve() {
+        facade.resolve();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.util.CloseableIterator;
+import org.geoserver.ows.util.OwsUtils;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares sorting and filtering a large synthetic catalog through compiled {@link PropertyPath}
+ * accessors against the reflective {@link OwsUtils#get(Object, String)} and GeoTools property
+ * accessors ({@code legacy*} benchmarks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PropertyPathBenchmark {
+
+    private static final String SORT_PROPERTY = "resource.store.workspace.name";
+
+    @Param({"10000", "50000"})
+    public int layers;
+
+    private DefaultCatalogFacade facade;
+
+    private List<LayerInfo> allLayers;
+
+    private SortBy sortBy;
+
+    private Filter filter;
+
+    private Filter compiledFilter;
+
+    @Setup
+    public void setUp() {
+        final int workspaces = 10;
+        facade = SyntheticCatalog.populate(new DefaultCatalogFacade(), workspaces, layers / 10);
+        allLayers = new ArrayList<>();
+        facade.getLayers().forEach(l -> allLayers.add(AbstractCatalogFacade.unwrap(l)));
+        sortBy = Predicates.sortBy(SORT_PROPERTY, false);
+        filter =
+                Predicates.and(
+                        Predicates.equal(SORT_PROPERTY, "ws3"),
+                        Predicates.equal("enabled", Boolean.TRUE));
+        compiledFilter = PropertyPath.compile(filter);
+    }
+
+    /** Top 25 layers sorted by workspace name in descending order, through the facade */
+    @Benchmark
+    public int sortTopK() {
+        int count = 0;
+        try (CloseableIterator<LayerInfo> it =
+                facade.list(LayerInfo.class, Filter.INCLUDE, 0, 25, sortBy)) {
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<LayerInfo> sortAll() {
+        PropertyPath path = PropertyPath.of(SORT_PROPERTY);
+        List<LayerInfo> sorted = new ArrayList<>(allLayers);
+        sorted.sort(Comparator.comparing(l -> (String) path.get(l)));
+        return sorted;
+    }
+
+    @Benchmark
+    public List<LayerInfo> legacySortAll() {
+        List<LayerInfo> sorted = new ArrayList<>(allLayers);
+        sorted.sort(Comparator.comparing(l -> (String) OwsUtils.get(l, SORT_PROPERTY)));
+        return sorted;
+    }
+
+    @Benchmark
+    public int filter() {
+        return count(compiledFilter);
+    }
+
+    @Benchmark
+    public int legacyFilter() {
+        return count(filter);
+    }
+
+    private int count(Filter f) {
+        int count = 0;
+        for (int i = 0; i < allLayers.size(); i++) {
+            if (f.evaluate(allLayers.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
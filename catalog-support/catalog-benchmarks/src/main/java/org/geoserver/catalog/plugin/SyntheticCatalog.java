@@ -0,0 +1,327 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import lombok.Data;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.impl.FeatureTypeInfoImpl;
+import org.geoserver.catalog.impl.LayerGroupInfoImpl;
+import org.geoserver.catalog.impl.LayerInfoImpl;
+import org.geoserver.catalog.impl.NamespaceInfoImpl;
+import org.geoserver.catalog.impl.StyleInfoImpl;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.config.util.XStreamPersister;
+import org.geoserver.config.util.XStreamPersisterFactory;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+
+/**
+ * Populates a {@link CatalogFacade} with a synthetic catalog, either the minimal one of {@link
+ * #populate(CatalogFacade, int, int)}, or a more realistic one with several stores per workspace,
+ * shared and workspace styles, and nested layer groups, as described by a {@link Spec}.
+ *
+ * <p>{@link #writeDataDirectory} writes a populated catalog as a GeoServer data directory, {@link
+ * #main(String[])} does both from the command line, e.g. for 10 workspaces, 5 stores per
+ * workspace, and 200 feature types per store: {@code mvn -P benchmarks -pl
+ * :gs-cloud-catalog-benchmarks exec:java
+ * -Dexec.mainClass=org.geoserver.catalog.plugin.SyntheticCatalog -Dexec.args="/tmp/datadir 10 5
+ * 200"}
+ */
+public class SyntheticCatalog {
+
+    /**
+     * Shape of a synthetic catalog of {@code workspaces x storesPerWorkspace x
+     * featureTypesPerStore} feature type layers. Styles are assigned pseudo randomly, the same
+     * {@link #seed} produces the same catalog.
+     */
+    public static @Data class Spec {
+        private int workspaces = 10;
+        private int storesPerWorkspace = 2;
+        private int featureTypesPerStore = 50;
+        /** Styles with no workspace, shared by the layers of all workspaces */
+        private int globalStyles = 10;
+
+        private int stylesPerWorkspace = 2;
+        /** Top level layer groups per workspace, each nesting {@link #layerGroupDepth} groups */
+        private int layerGroupsPerWorkspace = 2;
+
+        private int layersPerGroup = 10;
+        /** Nesting levels of each top level group, 1 for groups made of layers only */
+        private int layerGroupDepth = 2;
+        /** Global layer groups, each one made of a top level group of each workspace */
+        private int globalLayerGroups = 1;
+
+        private long seed = 0L;
+
+        public int getLayerCount() {
+            return workspaces * storesPerWorkspace * featureTypesPerStore;
+        }
+    }
+
+    private SyntheticCatalog() {}
+
+    /**
+     * Populates {@code facade} with {@code workspaces} workspaces (and their namespaces), each one
+     * with a data store publishing {@code layersPerWorkspace} feature type layers, all sharing a
+     * single default style.
+     */
+    public static <F extends CatalogFacade> F populate(
+            F facade, int workspaces, int layersPerWorkspace) {
+
+        StyleInfoImpl style = new StyleInfoImpl(null);
+        style.setId("style-id");
+        style.setName("style");
+        style.setFilename("style.sld");
+        facade.add(style);
+
+        for (int w = 0; w < workspaces; w++) {
+            WorkspaceInfoImpl workspace = new WorkspaceInfoImpl();
+            workspace.setId("ws" + w + "-id");
+            workspace.setName("ws" + w);
+            facade.add(workspace);
+
+            NamespaceInfoImpl namespace = new NamespaceInfoImpl();
+            namespace.setId("ns" + w + "-id");
+            namespace.setPrefix(workspace.getName());
+            namespace.setURI("http://example.com/" + workspace.getName());
+            facade.add(namespace);
+
+            DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+            store.setId("ds" + w + "-id");
+            store.setName("ds" + w);
+            store.setWorkspace(workspace);
+            store.setEnabled(true);
+            facade.add(store);
+
+            for (int l = 0; l < layersPerWorkspace; l++) {
+                final String name = String.format("ws%d_layer%d", w, l);
+                FeatureTypeInfoImpl resource = new FeatureTypeInfoImpl(null);
+                resource.setId(name + "-ft-id");
+                resource.setName(name);
+                resource.setNativeName(name);
+                resource.setNamespace(namespace);
+                resource.setStore(store);
+                resource.setEnabled(true);
+                facade.add(resource);
+
+                LayerInfoImpl layer = new LayerInfoImpl();
+                layer.setId(name + "-layer-id");
+                layer.setResource(resource);
+                layer.setDefaultStyle(style);
+                // alternate to have something to filter by
+                layer.setEnabled(l % 2 == 0);
+                facade.add(layer);
+            }
+        }
+        return facade;
+    }
+
+    /** Populates {@code facade} with a synthetic catalog shaped after {@code spec} */
+    public static <F extends CatalogFacade> F populate(F facade, Spec spec) {
+        final Random random = new Random(spec.getSeed());
+        final List<StyleInfo> globalStyles = new ArrayList<>();
+        for (int s = 0; s < spec.getGlobalStyles(); s++) {
+            globalStyles.add(style("style" + s, null, facade));
+        }
+        final List<LayerGroupInfo> topGroups = new ArrayList<>();
+        for (int w = 0; w < spec.getWorkspaces(); w++) {
+            WorkspaceInfoImpl workspace = new WorkspaceInfoImpl();
+            workspace.setId("ws" + w + "-id");
+            workspace.setName("ws" + w);
+            facade.add(workspace);
+
+            NamespaceInfoImpl namespace = new NamespaceInfoImpl();
+            namespace.setId("ns" + w + "-id");
+            namespace.setPrefix(workspace.getName());
+            namespace.setURI("http://example.com/" + workspace.getName());
+            facade.add(namespace);
+
+            List<StyleInfo> styles = new ArrayList<>(globalStyles);
+            for (int s = 0; s < spec.getStylesPerWorkspace(); s++) {
+                styles.add(style(String.format("ws%d_style%d", w, s), workspace, facade));
+            }
+
+            List<LayerInfo> layers = new ArrayList<>();
+            for (int d = 0; d < spec.getStoresPerWorkspace(); d++) {
+                DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+                store.setId(String.format("ws%d_ds%d-id", w, d));
+                store.setName(String.format("ws%d_ds%d", w, d));
+                store.setWorkspace(workspace);
+                store.setEnabled(true);
+                facade.add(store);
+
+                for (int f = 0; f < spec.getFeatureTypesPerStore(); f++) {
+                    final String name = String.format("ws%d_ds%d_ft%d", w, d, f);
+                    FeatureTypeInfoImpl resource = new FeatureTypeInfoImpl(null);
+                    resource.setId(name + "-ft-id");
+                    resource.setName(name);
+                    resource.setNativeName(name);
+                    resource.setTitle(name);
+                    resource.setNamespace(namespace);
+                    resource.setStore(store);
+                    resource.setEnabled(true);
+                    facade.add(resource);
+
+                    LayerInfoImpl layer = new LayerInfoImpl();
+                    layer.setId(name + "-layer-id");
+                    layer.setResource(resource);
+                    layer.setEnabled(f % 2 == 0);
+                    layer.setDefaultStyle(pick(styles, random));
+                    if (!globalStyles.isEmpty()) {
+                        layer.getStyles().add(pick(globalStyles, random));
+                    }
+                    facade.add(layer);
+                    layers.add(layer);
+                }
+            }
+            for (int g = 0; g < spec.getLayerGroupsPerWorkspace() && !layers.isEmpty(); g++) {
+                LayerGroupInfo group = null;
+                for (int depth = 0; depth < spec.getLayerGroupDepth(); depth++) {
+                    String name = String.format("ws%d_lg%d_%d", w, g, depth);
+                    LayerGroupInfoImpl next = layerGroup(name, workspace);
+                    if (group != null) {
+                        next.getLayers().add(group);
+                        next.getStyles().add(null);
+                    }
+                    for (int l = 0; l < spec.getLayersPerGroup(); l++) {
+                        next.getLayers().add(pick(layers, random));
+                        next.getStyles().add(null);
+                    }
+                    facade.add(next);
+                    group = next;
+                }
+                if (group != null) {
+                    topGroups.add(group);
+                }
+            }
+        }
+        for (int g = 0; g < spec.getGlobalLayerGroups() && !topGroups.isEmpty(); g++) {
+            LayerGroupInfoImpl group = layerGroup("lg" + g, null);
+            for (LayerGroupInfo child : topGroups) {
+                group.getLayers().add(child);
+                group.getStyles().add(null);
+            }
+            facade.add(group);
+        }
+        return facade;
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.isEmpty() ? null : values.get(random.nextInt(values.size()));
+    }
+
+    private static StyleInfo style(String name, WorkspaceInfo workspace, CatalogFacade facade) {
+        StyleInfoImpl style = new StyleInfoImpl(null);
+        style.setId(name + "-id");
+        style.setName(name);
+        style.setWorkspace(workspace);
+        style.setFilename(name + ".sld");
+        facade.add(style);
+        return style;
+    }
+
+    private static LayerGroupInfoImpl layerGroup(String name, WorkspaceInfo workspace) {
+        LayerGroupInfoImpl group = new LayerGroupInfoImpl();
+        group.setId(name + "-id");
+        group.setName(name);
+        group.setWorkspace(workspace);
+        return group;
+    }
+
+    /**
+     * Writes the contents of {@code facade} as a GeoServer data directory at {@code directory},
+     * with the same layout and XML encoding as {@code GeoServerConfigPersister}, e.g. {@code
+     * workspaces/<ws>/<store>/<resource>/featuretype.xml}
+     */
+    public static void writeDataDirectory(AbstractCatalogFacade facade, Path directory)
+            throws IOException {
+        XStreamPersister xp = new XStreamPersisterFactory().createXMLPersister();
+        xp.setCatalog(facade.getCatalog());
+        Path workspaces = directory.resolve("workspaces");
+        for (WorkspaceInfo ws : facade.workspaces.findAll()) {
+            write(ws, workspaces.resolve(ws.getName()).resolve("workspace.xml"), xp);
+        }
+        for (NamespaceInfo ns : facade.namespaces.findAll()) {
+            write(ns, workspaces.resolve(ns.getPrefix()).resolve("namespace.xml"), xp);
+        }
+        for (StoreInfo store : facade.stores.findAll()) {
+            Path dir = workspaces.resolve(store.getWorkspace().getName()).resolve(store.getName());
+            write(store, dir.resolve("datastore.xml"), xp);
+        }
+        for (LayerInfo layer : facade.layers.findAll()) {
+            ResourceInfo resource = layer.getResource();
+            StoreInfo store = resource.getStore();
+            Path dir =
+                    workspaces
+                            .resolve(store.getWorkspace().getName())
+                            .resolve(store.getName())
+                            .resolve(resource.getName());
+            write(resource, dir.resolve("featuretype.xml"), xp);
+            write(layer, dir.resolve("layer.xml"), xp);
+        }
+        for (StyleInfo style : facade.styles.findAll()) {
+            Path dir = workspaceDirectory(directory, style.getWorkspace()).resolve("styles");
+            write(style, dir.resolve(style.getName() + ".xml"), xp);
+        }
+        for (LayerGroupInfo group : facade.layerGroups.findAll()) {
+            Path dir = workspaceDirectory(directory, group.getWorkspace()).resolve("layergroups");
+            write(group, dir.resolve(group.getName() + ".xml"), xp);
+        }
+    }
+
+    /** @return the directory of {@code workspace}, or the data directory for global objects */
+    private static Path workspaceDirectory(Path directory, WorkspaceInfo workspace) {
+        return workspace == null
+                ? directory
+                : directory.resolve("workspaces").resolve(workspace.getName());
+    }
+
+    /**
+     * Writes a synthetic catalog as a data directory, arguments are the target directory, and
+     * optionally the number of workspaces, stores per workspace, and feature types per store
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println(
+                    "Usage: SyntheticCatalog <directory> [workspaces [stores [featuretypes]]]");
+            System.exit(1);
+        }
+        Spec spec = new Spec();
+        if (args.length > 1) spec.setWorkspaces(Integer.parseInt(args[1]));
+        if (args.length > 2) spec.setStoresPerWorkspace(Integer.parseInt(args[2]));
+        if (args.length > 3) spec.setFeatureTypesPerStore(Integer.parseInt(args[3]));
+
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        populate(facade, spec);
+        Path directory = Paths.get(args[0]);
+        writeDataDirectory(facade, directory);
+        System.out.printf("Wrote %,d layers to %s%n", spec.getLayerCount(), directory);
+    }
+
+    private static void write(Object info, Path file, XStreamPersister xp) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            xp.save(info, out);
+        }
+    }
+}
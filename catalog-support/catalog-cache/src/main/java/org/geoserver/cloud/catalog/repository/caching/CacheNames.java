@@ -8,6 +8,10 @@ public interface CacheNames {
 
     String DEFAULT_KEY_GENERATOR_BEAN_NAME = "catalogIdCacheGenerator";
 
+    String CACHE_MANAGER_BEAN_NAME = "catalogCacheManager";
+
+    String CACHE_RESOLVER_BEAN_NAME = "catalogCacheResolver";
+
     String WORKSPACE_CACHE = "WorkspaceInfo";
     String NAMESPACE_CACHE = "NamespaceInfo";
     String STORE_CACHE = "StoreInfo";
@@ -16,4 +20,10 @@ public interface CacheNames {
     String LAYER_GROUP_CACHE = "LayerGroupInfo";
     String STYLE_CACHE = "StyleInfo";
     String MAP_CACHE = "MapInfo";
+
+    /** Key of the default workspace on the {@link #WORKSPACE_CACHE} */
+    String DEFAULT_WORKSPACE_KEY = "defaultWorkspace";
+
+    /** Key of the default namespace on the {@link #NAMESPACE_CACHE} */
+    String DEFAULT_NAMESPACE_KEY = "defaultNamespace";
 }
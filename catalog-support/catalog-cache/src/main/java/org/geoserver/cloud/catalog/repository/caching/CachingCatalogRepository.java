@@ -4,24 +4,79 @@
  */
 package org.geoserver.cloud.catalog.repository.caching;
 
+import java.util.Collection;
+import java.util.List;
 import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.impl.ClassMappings;
+import org.geoserver.catalog.impl.ModificationProxy;
 import org.geoserver.catalog.plugin.CatalogInfoRepository;
 import org.geoserver.catalog.plugin.forwarding.ForwardingCatalogRepository;
 import org.opengis.feature.type.Name;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.core.annotation.AnnotationUtils;
 
-@CacheConfig(keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME)
+@CacheConfig(
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public abstract class CachingCatalogRepository<I extends CatalogInfo>
         extends ForwardingCatalogRepository<I> {
 
+    /**
+     * Size above which the batch operations clear the caches instead of evicting the entries of
+     * each object, like an incremental {@code syncTo} does for a few changed objects
+     */
+    public static final int BATCH_EVICTION_THRESHOLD = 1_000;
+
     public CachingCatalogRepository(CatalogInfoRepository<I> subject) {
         super(subject);
     }
 
-    @CachePut
+    /** @return the name of this repository's cache, as declared by its {@link CacheConfig} */
+    public String cacheName() {
+        CacheConfig config = AnnotationUtils.findAnnotation(getClass(), CacheConfig.class);
+        String[] names = config == null ? new String[0] : config.cacheNames();
+        if (names.length == 0) {
+            throw new IllegalStateException(getClass().getName() + " declares no cache name");
+        }
+        return names[0];
+    }
+
+    /**
+     * Looks up the current state of a cached object bypassing the cache, used to refresh cache
+     * entries in the background
+     *
+     * @return the current state of {@code cached}, or {@code null} if it no longer exists
+     */
+    @SuppressWarnings("unchecked")
+    public I reload(I cached) {
+        I unwrapped = ModificationProxy.unwrap(cached);
+        ClassMappings mappings = ClassMappings.fromImpl(unwrapped.getClass());
+        if (mappings == null) {
+            return null;
+        }
+        Class<I> type = (Class<I>) mappings.getInterface();
+        return findByIdUncached(cached.getId(), type);
+    }
+
+    /**
+     * Looks up the current state of an object bypassing the cache, for when it's known to have
+     * changed but only its id is known, like upon a remote event sent without the object
+     *
+     * @return the object with the given id and type, or {@code null} if there's none
+     */
+    public <U extends I> U findByIdUncached(String id, Class<U> type) {
+        return subject.findById(id, type);
+    }
+
+    /**
+     * Evicts the entries of the lookups the new object may match, like a {@code findOneByName}
+     * that returned another object with the same name. The object itself is cached lazily.
+     */
+    @CacheEvict
     public @Override void add(I value) {
         super.add(value);
     }
@@ -31,11 +86,64 @@ public abstract class CachingCatalogRepository<I extends CatalogInfo>
         super.remove(value);
     }
 
+    /**
+     * Evicts the entries related to each value, like {@link #add} does, or clears this
+     * repository's cache, and the dependent caches, if the batch is larger than {@link
+     * #BATCH_EVICTION_THRESHOLD}
+     */
+    @Caching(
+        evict = {
+            @CacheEvict(condition = "#p0.size() <= " + BATCH_EVICTION_THRESHOLD),
+            @CacheEvict(condition = "#p0.size() > " + BATCH_EVICTION_THRESHOLD, allEntries = true)
+        }
+    )
+    public @Override void addAll(Collection<? extends I> values) {
+        super.addAll(values);
+    }
+
+    /**
+     * Evicts the entries related to each value, or clears the caches if the batch is larger than
+     * {@link #BATCH_EVICTION_THRESHOLD}
+     */
+    @Caching(
+        evict = {
+            @CacheEvict(condition = "#p0.size() <= " + BATCH_EVICTION_THRESHOLD),
+            @CacheEvict(condition = "#p0.size() > " + BATCH_EVICTION_THRESHOLD, allEntries = true)
+        }
+    )
+    public @Override void removeAll(Collection<? extends I> values) {
+        super.removeAll(values);
+    }
+
+    /**
+     * Evicts the entries related to each value, or clears the caches if the batch is larger than
+     * {@link #BATCH_EVICTION_THRESHOLD}
+     */
+    @Caching(
+        evict = {
+            @CacheEvict(condition = "#p0.size() <= " + BATCH_EVICTION_THRESHOLD),
+            @CacheEvict(condition = "#p0.size() > " + BATCH_EVICTION_THRESHOLD, allEntries = true)
+        }
+    )
+    public @Override void replaceAll(Collection<? extends I> values) {
+        super.replaceAll(values);
+    }
+
     @CacheEvict
     public @Override void update(I value) {
         super.update(value);
     }
 
+    /**
+     * Cached as a list query depending on all the objects of the repository's type, evicted
+     * whenever any of them is added, updated, or removed. {@code findAll(Filter)} queries are not
+     * cached.
+     */
+    @Cacheable
+    public @Override List<I> findAll() {
+        return super.findAll();
+    }
+
     @Cacheable
     public @Override <U extends I> U findById(String id, Class<U> clazz) {
         return super.findById(id, clazz);
@@ -4,46 +4,391 @@
  */
 package org.geoserver.cloud.catalog.repository.caching;
 
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_NAMESPACE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_RESOURCE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_STORE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_STYLE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_TYPE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_URI;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ALL_BY_WORKSPACE;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.DEFAULT;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ID;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.NAME;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.ONE_BY_NAME;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.STORE_AND_NAME;
+import static org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup.URI;
+
 import java.lang.reflect.Method;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.MapInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.ClassMappings;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.plugin.CatalogInfoRepository;
+import org.opengis.feature.type.Name;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.interceptor.CacheEvictOperation;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
 import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
+/**
+ * Generates the {@link CatalogCacheKey typed keys} the {@link CachingCatalogRepository caching
+ * repositories} cache their lookups under, and the {@link CatalogInfoEvictionKey eviction keys}
+ * for the objects they add, update, and remove.
+ *
+ * <p>{@link #keysOf(CatalogInfo)} tells all the keys an object may be cached under, mirroring how
+ * the {@code CatalogInfoLookup} repositories name the objects (i.e. stores, layer groups, and
+ * styles by workspace id and name, resources and layers by namespace id and name), for each of the
+ * types it can be looked up as (e.g. {@code FeatureTypeInfo} and {@code ResourceInfo}).
+ *
+ * <p>That includes the keys of the list queries whose results the object belongs to given its
+ * current state (e.g. the feature types of its namespace and store), so that adding it, or moving
+ * it to another parent, evicts them. The lists it belonged to before are evicted through the keys
+ * the {@link CatalogInfoCache} tracked for its id.
+ *
+ * <p>The key generator supports a fixed set of repository methods, {@link #checkSupported} tells
+ * whether a caching repository sticks to them.
+ */
 @Component(value = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME)
 public class CachingCatalogRepositoryKeyGenerator implements KeyGenerator {
 
-    private final Set<String> simpleCatalogInfoArgumentMethods;
+    /** Names of the repository methods {@link #generate} creates keys for */
+    static final Set<String> SUPPORTED_METHODS =
+            Collections.unmodifiableSet(
+                    new TreeSet<>(
+                            Arrays.asList(
+                                    "add",
+                                    "remove",
+                                    "update",
+                                    "addAll",
+                                    "removeAll",
+                                    "replaceAll",
+                                    "findById",
+                                    "findByName",
+                                    "findOneByName",
+                                    "findByStoreAndName",
+                                    "findOneByURI",
+                                    "getDefaultDataStore",
+                                    "setDefaultDataStore",
+                                    "findAll",
+                                    "findAllByType",
+                                    "findAllByWorkspace",
+                                    "findAllByWorkspaceIsNull",
+                                    "findAllByNullWorkspace",
+                                    "findAllByNamespace",
+                                    "findAllByStore",
+                                    "findAllByResource",
+                                    "findAllByDefaultStyleOrStyles",
+                                    "findAllByURI")));
+
+    /**
+     * Checks this key generator supports all the methods of {@code repositoryType} whose cache
+     * operations rely on it, so that a caching repository method missing from {@link #generate}
+     * fails at startup rather than when it's first called
+     *
+     * @throws IllegalStateException if any such method is not in {@link #SUPPORTED_METHODS}
+     */
+    public void checkSupported(Class<?> repositoryType) {
+        CacheOperationSource operations = new AnnotationCacheOperationSource();
+        Set<String> unsupported = new TreeSet<>();
+        for (Method method : repositoryType.getMethods()) {
+            Collection<CacheOperation> ops = operations.getCacheOperations(method, repositoryType);
+            if (ops == null || SUPPORTED_METHODS.contains(method.getName())) {
+                continue;
+            }
+            for (CacheOperation op : ops) {
+                if (usesKeyGenerator(op)) {
+                    unsupported.add(method.getName());
+                }
+            }
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException(
+                    String.format(
+                            "%s can't generate cache keys for %s methods %s",
+                            getClass().getSimpleName(), repositoryType.getName(), unsupported));
+        }
+    }
 
-    public CachingCatalogRepositoryKeyGenerator() {
-        simpleCatalogInfoArgumentMethods = new HashSet<>();
-        simpleCatalogInfoArgumentMethods.add("add");
-        simpleCatalogInfoArgumentMethods.add("remove");
-        simpleCatalogInfoArgumentMethods.add("update");
+    /** @return whether {@code op} has no explicit key and is not a whole cache eviction */
+    private static boolean usesKeyGenerator(CacheOperation op) {
+        if (!op.getKey().isEmpty()) {
+            return false;
+        }
+        return !(op instanceof CacheEvictOperation && ((CacheEvictOperation) op).isCacheWide());
     }
 
+    @SuppressWarnings("unchecked")
     public @Override Object generate(Object target, Method method, Object... params) {
         final String methodName = method.getName();
-        if (simpleCatalogInfoArgumentMethods.contains(methodName)) {
-            return getCatalogInfoId(0, params);
+        switch (methodName) {
+            case "add":
+            case "remove":
+            case "update":
+                return evictionKey((CatalogInfo) params[0]);
+            case "addAll":
+            case "removeAll":
+            case "replaceAll":
+                return batchEvictionKey((Collection<? extends CatalogInfo>) params[0]);
+            case "findById":
+                return idKey((String) params[0], (Class<? extends CatalogInfo>) params[1]);
+            case "findByName":
+                return nameKey((Name) params[0], (Class<? extends CatalogInfo>) params[1]);
+            case "findOneByName":
+                return CatalogCacheKey.of(ONE_BY_NAME, type(method, params, 1), (String) params[0]);
+            case "findByStoreAndName":
+                return CatalogCacheKey.of(
+                        STORE_AND_NAME,
+                        (Class<? extends CatalogInfo>) params[2],
+                        ((StoreInfo) params[0]).getId(),
+                        (String) params[1]);
+            case "findOneByURI":
+                return CatalogCacheKey.of(URI, NamespaceInfo.class, (String) params[0]);
+            case "getDefaultDataStore":
+            case "setDefaultDataStore":
+                return defaultDataStoreKey((WorkspaceInfo) params[0]);
+            case "findAll":
+                return CatalogCacheKey.of(ALL_BY_TYPE, repositoryType(target), null);
+            case "findAllByType":
+                return CatalogCacheKey.of(ALL_BY_TYPE, elementType(method, params, 0), null);
+            case "findAllByWorkspace":
+                return listKey(ALL_BY_WORKSPACE, method, params);
+            case "findAllByWorkspaceIsNull":
+            case "findAllByNullWorkspace":
+                return CatalogCacheKey.of(ALL_BY_WORKSPACE, elementType(method, params, 0), null);
+            case "findAllByNamespace":
+                return listKey(ALL_BY_NAMESPACE, method, params);
+            case "findAllByStore":
+                return listKey(ALL_BY_STORE, method, params);
+            case "findAllByResource":
+                return listKey(ALL_BY_RESOURCE, method, params);
+            case "findAllByDefaultStyleOrStyles":
+                return listKey(ALL_BY_STYLE, method, params);
+            case "findAllByURI":
+                return CatalogCacheKey.of(ALL_BY_URI, NamespaceInfo.class, (String) params[0]);
+            default:
+                // not reached for the methods that passed checkSupported()
+                throw new UnsupportedOperationException(
+                        String.format(
+                                "Unable to generate cache key for %s.%s(...)",
+                                target.getClass().getName(), methodName));
         }
-        if ("findById".equals(methodName)) {
-            return (String) params[0];
+    }
+
+    /** @return the key {@code findById(id, type)} results are cached under */
+    public CatalogCacheKey idKey(String id, Class<? extends CatalogInfo> type) {
+        return CatalogCacheKey.of(ID, type, id);
+    }
+
+    /** @return the key {@code findByName(name, type)} results are cached under */
+    public CatalogCacheKey nameKey(Name name, Class<? extends CatalogInfo> type) {
+        return CatalogCacheKey.of(NAME, type, name.getNamespaceURI(), name.getLocalPart());
+    }
+
+    /** @return the key the default data store of the given workspace is cached under */
+    public CatalogCacheKey defaultDataStoreKey(WorkspaceInfo workspace) {
+        return CatalogCacheKey.of(DEFAULT, DataStoreInfo.class, workspace.getId());
+    }
+
+    /**
+     * @return the key to evict all the entries related to {@code info}, either because it's been
+     *     added, possibly matching lookups that returned another object, or because it's been
+     *     modified or removed
+     */
+    public CatalogInfoEvictionKey evictionKey(CatalogInfo info) {
+        return new CatalogInfoEvictionKey(info.getId(), keysOf(info));
+    }
+
+    /** @return the key to evict all the entries related to each of {@code infos} */
+    public CatalogInfoBatchEvictionKey batchEvictionKey(Collection<? extends CatalogInfo> infos) {
+        List<CatalogInfoEvictionKey> keys = new ArrayList<>(infos.size());
+        for (CatalogInfo info : infos) {
+            keys.add(evictionKey(info));
         }
-        //        if ("findByName".equals(methodName) && params != null && params.length == 2) {
-        //            Name name = (Name) params[0];
-        //            Class<?> type = (Class<?>) params[1];
-        //        }
-        // if("setDefaultWorkspace")
-        throw new UnsupportedOperationException(
-                String.format(
-                        "Unable to generate cache key for %s.%s(...)",
-                        target.getClass().getName(), methodName));
+        return new CatalogInfoBatchEvictionKey(keys);
+    }
+
+    /**
+     * @return all the keys the given object may be cached under in its repository's cache given
+     *     its current state, plus, for a resource, the names its layers take after it, to be
+     *     evicted from the {@link CatalogCacheResolver#dependentCaches dependent} layer cache
+     */
+    public Set<CatalogCacheKey> keysOf(CatalogInfo info) {
+        final CatalogInfo object = ModificationProxy.unwrap(info);
+        Set<CatalogCacheKey> keys = new LinkedHashSet<>();
+        for (Class<? extends CatalogInfo> type : typesOf(object)) {
+            keys.add(idKey(object.getId(), type));
+            addNameKeys(object, type, keys);
+            addListKeys(object, type, keys);
+        }
+        if (object instanceof ResourceInfo) {
+            addLayerNameKeys((ResourceInfo) object, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Adds the keys of the layers of {@code resource}, which are named after it and renamed with it
+     * by the repositories
+     */
+    private void addLayerNameKeys(ResourceInfo resource, Set<CatalogCacheKey> keys) {
+        String name = resource.getName();
+        keys.add(CatalogCacheKey.of(NAME, LayerInfo.class, id(resource.getNamespace()), name));
+        keys.add(CatalogCacheKey.of(ONE_BY_NAME, LayerInfo.class, name));
+    }
+
+    private void addNameKeys(
+            CatalogInfo info, Class<? extends CatalogInfo> type, Set<CatalogCacheKey> keys) {
+        if (info instanceof WorkspaceInfo) {
+            keys.add(CatalogCacheKey.of(NAME, type, ((WorkspaceInfo) info).getName()));
+        } else if (info instanceof NamespaceInfo) {
+            NamespaceInfo ns = (NamespaceInfo) info;
+            keys.add(CatalogCacheKey.of(NAME, type, ns.getPrefix()));
+            keys.add(CatalogCacheKey.of(URI, type, ns.getURI()));
+        } else if (info instanceof StoreInfo) {
+            StoreInfo store = (StoreInfo) info;
+            keys.add(CatalogCacheKey.of(NAME, type, id(store.getWorkspace()), store.getName()));
+            keys.add(CatalogCacheKey.of(ONE_BY_NAME, type, store.getName()));
+            if (store instanceof DataStoreInfo && store.getWorkspace() != null) {
+                keys.add(defaultDataStoreKey(store.getWorkspace()));
+            }
+        } else if (info instanceof ResourceInfo) {
+            ResourceInfo resource = (ResourceInfo) info;
+            String name = resource.getName();
+            keys.add(CatalogCacheKey.of(NAME, type, id(resource.getNamespace()), name));
+            keys.add(CatalogCacheKey.of(ONE_BY_NAME, type, name));
+            keys.add(CatalogCacheKey.of(STORE_AND_NAME, type, id(resource.getStore()), name));
+        } else if (info instanceof LayerInfo) {
+            ResourceInfo resource = ((LayerInfo) info).getResource();
+            if (resource != null) {
+                String name = resource.getName();
+                keys.add(CatalogCacheKey.of(NAME, type, id(resource.getNamespace()), name));
+            }
+            keys.add(CatalogCacheKey.of(ONE_BY_NAME, type, ((LayerInfo) info).getName()));
+        } else if (info instanceof LayerGroupInfo) {
+            LayerGroupInfo lg = (LayerGroupInfo) info;
+            keys.add(CatalogCacheKey.of(NAME, type, id(lg.getWorkspace()), lg.getName()));
+            keys.add(CatalogCacheKey.of(ONE_BY_NAME, type, lg.getName()));
+        } else if (info instanceof StyleInfo) {
+            StyleInfo style = (StyleInfo) info;
+            keys.add(CatalogCacheKey.of(NAME, type, id(style.getWorkspace()), style.getName()));
+            keys.add(CatalogCacheKey.of(ONE_BY_NAME, type, style.getName()));
+        } else if (info instanceof MapInfo) {
+            keys.add(CatalogCacheKey.of(NAME, type, ((MapInfo) info).getName()));
+        }
+    }
+
+    private void addListKeys(
+            CatalogInfo info, Class<? extends CatalogInfo> type, Set<CatalogCacheKey> keys) {
+        keys.add(CatalogCacheKey.of(ALL_BY_TYPE, type, null));
+        if (info instanceof NamespaceInfo) {
+            keys.add(CatalogCacheKey.of(ALL_BY_URI, type, ((NamespaceInfo) info).getURI()));
+        } else if (info instanceof StoreInfo) {
+            keys.add(listKey(ALL_BY_WORKSPACE, type, ((StoreInfo) info).getWorkspace()));
+        } else if (info instanceof ResourceInfo) {
+            ResourceInfo resource = (ResourceInfo) info;
+            keys.add(listKey(ALL_BY_NAMESPACE, type, resource.getNamespace()));
+            keys.add(listKey(ALL_BY_STORE, type, resource.getStore()));
+        } else if (info instanceof LayerInfo) {
+            LayerInfo layer = (LayerInfo) info;
+            keys.add(listKey(ALL_BY_RESOURCE, type, layer.getResource()));
+            if (layer.getDefaultStyle() != null) {
+                keys.add(listKey(ALL_BY_STYLE, type, layer.getDefaultStyle()));
+            }
+            for (StyleInfo style : layer.getStyles()) {
+                keys.add(listKey(ALL_BY_STYLE, type, style));
+            }
+        } else if (info instanceof LayerGroupInfo) {
+            keys.add(listKey(ALL_BY_WORKSPACE, type, ((LayerGroupInfo) info).getWorkspace()));
+        } else if (info instanceof StyleInfo) {
+            keys.add(listKey(ALL_BY_WORKSPACE, type, ((StyleInfo) info).getWorkspace()));
+        }
+    }
+
+    /** @return the key of a list query scoped by the parent object given as first argument */
+    private CatalogCacheKey listKey(CatalogCacheKey.Lookup lookup, Method method, Object[] params) {
+        return listKey(lookup, elementType(method, params, 1), (CatalogInfo) params[0]);
+    }
+
+    private CatalogCacheKey listKey(
+            CatalogCacheKey.Lookup lookup, Class<? extends CatalogInfo> type, CatalogInfo parent) {
+        return CatalogCacheKey.of(lookup, type, id(parent), null);
+    }
+
+    /**
+     * @return the catalog interfaces {@code info} can be looked up as, e.g. {@code
+     *     FeatureTypeInfo} and {@code ResourceInfo} for a feature type
+     */
+    @SuppressWarnings("unchecked")
+    static Set<Class<? extends CatalogInfo>> typesOf(CatalogInfo info) {
+        ClassMappings mappings = ClassMappings.fromImpl(info.getClass());
+        Class<?> type = mappings == null ? info.getClass() : mappings.getInterface();
+        Set<Class<? extends CatalogInfo>> types = new LinkedHashSet<>();
+        if (type.isInterface()) {
+            types.add((Class<? extends CatalogInfo>) type);
+        }
+        for (Class<?> i : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+            if (CatalogInfo.class.isAssignableFrom(i) && !CatalogInfo.class.equals(i)) {
+                types.add((Class<? extends CatalogInfo>) i);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @return the type argument at {@code index} if the method has one, or its return type, for
+     *     lookups with no type argument like {@code LayerRepository.findOneByName(name)}
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends CatalogInfo> type(Method method, Object[] params, int index) {
+        if (params.length > index && params[index] instanceof Class) {
+            return (Class<? extends CatalogInfo>) params[index];
+        }
+        return (Class<? extends CatalogInfo>) method.getReturnType();
+    }
+
+    /**
+     * @return the type argument at {@code index} if the method has one, or the element type of the
+     *     list it returns, for queries with no type argument like {@code
+     *     LayerRepository.findAllByResource(resource)}
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends CatalogInfo> elementType(Method method, Object[] params, int index) {
+        if (params.length > index && params[index] instanceof Class) {
+            return (Class<? extends CatalogInfo>) params[index];
+        }
+        ResolvableType returnType = ResolvableType.forMethodReturnType(method);
+        return (Class<? extends CatalogInfo>) returnType.asCollection().resolveGeneric(0);
+    }
+
+    /** @return the type of objects the target repository holds, for {@code findAll()} */
+    @SuppressWarnings("unchecked")
+    private Class<? extends CatalogInfo> repositoryType(Object target) {
+        ResolvableType repository =
+                ResolvableType.forClass(target.getClass()).as(CatalogInfoRepository.class);
+        return (Class<? extends CatalogInfo>) repository.resolveGeneric(0);
     }
 
-    private String getCatalogInfoId(int argumentIndex, Object... params) {
-        CatalogInfo info = (CatalogInfo) params[argumentIndex];
+    private static String id(CatalogInfo info) {
         return info == null ? null : info.getId();
     }
 }
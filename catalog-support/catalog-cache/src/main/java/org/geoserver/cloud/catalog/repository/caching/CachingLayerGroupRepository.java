@@ -11,7 +11,11 @@ import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.LAYER_GROUP_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.LAYER_GROUP_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingLayerGroupRepository extends CachingCatalogRepository<LayerGroupInfo>
         implements LayerGroupRepository {
 
@@ -21,13 +25,15 @@ public class CachingLayerGroupRepository extends CachingCatalogRepository<LayerG
 
     @Cacheable
     public @Override LayerGroupInfo findOneByName(String name) {
-        throw new UnsupportedOperationException("not yet implemented");
+        return ((LayerGroupRepository) subject).findOneByName(name);
     }
 
+    @Cacheable
     public @Override List<LayerGroupInfo> findAllByWorkspaceIsNull() {
         return ((LayerGroupRepository) subject).findAllByWorkspaceIsNull();
     }
 
+    @Cacheable
     public @Override List<LayerGroupInfo> findAllByWorkspace(WorkspaceInfo workspace) {
         return ((LayerGroupRepository) subject).findAllByWorkspace(workspace);
     }
@@ -12,7 +12,11 @@ import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.LAYER_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.LAYER_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingLayerRepository extends CachingCatalogRepository<LayerInfo>
         implements LayerRepository {
 
@@ -25,10 +29,12 @@ public class CachingLayerRepository extends CachingCatalogRepository<LayerInfo>
         return ((LayerRepository) subject).findOneByName(name);
     }
 
+    @Cacheable
     public @Override List<LayerInfo> findAllByDefaultStyleOrStyles(StyleInfo style) {
         return ((LayerRepository) subject).findAllByDefaultStyleOrStyles(style);
     }
 
+    @Cacheable
     public @Override List<LayerInfo> findAllByResource(ResourceInfo resource) {
         return ((LayerRepository) subject).findAllByResource(resource);
     }
@@ -8,7 +8,11 @@ import org.geoserver.catalog.MapInfo;
 import org.geoserver.catalog.plugin.CatalogInfoRepository.MapRepository;
 import org.springframework.cache.annotation.CacheConfig;
 
-@CacheConfig(cacheNames = CacheNames.MAP_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.MAP_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingMapRepository extends CachingCatalogRepository<MapInfo>
         implements MapRepository {
 
@@ -8,10 +8,14 @@ import java.util.List;
 import org.geoserver.catalog.NamespaceInfo;
 import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.NAMESPACE_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.NAMESPACE_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingNamespaceRepository extends CachingCatalogRepository<NamespaceInfo>
         implements NamespaceRepository {
 
@@ -19,12 +23,13 @@ public class CachingNamespaceRepository extends CachingCatalogRepository<Namespa
         super(subject);
     }
 
-    @CachePut(key = "defaultNamespace")
+    /** Evicts the cached default namespace, to be lazily reloaded by the next call to the getter */
+    @CacheEvict(key = "'" + CacheNames.DEFAULT_NAMESPACE_KEY + "'")
     public @Override void setDefaultNamespace(NamespaceInfo namespace) {
         ((NamespaceRepository) subject).setDefaultNamespace(namespace);
     }
 
-    @Cacheable(key = "defaultNamespace")
+    @Cacheable(key = "'" + CacheNames.DEFAULT_NAMESPACE_KEY + "'")
     public @Override NamespaceInfo getDefaultNamespace() {
         return ((NamespaceRepository) subject).getDefaultNamespace();
     }
@@ -34,6 +39,7 @@ public class CachingNamespaceRepository extends CachingCatalogRepository<Namespa
         return ((NamespaceRepository) subject).findOneByURI(uri);
     }
 
+    @Cacheable
     public @Override List<NamespaceInfo> findAllByURI(String uri) {
         return ((NamespaceRepository) subject).findAllByURI(uri);
     }
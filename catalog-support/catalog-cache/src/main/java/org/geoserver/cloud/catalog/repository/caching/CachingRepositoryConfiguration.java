@@ -4,6 +4,8 @@
  */
 package org.geoserver.cloud.catalog.repository.caching;
 
+import java.util.Arrays;
+import java.util.List;
 import javax.annotation.PostConstruct;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogFacade;
@@ -21,9 +23,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cloud.bus.ConditionalOnBusEnabled;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 /**
  * Enables caching at the {@link CatalogInfoRepository} level instead of at the {@link Catalog}
@@ -33,6 +38,7 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @EnableCaching
+@Import(CatalogCacheManagerConfiguration.class)
 @ConditionalOnProperty(
     prefix = "geoserver.catalog.caching",
     name = "enabled",
@@ -52,7 +58,23 @@ public class CachingRepositoryConfiguration {
 
     private @Autowired @Qualifier("rawCatalog") Catalog rawCatalog;
 
+    /** The caching repositories, whose cached methods shall all be known to the key generator */
+    static final List<Class<? extends CachingCatalogRepository<?>>> CACHING_REPOSITORY_TYPES =
+            Arrays.asList(
+                    CachingWorkspaceRepository.class,
+                    CachingNamespaceRepository.class,
+                    CachingStoreRepository.class,
+                    CachingResourceRepository.class,
+                    CachingLayerRepository.class,
+                    CachingLayerGroupRepository.class,
+                    CachingStyleRepository.class,
+                    CachingMapRepository.class);
+
     public @PostConstruct void decorateCatalogFacade() {
+        CachingCatalogRepositoryKeyGenerator keyGenerator = cachingCatalogRepositoryKeyGenerator();
+        for (Class<?> type : CACHING_REPOSITORY_TYPES) {
+            keyGenerator.checkSupported(type);
+        }
         CatalogFacade facade = rawCatalog.getFacade();
 
         if (!(facade instanceof AbstractCatalogFacade)) {
@@ -69,6 +91,19 @@ public class CachingRepositoryConfiguration {
         if (maps != null) fc.setMaps(cachingMapRepository());
     }
 
+    @Bean(name = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME)
+    public CachingCatalogRepositoryKeyGenerator cachingCatalogRepositoryKeyGenerator() {
+        return new CachingCatalogRepositoryKeyGenerator();
+    }
+
+    /** Evicts the entries of the objects changed by other nodes of the cluster */
+    @Bean
+    @ConditionalOnBusEnabled
+    public RemoteEventCacheEvictor remoteEventCacheEvictor(
+            @Qualifier(CacheNames.CACHE_MANAGER_BEAN_NAME) CacheManager cacheManager) {
+        return new RemoteEventCacheEvictor(cacheManager, cachingCatalogRepositoryKeyGenerator());
+    }
+
     @ConditionalOnBean(value = WorkspaceRepository.class)
     public @Bean CachingWorkspaceRepository cachingWorkspaceRepository() {
         return new CachingWorkspaceRepository(workspaces);
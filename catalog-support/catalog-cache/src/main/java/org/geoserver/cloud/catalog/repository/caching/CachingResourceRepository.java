@@ -12,7 +12,11 @@ import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.RESOURCE_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.RESOURCE_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingResourceRepository extends CachingCatalogRepository<ResourceInfo>
         implements ResourceRepository {
 
@@ -31,15 +35,18 @@ public class CachingResourceRepository extends CachingCatalogRepository<Resource
         return ((ResourceRepository) subject).findByStoreAndName(store, name, clazz);
     }
 
+    @Cacheable
     public @Override <T extends ResourceInfo> List<T> findAllByType(Class<T> clazz) {
         return ((ResourceRepository) subject).findAllByType(clazz);
     }
 
+    @Cacheable
     public @Override <T extends ResourceInfo> List<T> findAllByNamespace(
             NamespaceInfo ns, Class<T> clazz) {
         return ((ResourceRepository) subject).findAllByNamespace(ns, clazz);
     }
 
+    @Cacheable
     public @Override <T extends ResourceInfo> List<T> findAllByStore(
             StoreInfo store, Class<T> clazz) {
         return ((ResourceRepository) subject).findAllByStore(store, clazz);
@@ -10,10 +10,14 @@ import org.geoserver.catalog.StoreInfo;
 import org.geoserver.catalog.WorkspaceInfo;
 import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.STORE_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.STORE_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingStoreRepository extends CachingCatalogRepository<StoreInfo>
         implements StoreRepository {
 
@@ -21,7 +25,8 @@ public class CachingStoreRepository extends CachingCatalogRepository<StoreInfo>
         super(subject);
     }
 
-    @CachePut
+    /** Evicts the workspace's cached default data store, to be lazily reloaded by the getter */
+    @CacheEvict
     public @Override void setDefaultDataStore(WorkspaceInfo workspace, DataStoreInfo dataStore) {
         ((StoreRepository) subject).setDefaultDataStore(workspace, dataStore);
     }
@@ -40,11 +45,13 @@ public class CachingStoreRepository extends CachingCatalogRepository<StoreInfo>
         return ((StoreRepository) subject).getDefaultDataStores();
     }
 
+    @Cacheable
     public @Override <T extends StoreInfo> List<T> findAllByWorkspace(
             WorkspaceInfo workspace, Class<T> clazz) {
         return ((StoreRepository) subject).findAllByWorkspace(workspace, clazz);
     }
 
+    @Cacheable
     public @Override <T extends StoreInfo> List<T> findAllByType(Class<T> clazz) {
         return ((StoreRepository) subject).findAllByType(clazz);
     }
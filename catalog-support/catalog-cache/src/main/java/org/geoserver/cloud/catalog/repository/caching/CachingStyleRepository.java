@@ -11,7 +11,11 @@ import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.STYLE_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.STYLE_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingStyleRepository extends CachingCatalogRepository<StyleInfo>
         implements StyleRepository {
 
@@ -24,10 +28,12 @@ public class CachingStyleRepository extends CachingCatalogRepository<StyleInfo>
         return ((StyleRepository) subject).findOneByName(name);
     }
 
+    @Cacheable
     public @Override List<StyleInfo> findAllByNullWorkspace() {
         return ((StyleRepository) subject).findAllByNullWorkspace();
     }
 
+    @Cacheable
     public @Override List<StyleInfo> findAllByWorkspace(WorkspaceInfo ws) {
         return ((StyleRepository) subject).findAllByWorkspace(ws);
     }
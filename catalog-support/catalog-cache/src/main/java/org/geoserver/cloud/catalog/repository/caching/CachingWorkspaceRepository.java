@@ -7,10 +7,14 @@ package org.geoserver.cloud.catalog.repository.caching;
 import org.geoserver.catalog.WorkspaceInfo;
 import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
-@CacheConfig(cacheNames = CacheNames.WORKSPACE_CACHE)
+@CacheConfig(
+    cacheNames = CacheNames.WORKSPACE_CACHE,
+    keyGenerator = CacheNames.DEFAULT_KEY_GENERATOR_BEAN_NAME,
+    cacheResolver = CacheNames.CACHE_RESOLVER_BEAN_NAME
+)
 public class CachingWorkspaceRepository extends CachingCatalogRepository<WorkspaceInfo>
         implements WorkspaceRepository {
 
@@ -18,12 +22,13 @@ public class CachingWorkspaceRepository extends CachingCatalogRepository<Workspa
         super(subject);
     }
 
-    @CachePut(key = "defaultWorkspace")
+    /** Evicts the cached default workspace, to be lazily reloaded by the next call to the getter */
+    @CacheEvict(key = "'" + CacheNames.DEFAULT_WORKSPACE_KEY + "'")
     public @Override void setDefaultWorkspace(WorkspaceInfo workspace) {
         ((WorkspaceRepository) subject).setDefaultWorkspace(workspace);
     }
 
-    @Cacheable(key = "defaultWorkspace")
+    @Cacheable(key = "'" + CacheNames.DEFAULT_WORKSPACE_KEY + "'")
     public @Override WorkspaceInfo getDefaultWorkspace() {
         return ((WorkspaceRepository) subject).getDefaultWorkspace();
     }
@@ -0,0 +1,78 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import lombok.NonNull;
+import lombok.Value;
+import org.geoserver.catalog.CatalogInfo;
+
+/**
+ * Typed cache key for the lookups of the {@link CachingCatalogRepository caching repositories},
+ * composed of the kind of lookup, the type of object looked up, and the lookup arguments.
+ *
+ * <p>The type is part of the key because the repositories only return objects of the requested
+ * type, hence a lookup for a {@code DataStoreInfo} by name must not hit an entry cached for a
+ * lookup of any {@code StoreInfo} by the same name, which may be a {@code CoverageStoreInfo}.
+ *
+ * <p>The scope of the list lookups ({@code ALL_BY_*}) is the id of the parent object the results
+ * depend on, if any, so that the {@link CatalogInfoCache} can evict them when the parent changes.
+ *
+ * @see CachingCatalogRepositoryKeyGenerator
+ */
+public @Value class CatalogCacheKey {
+
+    public enum Lookup {
+        /** {@code findById(id, type)}, the value is the id */
+        ID,
+        /**
+         * {@code findByName(name, type)}, the scope is the name's namespace (i.e. the workspace or
+         * namespace id, if any) and the value its local part
+         */
+        NAME,
+        /** {@code findOneByName(name, type)}, the value is the unqualified name */
+        ONE_BY_NAME,
+        /** {@code findByStoreAndName(store, name, type)}, the scope is the store id */
+        STORE_AND_NAME,
+        /** {@code findOneByURI(uri)}, the value is the namespace URI */
+        URI,
+        /** {@code getDefaultDataStore(workspace)}, the value is the workspace id */
+        DEFAULT,
+        /** {@code findAll()} and {@code findAllByType(type)} */
+        ALL_BY_TYPE,
+        /**
+         * {@code findAllByWorkspace(workspace[, type])}, the scope is the workspace id, {@code
+         * null} for {@code findAllByWorkspaceIsNull()} and {@code findAllByNullWorkspace()}
+         */
+        ALL_BY_WORKSPACE,
+        /** {@code findAllByNamespace(namespace, type)}, the scope is the namespace id */
+        ALL_BY_NAMESPACE,
+        /** {@code findAllByStore(store, type)}, the scope is the store id */
+        ALL_BY_STORE,
+        /** {@code findAllByResource(resource)}, the scope is the resource id */
+        ALL_BY_RESOURCE,
+        /** {@code findAllByDefaultStyleOrStyles(style)}, the scope is the style id */
+        ALL_BY_STYLE,
+        /** {@code findAllByURI(uri)}, the value is the namespace URI */
+        ALL_BY_URI
+    }
+
+    private @NonNull Lookup lookup;
+
+    private @NonNull Class<? extends CatalogInfo> type;
+
+    private String scope;
+
+    private String value;
+
+    public static CatalogCacheKey of(
+            Lookup lookup, Class<? extends CatalogInfo> type, String scope, String value) {
+        return new CatalogCacheKey(lookup, type, scope, value);
+    }
+
+    public static CatalogCacheKey of(
+            Lookup lookup, Class<? extends CatalogInfo> type, String value) {
+        return new CatalogCacheKey(lookup, type, null, value);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.LayerInfo;
+
+/**
+ * Index of the keys each {@link CatalogInfo} is cached under in a {@link CatalogInfoCache}, by id,
+ * installed as the {@link CacheWriter} of the native Caffeine cache.
+ *
+ * <p>Caffeine calls the writer synchronously, and atomically with respect to other writes of the
+ * same key, whenever an entry is put or removed for any reason, including expiration and size
+ * eviction. Hence the index only holds the keys of the entries actually present in the cache, and
+ * is bounded by the cache size.
+ *
+ * <p>Caffeine doesn't call the writer for the values computed by a loader, the {@link
+ * CatalogCacheLoader} only refreshes objects, which keep their id.
+ */
+class CatalogCacheKeyTracker implements CacheWriter<Object, Object> {
+
+    private final ConcurrentMap<String, Set<Object>> keysById = new ConcurrentHashMap<>();
+
+    /** The ids each key is tracked for, to untrack it when it's removed or overwritten */
+    private final ConcurrentMap<Object, Set<String>> idsByKey = new ConcurrentHashMap<>();
+
+    /** The keys of the list query results, to evict them without scanning the cache */
+    private final Set<Object> listKeys = ConcurrentHashMap.newKeySet();
+
+    public @Override void write(@NonNull Object key, @NonNull Object value) {
+        final Set<String> ids = idsOf(key, value);
+        final Set<String> previous =
+                ids.isEmpty() ? idsByKey.remove(key) : idsByKey.put(key, ids);
+        if (previous != null) {
+            for (String id : previous) {
+                if (!ids.contains(id)) {
+                    untrack(key, id);
+                }
+            }
+        }
+        for (String id : ids) {
+            track(key, id);
+        }
+        if (value instanceof List) {
+            listKeys.add(key);
+        } else {
+            listKeys.remove(key);
+        }
+    }
+
+    public @Override void delete(
+            @NonNull Object key, @Nullable Object value, @NonNull RemovalCause cause) {
+        Set<String> ids = idsByKey.remove(key);
+        if (ids != null) {
+            for (String id : ids) {
+                untrack(key, id);
+            }
+        }
+        listKeys.remove(key);
+    }
+
+    /** @return the keys tracked for the given id, an empty set if none */
+    public Set<Object> keysOf(@NonNull String id) {
+        Set<Object> keys = keysById.get(id);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Stops tracking the keys of the given id, for the caller to evict them, which untracks them
+     * for the other ids
+     *
+     * @return the keys tracked for {@code id}, or {@code null} if none
+     */
+    public @Nullable Set<Object> remove(@NonNull String id) {
+        return keysById.remove(id);
+    }
+
+    /** @return the keys of the cached list query results */
+    public Set<Object> listKeys() {
+        return Collections.unmodifiableSet(listKeys);
+    }
+
+    public void clear() {
+        keysById.clear();
+        idsByKey.clear();
+        listKeys.clear();
+    }
+
+    /**
+     * @return the ids to track {@code key} for: the id of a cached object, plus the id of its
+     *     resource for a layer, since renaming the resource renames the layer; and the ids of the
+     *     objects a list holds plus the id of the parent object the list query is scoped by
+     */
+    private static Set<String> idsOf(Object key, Object value) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (value instanceof CatalogInfo) {
+            add(ids, (CatalogInfo) value);
+            if (value instanceof LayerInfo) {
+                add(ids, ((LayerInfo) value).getResource());
+            }
+        } else if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (element instanceof CatalogInfo) {
+                    add(ids, (CatalogInfo) element);
+                }
+            }
+            if (key instanceof CatalogCacheKey && ((CatalogCacheKey) key).getScope() != null) {
+                ids.add(((CatalogCacheKey) key).getScope());
+            }
+        }
+        return ids;
+    }
+
+    private static void add(Set<String> ids, @Nullable CatalogInfo info) {
+        if (info != null && info.getId() != null) {
+            ids.add(info.getId());
+        }
+    }
+
+    private void track(Object key, String id) {
+        keysById.compute(
+                id,
+                (i, keys) -> {
+                    Set<Object> set = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                    set.add(key);
+                    return set;
+                });
+    }
+
+    private void untrack(Object key, String id) {
+        keysById.computeIfPresent(
+                id,
+                (i, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+    }
+}
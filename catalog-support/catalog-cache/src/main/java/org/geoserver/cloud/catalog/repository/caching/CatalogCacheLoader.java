@@ -0,0 +1,52 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.geoserver.catalog.CatalogInfo;
+
+/**
+ * {@link CacheLoader} for caches configured with {@code refresh-after-write}, reloading the cached
+ * {@link CatalogInfo} values from the {@link CachingCatalogRepository#reload repository}.
+ *
+ * <p>Cache misses are not loaded, returning {@code null} lets the {@code @Cacheable} repository
+ * method be called and its result cached as usual. Entries whose value can't be reloaded (e.g.
+ * the results of list queries) are dropped when due for refresh, to be lazily loaded again.
+ */
+@Slf4j
+class CatalogCacheLoader implements CacheLoader<Object, Object> {
+
+    private final String cacheName;
+
+    private final Supplier<CachingCatalogRepository<?>> repository;
+
+    /**
+     * @param repository supplies the repository the cache belongs to, resolved lazily since the
+     *     repositories depend on the cache manager
+     */
+    CatalogCacheLoader(
+            @NonNull String cacheName, @NonNull Supplier<CachingCatalogRepository<?>> repository) {
+        this.cacheName = cacheName;
+        this.repository = repository;
+    }
+
+    public @Override Object load(Object key) {
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public @Override Object reload(Object key, Object oldValue) {
+        CachingCatalogRepository repo = repository.get();
+        if (repo == null || !(oldValue instanceof CatalogInfo)) {
+            return null;
+        }
+        Object current = repo.reload((CatalogInfo) oldValue);
+        log.trace("Refreshed {} on cache {}: {}", key, cacheName, current);
+        return current;
+    }
+}
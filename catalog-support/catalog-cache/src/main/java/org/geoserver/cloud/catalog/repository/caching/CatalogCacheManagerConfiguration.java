@@ -0,0 +1,223 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheProperties.CacheSpec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sets up the bounded, instrumented {@link Caffeine} caches for the {@link CacheNames catalog
+ * caches}, as configured through the {@link CatalogCacheProperties geoserver.catalog.caching.*}
+ * properties, instead of relying on whatever {@link CacheManager} Spring Boot picks, which is
+ * usually an unbounded {@code ConcurrentMapCacheManager}.
+ *
+ * <p>The catalog caches are {@link CatalogInfoCache}s, which track the keys each object is cached
+ * under to evict them all when it changes.
+ *
+ * <p>The caches record their hit, miss, and eviction statistics unless {@code record-stats: false}.
+ * Spring Boot's actuator publishes them to Micrometer as it does for any {@link CacheManager}; if
+ * it's not on the classpath, a {@link MeterBinder} is contributed to do so.
+ */
+@Configuration
+@Slf4j
+public class CatalogCacheManagerConfiguration {
+
+    static final List<String> CACHE_NAMES =
+            Arrays.asList(
+                    CacheNames.WORKSPACE_CACHE,
+                    CacheNames.NAMESPACE_CACHE,
+                    CacheNames.STORE_CACHE,
+                    CacheNames.RESOURCE_CACHE,
+                    CacheNames.LAYER_CACHE,
+                    CacheNames.LAYER_GROUP_CACHE,
+                    CacheNames.STYLE_CACHE,
+                    CacheNames.MAP_CACHE);
+
+    @ConfigurationProperties(prefix = "geoserver.catalog.caching")
+    public @Bean CatalogCacheProperties catalogCacheProperties() {
+        return new CatalogCacheProperties();
+    }
+
+    /**
+     * Caches other than the {@link CacheNames catalog caches} are still created on demand and
+     * unbounded, since defining this bean disables Spring Boot's cache manager auto-configuration
+     */
+    @Bean(name = CacheNames.CACHE_MANAGER_BEAN_NAME)
+    public CaffeineCacheManager catalogCacheManager(
+            ObjectProvider<CachingCatalogRepository<?>> repositories) {
+        Function<String, CachingCatalogRepository<?>> repositoryLookup =
+                cacheName ->
+                        repositories
+                                .orderedStream()
+                                .filter(r -> cacheName.equals(r.cacheName()))
+                                .findFirst()
+                                .orElse(null);
+        return createCacheManager(catalogCacheProperties(), repositoryLookup);
+    }
+
+    @Bean(name = CacheNames.CACHE_RESOLVER_BEAN_NAME)
+    public CatalogCacheResolver catalogCacheResolver(
+            @Qualifier(CacheNames.CACHE_MANAGER_BEAN_NAME) CacheManager cacheManager) {
+        return new CatalogCacheResolver(cacheManager);
+    }
+
+    static CaffeineCacheManager createCacheManager(
+            CatalogCacheProperties config,
+            Function<String, CachingCatalogRepository<?>> repositoryLookup) {
+        final Map<String, Cache<Object, Boolean>> misses = new HashMap<>();
+        final Map<String, CatalogCacheKeyTracker> keys = new HashMap<>();
+        CaffeineCacheManager cacheManager =
+                new CaffeineCacheManager() {
+                    protected @Override org.springframework.cache.Cache adaptCaffeineCache(
+                            String name, Cache<Object, Object> cache) {
+                        return CACHE_NAMES.contains(name)
+                                ? new CatalogInfoCache(
+                                        name,
+                                        cache,
+                                        isAllowNullValues(),
+                                        misses.get(name),
+                                        keys.get(name))
+                                : super.adaptCaffeineCache(name, cache);
+                    }
+                };
+        for (String cacheName : CACHE_NAMES) {
+            CacheSpec spec = config.spec(cacheName);
+            Supplier<CachingCatalogRepository<?>> repository =
+                    () -> repositoryLookup.apply(cacheName);
+            CatalogCacheKeyTracker tracker = new CatalogCacheKeyTracker();
+            keys.put(cacheName, tracker);
+            Cache<Object, Object> cache = createCache(cacheName, spec, repository, tracker);
+            if (spec.negativeCachingEnabled()) {
+                misses.put(cacheName, createMissesCache(spec));
+            }
+            cacheManager.registerCustomCache(cacheName, cache);
+        }
+        return cacheManager;
+    }
+
+    /**
+     * @return the cache for the lookups that found nothing, expiring after the spec's negative TTL,
+     *     see {@link CatalogInfoCache}
+     */
+    static Cache<Object, Boolean> createMissesCache(CacheSpec spec) {
+        Caffeine<Object, Object> builder =
+                Caffeine.newBuilder().expireAfterWrite(spec.getNegativeTtl());
+        if (spec.getNegativeMaximumSize() != null) {
+            builder.maximumSize(spec.getNegativeMaximumSize());
+        }
+        if (Boolean.TRUE.equals(spec.getRecordStats())) {
+            builder.recordStats();
+        }
+        return builder.build();
+    }
+
+    /** @param keys the writer that tracks the keys of each object, see {@link CatalogInfoCache} */
+    static Cache<Object, Object> createCache(
+            String cacheName,
+            CacheSpec spec,
+            Supplier<CachingCatalogRepository<?>> repository,
+            CatalogCacheKeyTracker keys) {
+        log.info("Configuring catalog cache {}: {}", cacheName, spec);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().writer(keys);
+        if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getValues() != null) {
+            switch (spec.getValues()) {
+                case SOFT:
+                    builder.softValues();
+                    break;
+                case WEAK:
+                    builder.weakValues();
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (Boolean.TRUE.equals(spec.getRecordStats())) {
+            builder.recordStats();
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+            return builder.build(new CatalogCacheLoader(cacheName, repository));
+        }
+        return builder.build();
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnMissingClass(
+        "org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar"
+    )
+    static class CatalogCacheMetricsConfiguration {
+
+        /** Publishes the catalog caches statistics with the same tags as the actuator would */
+        public @Bean MeterBinder catalogCacheMetrics(
+                @Qualifier(CacheNames.CACHE_MANAGER_BEAN_NAME) CaffeineCacheManager cacheManager) {
+            return registry ->
+                    CACHE_NAMES.forEach(
+                            name -> {
+                                org.springframework.cache.Cache cache = cacheManager.getCache(name);
+                                @SuppressWarnings("unchecked")
+                                Cache<Object, Object> nativeCache =
+                                        (Cache<Object, Object>) cache.getNativeCache();
+                                Tags tags = Tags.of("cacheManager", "catalog");
+                                CaffeineCacheMetrics.monitor(registry, nativeCache, name, tags);
+                            });
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterBinder.class)
+    static class CatalogNegativeCacheMetricsConfiguration {
+
+        /**
+         * Publishes the statistics of the caches of lookups that found nothing, as caches named
+         * after the catalog cache with a {@code .misses} suffix
+         */
+        public @Bean MeterBinder catalogNegativeCacheMetrics(
+                @Qualifier(CacheNames.CACHE_MANAGER_BEAN_NAME) CaffeineCacheManager cacheManager) {
+            return registry ->
+                    CACHE_NAMES.forEach(
+                            name -> {
+                                org.springframework.cache.Cache cache = cacheManager.getCache(name);
+                                if (cache instanceof CatalogInfoCache
+                                        && ((CatalogInfoCache) cache).getMisses() != null) {
+                                    Cache<Object, Boolean> misses =
+                                            ((CatalogInfoCache) cache).getMisses();
+                                    Tags tags = Tags.of("cacheManager", "catalog");
+                                    CaffeineCacheMetrics.monitor(
+                                            registry, misses, name + ".misses", tags);
+                                }
+                            });
+        }
+    }
+}
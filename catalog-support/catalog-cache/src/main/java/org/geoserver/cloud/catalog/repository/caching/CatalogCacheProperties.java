@@ -0,0 +1,117 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+
+/**
+ * Configuration properties for the catalog caches, bound to {@code geoserver.catalog.caching.*}.
+ * For example:
+ *
+ * <pre>{@code
+ * geoserver.catalog.caching:
+ *   enabled: true
+ *   defaults:
+ *     maximum-size: 10000
+ *     expire-after-access: 1h
+ *   caches:
+ *     LayerInfo:
+ *       maximum-size: 50000
+ *       refresh-after-write: 5m
+ *       negative-ttl: 30s
+ *     StyleInfo:
+ *       values: soft
+ * }</pre>
+ *
+ * The keys of {@link #getCaches() caches} are the names in {@link CacheNames}, and any setting
+ * missing from a cache's spec is taken from the {@link #getDefaults() defaults}.
+ */
+public @Data class CatalogCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Settings applied to all the caches unless overridden in {@link #getCaches()} */
+    private CacheSpec defaults = CacheSpec.defaults();
+
+    /** Per cache overrides of the {@link #getDefaults() defaults}, keyed by cache name */
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    /** @return the spec for the given cache, with the missing settings taken from the defaults */
+    public CacheSpec spec(String cacheName) {
+        CacheSpec spec = caches.get(cacheName);
+        return spec == null ? defaults : spec.withDefaults(defaults);
+    }
+
+    public enum ValueStrength {
+        STRONG,
+        /** Let the garbage collector reclaim the values in response to memory demand */
+        SOFT,
+        /** Let the garbage collector reclaim the values as soon as they're not used elsewhere */
+        WEAK
+    }
+
+    /** Eviction and expiration settings of a cache, {@code null} meaning unset */
+    public static @Data class CacheSpec {
+        /** Maximum number of entries, least recently or frequently used ones evicted first */
+        private Long maximumSize;
+        /** Evict entries once this time elapsed since they were last read or written */
+        private Duration expireAfterAccess;
+        /** Evict entries once this time elapsed since they were written */
+        private Duration expireAfterWrite;
+        /**
+         * Reload entries from the repository upon the first access once this time elapsed since
+         * they were written, serving the current value while reloading
+         */
+        private Duration refreshAfterWrite;
+
+        private ValueStrength values;
+        /**
+         * How long to remember lookups that found nothing, so that requests for non existing
+         * objects don't hit the backend every time. Adding the object, locally or on another
+         * node, forgets them right away. Zero or negative to disable.
+         */
+        private Duration negativeTtl;
+        /** Maximum number of lookups that found nothing to remember */
+        private Long negativeMaximumSize;
+        /** Whether to record the hit, miss, and eviction statistics published to Micrometer */
+        private Boolean recordStats;
+
+        static CacheSpec defaults() {
+            CacheSpec spec = new CacheSpec();
+            spec.setMaximumSize(10_000L);
+            spec.setValues(ValueStrength.STRONG);
+            spec.setNegativeTtl(Duration.ofSeconds(10));
+            spec.setNegativeMaximumSize(1_000L);
+            spec.setRecordStats(true);
+            return spec;
+        }
+
+        /** @return whether lookups that found nothing are to be remembered */
+        public boolean negativeCachingEnabled() {
+            return negativeTtl != null && !negativeTtl.isZero() && !negativeTtl.isNegative();
+        }
+
+        /** @return a copy of this spec with its unset settings taken from {@code defaults} */
+        public CacheSpec withDefaults(CacheSpec defaults) {
+            CacheSpec spec = new CacheSpec();
+            spec.setMaximumSize(or(maximumSize, defaults.getMaximumSize()));
+            spec.setExpireAfterAccess(or(expireAfterAccess, defaults.getExpireAfterAccess()));
+            spec.setExpireAfterWrite(or(expireAfterWrite, defaults.getExpireAfterWrite()));
+            spec.setRefreshAfterWrite(or(refreshAfterWrite, defaults.getRefreshAfterWrite()));
+            spec.setValues(or(values, defaults.getValues()));
+            spec.setNegativeTtl(or(negativeTtl, defaults.getNegativeTtl()));
+            spec.setNegativeMaximumSize(or(negativeMaximumSize, defaults.getNegativeMaximumSize()));
+            spec.setRecordStats(or(recordStats, defaults.getRecordStats()));
+            return spec;
+        }
+
+        private static <T> T or(T value, T defaultValue) {
+            return value == null ? defaultValue : value;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheEvictOperation;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+
+/**
+ * Resolves the caches of the {@link CachingCatalogRepository caching repositories} from the
+ * catalog {@link CacheManager}.
+ *
+ * <p>Spring only applies the {@code @CacheConfig} cache names of the class declaring the annotated
+ * method, so the operations inherited from {@link CachingCatalogRepository} don't get the cache
+ * name declared by each subclass. For those, the cache is resolved from the target repository's
+ * {@link CachingCatalogRepository#cacheName()}.
+ *
+ * <p>Evictions also apply to the {@link #dependentCaches(String) caches} holding list queries
+ * scoped by the objects of the evicted cache, like the resources of a namespace, so that changing
+ * or removing a parent object evicts the lists depending on it. Evictions of all entries, upon bulk
+ * operations larger than {@link CachingCatalogRepository#BATCH_EVICTION_THRESHOLD}, clear the
+ * dependent caches as well.
+ */
+public class CatalogCacheResolver implements CacheResolver {
+
+    private final CacheManager cacheManager;
+
+    public CatalogCacheResolver(@NonNull CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public @Override Collection<? extends Cache> resolveCaches(
+            CacheOperationInvocationContext<?> context) {
+        Set<String> names = context.getOperation().getCacheNames();
+        if (names.isEmpty() && context.getTarget() instanceof CachingCatalogRepository) {
+            CachingCatalogRepository<?> target = (CachingCatalogRepository<?>) context.getTarget();
+            names = Collections.singleton(target.cacheName());
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("No cache name resolved for " + context.getOperation());
+        }
+        if (context.getOperation() instanceof CacheEvictOperation) {
+            Set<String> withDependents = new LinkedHashSet<>(names);
+            for (String name : names) {
+                withDependents.addAll(dependentCaches(name));
+            }
+            names = withDependents;
+        }
+        return names.stream().map(this::getCache).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the names of the caches holding list queries scoped by the objects of the given
+     *     cache, e.g. the stores, layer groups, and styles of a workspace
+     */
+    static Set<String> dependentCaches(String cacheName) {
+        switch (cacheName) {
+            case CacheNames.WORKSPACE_CACHE:
+                return setOf(
+                        CacheNames.STORE_CACHE,
+                        CacheNames.LAYER_GROUP_CACHE,
+                        CacheNames.STYLE_CACHE);
+            case CacheNames.NAMESPACE_CACHE:
+            case CacheNames.STORE_CACHE:
+                return setOf(CacheNames.RESOURCE_CACHE);
+            case CacheNames.RESOURCE_CACHE:
+            case CacheNames.STYLE_CACHE:
+                return setOf(CacheNames.LAYER_CACHE);
+            default:
+                return Collections.emptySet();
+        }
+    }
+
+    private static Set<String> setOf(String... names) {
+        return new LinkedHashSet<>(Arrays.asList(names));
+    }
+
+    private Cache getCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache " + name + " not found");
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import java.util.List;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Key the {@link CachingCatalogRepository caching repositories} evict when a batch of objects is
+ * added, replaced, or removed, evicting the {@link CatalogInfoEvictionKey eviction key} of each
+ * object in the batch.
+ */
+public @Value class CatalogInfoBatchEvictionKey {
+
+    private @NonNull List<CatalogInfoEvictionKey> keys;
+}
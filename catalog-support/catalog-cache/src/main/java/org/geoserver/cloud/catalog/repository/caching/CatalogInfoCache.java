@@ -0,0 +1,236 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+
+/**
+ * {@link CaffeineCache} for the {@link CacheNames catalog caches} that keeps track of the keys each
+ * {@link CatalogInfo} is cached under, by id, so that all of them can be evicted when the object
+ * changes, even if it's been renamed or moved to another workspace or namespace and hence its
+ * current state no longer tells the keys it was cached under.
+ *
+ * <p>Evicting a {@link CatalogInfoEvictionKey} evicts all the keys tracked for its id, plus its
+ * keys for the object's new state, which may hold a different object (e.g. the first match of a
+ * {@code findOneByName} lookup).
+ *
+ * <p>Layers are also tracked for the id of their resource, since a layer is named after its
+ * resource and renaming the resource renames the layer, so that evicting the resource from the
+ * {@link CatalogCacheResolver#dependentCaches dependent} layer cache evicts the layer's old names.
+ *
+ * <p>The keys are tracked by a {@link CatalogCacheKeyTracker} installed as the native cache's
+ * writer, which untracks them as soon as their entry is removed, including when it expires or is
+ * evicted by size, so the index is bounded by the cache size. Use {@link #create} to set it up.
+ *
+ * <p>Lookups that found nothing are remembered in a separate, short lived, {@link #getMisses()
+ * misses} cache, if given, so they neither take up room in the main cache nor outlive their TTL.
+ * Evicting a key evicts its miss too, hence adding an object forgets the misses for its id and
+ * names right away. A miss computed concurrently with the addition of the matching object may still
+ * be remembered until it expires.
+ *
+ * <p>The results of list queries are tracked for the ids of the objects they hold and for the id
+ * of the parent object they're scoped by (i.e. the {@link CatalogCacheKey#getScope() scope} of
+ * their key, like the namespace of {@code findAllByNamespace}), so evicting any of them evicts the
+ * list. The keys of the lists are kept apart, so {@link #clearLists()} doesn't scan the cache.
+ * Lists are cached as unmodifiable copies and each lookup gets its own copy, so callers
+ * can't alter the cached results.
+ */
+public class CatalogInfoCache extends CaffeineCache {
+
+    private final CatalogCacheKeyTracker keys;
+
+    private final Cache<Object, Boolean> misses;
+
+    /**
+     * @param cache the native cache, whose writer shall be {@code keys}
+     * @param misses the cache to remember lookups that found nothing, {@code null} to not
+     */
+    CatalogInfoCache(
+            @NonNull String name,
+            @NonNull Cache<Object, Object> cache,
+            boolean allowNullValues,
+            @Nullable Cache<Object, Boolean> misses,
+            @NonNull CatalogCacheKeyTracker keys) {
+        super(name, cache, allowNullValues);
+        this.misses = misses;
+        this.keys = keys;
+    }
+
+    /**
+     * Creates a catalog cache whose native cache is built from {@code builder}, with the writer
+     * that tracks the keys of each object
+     *
+     * @param misses the cache to remember lookups that found nothing, {@code null} to not
+     */
+    public static CatalogInfoCache create(
+            @NonNull String name,
+            @NonNull Caffeine<Object, Object> builder,
+            boolean allowNullValues,
+            @Nullable Cache<Object, Boolean> misses) {
+        CatalogCacheKeyTracker keys = new CatalogCacheKeyTracker();
+        Cache<Object, Object> cache = builder.writer(keys).build();
+        return new CatalogInfoCache(name, cache, allowNullValues, misses, keys);
+    }
+
+    /** @return the index of the keys cached for each object id */
+    CatalogCacheKeyTracker getKeys() {
+        return keys;
+    }
+
+    /** @return the cache of lookups that found nothing, or {@code null} if they're not cached */
+    public @Nullable Cache<Object, Boolean> getMisses() {
+        return misses;
+    }
+
+    protected @Override Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value == null && misses != null && misses.getIfPresent(key) != null) {
+            return NullValue.INSTANCE;
+        }
+        return value;
+    }
+
+    public @Override void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            putMiss(key);
+            return;
+        }
+        super.put(key, value);
+    }
+
+    public @Override ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        if (value == null) {
+            ValueWrapper existing = get(key);
+            if (existing == null) {
+                putMiss(key);
+            }
+            return existing;
+        }
+        // unlike super.putIfAbsent(), which computes the value, goes through the cache writer
+        Object existing = getNativeCache().asMap().putIfAbsent(key, toStoreValue(value));
+        return existing == null ? null : toValueWrapper(existing);
+    }
+
+    public @Override void evict(Object key) {
+        if (key instanceof CatalogInfoEvictionKey) {
+            evictObject((CatalogInfoEvictionKey) key);
+        } else if (key instanceof CatalogInfoBatchEvictionKey) {
+            evictObjects((CatalogInfoBatchEvictionKey) key);
+        } else {
+            evictMiss(key);
+            super.evict(key);
+        }
+    }
+
+    public @Override boolean evictIfPresent(Object key) {
+        if (key instanceof CatalogInfoEvictionKey) {
+            return evictObject((CatalogInfoEvictionKey) key);
+        }
+        if (key instanceof CatalogInfoBatchEvictionKey) {
+            return evictObjects((CatalogInfoBatchEvictionKey) key);
+        }
+        return evictMiss(key) | super.evictIfPresent(key);
+    }
+
+    public @Override void clear() {
+        keys.clear();
+        clearMisses();
+        super.clear();
+    }
+
+    public @Override boolean invalidate() {
+        keys.clear();
+        clearMisses();
+        return super.invalidate();
+    }
+
+    /**
+     * Forgets all the lookups that found nothing, for when an object was added or modified but its
+     * keys are unknown
+     */
+    public void clearMisses() {
+        if (misses != null) {
+            misses.invalidateAll();
+        }
+    }
+
+    /**
+     * Evicts the results of all list queries, for when an object was added or modified but its
+     * keys are unknown
+     */
+    public void clearLists() {
+        for (Object key : keys.listKeys()) {
+            super.evictIfPresent(key);
+        }
+    }
+
+    protected @Override Object toStoreValue(@Nullable Object userValue) {
+        if (userValue instanceof List) {
+            return Collections.unmodifiableList(new ArrayList<>((List<?>) userValue));
+        }
+        return super.toStoreValue(userValue);
+    }
+
+    protected @Override Object fromStoreValue(@Nullable Object storeValue) {
+        if (storeValue instanceof List) {
+            return new ArrayList<>((List<?>) storeValue);
+        }
+        return super.fromStoreValue(storeValue);
+    }
+
+    /**
+     * Evicts all the entries cached for the object with the given id, including the lists holding
+     * it or scoped by it
+     *
+     * @return whether any entry was evicted
+     */
+    public boolean evictObject(@NonNull String id) {
+        Set<Object> tracked = keys.remove(id);
+        boolean evicted = false;
+        if (tracked != null) {
+            for (Object key : tracked) {
+                evicted |= super.evictIfPresent(key);
+            }
+        }
+        return evicted;
+    }
+
+    private boolean evictObject(CatalogInfoEvictionKey key) {
+        boolean evicted = evictObject(key.getId());
+        for (CatalogCacheKey k : key.getKeys()) {
+            evicted |= evictMiss(k);
+            evicted |= super.evictIfPresent(k);
+        }
+        return evicted;
+    }
+
+    private boolean evictObjects(CatalogInfoBatchEvictionKey batch) {
+        boolean evicted = false;
+        for (CatalogInfoEvictionKey key : batch.getKeys()) {
+            evicted |= evictObject(key);
+        }
+        return evicted;
+    }
+
+    private void putMiss(Object key) {
+        if (misses != null) {
+            misses.put(key, Boolean.TRUE);
+        }
+    }
+
+    private boolean evictMiss(Object key) {
+        return misses != null && misses.asMap().remove(key) != null;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import java.util.Set;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Key the {@link CachingCatalogRepository caching repositories} evict when an object is added,
+ * updated, or removed, standing for all the entries related to it: the ones cached for its current
+ * {@link #getKeys() keys}, and the ones a {@link CatalogInfoCache} cached for its {@link #getId()
+ * id}, whatever its names were at the time.
+ */
+public @Value class CatalogInfoEvictionKey {
+
+    private @NonNull String id;
+
+    /** The keys the object's new state may be cached under */
+    private @NonNull Set<CatalogCacheKey> keys;
+}
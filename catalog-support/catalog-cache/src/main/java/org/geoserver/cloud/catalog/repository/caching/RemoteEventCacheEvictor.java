@@ -0,0 +1,203 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.cloud.bus.event.RemoteInfoEvent;
+import org.geoserver.cloud.bus.event.catalog.RemoteCatalogAddEvent;
+import org.geoserver.cloud.bus.event.catalog.RemoteCatalogModifyEvent;
+import org.geoserver.cloud.bus.event.catalog.RemoteCatalogRemoveEvent;
+import org.geoserver.cloud.event.ConfigInfoInfoType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cloud.bus.ServiceMatcher;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Keeps the caches of the {@link CachingCatalogRepository caching repositories} coherent across the
+ * cluster, evicting the entries of the objects added, modified, or removed by other nodes, which
+ * the caching repositories only evict for local changes.
+ *
+ * <p>The evicted keys are all the ones the object was cached under, as tracked by the {@link
+ * CatalogInfoCache} for its id, and all the ones its new state may be cached under (see {@link
+ * CachingCatalogRepositoryKeyGenerator#keysOf}), if sent in the event payload with {@code
+ * geoserver.bus.send-object=true}. That includes the remembered lookups that found nothing and
+ * match the added or modified object, and the list queries it belongs to. Without the payload
+ * (the default for the writer services), the new state of an added or modified object is looked up
+ * by id from the backend, {@link CachingCatalogRepository#findByIdUncached bypassing the cache}.
+ * Only if it can't be found, e.g. because it's been removed since, all the misses and lists of its
+ * type are forgotten. The list queries scoped by the object (see {@link
+ * CatalogCacheResolver#dependentCaches}) are evicted too. Changes to the catalog's default
+ * workspace or namespace evict the cached defaults.
+ */
+@Slf4j(topic = "org.geoserver.cloud.bus.incoming.caching")
+public class RemoteEventCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    private final CachingCatalogRepositoryKeyGenerator keyGenerator;
+
+    private @Autowired ServiceMatcher busServiceMatcher;
+
+    private @Autowired ObjectProvider<CachingCatalogRepository<?>> repositories;
+
+    public RemoteEventCacheEvictor(
+            @NonNull CacheManager cacheManager,
+            @NonNull CachingCatalogRepositoryKeyGenerator keyGenerator) {
+        this.cacheManager = cacheManager;
+        this.keyGenerator = keyGenerator;
+    }
+
+    /** Forgets the lookups that found nothing and may now match the added object */
+    @EventListener(RemoteCatalogAddEvent.class)
+    public void onRemoteAddEvent(RemoteCatalogAddEvent event) {
+        evict(event);
+    }
+
+    @EventListener(RemoteCatalogModifyEvent.class)
+    public void onRemoteModifyEvent(RemoteCatalogModifyEvent event) {
+        evict(event);
+    }
+
+    @EventListener(RemoteCatalogRemoveEvent.class)
+    public void onRemoteRemoveEvent(RemoteCatalogRemoveEvent event) {
+        evict(event);
+    }
+
+    private void evict(RemoteInfoEvent<Catalog, CatalogInfo> event) {
+        if (busServiceMatcher.isFromSelf(event)) {
+            log.trace("Ignoring event from self: {}", event);
+            return;
+        }
+        final ConfigInfoInfoType infoType = event.getInfoType();
+        if (ConfigInfoInfoType.Catalog.equals(infoType)) {
+            evictDefaults(event);
+            return;
+        }
+        final Cache cache = cacheFor(infoType);
+        if (cache == null) {
+            log.trace("No cache for objects of type {}", infoType);
+            return;
+        }
+        final boolean removed = event instanceof RemoteCatalogRemoveEvent;
+        Optional<CatalogInfo> state = event.object();
+        if (!state.isPresent() && !removed) {
+            state = Optional.ofNullable(currentState(cache.getName(), event));
+        }
+        Set<CatalogCacheKey> keys =
+                state.isPresent() ? keyGenerator.keysOf(state.get()) : Collections.emptySet();
+        CatalogInfoEvictionKey key = new CatalogInfoEvictionKey(event.getObjectId(), keys);
+        evict(cache, key, event);
+        for (String dependent : CatalogCacheResolver.dependentCaches(cache.getName())) {
+            Cache dependentCache = cacheManager.getCache(dependent);
+            if (dependentCache != null) {
+                evict(dependentCache, key, event);
+            }
+        }
+        if (cache instanceof CatalogInfoCache && !state.isPresent() && !removed) {
+            // can't tell which misses and lists the added or modified object matches now
+            log.debug("{} not found, clearing the misses and lists of {}", key, cache.getName());
+            ((CatalogInfoCache) cache).clearMisses();
+            ((CatalogInfoCache) cache).clearLists();
+        }
+    }
+
+    /**
+     * @return the current state of the event's object as found by the caching repository of the
+     *     given cache bypassing the cache, or {@code null} if not found
+     */
+    @SuppressWarnings("unchecked")
+    private CatalogInfo currentState(
+            String cacheName, RemoteInfoEvent<Catalog, CatalogInfo> event) {
+        CachingCatalogRepository<CatalogInfo> repository =
+                (CachingCatalogRepository<CatalogInfo>)
+                        repositories
+                                .orderedStream()
+                                .filter(r -> cacheName.equals(r.cacheName()))
+                                .findFirst()
+                                .orElse(null);
+        if (repository == null) {
+            return null;
+        }
+        Class<? extends CatalogInfo> type =
+                (Class<? extends CatalogInfo>) event.getInfoType().getType();
+        return repository.findByIdUncached(event.getObjectId(), type);
+    }
+
+    /**
+     * Evicts the entries tracked for the object's id and the ones for its new state, if known, or
+     * clears caches that don't track keys by id
+     */
+    private void evict(
+            Cache cache, CatalogInfoEvictionKey key, RemoteInfoEvent<Catalog, CatalogInfo> event) {
+        if (cache instanceof CatalogInfoCache) {
+            log.debug("Evicting {} from {} upon {}", key, cache.getName(), event);
+            cache.evict(key);
+        } else {
+            log.debug("Clearing {} upon {}, it doesn't track keys by id", cache.getName(), event);
+            cache.clear();
+        }
+    }
+
+    /**
+     * The catalog itself is modified when the default workspace or namespace change, there's no
+     * need to look at the diff since evicting them is cheap
+     */
+    private void evictDefaults(RemoteInfoEvent<Catalog, CatalogInfo> event) {
+        log.debug("Evicting default workspace and namespace upon {}", event);
+        evict(CacheNames.WORKSPACE_CACHE, CacheNames.DEFAULT_WORKSPACE_KEY);
+        evict(CacheNames.NAMESPACE_CACHE, CacheNames.DEFAULT_NAMESPACE_KEY);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private Cache cacheFor(ConfigInfoInfoType infoType) {
+        String cacheName = cacheName(infoType);
+        return cacheName == null ? null : cacheManager.getCache(cacheName);
+    }
+
+    /** @return the name of the cache for objects of the given type, {@code null} if not cached */
+    static String cacheName(ConfigInfoInfoType infoType) {
+        switch (infoType) {
+            case WorkspaceInfo:
+                return CacheNames.WORKSPACE_CACHE;
+            case NamespaceInfo:
+                return CacheNames.NAMESPACE_CACHE;
+            case CoverageStoreInfo:
+            case DataStoreInfo:
+            case WmsStoreInfo:
+            case WmtsStoreInfo:
+                return CacheNames.STORE_CACHE;
+            case FeatureTypeInfo:
+            case CoverageInfo:
+            case WmsLayerInfo:
+            case WmtsLayerInfo:
+                return CacheNames.RESOURCE_CACHE;
+            case LayerInfo:
+                return CacheNames.LAYER_CACHE;
+            case LayerGroupInfo:
+                return CacheNames.LAYER_GROUP_CACHE;
+            case StyleInfo:
+                return CacheNames.STYLE_CACHE;
+            case MapInfo:
+                return CacheNames.MAP_CACHE;
+            default:
+                return null;
+        }
+    }
+}
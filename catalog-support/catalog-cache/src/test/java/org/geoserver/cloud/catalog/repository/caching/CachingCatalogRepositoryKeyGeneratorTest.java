@@ -0,0 +1,212 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.CoverageStoreInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geotools.feature.NameImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.type.Name;
+import org.springframework.cache.annotation.Cacheable;
+
+/**
+ * Checks the keys the lookups are cached under are among the ones {@link
+ * CachingCatalogRepositoryKeyGenerator#keysOf} tells for the object they return, so that they're
+ * evicted when the object changes
+ */
+public class CachingCatalogRepositoryKeyGeneratorTest {
+
+    private CachingCatalogRepositoryKeyGenerator keyGenerator;
+
+    private CatalogTestData data;
+
+    public @Before void setUp() throws Exception {
+        keyGenerator = new CachingCatalogRepositoryKeyGenerator();
+        data = CatalogTestData.empty(CatalogImpl::new).createObjects();
+    }
+
+    private Object key(Class<?> repository, String method, Object... params) throws Exception {
+        Method m = null;
+        for (Method candidate : repository.getMethods()) {
+            if (candidate.getName().equals(method)
+                    && candidate.getParameterCount() == params.length) {
+                m = candidate;
+            }
+        }
+        return keyGenerator.generate(this, m, params);
+    }
+
+    private void assertKeyOf(CatalogInfo info, Object key) {
+        Set<CatalogCacheKey> keys = keyGenerator.keysOf(info);
+        assertTrue(key + " not in " + keys, keys.contains(key));
+    }
+
+    @Test
+    public void testWorkspaceKeys() throws Exception {
+        WorkspaceInfo ws = data.workspaceA;
+        Class<?> repo = WorkspaceRepository.class;
+        assertKeyOf(ws, key(repo, "findById", ws.getId(), WorkspaceInfo.class));
+        assertKeyOf(ws, key(repo, "findByName", new NameImpl(ws.getName()), WorkspaceInfo.class));
+    }
+
+    @Test
+    public void testNamespaceKeys() throws Exception {
+        NamespaceInfo ns = data.namespaceA;
+        Class<?> repo = NamespaceRepository.class;
+        assertKeyOf(ns, key(repo, "findByName", new NameImpl(ns.getPrefix()), NamespaceInfo.class));
+        assertKeyOf(ns, key(repo, "findOneByURI", ns.getURI()));
+    }
+
+    @Test
+    public void testStoreKeysAreTyped() throws Exception {
+        DataStoreInfo ds = data.dataStoreA;
+        Class<?> repo = StoreRepository.class;
+        Name name = new NameImpl(ds.getWorkspace().getId(), ds.getName());
+        assertKeyOf(ds, key(repo, "findById", ds.getId(), DataStoreInfo.class));
+        assertKeyOf(ds, key(repo, "findById", ds.getId(), StoreInfo.class));
+        assertKeyOf(ds, key(repo, "findByName", name, DataStoreInfo.class));
+        assertKeyOf(ds, key(repo, "findByName", name, StoreInfo.class));
+        assertKeyOf(ds, key(repo, "findOneByName", ds.getName(), DataStoreInfo.class));
+        assertKeyOf(ds, key(repo, "getDefaultDataStore", ds.getWorkspace()));
+
+        Object coverageStoreKey = key(repo, "findByName", name, CoverageStoreInfo.class);
+        assertNotEquals(key(repo, "findByName", name, DataStoreInfo.class), coverageStoreKey);
+        assertFalse(keyGenerator.keysOf(ds).contains(coverageStoreKey));
+    }
+
+    @Test
+    public void testResourceKeys() throws Exception {
+        FeatureTypeInfo ft = data.featureTypeA;
+        Class<?> repo = ResourceRepository.class;
+        Name name = new NameImpl(ft.getNamespace().getId(), ft.getName());
+        assertKeyOf(ft, key(repo, "findByName", name, FeatureTypeInfo.class));
+        assertKeyOf(ft, key(repo, "findByName", name, ResourceInfo.class));
+        assertKeyOf(ft, key(repo, "findOneByName", ft.getName(), ResourceInfo.class));
+        StoreInfo store = ft.getStore();
+        Class<?> type = FeatureTypeInfo.class;
+        assertKeyOf(ft, key(repo, "findByStoreAndName", store, ft.getName(), type));
+    }
+
+    @Test
+    public void testLayerKeys() throws Exception {
+        LayerInfo layer = data.layerFeatureTypeA;
+        Class<?> repo = LayerRepository.class;
+        ResourceInfo resource = layer.getResource();
+        Name name = new NameImpl(resource.getNamespace().getId(), resource.getName());
+        assertKeyOf(layer, key(repo, "findByName", name, LayerInfo.class));
+        assertKeyOf(layer, key(repo, "findOneByName", layer.getName()));
+        // renaming the resource renames its layers
+        assertKeyOf(resource, key(repo, "findByName", name, LayerInfo.class));
+        assertKeyOf(resource, key(repo, "findOneByName", layer.getName()));
+    }
+
+    @Test
+    public void testLayerGroupKeys() throws Exception {
+        LayerGroupInfo lg = data.layerGroup1;
+        Class<?> repo = LayerGroupRepository.class;
+        Name name = new NameImpl(null, lg.getName());
+        assertKeyOf(lg, key(repo, "findById", lg.getId(), LayerGroupInfo.class));
+        assertKeyOf(lg, key(repo, "findByName", name, LayerGroupInfo.class));
+        assertKeyOf(lg, key(repo, "findOneByName", lg.getName()));
+        assertKeyOf(lg, key(repo, "findAllByWorkspaceIsNull"));
+    }
+
+    @Test
+    public void testStyleKeys() throws Exception {
+        StyleInfo style = data.style1;
+        Class<?> repo = StyleRepository.class;
+        Name name = new NameImpl(null, style.getName());
+        assertKeyOf(style, key(repo, "findByName", name, StyleInfo.class));
+        assertKeyOf(style, key(repo, "findOneByName", style.getName()));
+    }
+
+    @Test
+    public void testListKeys() throws Exception {
+        FeatureTypeInfo ft = data.featureTypeA;
+        Class<?> repo = ResourceRepository.class;
+        Class<?> type = FeatureTypeInfo.class;
+        assertKeyOf(ft, key(repo, "findAllByType", type));
+        assertKeyOf(ft, key(repo, "findAllByType", ResourceInfo.class));
+        assertKeyOf(ft, key(repo, "findAllByNamespace", ft.getNamespace(), type));
+        assertKeyOf(ft, key(repo, "findAllByStore", ft.getStore(), type));
+        assertKeyOf(ft, keyGenerator.generate(new CachingResourceRepository(null), findAll()));
+
+        LayerInfo layer = data.layerFeatureTypeA;
+        assertKeyOf(layer, key(LayerRepository.class, "findAllByResource", layer.getResource()));
+        Object byStyle = key(LayerRepository.class, "findAllByDefaultStyleOrStyles", data.style1);
+        assertKeyOf(layer, byStyle);
+
+        StyleInfo style = data.style1;
+        assertKeyOf(style, key(StyleRepository.class, "findAllByNullWorkspace"));
+        Object otherWorkspace = key(StyleRepository.class, "findAllByWorkspace", data.workspaceA);
+        assertFalse(keyGenerator.keysOf(style).contains(otherWorkspace));
+    }
+
+    private Method findAll() throws Exception {
+        return CachingCatalogRepository.class.getMethod("findAll");
+    }
+
+    @Test
+    public void testCachingRepositoriesAreSupported() {
+        for (Class<?> type : CachingRepositoryConfiguration.CACHING_REPOSITORY_TYPES) {
+            keyGenerator.checkSupported(type);
+        }
+    }
+
+    @Test
+    public void testUnsupportedCachedMethodFailsCheck() {
+        try {
+            keyGenerator.checkSupported(UnsupportedCachingStyleRepository.class);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("findDefaultStyle"));
+        }
+    }
+
+    static class UnsupportedCachingStyleRepository extends CachingStyleRepository {
+        UnsupportedCachingStyleRepository() {
+            super(null);
+        }
+
+        @Cacheable
+        public StyleInfo findDefaultStyle() {
+            return null;
+        }
+    }
+
+    @Test
+    public void testEvictionKey() {
+        CatalogInfoEvictionKey key = keyGenerator.evictionKey(data.dataStoreA);
+        assertEquals(data.dataStoreA.getId(), key.getId());
+        assertEquals(keyGenerator.keysOf(data.dataStoreA), key.getKeys());
+    }
+}
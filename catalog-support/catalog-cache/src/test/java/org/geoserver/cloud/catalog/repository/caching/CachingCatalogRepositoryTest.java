@@ -0,0 +1,363 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CoverageStoreInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.plugin.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.MapRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
+import org.geoserver.catalog.plugin.DefaultCatalogFacade;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.config.GeoServer;
+import org.geoserver.config.impl.GeoServerImpl;
+import org.geoserver.config.util.XStreamPersisterFactory;
+import org.geotools.feature.NameImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Checks the name lookups are cached under the typed keys, and evicted when the objects are
+ * renamed, moved to another workspace, or removed
+ */
+public class CachingCatalogRepositoryTest {
+
+    private static TestCatalogBackend backend;
+
+    private ConfigurableApplicationContext context;
+
+    private Catalog catalog;
+
+    private CachingCatalogRepositoryKeyGenerator keyGenerator;
+
+    private CatalogTestData data;
+
+    public @Before void setUp() throws Exception {
+        backend = new TestCatalogBackend();
+        context =
+                new SpringApplicationBuilder(Config.class)
+                        .web(WebApplicationType.NONE)
+                        .properties(
+                                "spring.main.banner-mode=off", "spring.cloud.bus.enabled=false")
+                        .run();
+        catalog = context.getBean("rawCatalog", Catalog.class);
+        keyGenerator = context.getBean(CachingCatalogRepositoryKeyGenerator.class);
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+        catalog.add(data.workspaceA);
+        catalog.add(data.workspaceB);
+        catalog.add(data.namespaceA);
+        catalog.add(data.namespaceB);
+    }
+
+    public @After void tearDown() {
+        if (context != null) context.close();
+    }
+
+    private Cache cache(String name) {
+        CacheManager cacheManager =
+                context.getBean(CacheNames.CACHE_MANAGER_BEAN_NAME, CacheManager.class);
+        return cacheManager.getCache(name);
+    }
+
+    @Test
+    public void testRenameEvictsOldName() {
+        final String oldName = data.workspaceA.getName();
+        WorkspaceInfo ws = catalog.getWorkspaceByName(oldName);
+        assertNotNull(ws);
+        Object key = keyGenerator.nameKey(new NameImpl(oldName), WorkspaceInfo.class);
+        assertNotNull(cache(CacheNames.WORKSPACE_CACHE).get(key));
+
+        ws.setName("newName");
+        catalog.save(ws);
+
+        assertNull(cache(CacheNames.WORKSPACE_CACHE).get(key));
+        assertNull(catalog.getWorkspaceByName(oldName));
+        assertEquals(ws.getId(), catalog.getWorkspaceByName("newName").getId());
+    }
+
+    @Test
+    public void testWorkspaceChangeEvictsOldQualifiedName() {
+        catalog.add(data.dataStoreA);
+        final String name = data.dataStoreA.getName();
+        DataStoreInfo ds = catalog.getDataStoreByName(data.workspaceA, name);
+        assertNotNull(ds);
+        // lookups by name are typed
+        assertNull(catalog.getStoreByName(data.workspaceA, name, CoverageStoreInfo.class));
+
+        ds.setWorkspace(catalog.getWorkspace(data.workspaceB.getId()));
+        catalog.save(ds);
+
+        assertNull(catalog.getDataStoreByName(data.workspaceA, name));
+        assertEquals(ds.getId(), catalog.getDataStoreByName(data.workspaceB, name).getId());
+    }
+
+    @Test
+    public void testResourceRenameEvictsOldName() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        catalog.add(data.style1);
+        catalog.add(data.layerFeatureTypeA);
+        final String oldName = data.featureTypeA.getName();
+        FeatureTypeInfo ft = catalog.getFeatureTypeByName(data.namespaceA, oldName);
+        assertNotNull(ft);
+        final String layerId = data.layerFeatureTypeA.getId();
+        // layers are named after their resource
+        assertEquals(layerId, catalog.getLayerByName(oldName).getId());
+        assertNull(catalog.getLayerByName("renamed"));
+
+        ft.setName("renamed");
+        catalog.save(ft);
+
+        assertNull(catalog.getFeatureTypeByName(data.namespaceA, oldName));
+        assertEquals(ft.getId(), catalog.getFeatureTypeByName(data.namespaceA, "renamed").getId());
+        assertNull(catalog.getLayerByName(oldName));
+        assertEquals(layerId, catalog.getLayerByName("renamed").getId());
+    }
+
+    @Test
+    public void testLayerGroupFindOneByName() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        catalog.add(data.style1);
+        catalog.add(data.layerFeatureTypeA);
+        catalog.add(data.layerGroup1);
+        CachingLayerGroupRepository layerGroups =
+                context.getBean(CachingLayerGroupRepository.class);
+        final String oldName = data.layerGroup1.getName();
+        assertEquals(data.layerGroup1.getId(), layerGroups.findOneByName(oldName).getId());
+        Object key = CatalogCacheKey.of(Lookup.ONE_BY_NAME, LayerGroupInfo.class, oldName);
+        assertNotNull(cache(CacheNames.LAYER_GROUP_CACHE).get(key));
+
+        LayerGroupInfo lg = catalog.getLayerGroup(data.layerGroup1.getId());
+        lg.setName("renamed");
+        catalog.save(lg);
+
+        assertNull(cache(CacheNames.LAYER_GROUP_CACHE).get(key));
+        assertNull(layerGroups.findOneByName(oldName));
+        assertEquals(lg.getId(), layerGroups.findOneByName("renamed").getId());
+    }
+
+    @Test
+    public void testRemoveEvictsAllKeys() {
+        catalog.add(data.style1);
+        final String name = data.style1.getName();
+        StyleInfo style = catalog.getStyleByName(name);
+        assertNotNull(style);
+        assertNotNull(catalog.getStyle(style.getId()));
+
+        catalog.remove(style);
+
+        assertNull(catalog.getStyleByName(name));
+        assertNull(catalog.getStyle(style.getId()));
+    }
+
+    @Test
+    public void testAddForgetsMisses() {
+        final String name = data.workspaceC.getName();
+        final String id = data.workspaceC.getId();
+        assertNull(catalog.getWorkspaceByName(name));
+        assertNull(catalog.getWorkspace(id));
+        CatalogInfoCache cache = (CatalogInfoCache) cache(CacheNames.WORKSPACE_CACHE);
+        Object nameKey = keyGenerator.nameKey(new NameImpl(name), WorkspaceInfo.class);
+        Object idKey = keyGenerator.idKey(id, WorkspaceInfo.class);
+        assertNotNull(cache.getMisses().getIfPresent(nameKey));
+        assertNotNull(cache.getMisses().getIfPresent(idKey));
+        // remembered misses are cache hits with a null value
+        assertNotNull(cache.get(nameKey));
+        assertNull(cache.get(nameKey).get());
+
+        catalog.add(data.workspaceC);
+
+        assertNull(cache.getMisses().getIfPresent(nameKey));
+        assertNull(cache.getMisses().getIfPresent(idKey));
+        assertEquals(id, catalog.getWorkspaceByName(name).getId());
+        assertEquals(id, catalog.getWorkspace(id).getId());
+    }
+
+    @Test
+    public void testRenameForgetsMissesForTheNewName() {
+        assertNull(catalog.getWorkspaceByName("newName"));
+        WorkspaceInfo ws = catalog.getWorkspace(data.workspaceA.getId());
+
+        ws.setName("newName");
+        catalog.save(ws);
+
+        assertEquals(ws.getId(), catalog.getWorkspaceByName("newName").getId());
+    }
+
+    private CatalogCacheKey featureTypesByNamespace(NamespaceInfo ns) {
+        return CatalogCacheKey.of(Lookup.ALL_BY_NAMESPACE, FeatureTypeInfo.class, ns.getId(), null);
+    }
+
+    @Test
+    public void testListQueryIsEvictedOnlyForTheAffectedParent() {
+        catalog.add(data.dataStoreA);
+        Cache cache = cache(CacheNames.RESOURCE_CACHE);
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceA)));
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+
+        catalog.add(data.featureTypeA);
+
+        assertNull(cache.get(featureTypesByNamespace(data.namespaceA)));
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+        assertEquals(1, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+    }
+
+    @Test
+    public void testListQueriesOfTheOldAndNewParentAreEvicted() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        assertEquals(1, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+
+        FeatureTypeInfo ft = catalog.getFeatureType(data.featureTypeA.getId());
+        ft.setNamespace(catalog.getNamespace(data.namespaceB.getId()));
+        catalog.save(ft);
+
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(1, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+    }
+
+    @Test
+    public void testParentUpdateEvictsTheListQueriesScopedByIt() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        assertEquals(1, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+        Cache cache = cache(CacheNames.RESOURCE_CACHE);
+
+        NamespaceInfo ns = catalog.getNamespace(data.namespaceA.getId());
+        ns.setURI("http://example.com/changed");
+        catalog.save(ns);
+
+        assertNull(cache.get(featureTypesByNamespace(data.namespaceA)));
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+    }
+
+    @Test
+    public void testBatchEvictsOnlyTheEntriesOfEachObject() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        assertEquals(1, catalog.getFeatureTypesByNamespace(data.namespaceA).size());
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+        Cache cache = cache(CacheNames.RESOURCE_CACHE);
+
+        CachingResourceRepository resources = context.getBean(CachingResourceRepository.class);
+        FeatureTypeInfo ft =
+                backend.resources().findById(data.featureTypeA.getId(), FeatureTypeInfo.class);
+        resources.replaceAll(Collections.singletonList(ft));
+
+        assertNull(cache.get(featureTypesByNamespace(data.namespaceA)));
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+    }
+
+    @Test
+    public void testLargeBatchClearsTheCache() {
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        assertEquals(0, catalog.getFeatureTypesByNamespace(data.namespaceB).size());
+        Cache cache = cache(CacheNames.RESOURCE_CACHE);
+        assertNotNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+
+        CachingResourceRepository resources = context.getBean(CachingResourceRepository.class);
+        FeatureTypeInfo ft =
+                backend.resources().findById(data.featureTypeA.getId(), FeatureTypeInfo.class);
+        int size = CachingCatalogRepository.BATCH_EVICTION_THRESHOLD + 1;
+        resources.replaceAll(Collections.nCopies(size, ft));
+
+        assertNull(cache.get(featureTypesByNamespace(data.namespaceB)));
+    }
+
+    @Test
+    public void testFindAllIsEvictedOnAddAndRemove() {
+        assertEquals(2, catalog.getWorkspaces().size());
+        catalog.add(data.workspaceC);
+        assertEquals(3, catalog.getWorkspaces().size());
+        catalog.remove(catalog.getWorkspace(data.workspaceC.getId()));
+        assertEquals(2, catalog.getWorkspaces().size());
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import(CachingRepositoryConfiguration.class)
+    static class Config {
+
+        public @Bean XStreamPersisterFactory xStreamPersisterFactory() {
+            return new XStreamPersisterFactory();
+        }
+
+        @Bean(name = {"catalog", "rawCatalog"})
+        public Catalog catalog() {
+            return new CatalogImpl(new DefaultCatalogFacade());
+        }
+
+        public @Bean GeoServer geoServer() {
+            return new GeoServerImpl();
+        }
+
+        public @Bean WorkspaceRepository workspaceRepository() {
+            return backend.workspaces();
+        }
+
+        public @Bean NamespaceRepository namespaceRepository() {
+            return backend.namespaces();
+        }
+
+        public @Bean StoreRepository storeRepository() {
+            return backend.stores();
+        }
+
+        public @Bean ResourceRepository resourceRepository() {
+            return backend.resources();
+        }
+
+        public @Bean LayerRepository layerRepository() {
+            return backend.layers();
+        }
+
+        public @Bean LayerGroupRepository layerGroupRepository() {
+            return backend.layerGroups();
+        }
+
+        public @Bean StyleRepository styleRepository() {
+            return backend.styles();
+        }
+
+        public @Bean MapRepository mapRepository() {
+            return backend.maps();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheProperties.CacheSpec;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheProperties.ValueStrength;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+public class CatalogCacheManagerConfigurationTest {
+
+    private CatalogCacheProperties config;
+
+    public @Before void setUp() {
+        config = new CatalogCacheProperties();
+    }
+
+    private Cache<Object, Object> nativeCache(CaffeineCacheManager cacheManager, String name) {
+        @SuppressWarnings("unchecked")
+        Cache<Object, Object> cache =
+                (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+        return cache;
+    }
+
+    @Test
+    public void testSpecInheritsDefaults() {
+        config.getDefaults().setExpireAfterAccess(Duration.ofHours(1));
+        CacheSpec layers = new CacheSpec();
+        layers.setMaximumSize(50L);
+        layers.setValues(ValueStrength.SOFT);
+        config.getCaches().put(CacheNames.LAYER_CACHE, layers);
+
+        CacheSpec spec = config.spec(CacheNames.LAYER_CACHE);
+        assertEquals(Long.valueOf(50), spec.getMaximumSize());
+        assertEquals(ValueStrength.SOFT, spec.getValues());
+        assertEquals(Duration.ofHours(1), spec.getExpireAfterAccess());
+        assertTrue(spec.getRecordStats());
+        assertNull(spec.getRefreshAfterWrite());
+
+        assertSame(config.getDefaults(), config.spec(CacheNames.STYLE_CACHE));
+    }
+
+    @Test
+    public void testCachesAreBoundedAndExpire() {
+        config.getDefaults().setExpireAfterWrite(Duration.ofMinutes(10));
+        CacheSpec layers = new CacheSpec();
+        layers.setMaximumSize(50L);
+        layers.setExpireAfterAccess(Duration.ofMinutes(1));
+        config.getCaches().put(CacheNames.LAYER_CACHE, layers);
+
+        CaffeineCacheManager cacheManager =
+                CatalogCacheManagerConfiguration.createCacheManager(config, name -> null);
+
+        Cache<Object, Object> layerCache = nativeCache(cacheManager, CacheNames.LAYER_CACHE);
+        assertEquals(50L, layerCache.policy().eviction().get().getMaximum());
+        assertEquals(
+                Duration.ofMinutes(1).toNanos(),
+                layerCache.policy().expireAfterAccess().get().getExpiresAfter().toNanos());
+        assertTrue(layerCache.policy().expireAfterWrite().isPresent());
+
+        Cache<Object, Object> styleCache = nativeCache(cacheManager, CacheNames.STYLE_CACHE);
+        assertEquals(10_000L, styleCache.policy().eviction().get().getMaximum());
+        assertFalse(styleCache.policy().expireAfterAccess().isPresent());
+        assertFalse(styleCache instanceof LoadingCache);
+    }
+
+    @Test
+    public void testMissesCacheExpiresAfterNegativeTtl() {
+        CacheSpec styles = new CacheSpec();
+        styles.setNegativeTtl(Duration.ZERO);
+        config.getCaches().put(CacheNames.STYLE_CACHE, styles);
+
+        CaffeineCacheManager cacheManager =
+                CatalogCacheManagerConfiguration.createCacheManager(config, name -> null);
+
+        CatalogInfoCache layers = (CatalogInfoCache) cacheManager.getCache(CacheNames.LAYER_CACHE);
+        Cache<Object, Boolean> misses = layers.getMisses();
+        assertNotNull(misses);
+        assertEquals(
+                Duration.ofSeconds(10).toNanos(),
+                misses.policy().expireAfterWrite().get().getExpiresAfter().toNanos());
+        assertEquals(1_000L, misses.policy().eviction().get().getMaximum());
+
+        CatalogInfoCache styleCache =
+                (CatalogInfoCache) cacheManager.getCache(CacheNames.STYLE_CACHE);
+        assertNull(styleCache.getMisses());
+    }
+
+    @Test
+    public void testNonCatalogCachesAreCreatedOnDemand() {
+        CaffeineCacheManager cacheManager =
+                CatalogCacheManagerConfiguration.createCacheManager(config, name -> null);
+        assertNotNull(cacheManager.getCache("someOtherCache"));
+        assertTrue(cacheManager.getCacheNames().contains(CacheNames.MAP_CACHE));
+    }
+
+    @Test
+    public void testRefreshAfterWriteReloadsFromRepository() {
+        CacheSpec workspaces = new CacheSpec();
+        workspaces.setRefreshAfterWrite(Duration.ofMinutes(5));
+        config.getCaches().put(CacheNames.WORKSPACE_CACHE, workspaces);
+
+        TestCatalogBackend backend = new TestCatalogBackend();
+        CachingWorkspaceRepository repository =
+                new CachingWorkspaceRepository(backend.workspaces());
+        CaffeineCacheManager cacheManager =
+                CatalogCacheManagerConfiguration.createCacheManager(config, name -> repository);
+
+        Cache<Object, Object> cache = nativeCache(cacheManager, CacheNames.WORKSPACE_CACHE);
+        assertTrue(cache instanceof LoadingCache);
+        assertTrue(cache.policy().refreshAfterWrite().isPresent());
+
+        WorkspaceInfoImpl ws = new WorkspaceInfoImpl();
+        ws.setId("ws1");
+        ws.setName("ws1");
+        backend.workspaces().add(ws);
+
+        WorkspaceInfoImpl stale = new WorkspaceInfoImpl();
+        stale.setId("ws1");
+        stale.setName("oldName");
+
+        // Caffeine refreshes asynchronously, exercise an equivalent loader directly
+        CatalogCacheLoader loader =
+                new CatalogCacheLoader(CacheNames.WORKSPACE_CACHE, () -> repository);
+        // misses are left to the @Cacheable method
+        assertNull(loader.load("ws1"));
+
+        WorkspaceInfo refreshed = (WorkspaceInfo) loader.reload("ws1", stale);
+        assertEquals("ws1", refreshed.getName());
+
+        backend.workspaces().remove(ws);
+        assertNull(loader.reload("ws1", stale));
+    }
+
+    @Test
+    public void testStatisticsArePublished() {
+        CaffeineCacheManager cacheManager =
+                CatalogCacheManagerConfiguration.createCacheManager(config, name -> null);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CatalogCacheManagerConfiguration.CatalogCacheMetricsConfiguration()
+                .catalogCacheMetrics(cacheManager)
+                .bindTo(registry);
+
+        org.springframework.cache.Cache cache = cacheManager.getCache(CacheNames.LAYER_CACHE);
+        cache.get("missing");
+        cache.put("present", "value");
+        cache.get("present");
+        cache.get("present");
+
+        assertEquals(1d, gets(registry, CacheNames.LAYER_CACHE, "miss"), 0d);
+        assertEquals(2d, gets(registry, CacheNames.LAYER_CACHE, "hit"), 0d);
+        assertEquals(0d, gets(registry, CacheNames.STYLE_CACHE, "hit"), 0d);
+    }
+
+    private double gets(MeterRegistry registry, String cacheName, String result) {
+        return registry.get("cache.gets")
+                .tag("cache", cacheName)
+                .tag("cacheManager", "catalog")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.StyleInfoImpl;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CatalogInfoCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private CatalogInfoCache cache;
+
+    private final CatalogCacheKey nameKey =
+            CatalogCacheKey.of(Lookup.NAME, WorkspaceInfo.class, "ws1");
+
+    private final CatalogCacheKey idKey =
+            CatalogCacheKey.of(Lookup.ID, WorkspaceInfo.class, "ws1-id");
+
+    public @Before void setUp() {
+        cache =
+                CatalogInfoCache.create(
+                        CacheNames.WORKSPACE_CACHE,
+                        Caffeine.newBuilder(),
+                        true,
+                        Caffeine.newBuilder()
+                                .ticker(ticker::get)
+                                .expireAfterWrite(Duration.ofSeconds(10))
+                                .<Object, Boolean>build());
+    }
+
+    private WorkspaceInfo workspace() {
+        WorkspaceInfoImpl ws = new WorkspaceInfoImpl();
+        ws.setId("ws1-id");
+        ws.setName("ws1");
+        return ws;
+    }
+
+    @Test
+    public void testMissIsRememberedUntilTtl() {
+        assertNull(cache.get(nameKey));
+        cache.put(nameKey, null);
+        assertNotNull(cache.get(nameKey));
+        assertNull(cache.get(nameKey).get());
+
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertNull(cache.get(nameKey));
+    }
+
+    @Test
+    public void testMissesAreNotCachedWithoutMissesCache() {
+        cache =
+                CatalogInfoCache.create(
+                        CacheNames.WORKSPACE_CACHE, Caffeine.newBuilder(), true, null);
+        cache.put(nameKey, null);
+        assertNull(cache.get(nameKey));
+    }
+
+    @Test
+    public void testEvictForgetsMiss() {
+        cache.put(nameKey, null);
+        cache.evict(nameKey);
+        assertNull(cache.get(nameKey));
+    }
+
+    @Test
+    public void testEvictionKeyForgetsMissesOfTheNewState() {
+        cache.put(nameKey, null);
+        cache.put(idKey, null);
+        WorkspaceInfo ws = workspace();
+        cache.evict(new CachingCatalogRepositoryKeyGenerator().evictionKey(ws));
+        assertNull(cache.get(nameKey));
+        assertNull(cache.get(idKey));
+    }
+
+    @Test
+    public void testEvictionKeyEvictsTheKeysOfTheOldState() {
+        WorkspaceInfo ws = workspace();
+        CatalogCacheKey oldNameKey =
+                CatalogCacheKey.of(Lookup.NAME, WorkspaceInfo.class, "oldName");
+        cache.put(oldNameKey, ws);
+        cache.put(idKey, ws);
+        assertEquals(ws, cache.get(oldNameKey).get());
+
+        cache.evict(new CatalogInfoEvictionKey(ws.getId(), Collections.emptySet()));
+        assertNull(cache.get(oldNameKey));
+        assertNull(cache.get(idKey));
+    }
+
+    @Test
+    public void testListsAreCachedAsCopies() {
+        CatalogCacheKey listKey = CatalogCacheKey.of(Lookup.ALL_BY_TYPE, WorkspaceInfo.class, null);
+        List<WorkspaceInfo> list = new ArrayList<>(Arrays.asList(workspace()));
+        cache.put(listKey, list);
+        list.clear();
+
+        @SuppressWarnings("unchecked")
+        List<WorkspaceInfo> cached = (List<WorkspaceInfo>) cache.get(listKey).get();
+        assertEquals(1, cached.size());
+        cached.clear();
+        assertEquals(1, ((List<?>) cache.get(listKey).get()).size());
+    }
+
+    @Test
+    public void testListIsEvictedWithItsElementsAndParent() {
+        StyleInfoImpl style = new StyleInfoImpl(null);
+        style.setId("style-id");
+        CatalogCacheKey byWorkspace =
+                CatalogCacheKey.of(Lookup.ALL_BY_WORKSPACE, StyleInfo.class, "ws1-id", null);
+        CatalogCacheKey byOtherWorkspace =
+                CatalogCacheKey.of(Lookup.ALL_BY_WORKSPACE, StyleInfo.class, "ws2-id", null);
+        cache.put(byWorkspace, Arrays.asList(style));
+        cache.put(byOtherWorkspace, Collections.emptyList());
+
+        cache.evictObject("style-id");
+        assertNull(cache.get(byWorkspace));
+        assertNotNull(cache.get(byOtherWorkspace));
+
+        cache.put(byWorkspace, Arrays.asList(style));
+        cache.evictObject("ws1-id");
+        assertNull(cache.get(byWorkspace));
+        assertNotNull(cache.get(byOtherWorkspace));
+    }
+
+    @Test
+    public void testClearLists() {
+        CatalogCacheKey listKey = CatalogCacheKey.of(Lookup.ALL_BY_TYPE, WorkspaceInfo.class, null);
+        cache.put(listKey, Arrays.asList(workspace()));
+        cache.put(idKey, workspace());
+        cache.clearLists();
+        assertNull(cache.get(listKey));
+        assertNotNull(cache.get(idKey));
+    }
+
+    @Test
+    public void testKeysOfEvictedEntriesAreUntracked() {
+        cache =
+                CatalogInfoCache.create(
+                        CacheNames.WORKSPACE_CACHE,
+                        Caffeine.newBuilder().maximumSize(1).executor(Runnable::run),
+                        true,
+                        null);
+        CatalogCacheKey listKey = CatalogCacheKey.of(Lookup.ALL_BY_TYPE, WorkspaceInfo.class, null);
+        cache.put(listKey, Arrays.asList(workspace()));
+        assertEquals(Collections.singleton(listKey), cache.getKeys().keysOf("ws1-id"));
+        assertEquals(Collections.singleton(listKey), cache.getKeys().listKeys());
+
+        StyleInfoImpl style = new StyleInfoImpl(null);
+        style.setId("style-id");
+        CatalogCacheKey styleKey = CatalogCacheKey.of(Lookup.ID, StyleInfo.class, "style-id");
+        cache.put(styleKey, style);
+        cache.getNativeCache().cleanUp();
+
+        assertEquals(1, cache.getNativeCache().estimatedSize());
+        Object remaining = cache.getNativeCache().asMap().keySet().iterator().next();
+        Object evicted = remaining.equals(listKey) ? styleKey : listKey;
+        assertFalse(cache.getKeys().keysOf("ws1-id").contains(evicted));
+        assertFalse(cache.getKeys().keysOf("style-id").contains(evicted));
+        assertFalse(cache.getKeys().listKeys().contains(evicted));
+    }
+
+    @Test
+    public void testOverwrittenKeyIsTrackedForTheNewValueOnly() {
+        CatalogCacheKey listKey = CatalogCacheKey.of(Lookup.ALL_BY_TYPE, WorkspaceInfo.class, null);
+        cache.put(listKey, Arrays.asList(workspace()));
+        cache.put(listKey, Collections.emptyList());
+        assertTrue(cache.getKeys().keysOf("ws1-id").isEmpty());
+
+        cache.evict(listKey);
+        assertTrue(cache.getKeys().listKeys().isEmpty());
+    }
+
+    @Test
+    public void testClearMisses() {
+        cache.put(nameKey, null);
+        cache.put(idKey, workspace());
+        cache.clearMisses();
+        assertNull(cache.get(nameKey));
+        assertNotNull(cache.get(idKey));
+    }
+}
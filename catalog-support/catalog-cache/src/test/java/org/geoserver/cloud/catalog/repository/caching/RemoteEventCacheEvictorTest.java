@@ -0,0 +1,250 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.plugin.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.MapRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
+import org.geoserver.catalog.plugin.DefaultCatalogFacade;
+import org.geoserver.cloud.catalog.repository.caching.CatalogCacheKey.Lookup;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.config.GeoServer;
+import org.geoserver.config.impl.GeoServerImpl;
+import org.geoserver.config.util.XStreamPersisterFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cloud.bus.SpringCloudBusClient;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+
+/**
+ * Runs two service nodes sharing the same catalog backend, each one with its own caching
+ * repositories, and relays the bus messages sent by one node to the other, the same way the
+ * broker would, to check the second node evicts the entries the first one made stale.
+ */
+public class RemoteEventCacheEvictorTest {
+
+    /** Plays the role of the catalog backend (e.g. the database) shared by the nodes */
+    private static TestCatalogBackend backend;
+
+    private ConfigurableApplicationContext node1;
+    private ConfigurableApplicationContext node2;
+
+    private Catalog catalog1;
+    private Catalog catalog2;
+
+    private CatalogTestData data;
+
+    public @Before void setUp() throws Exception {
+        backend = new TestCatalogBackend();
+        node1 = startNode("node1");
+        node2 = startNode("node2");
+        catalog1 = node1.getBean("rawCatalog", Catalog.class);
+        catalog2 = node2.getBean("rawCatalog", Catalog.class);
+        data = CatalogTestData.empty(() -> catalog1).createObjects();
+        catalog1.add(data.workspaceA);
+        catalog1.add(data.workspaceB);
+        catalog1.setDefaultWorkspace(data.workspaceA);
+        relay(node1, node2);
+    }
+
+    public @After void tearDown() {
+        if (node1 != null) node1.close();
+        if (node2 != null) node2.close();
+    }
+
+    private ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(NodeConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.application.name=" + name,
+                        "spring.main.banner-mode=off",
+                        "spring.cloud.bus.enabled=true",
+                        "spring.cloud.bus.id=" + name + ":0:" + name,
+                        "geoserver.bus.send-object=false",
+                        "geoserver.bus.send-diff=false")
+                .run();
+    }
+
+    /**
+     * Sends the messages {@code from} published to the bus since the last call to the bus input
+     * channel of {@code to}
+     *
+     * @return the number of relayed messages
+     */
+    private int relay(ConfigurableApplicationContext from, ConfigurableApplicationContext to) {
+        SpringCloudBusClient source = from.getBean(SpringCloudBusClient.class);
+        BlockingQueue<Message<?>> sent =
+                from.getBean(MessageCollector.class).forChannel(source.springCloudBusOutput());
+        List<Message<?>> messages = new ArrayList<>();
+        sent.drainTo(messages);
+        SpringCloudBusClient target = to.getBean(SpringCloudBusClient.class);
+        messages.forEach(m -> target.springCloudBusInput().send(m));
+        return messages.size();
+    }
+
+    @Test
+    public void testRemoteRemoveEvictsId() {
+        final String id = data.workspaceB.getId();
+        assertNotNull(catalog2.getWorkspace(id));
+
+        catalog1.remove(catalog1.getWorkspace(id));
+        assertNull(catalog1.getWorkspace(id));
+        // stale until the event gets to node2
+        assertNotNull(catalog2.getWorkspace(id));
+
+        relay(node1, node2);
+        assertNull(catalog2.getWorkspace(id));
+    }
+
+    @Test
+    public void testRemoteAddForgetsMisses() {
+        final String name = data.workspaceC.getName();
+        assertNull(catalog2.getWorkspaceByName(name));
+
+        catalog1.add(data.workspaceC);
+        // node2 remembers it didn't find it
+        assertNull(catalog2.getWorkspaceByName(name));
+
+        relay(node1, node2);
+        assertNotNull(catalog2.getWorkspaceByName(name));
+    }
+
+    @Test
+    public void testRemoteAddEvictsListQueries() {
+        assertEquals(0, catalog2.getDataStoresByWorkspace(data.workspaceA).size());
+
+        catalog1.add(data.dataStoreA);
+        assertEquals(1, catalog1.getDataStoresByWorkspace(data.workspaceA).size());
+        // stale until the event gets to node2
+        assertEquals(0, catalog2.getDataStoresByWorkspace(data.workspaceA).size());
+
+        relay(node1, node2);
+        assertEquals(1, catalog2.getDataStoresByWorkspace(data.workspaceA).size());
+    }
+
+    @Test
+    public void testRemoteAddWithoutPayloadEvictsOnlyTheAffectedLists() {
+        assertEquals(0, catalog2.getDataStoresByWorkspace(data.workspaceA).size());
+        assertEquals(0, catalog2.getDataStoresByWorkspace(data.workspaceB).size());
+        Cache cache =
+                node2.getBean(CacheNames.CACHE_MANAGER_BEAN_NAME, CacheManager.class)
+                        .getCache(CacheNames.STORE_CACHE);
+        Object wsAStores = storesByWorkspace(data.workspaceA.getId());
+        Object wsBStores = storesByWorkspace(data.workspaceB.getId());
+        assertNotNull(cache.get(wsAStores));
+
+        catalog1.add(data.dataStoreA);
+        relay(node1, node2);
+
+        assertNull(cache.get(wsAStores));
+        // the event has no payload, the new state is looked up by id instead of clearing the lists
+        assertNotNull(cache.get(wsBStores));
+        assertEquals(1, catalog2.getDataStoresByWorkspace(data.workspaceA).size());
+    }
+
+    private CatalogCacheKey storesByWorkspace(String workspaceId) {
+        return CatalogCacheKey.of(Lookup.ALL_BY_WORKSPACE, DataStoreInfo.class, workspaceId, null);
+    }
+
+    @Test
+    public void testRemoteRemoveEvictsListQueries() {
+        catalog1.add(data.style1);
+        relay(node1, node2);
+        assertEquals(1, catalog2.getStylesByWorkspace(CatalogFacade.NO_WORKSPACE).size());
+
+        catalog1.remove(catalog1.getStyle(data.style1.getId()));
+        relay(node1, node2);
+        assertEquals(0, catalog2.getStylesByWorkspace(CatalogFacade.NO_WORKSPACE).size());
+    }
+
+    @Test
+    public void testRemoteDefaultWorkspaceChangeEvictsDefault() {
+        assertEquals(data.workspaceA.getId(), catalog2.getDefaultWorkspace().getId());
+
+        catalog1.setDefaultWorkspace(catalog1.getWorkspace(data.workspaceB.getId()));
+        assertEquals(data.workspaceA.getId(), catalog2.getDefaultWorkspace().getId());
+
+        relay(node1, node2);
+        assertEquals(data.workspaceB.getId(), catalog2.getDefaultWorkspace().getId());
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import(CachingRepositoryConfiguration.class)
+    static class NodeConfiguration {
+
+        public @Bean XStreamPersisterFactory xStreamPersisterFactory() {
+            return new XStreamPersisterFactory();
+        }
+
+        @Bean(name = {"catalog", "rawCatalog"})
+        public Catalog catalog() {
+            return new CatalogImpl(new DefaultCatalogFacade());
+        }
+
+        public @Bean GeoServer geoServer() {
+            return new GeoServerImpl();
+        }
+
+        public @Bean WorkspaceRepository workspaceRepository() {
+            return backend.workspaces();
+        }
+
+        public @Bean NamespaceRepository namespaceRepository() {
+            return backend.namespaces();
+        }
+
+        public @Bean StoreRepository storeRepository() {
+            return backend.stores();
+        }
+
+        public @Bean ResourceRepository resourceRepository() {
+            return backend.resources();
+        }
+
+        public @Bean LayerRepository layerRepository() {
+            return backend.layers();
+        }
+
+        public @Bean LayerGroupRepository layerGroupRepository() {
+            return backend.layerGroups();
+        }
+
+        public @Bean StyleRepository styleRepository() {
+            return backend.styles();
+        }
+
+        public @Bean MapRepository mapRepository() {
+            return backend.maps();
+        }
+    }
+}
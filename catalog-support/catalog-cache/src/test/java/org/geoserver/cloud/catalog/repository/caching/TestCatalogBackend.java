@@ -0,0 +1,55 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.catalog.repository.caching;
+
+import org.geoserver.catalog.plugin.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.MapRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
+import org.geoserver.catalog.plugin.DefaultCatalogFacade;
+
+/** Exposes the repositories of a {@link DefaultCatalogFacade} to be decorated in tests */
+class TestCatalogBackend extends DefaultCatalogFacade {
+    TestCatalogBackend() {
+        new CatalogImpl(this);
+    }
+
+    WorkspaceRepository workspaces() {
+        return workspaces;
+    }
+
+    NamespaceRepository namespaces() {
+        return namespaces;
+    }
+
+    StoreRepository stores() {
+        return stores;
+    }
+
+    ResourceRepository resources() {
+        return resources;
+    }
+
+    LayerRepository layers() {
+        return layers;
+    }
+
+    LayerGroupRepository layerGroups() {
+        return layerGroups;
+    }
+
+    StyleRepository styles() {
+        return styles;
+    }
+
+    MapRepository maps() {
+        return maps;
+    }
+}
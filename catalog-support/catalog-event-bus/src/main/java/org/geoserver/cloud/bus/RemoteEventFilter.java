@@ -0,0 +1,25 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.bus;
+
+import org.geoserver.cloud.bus.event.RemoteInfoEvent;
+
+/**
+ * Decides whether an incoming {@link RemoteInfoEvent} is relevant to this service instance, so
+ * that events about objects it doesn't hold (for example, those outside the catalog partition of
+ * a workspace specialised replica) are dropped before any processing.
+ *
+ * <p>Contribute a bean of this type to the application context to enable filtering, all events are
+ * accepted otherwise.
+ */
+@FunctionalInterface
+public interface RemoteEventFilter {
+
+    /** Filter that accepts all events */
+    RemoteEventFilter ACCEPT_ALL = event -> true;
+
+    /** @return {@code true} if {@code event} shall be processed, {@code false} to ignore it */
+    boolean accept(RemoteInfoEvent<?, ?> event);
+}
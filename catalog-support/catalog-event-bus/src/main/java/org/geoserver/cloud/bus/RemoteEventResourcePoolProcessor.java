@@ -44,6 +44,9 @@ public class RemoteEventResourcePoolProcessor {
 
     private @Autowired ServiceMatcher busServiceMatcher;
 
+    private @Autowired(required = false) RemoteEventFilter remoteEventFilter =
+            RemoteEventFilter.ACCEPT_ALL;
+
     /**
      * @param rawCatalog used to evict cached live data sources from its {@link
      *     Catalog#getResourcePool() ResourcePool}
@@ -74,6 +77,8 @@ public class RemoteEventResourcePoolProcessor {
     public void onCatalogRemoteAddEvent(RemoteCatalogAddEvent event) {
         if (busServiceMatcher.isFromSelf(event)) {
             log.trace("Ignoring remote event from self: {}", event);
+        } else if (!remoteEventFilter.accept(event)) {
+            log.trace("Ignoring filtered out event: {}", event);
         } else {
             log.debug("remote add event, nothing to do. {}", event);
         }
@@ -94,6 +99,10 @@ public class RemoteEventResourcePoolProcessor {
             log.trace("Ignoring event from self: {}", event);
             return;
         }
+        if (!remoteEventFilter.accept(event)) {
+            log.trace("Ignoring filtered out event: {}", event);
+            return;
+        }
         final String id = event.getObjectId();
         final ConfigInfoInfoType infoType = event.getInfoType();
         switch (infoType) {
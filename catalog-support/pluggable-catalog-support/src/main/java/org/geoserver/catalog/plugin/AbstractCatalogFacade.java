@@ -4,20 +4,29 @@
  */
 package org.geoserver.catalog.plugin;
 
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.rmi.server.UID;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogFacade;
@@ -74,6 +83,17 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     protected StyleRepository styles;
     protected CatalogImpl catalog;
 
+    /** Objects resolved by each fork-join task, smaller phases are resolved sequentially */
+    private static final int RESOLVE_BATCH_SIZE = 512;
+
+    private boolean parallelResolve = true;
+
+    /** Lazily created by {@link #readOnlyView()} */
+    private ReadOnlyCatalogFacade readOnlyView;
+
+    /** Catalog subset this facade keeps, {@code null} for the whole catalog */
+    private volatile CatalogPartition partition;
+
     public AbstractCatalogFacade(Catalog catalog) {
         setCatalog(catalog);
     }
@@ -102,38 +122,235 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
 
     public void setNamespaces(NamespaceRepository namespaces) {
         this.namespaces = setCatalog(namespaces);
+        updateReadOnlyView();
     }
 
     public void setWorkspaces(WorkspaceRepository workspaces) {
         this.workspaces = setCatalog(workspaces);
+        updateReadOnlyView();
     }
 
     public void setStores(StoreRepository stores) {
         this.stores = setCatalog(stores);
+        updateReadOnlyView();
     }
 
     public void setResources(ResourceRepository resources) {
         this.resources = setCatalog(resources);
+        updateReadOnlyView();
     }
 
     public void setLayers(LayerRepository layers) {
         this.layers = setCatalog(layers);
+        updateReadOnlyView();
     }
 
     public void setLayerGroups(LayerGroupRepository layerGroups) {
         this.layerGroups = setCatalog(layerGroups);
+        updateReadOnlyView();
     }
 
     public void setStyles(StyleRepository styles) {
         this.styles = setCatalog(styles);
+        updateReadOnlyView();
     }
 
     public void setMaps(MapRepository maps) {
         this.maps = setCatalog(maps);
+        updateReadOnlyView();
+    }
+
+    /**
+     * Returns a read-only view of this facade that shares its repositories and returns the catalog
+     * objects as {@link ReadOnlyProxy read-only views} instead of {@link ModificationProxy
+     * modification proxies}, for read intensive callers that never modify them.
+     *
+     * @see ReadOnlyCatalogFacade
+     */
+    public synchronized ReadOnlyCatalogFacade readOnlyView() {
+        if (readOnlyView == null) {
+            readOnlyView = new ReadOnlyCatalogFacade(this);
+        }
+        return readOnlyView;
+    }
+
+    private synchronized void updateReadOnlyView() {
+        if (readOnlyView != null) {
+            readOnlyView.updateRepositories();
+        }
+    }
+
+    /**
+     * Restricts the objects this facade keeps to the ones in {@code partition}, {@code null} for
+     * the whole catalog. Objects outside the partition are not stored by the {@code add} methods,
+     * which return {@code null} for them, call {@link #applyPartition()} to remove the ones already
+     * loaded. {@link CatalogImpl} doesn't call the {@code add} methods for them, so no add event is
+     * fired.
+     */
+    public void setPartition(@Nullable CatalogPartition partition) {
+        this.partition = partition;
+    }
+
+    public @Nullable CatalogPartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Removes the objects outside the {@link #getPartition() partition}, and the global styles
+     * not used by any remaining layer or layer group. No-op if there's no partition.
+     *
+     * @return the number of objects removed
+     */
+    public int applyPartition() {
+        final CatalogPartition partition = this.partition;
+        if (partition == null) {
+            return 0;
+        }
+        int removed = 0;
+        // dependants first
+        removed += removeExcluded(layerGroups, partition);
+        removed += removeExcluded(layers, partition);
+        removed += removeExcluded(resources, partition);
+        removed += removeExcluded(styles, partition);
+        for (DataStoreInfo defaultStore : stores.getDefaultDataStores()) {
+            if (!partition.includes(defaultStore.getWorkspace())) {
+                stores.setDefaultDataStore(defaultStore.getWorkspace(), null);
+            }
+        }
+        removed += removeExcluded(stores, partition);
+        removed += removeExcluded(namespaces, partition);
+        removed += removeExcluded(workspaces, partition);
+        removed += removeUnusedGlobalStyles();
+
+        WorkspaceInfo defaultWorkspace = workspaces.getDefaultWorkspace();
+        if (defaultWorkspace != null && !partition.includes(defaultWorkspace)) {
+            List<WorkspaceInfo> remaining = workspaces.findAll();
+            workspaces.setDefaultWorkspace(remaining.isEmpty() ? null : remaining.get(0));
+        }
+        NamespaceInfo defaultNamespace = namespaces.getDefaultNamespace();
+        if (defaultNamespace != null && !partition.includes(defaultNamespace)) {
+            defaultWorkspace = workspaces.getDefaultWorkspace();
+            namespaces.setDefaultNamespace(
+                    defaultWorkspace == null
+                            ? null
+                            : namespaces.findByName(
+                                    new NameImpl(defaultWorkspace.getName()),
+                                    NamespaceInfo.class));
+        }
+        LOGGER.info(
+                String.format(
+                        "Removed %d catalog objects outside workspaces %s",
+                        removed, partition.getWorkspaces()));
+        return removed;
+    }
+
+    private <T extends CatalogInfo> int removeExcluded(
+            CatalogInfoRepository<T> repository, CatalogPartition partition) {
+        List<T> excluded =
+                repository
+                        .findAll()
+                        .stream()
+                        .filter(info -> !partition.includes(info))
+                        .collect(Collectors.toList());
+        repository.removeAll(excluded);
+        return excluded.size();
+    }
+
+    private int removeUnusedGlobalStyles() {
+        Set<String> used = new HashSet<>();
+        for (LayerInfo layer : layers.findAll()) {
+            addId(used, layer.getDefaultStyle());
+            layer.getStyles().forEach(style -> addId(used, style));
+        }
+        for (LayerGroupInfo group : layerGroups.findAll()) {
+            group.getStyles().forEach(style -> addId(used, style));
+            addId(used, group.getRootLayerStyle());
+        }
+        List<StyleInfo> unused =
+                styles.findAllByNullWorkspace()
+                        .stream()
+                        .filter(style -> !used.contains(style.getId()))
+                        .collect(Collectors.toList());
+        styles.removeAll(unused);
+        return unused.size();
+    }
+
+    private static void addId(Set<String> ids, @Nullable StyleInfo style) {
+        if (style != null) ids.add(style.getId());
+    }
+
+    /** @return whether {@code info} shall be stored, according to the {@link #getPartition()} */
+    boolean inPartition(CatalogInfo info) {
+        final CatalogPartition partition = this.partition;
+        if (partition == null || partition.includes(info)) {
+            return true;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(String.format("Skipping %s outside the catalog partition", info.getId()));
+        }
+        return false;
     }
 
     public @Override abstract void resolve();
 
+    /**
+     * Whether {@link #resolve()} resolves the objects of each type in parallel, defaults to {@code
+     * true}
+     */
+    public void setParallelResolve(boolean parallelResolve) {
+        this.parallelResolve = parallelResolve;
+    }
+
+    public boolean isParallelResolve() {
+        return parallelResolve;
+    }
+
+    /**
+     * Resolves all the objects of a single type "phase" of {@link #resolve()}, in parallel on the
+     * common fork-join pool if {@link #isParallelResolve() enabled}. Resolving an object only
+     * mutates the object itself and looks up the objects it references, hence callers shall
+     * honour the dependency order between phases (i.e. workspaces before stores, stores before
+     * resources, resources before layers, layers before layer groups), but the objects within a
+     * phase are independent of each other.
+     */
+    protected <T extends CatalogInfo> void resolveAll(List<T> objects, Consumer<T> resolver) {
+        if (!parallelResolve || objects.size() <= RESOLVE_BATCH_SIZE) {
+            objects.forEach(resolver);
+        } else {
+            List<T> list = objects instanceof RandomAccess ? objects : new ArrayList<>(objects);
+            ForkJoinPool.commonPool().invoke(new ResolveTask<>(list, 0, list.size(), resolver));
+        }
+    }
+
+    private static class ResolveTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> objects;
+        private final int from;
+        private final int to;
+        private final Consumer<T> resolver;
+
+        ResolveTask(List<T> objects, int from, int to, Consumer<T> resolver) {
+            this.objects = objects;
+            this.from = from;
+            this.to = to;
+            this.resolver = resolver;
+        }
+
+        protected @Override void compute() {
+            if (to - from <= RESOLVE_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    resolver.accept(objects.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(
+                        new ResolveTask<>(objects, from, mid, resolver),
+                        new ResolveTask<>(objects, mid, to, resolver));
+            }
+        }
+    }
+
     protected <I extends CatalogInfo> void doSave(I info, CatalogInfoRepository<I> repository) {
         ModificationProxy h = (ModificationProxy) Proxy.getInvocationHandler(info);
         // figure out what changed
@@ -152,6 +369,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     //
     public @Override StoreInfo add(StoreInfo store) {
         resolve(store);
+        if (!inPartition(store)) {
+            return null;
+        }
         stores.add(store);
         return ModificationProxy.create(store, StoreInfo.class);
     }
@@ -237,6 +457,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     //
     public @Override ResourceInfo add(ResourceInfo resource) {
         resolve(resource);
+        if (!inPartition(resource)) {
+            return null;
+        }
         resources.add(resource);
         return ModificationProxy.create(resource, ResourceInfo.class);
     }
@@ -314,6 +537,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     //
     public @Override LayerInfo add(LayerInfo layer) {
         resolve(layer);
+        if (!inPartition(layer)) {
+            return null;
+        }
         layers.add(layer);
 
         return ModificationProxy.create(layer, LayerInfo.class);
@@ -394,6 +620,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     //
     public @Override LayerGroupInfo add(LayerGroupInfo layerGroup) {
         resolve(layerGroup);
+        if (!inPartition(layerGroup)) {
+            return null;
+        }
         layerGroups.add(layerGroup);
         return ModificationProxy.create(layerGroup, LayerGroupInfo.class);
     }
@@ -461,6 +690,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     public @Override NamespaceInfo add(NamespaceInfo namespace) {
         resolve(namespace);
         NamespaceInfo unwrapped = unwrap(namespace);
+        if (!inPartition(unwrapped)) {
+            return null;
+        }
         namespaces.add(unwrapped);
 
         return ModificationProxy.create(unwrapped, NamespaceInfo.class);
@@ -533,6 +765,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     public @Override WorkspaceInfo add(WorkspaceInfo workspace) {
         resolve(workspace);
         WorkspaceInfo unwrapped = unwrap(workspace);
+        if (!inPartition(unwrapped)) {
+            return null;
+        }
         workspaces.add(unwrapped);
         return ModificationProxy.create(unwrapped, WorkspaceInfo.class);
     }
@@ -594,6 +829,9 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
     //
     public @Override StyleInfo add(StyleInfo style) {
         resolve(style);
+        if (!inPartition(style)) {
+            return null;
+        }
         styles.add(style);
         return ModificationProxy.create(style, StyleInfo.class);
     }
@@ -677,28 +915,46 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
         if (repository != null) repository.dispose();
     }
 
+    /**
+     * Synchronizes {@code dao} with this facade. If it's an {@code AbstractCatalogFacade}, only the
+     * id level {@link RepositoryDelta difference} between the two is applied, in two phases: first
+     * the additions and replacements in dependency order (workspaces first, maps last), then the
+     * default objects, and last the removals in reverse dependency order. Hence concurrent readers
+     * of {@code dao} never see it empty, see each object either in its old or new state, and never
+     * find an object referring to a missing one. Note the catalog as a whole is not switched
+     * atomically, though, readers may see some changes applied and others not yet. Otherwise all
+     * the objects are added to {@code dao}, which is expected to be empty.
+     */
     public @Override void syncTo(CatalogFacade dao) {
         dao = ProxyUtils.unwrap(dao, LockingCatalogFacade.class);
         if (dao instanceof AbstractCatalogFacade) {
-            // do an optimized sync
+            // do an incremental sync
             AbstractCatalogFacade other = (AbstractCatalogFacade) dao;
-            this.workspaces.syncTo(other.workspaces);
-            other.workspaces.setDefaultWorkspace(this.workspaces.getDefaultWorkspace());
+            final List<RepositoryDelta<?>> deltas =
+                    Arrays.asList(
+                            RepositoryDelta.of(this.workspaces, other.workspaces),
+                            RepositoryDelta.of(this.namespaces, other.namespaces),
+                            RepositoryDelta.of(this.stores, other.stores),
+                            RepositoryDelta.of(this.styles, other.styles),
+                            RepositoryDelta.of(this.resources, other.resources),
+                            RepositoryDelta.of(this.layers, other.layers),
+                            RepositoryDelta.of(this.layerGroups, other.layerGroups),
+                            RepositoryDelta.of(this.maps, other.maps));
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Synchronizing catalog facade: " + deltas);
+            }
+            deltas.forEach(RepositoryDelta::applyAddsAndChanges);
 
-            this.namespaces.syncTo(other.namespaces);
+            other.workspaces.setDefaultWorkspace(this.workspaces.getDefaultWorkspace());
             other.namespaces.setDefaultNamespace(this.namespaces.getDefaultNamespace());
-
-            this.stores.syncTo(other.stores);
             List<DataStoreInfo> defaultDataStores = this.stores.getDefaultDataStores();
             for (DataStoreInfo defaultDataStore : defaultDataStores) {
                 other.stores.setDefaultDataStore(defaultDataStore.getWorkspace(), defaultDataStore);
             }
-            this.resources.syncTo(other.resources);
-            this.layers.syncTo(other.layers);
 
-            this.layerGroups.syncTo(other.layerGroups);
-            this.styles.syncTo(other.styles);
-            this.maps.syncTo(other.maps);
+            for (int i = deltas.size() - 1; i >= 0; i--) {
+                deltas.get(i).applyRemoves();
+            }
             other.setCatalog(catalog);
         } else {
             // do a manual import
@@ -736,8 +992,38 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
         }
     }
 
+    /**
+     * Delegates to the repositories' {@link CatalogInfoRepository#count count}, which can answer
+     * unfiltered and indexed queries without a full scan, and never creates {@link
+     * ModificationProxy proxies}.
+     */
+    @SuppressWarnings("unchecked")
     public @Override <T extends CatalogInfo> int count(final Class<T> of, final Filter filter) {
-        return Iterables.size(iterable(of, filter, null));
+        final long count;
+        if (NamespaceInfo.class.isAssignableFrom(of)) {
+            count = namespaces.count((Class<NamespaceInfo>) of, filter);
+        } else if (WorkspaceInfo.class.isAssignableFrom(of)) {
+            count = workspaces.count((Class<WorkspaceInfo>) of, filter);
+        } else if (StoreInfo.class.isAssignableFrom(of)) {
+            count = stores.count((Class<StoreInfo>) of, filter);
+        } else if (ResourceInfo.class.isAssignableFrom(of)) {
+            count = resources.count((Class<ResourceInfo>) of, filter);
+        } else if (LayerInfo.class.isAssignableFrom(of)) {
+            count = layers.count((Class<LayerInfo>) of, filter);
+        } else if (LayerGroupInfo.class.isAssignableFrom(of)) {
+            count = layerGroups.count((Class<LayerGroupInfo>) of, filter);
+        } else if (PublishedInfo.class.isAssignableFrom(of)) {
+            count =
+                    layers.count(LayerInfo.class, filter)
+                            + layerGroups.count(LayerGroupInfo.class, filter);
+        } else if (StyleInfo.class.isAssignableFrom(of)) {
+            count = styles.count((Class<StyleInfo>) of, filter);
+        } else if (MapInfo.class.isAssignableFrom(of)) {
+            count = maps.count((Class<MapInfo>) of, filter);
+        } else {
+            throw new IllegalArgumentException("Unknown type: " + of);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, count);
     }
 
     /**
@@ -750,6 +1036,21 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
      */
     public @Override boolean canSort(
             final Class<? extends CatalogInfo> type, final String propertyName) {
+        return SORTABLE_PROPERTIES
+                .get(type)
+                .computeIfAbsent(propertyName, p -> isSortable(type, p));
+    }
+
+    /** Per type cache of {@link #canSort} results, so getters are resolved only once */
+    private static final ClassValue<ConcurrentMap<String, Boolean>> SORTABLE_PROPERTIES =
+            new ClassValue<ConcurrentMap<String, Boolean>>() {
+                protected @Override ConcurrentMap<String, Boolean> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private static boolean isSortable(
+            final Class<? extends CatalogInfo> type, final String propertyName) {
         final String[] path = propertyName.split("\\.");
         Class<?> clazz = type;
         for (int i = 0; i < path.length; i++) {
@@ -790,70 +1091,166 @@ public abstract class AbstractCatalogFacade implements CatalogFacade {
             }
         }
 
-        Iterable<T> iterable = iterable(of, filter, sortOrder);
+        final int skip = offset == null ? 0 : Math.max(0, offset.intValue());
+        final Integer limit = count == null || count.intValue() < 0 ? null : count;
+        final Comparator<T> comparator = comparator(sortOrder);
 
-        if (offset != null && offset.intValue() > 0) {
-            iterable = Iterables.skip(iterable, offset.intValue());
+        Stream<T> stream = stream(of, filter);
+        if (comparator != null) {
+            if (limit == null || (long) skip + limit.intValue() > Integer.MAX_VALUE) {
+                stream = stream.sorted(comparator);
+            } else {
+                stream = sortedTopK(stream, comparator, skip + limit.intValue()).stream();
+            }
         }
-
-        if (count != null && count.intValue() >= 0) {
-            iterable = Iterables.limit(iterable, count.intValue());
+        if (skip > 0) {
+            stream = stream.skip(skip);
         }
-
-        Iterator<T> iterator = iterable.iterator();
-
-        return new CloseableIteratorAdapter<T>(iterator);
+        if (limit != null) {
+            stream = stream.limit(limit.intValue());
+        }
+        // only proxy the objects actually returned
+        Iterator<T> iterator = stream.map(i -> wrapInModificationProxy(i, of)).iterator();
+        return new CloseableIteratorAdapter<T>(iterator, stream::close);
     }
 
     @SuppressWarnings("unchecked")
     protected <T extends CatalogInfo> Iterable<T> iterable(
             final Class<T> of, final Filter filter, final SortBy[] sortByList) {
         List<T> all;
+        try (Stream<T> stream = stream(of, filter)) {
+            all = stream.collect(Collectors.toList());
+        }
+        Comparator<T> comparator = comparator(sortByList);
+        if (comparator != null) {
+            all.sort(comparator);
+        }
+        return wrapInModificationProxy(all, of);
+    }
 
+    /**
+     * @return a lazy stream of the raw (not proxied) objects of type {@code of} matching {@code
+     *     filter}, as provided by the repository for the requested type
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends CatalogInfo> Stream<T> stream(final Class<T> of, final Filter filter) {
+        final Stream<? extends CatalogInfo> stream;
         if (NamespaceInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) namespaces.findAll(filter);
+            stream = namespaces.stream(filter, (Class<NamespaceInfo>) of);
         } else if (WorkspaceInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) workspaces.findAll(filter);
+            stream = workspaces.stream(filter, (Class<WorkspaceInfo>) of);
         } else if (StoreInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) stores.findAll(filter, (Class<StoreInfo>) of);
+            stream = stores.stream(filter, (Class<StoreInfo>) of);
         } else if (ResourceInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) resources.findAll(filter, (Class<ResourceInfo>) of);
+            stream = resources.stream(filter, (Class<ResourceInfo>) of);
         } else if (LayerInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) layers.findAll(filter);
+            stream = layers.stream(filter, (Class<LayerInfo>) of);
         } else if (LayerGroupInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) layerGroups.findAll(filter);
+            stream = layerGroups.stream(filter, (Class<LayerGroupInfo>) of);
         } else if (PublishedInfo.class.isAssignableFrom(of)) {
-            all = new ArrayList<>();
-            all.addAll((List<T>) layers.findAll(filter));
-            all.addAll((List<T>) layerGroups.findAll(filter));
+            stream =
+                    Stream.concat(
+                            layers.stream(filter, LayerInfo.class),
+                            layerGroups.stream(filter, LayerGroupInfo.class));
         } else if (StyleInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) styles.findAll(filter);
+            stream = styles.stream(filter, (Class<StyleInfo>) of);
         } else if (MapInfo.class.isAssignableFrom(of)) {
-            all = (List<T>) maps.findAll(filter);
+            stream = maps.stream(filter, (Class<MapInfo>) of);
         } else {
             throw new IllegalArgumentException("Unknown type: " + of);
         }
+        return (Stream<T>) stream;
+    }
 
-        if (null != sortByList) {
-            for (int i = sortByList.length - 1; i >= 0; i--) {
-                SortBy sortBy = sortByList[i];
-                Ordering<Object> ordering = Ordering.from(comparator(sortBy));
+    /**
+     * @return a comparator sorting by all the {@code sortByList} properties in order, or {@code
+     *     null} if there's nothing to sort by
+     */
+    private @Nullable <T> Comparator<T> comparator(@Nullable SortBy[] sortByList) {
+        Comparator<T> comparator = null;
+        if (sortByList != null) {
+            for (SortBy sortBy : sortByList) {
+                if (sortBy == null) {
+                    continue;
+                }
+                Comparator<T> c = comparator(sortBy)::compare;
                 if (SortOrder.DESCENDING.equals(sortBy.getSortOrder())) {
-                    ordering = ordering.reverse();
+                    c = c.reversed();
                 }
-                all = ordering.sortedCopy(all);
+                comparator = comparator == null ? c : comparator.thenComparing(c);
             }
         }
+        return comparator;
+    }
 
-        return wrapInModificationProxy(all, of);
+    /**
+     * Selects the first {@code k} elements of {@code stream} in {@code comparator} order using a
+     * bounded heap, at a {@code O(n log k)} cost and {@code O(k)} memory instead of sorting a full
+     * copy of the stream contents. Elements comparing equal keep their encounter order, as a
+     * stable sort would do.
+     *
+     * <p>The elements are buffered until {@code k} of them are read, and only then moved to a
+     * heap, so memory grows with the elements actually read, and a stream of {@code k} elements
+     * or less, like when {@code k} is a large limit meaning "all", is just sorted.
+     *
+     * @return the {@code k} first elements, sorted
+     */
+    static <T> List<T> sortedTopK(Stream<T> stream, Comparator<? super T> comparator, int k) {
+        if (k <= 0) {
+            stream.close();
+            return new ArrayList<>();
+        }
+        final Comparator<Ranked<T>> order =
+                Comparator.<Ranked<T>, T>comparing(r -> r.value, comparator)
+                        .thenComparingLong(r -> r.rank);
+        final List<Ranked<T>> buffer = new ArrayList<>(Math.min(k, TOP_K_INITIAL_CAPACITY));
+        // max-heap on the order, the head is the greatest of the k elements selected so far
+        final PriorityQueue<Ranked<T>> heap =
+                new PriorityQueue<>(Math.min(k, TOP_K_INITIAL_CAPACITY), order.reversed());
+        final long[] rank = {0};
+        try (Stream<T> s = stream) {
+            s.forEachOrdered(
+                    value -> {
+                        Ranked<T> r = new Ranked<>(value, rank[0]++);
+                        if (buffer.size() < k && heap.isEmpty()) {
+                            buffer.add(r);
+                            if (buffer.size() == k) {
+                                heap.addAll(buffer);
+                                buffer.clear();
+                            }
+                        } else if (order.compare(r, heap.peek()) < 0) {
+                            heap.poll();
+                            heap.add(r);
+                        }
+                    });
+        }
+        List<Ranked<T>> ranked = heap.isEmpty() ? buffer : new ArrayList<>(heap);
+        ranked.sort(order);
+        List<T> result = new ArrayList<>(ranked.size());
+        ranked.forEach(r -> result.add(r.value));
+        return result;
+    }
+
+    /** Initial capacity of the {@link #sortedTopK} buffers, which grow as elements are read */
+    private static final int TOP_K_INITIAL_CAPACITY = 1024;
+
+    private static class Ranked<T> {
+        final T value;
+        final long rank;
+
+        Ranked(T value, long rank) {
+            this.value = value;
+            this.rank = rank;
+        }
     }
 
     private Comparator<Object> comparator(final SortBy sortOrder) {
+        final PropertyPath path = PropertyPath.of(sortOrder.getPropertyName().getPropertyName());
         return new Comparator<Object>() {
             @Override
             public int compare(Object o1, Object o2) {
-                Object v1 = OwsUtils.get(o1, sortOrder.getPropertyName().getPropertyName());
-                Object v2 = OwsUtils.get(o2, sortOrder.getPropertyName().getPropertyName());
+                Object v1 = path.get(o1);
+                Object v2 = path.get(o2);
                 if (v1 == null) {
                     if (v2 == null) {
                         return 0;
@@ -9,13 +9,22 @@ import lombok.Getter;
 import lombok.NonNull;
 import org.geoserver.GeoServerConfigurationLock;
 import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
 import org.geoserver.catalog.LockingCatalogFacade;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
 import org.geoserver.platform.GeoServerExtensions;
 
 /**
  * Extends {@link org.geoserver.catalog.impl.CatalogImpl} to allow decorating the {@link
  * CatalogFacade} with an {@link IsolatedCatalogFacade}, and use {@link
- * org.geoserver.catalog.plugin.DefaultCatalogFacade} as the default facade implementation.
+ * org.geoserver.catalog.plugin.DefaultCatalogFacade} as the default facade implementation, and to
+ * skip the objects outside the facade's {@link AbstractCatalogFacade#getPartition() partition}.
  */
 @SuppressWarnings("serial")
 public class CatalogImpl extends org.geoserver.catalog.impl.CatalogImpl {
@@ -47,4 +56,57 @@ public class CatalogImpl extends org.geoserver.catalog.impl.CatalogImpl {
         this.facade = new IsolatedCatalogFacade(rawCatalogFacade);
         facade.setCatalog(this);
     }
+
+    /**
+     * @return whether {@code info} belongs to the {@link AbstractCatalogFacade#getPartition()
+     *     partition} of the raw facade, if any; objects outside of it are not added at all, so that
+     *     no add event is fired for objects the facade doesn't store
+     */
+    private boolean inPartition(CatalogInfo info) {
+        CatalogFacade raw = this.rawCatalogFacade;
+        return !(raw instanceof AbstractCatalogFacade)
+                || ((AbstractCatalogFacade) raw).inPartition(info);
+    }
+
+    public @Override void add(WorkspaceInfo workspace) {
+        if (inPartition(workspace)) {
+            super.add(workspace);
+        }
+    }
+
+    public @Override void add(NamespaceInfo namespace) {
+        if (inPartition(namespace)) {
+            super.add(namespace);
+        }
+    }
+
+    public @Override void add(StoreInfo store) {
+        if (inPartition(store)) {
+            super.add(store);
+        }
+    }
+
+    public @Override void add(ResourceInfo resource) {
+        if (inPartition(resource)) {
+            super.add(resource);
+        }
+    }
+
+    public @Override void add(LayerInfo layer) {
+        if (inPartition(layer)) {
+            super.add(layer);
+        }
+    }
+
+    public @Override void add(LayerGroupInfo layerGroup) {
+        if (inPartition(layerGroup)) {
+            super.add(layerGroup);
+        }
+    }
+
+    public @Override void add(StyleInfo style) {
+        if (inPartition(style)) {
+            super.add(style);
+        }
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.ows.util.OwsUtils;
+
+/**
+ * Copies {@link CatalogInfo} objects for {@link SnapshotCatalogFacade}, which can't modify the
+ * objects of a published {@link CatalogSnapshot} in place, since older snapshots pinned by readers
+ * share them.
+ *
+ * <p>Copies are shallow, except for the collections and maps the object holds, which are copied
+ * so that committing a {@link ModificationProxy} to the copy leaves the original's untouched. A
+ * collection that can't be copied is an error rather than being shared with the original.
+ */
+final class CatalogInfoCopier {
+
+    /** Instance fields of each class, including the inherited ones */
+    private static final ClassValue<List<Field>> FIELDS =
+            new ClassValue<List<Field>>() {
+                protected @Override List<Field> computeValue(Class<?> type) {
+                    List<Field> fields = new ArrayList<>();
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        for (Field field : c.getDeclaredFields()) {
+                            if (!Modifier.isStatic(field.getModifiers())) {
+                                field.setAccessible(true);
+                                fields.add(field);
+                            }
+                        }
+                    }
+                    return Collections.unmodifiableList(fields);
+                }
+            };
+
+    private CatalogInfoCopier() {
+        // no instances
+    }
+
+    /** @return a new instance of the same class as {@code object}, with the same state */
+    static <T> T copy(T object) {
+        @SuppressWarnings("unchecked")
+        final Class<T> type = (Class<T>) object.getClass();
+        final T copy = newInstance(type);
+        if (copy == null) {
+            throw new IllegalStateException(
+                    "Can't copy " + type.getName() + ", it has no default constructor");
+        }
+        for (Field field : FIELDS.get(type)) {
+            set(field, copy, copyValue(field, get(field, object)));
+        }
+        return copy;
+    }
+
+    /**
+     * Applies the changes tracked by {@code proxy} to {@code target} the way {@link
+     * ModificationProxy#commit()} applies them to the object it wraps, which is left unchanged.
+     * The proxy keeps wrapping it and tracking the changes, so saving it again re-applies them.
+     *
+     * @param target a {@link #copy(Object) copy} of the object wrapped by {@code proxy}, whose
+     *     collections and maps are its own
+     */
+    @SuppressWarnings("unchecked")
+    static void commit(ModificationProxy proxy, Object target) {
+        final List<String> properties = proxy.getPropertyNames();
+        final List<Object> values = proxy.getNewValues();
+        for (int i = 0; i < properties.size(); i++) {
+            final String property = properties.get(i);
+            final Object value = values.get(i);
+            final Method getter = OwsUtils.getter(target.getClass(), property, null);
+            if (getter == null) {
+                throw new IllegalStateException(
+                        "No getter for " + property + " in " + target.getClass().getName());
+            }
+            final Class<?> type = getter.getReturnType();
+            if (Collection.class.isAssignableFrom(type)) {
+                Collection<Object> collection = (Collection<Object>) invoke(getter, target);
+                collection.clear();
+                if (value != null) {
+                    collection.addAll((Collection<?>) value);
+                }
+            } else if (Map.class.isAssignableFrom(type)) {
+                Map<Object, Object> map = (Map<Object, Object>) invoke(getter, target);
+                map.clear();
+                if (value != null) {
+                    map.putAll((Map<?, ?>) value);
+                }
+            } else {
+                Method setter = OwsUtils.setter(target.getClass(), property, type);
+                if (setter == null) {
+                    throw new IllegalStateException(
+                            "No setter for " + property + " in " + target.getClass().getName());
+                }
+                invoke(setter, target, value);
+            }
+        }
+    }
+
+    /**
+     * Replaces the references {@code copy} holds to other catalog objects, directly or in its
+     * collections, by the result of applying {@code resolver} to them
+     */
+    static void rebind(Object copy, UnaryOperator<CatalogInfo> resolver) {
+        for (Field field : FIELDS.get(copy.getClass())) {
+            Object value = get(field, copy);
+            if (value instanceof CatalogInfo) {
+                CatalogInfo resolved = resolver.apply((CatalogInfo) value);
+                if (resolved != value && field.getType().isInstance(resolved)) {
+                    set(field, copy, resolved);
+                }
+            } else if (value instanceof List) {
+                rebind((List<?>) value, resolver);
+            } else if (value instanceof Set) {
+                rebind((Set<?>) value, resolver);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void rebind(List<?> list, UnaryOperator<CatalogInfo> resolver) {
+        for (ListIterator<Object> it = ((List<Object>) list).listIterator(); it.hasNext(); ) {
+            Object value = it.next();
+            if (value instanceof CatalogInfo) {
+                CatalogInfo resolved = resolver.apply((CatalogInfo) value);
+                if (resolved != value) {
+                    it.set(resolved);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void rebind(Set<?> set, UnaryOperator<CatalogInfo> resolver) {
+        List<Object> values = new ArrayList<>(set.size());
+        boolean changed = false;
+        for (Object value : set) {
+            Object resolved =
+                    value instanceof CatalogInfo ? resolver.apply((CatalogInfo) value) : value;
+            changed |= resolved != value;
+            values.add(resolved);
+        }
+        if (changed) {
+            set.clear();
+            ((Set<Object>) set).addAll(values);
+        }
+    }
+
+    /**
+     * @return a copy of {@code value} if it's a collection or map, of the same class if it can be
+     *     instantiated and filled, or else of a general purpose class, {@code value} itself
+     *     otherwise
+     * @throws IllegalStateException if neither copy can be assigned to {@code field}, since
+     *     sharing the collection would let changes to the copy leak into the original
+     */
+    private static Object copyValue(Field field, @Nullable Object value) {
+        final Object copy;
+        if (value instanceof Collection) {
+            copy = copyCollection((Collection<?>) value);
+        } else if (value instanceof Map) {
+            copy = copyMap((Map<?, ?>) value);
+        } else {
+            return value;
+        }
+        if (!field.getType().isInstance(copy)) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Can't copy %s.%s, a %s",
+                            field.getDeclaringClass().getName(),
+                            field.getName(),
+                            value.getClass().getName()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> copyCollection(Collection<?> value) {
+        Collection<Object> copy = (Collection<Object>) newInstance(value.getClass());
+        if (copy != null && !(value instanceof SortedSet)) {
+            try {
+                copy.addAll(value);
+                return copy;
+            } catch (UnsupportedOperationException e) {
+                // an immutable collection, fall back to a mutable one
+            }
+        }
+        if (value instanceof SortedSet) {
+            copy = new TreeSet<>((Comparator<Object>) ((SortedSet<?>) value).comparator());
+        } else if (value instanceof Set) {
+            copy = new LinkedHashSet<>();
+        } else {
+            copy = new ArrayList<>(value.size());
+        }
+        copy.addAll(value);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> copyMap(Map<?, ?> value) {
+        Map<Object, Object> copy = (Map<Object, Object>) newInstance(value.getClass());
+        if (copy != null && !(value instanceof SortedMap)) {
+            try {
+                copy.putAll(value);
+                return copy;
+            } catch (UnsupportedOperationException e) {
+                // an immutable map, fall back to a mutable one
+            }
+        }
+        if (value instanceof SortedMap) {
+            copy = new TreeMap<>((Comparator<Object>) ((SortedMap<?, ?>) value).comparator());
+        } else {
+            copy = new LinkedHashMap<>();
+        }
+        copy.putAll(value);
+        return copy;
+    }
+
+    private static @Nullable <T> T newInstance(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -10,17 +10,23 @@ import static java.util.Collections.singletonList;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogInfo;
 import org.geoserver.catalog.DataStoreInfo;
@@ -33,6 +39,7 @@ import org.geoserver.catalog.StoreInfo;
 import org.geoserver.catalog.StyleInfo;
 import org.geoserver.catalog.WorkspaceInfo;
 import org.geoserver.catalog.impl.LayerInfoImpl;
+import org.geoserver.catalog.plugin.CatalogInfoQueryPlanner.QueryPlan;
 import org.geoserver.ows.util.OwsUtils;
 import org.geotools.feature.NameImpl;
 import org.geotools.util.logging.Logging;
@@ -51,6 +58,12 @@ import org.opengis.filter.Filter;
 class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<T> {
     static final Logger LOGGER = Logging.getLogger(CatalogInfoLookup.class);
 
+    /**
+     * Logger for query plans, set to {@code FINE} to log the queries that are resolved by a full
+     * scan, and to {@code FINER} to also log the ones resolved through an index
+     */
+    static final Logger QUERY_LOGGER = Logging.getLogger("org.geoserver.catalog.plugin.query");
+
     /**
      * Name mapper for {@link MapInfo}, uses simple name mapping on {@link MapInfo#getName()} as it
      * doesn't have a namespace component
@@ -103,15 +116,122 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     protected ConcurrentMap<Class<T>, ConcurrentMap<String, Name>> idToMameMultiMap =
             new ConcurrentHashMap<>();
 
+    /**
+     * Number of objects of each concrete class, updated with its id map holding the object's
+     * {@link #lock}, since {@link ConcurrentSkipListMap#size()} traverses the whole map
+     */
+    private final ConcurrentMap<Class<?>, LongAdder> sizes = new ConcurrentHashMap<>();
+
     Function<T, Name> nameMapper;
 
+    /** Number of {@link #lock lock stripes}, a power of two */
+    static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = newLocks();
+
+    /**
+     * Whether this lookup uses the memory compact layout, see {@link
+     * #CatalogInfoLookup(Function, boolean)}
+     */
+    protected final boolean compact;
+
+    /**
+     * Secondary indexes kept in sync with the primary maps, registered by subclasses through
+     * {@link #addForeignKeyIndex}
+     */
+    protected final List<ForeignKeyIndex<T>> foreignKeyIndexes = new ArrayList<>();
+
+    private final CatalogInfoQueryPlanner<T> queryPlanner =
+            new CatalogInfoQueryPlanner<>(this::findIndexed);
+
+    /**
+     * Cache of the per concrete class maps each requested type resolves to (e.g. {@code
+     * StoreInfo.class -> [DataStoreInfoImpl, CoverageStoreInfoImpl, ...]}), so that lookups don't
+     * need to iterate over all the concrete classes checking {@link Class#isAssignableFrom} each
+     * time.
+     *
+     * <p>The whole cache is discarded by replacing the reference when a map for a new concrete
+     * class is created, hence an entry computed concurrently with the creation of a new concrete
+     * class map can only end up in the discarded instance and never be stale.
+     */
+    private volatile ConcurrentMap<Class<?>, TypeMaps<T>> typeMapsCache =
+            new ConcurrentHashMap<>();
+
+    /** The id and name maps of all the concrete classes that are subtypes of a requested type */
+    static final class TypeMaps<T> {
+        final List<Class<T>> types;
+        final List<ConcurrentMap<String, T>> idMaps;
+        final List<ConcurrentMap<Name, T>> nameMaps;
+        final List<LongAdder> sizes;
+
+        TypeMaps(
+                List<Class<T>> types,
+                List<ConcurrentMap<String, T>> idMaps,
+                List<ConcurrentMap<Name, T>> nameMaps,
+                List<LongAdder> sizes) {
+            this.types = types;
+            this.idMaps = idMaps;
+            this.nameMaps = nameMaps;
+            this.sizes = sizes;
+        }
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
     static final <T> Predicate<T> alwaysTrue() {
         return x -> true;
     }
 
     public CatalogInfoLookup(Function<T, Name> nameMapper) {
+        this(nameMapper, false);
+    }
+
+    /**
+     * @param compact whether to use a memory compact layout for large catalogs: the per concrete
+     *     class maps are hash maps instead of sorted maps (i.e. {@link #findAll()} and friends
+     *     return objects in no particular order), and there are no id to name maps; the name an
+     *     object is registered with is resolved from the name map itself, which requires a scan of
+     *     the concrete class name map only when an object has been renamed
+     */
+    public CatalogInfoLookup(Function<T, Name> nameMapper, boolean compact) {
         super();
         this.nameMapper = nameMapper;
+        this.compact = compact;
+    }
+
+    /**
+     * Registers a secondary index by the id of a referenced catalog object, to be called from
+     * subclasses constructors
+     *
+     * @param propertyName the property path of the foreign key as used in OGC filters (e.g. {@code
+     *     workspace.id})
+     * @param keyMapper extracts the foreign key from an object, may return {@code null}
+     */
+    protected ForeignKeyIndex<T> addForeignKeyIndex(
+            String propertyName, Function<T, String> keyMapper) {
+        ForeignKeyIndex<T> index = new ForeignKeyIndex<>(propertyName, keyMapper);
+        foreignKeyIndexes.add(index);
+        return index;
+    }
+
+    /**
+     * Registers a secondary index by the ids of several referenced catalog objects, to be called
+     * from subclasses constructors. Unlike {@link #addForeignKeyIndex} it's not used to resolve
+     * queries, but through {@link #list(Class, ForeignKeyIndex, String)}
+     *
+     * @param keysMapper extracts the foreign keys from an object, {@code null} keys are ignored
+     */
+    protected ForeignKeyIndex<T> addMultiValuedIndex(
+            Function<T, ? extends Collection<String>> keysMapper) {
+        ForeignKeyIndex<T> index = ForeignKeyIndex.multiValued(keysMapper);
+        foreignKeyIndexes.add(index);
+        return index;
     }
 
     <K, V> ConcurrentMap<K, V> getMapForValue(
@@ -124,7 +244,110 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     @SuppressWarnings("unchecked")
     protected <K, V> ConcurrentMap<K, V> getMapForType(
             ConcurrentMap<Class<T>, ConcurrentMap<K, V>> maps, Class vc) {
-        return maps.computeIfAbsent(vc, k -> new ConcurrentSkipListMap<K, V>());
+        ConcurrentMap<K, V> map = maps.get(vc);
+        if (map == null) {
+            map = maps.computeIfAbsent(vc, k -> newTypeMap());
+            // the map is already visible when the cache is discarded
+            invalidateTypeMaps();
+        }
+        return map;
+    }
+
+    private <K, V> ConcurrentMap<K, V> newTypeMap() {
+        return compact ? new ConcurrentHashMap<>() : new ConcurrentSkipListMap<>();
+    }
+
+    private void invalidateTypeMaps() {
+        this.typeMapsCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the id and name maps for all the concrete classes assignable to {@code clazz},
+     *     resolved once per requested type until a new concrete class is added
+     */
+    TypeMaps<T> getTypeMaps(Class<?> clazz) {
+        final ConcurrentMap<Class<?>, TypeMaps<T>> cache = this.typeMapsCache;
+        TypeMaps<T> typeMaps = cache.get(clazz);
+        if (typeMaps == null) {
+            typeMaps = resolveTypeMaps(clazz);
+            cache.putIfAbsent(clazz, typeMaps);
+        }
+        return typeMaps;
+    }
+
+    private TypeMaps<T> resolveTypeMaps(Class<?> clazz) {
+        List<Class<T>> types = new ArrayList<>(2);
+        List<ConcurrentMap<String, T>> idMaps = new ArrayList<>(2);
+        List<ConcurrentMap<Name, T>> nameMaps = new ArrayList<>(2);
+        List<LongAdder> typeSizes = new ArrayList<>(2);
+        for (Map.Entry<Class<T>, ConcurrentMap<String, T>> e : idMultiMap.entrySet()) {
+            Class<T> concreteType = e.getKey();
+            if (clazz.isAssignableFrom(concreteType)) {
+                types.add(concreteType);
+                idMaps.add(e.getValue());
+                nameMaps.add(getMapForType(nameMultiMap, concreteType));
+                typeSizes.add(size(concreteType));
+            }
+        }
+        return new TypeMaps<>(types, idMaps, nameMaps, typeSizes);
+    }
+
+    private LongAdder size(Class<?> concreteType) {
+        return sizes.computeIfAbsent(concreteType, t -> new LongAdder());
+    }
+
+    /**
+     * Puts {@code value} in the id map of its concrete class, counting it if it wasn't there, to be
+     * called holding its id {@link #lock}
+     */
+    private void putById(T value) {
+        if (getMapForValue(idMultiMap, value).put(value.getId(), value) == null) {
+            size(value.getClass()).increment();
+        }
+    }
+
+    /**
+     * Removes {@code value} from the id map of its concrete class, to be called holding its id
+     * {@link #lock}
+     *
+     * @return the removed object, or {@code null} if there was none with that id
+     */
+    protected final @Nullable T removeById(T value) {
+        T removed = getMapForValue(idMultiMap, value).remove(value.getId());
+        if (removed != null) {
+            size(value.getClass()).decrement();
+        }
+        return removed;
+    }
+
+    /**
+     * @return the name {@code value} is registered with in the name map, which differs from the
+     *     one the {@link #nameMapper} returns if it's been renamed and not yet {@link #update
+     *     updated}, or {@code null} if it's not registered
+     */
+    protected @Nullable Name currentName(T value) {
+        final String id = value.getId();
+        if (!compact) {
+            return getMapForValue(idToMameMultiMap, value).get(id);
+        }
+        ConcurrentMap<Name, T> nameMap = getMapForValue(nameMultiMap, value);
+        Name name = nameMapper.apply(value);
+        T current = nameMap.get(name);
+        if (current != null && id.equals(current.getId())) {
+            return name;
+        }
+        // renamed, renames are rare enough to afford a scan instead of keeping an id to name map
+        for (Map.Entry<Name, T> e : nameMap.entrySet()) {
+            if (id.equals(e.getValue().getId())) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    /** Null safe id extractor for foreign key mappers */
+    static String id(@Nullable CatalogInfo info) {
+        return info == null ? null : info.getId();
     }
 
     private static void checkNotAProxy(CatalogInfo value) {
@@ -137,16 +360,121 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     @Override
     public void add(T value) {
         checkNotAProxy(value);
-        Map<String, T> idMap = getMapForValue(idMultiMap, value);
-        Map<Name, T> nameMap = getMapForValue(nameMultiMap, value);
-        Map<String, Name> idToName = getMapForValue(idToMameMultiMap, value);
+        synchronized (lock(value.getId())) {
+            doAdd(value);
+        }
+    }
 
-        synchronized (idMap) {
-            Name name = nameMapper.apply(value);
-            nameMap.put(name, value);
-            idToName.put(value.getId(), name);
-            idMap.put(value.getId(), value);
+    /**
+     * Adds all {@code values} taking each lock stripe only once for all the values that hash to
+     * it, instead of once per value
+     */
+    @Override
+    public void addAll(Collection<? extends T> values) {
+        for (Map.Entry<Object, List<T>> group : groupByLock(values).entrySet()) {
+            synchronized (group.getKey()) {
+                group.getValue().forEach(this::doAdd);
+            }
+        }
+    }
+
+    /** Adds {@code value} to the maps and indexes, to be called holding its id {@link #lock} */
+    private void doAdd(T value) {
+        final String id = value.getId();
+        final Name name = nameMapper.apply(value);
+        if (!compact) {
+            Name oldName = getMapForValue(idToMameMultiMap, value).put(id, name);
+            if (oldName != null && !oldName.equals(name)) {
+                // re-added with a different name
+                removeName(getMapForValue(nameMultiMap, value), oldName, id);
+            }
+        }
+        getMapForValue(nameMultiMap, value).put(name, value);
+        putById(value);
+        for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+            foreignKeyIndexes.get(i).add(value);
+        }
+    }
+
+    /**
+     * Replaces the objects with the same ids as {@code values}, or adds them, taking each lock
+     * stripe only once. Lock-free readers find either the old or the new object by id and name, but
+     * never none.
+     */
+    @Override
+    public void replaceAll(Collection<? extends T> values) {
+        for (Map.Entry<Object, List<T>> group : groupByLock(values).entrySet()) {
+            synchronized (group.getKey()) {
+                group.getValue().forEach(this::doReplace);
+            }
+        }
+    }
+
+    /**
+     * Replaces the object with the same id as {@code value} by it, putting the new entries before
+     * removing the stale ones, to be called holding its id {@link #lock}
+     */
+    private void doReplace(T value) {
+        final String id = value.getId();
+        final T old = getMapForValue(idMultiMap, value).get(id);
+        if (old == null) {
+            // not there, or there as another concrete type living in other maps
+            for (Map<String, T> idMap : idMultiMap.values()) {
+                T other = idMap.get(id);
+                if (other != null) {
+                    doRemove(other);
+                    break;
+                }
+            }
+            doAdd(value);
+            return;
+        }
+        final Name oldName = currentName(old);
+        final Name name = nameMapper.apply(value);
+        ConcurrentMap<Name, T> nameMap = getMapForValue(nameMultiMap, value);
+        nameMap.put(name, value);
+        putById(value);
+        if (!compact) {
+            getMapForValue(idToMameMultiMap, value).put(id, name);
+        }
+        if (oldName != null && !oldName.equals(name)) {
+            removeName(nameMap, oldName, id);
+        }
+        for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+            foreignKeyIndexes.get(i).update(value);
+        }
+    }
+
+    /**
+     * Groups {@code values} by lock stripe preserving their order within each stripe, failing
+     * before any value is added or removed if there's a proxy among them
+     */
+    private Map<Object, List<T>> groupByLock(Collection<? extends T> values) {
+        Map<Object, List<T>> byLock = new LinkedHashMap<>();
+        for (T value : values) {
+            checkNotAProxy(value);
+            byLock.computeIfAbsent(lock(value.getId()), l -> new ArrayList<>()).add(value);
         }
+        return byLock;
+    }
+
+    /**
+     * @return the lock stripe guarding the writes of the object with the given id, all the maps
+     *     and indexes entries of an object are only modified holding its lock, while objects that
+     *     hash to different stripes can be written concurrently
+     */
+    protected final Object lock(String id) {
+        final int h = id.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Removes the {@code name} entry only if it's still mapped to the object with the given id,
+     * since a concurrent writer of another object, holding another lock stripe, may have taken it
+     */
+    protected static <V extends CatalogInfo> void removeName(
+            Map<Name, V> nameMap, Name name, String id) {
+        nameMap.computeIfPresent(name, (n, current) -> id.equals(current.getId()) ? null : current);
     }
 
     @Override
@@ -162,12 +490,40 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     @Override
     public void remove(T value) {
         checkNotAProxy(value);
-        Map<String, T> idMap = getMapForValue(idMultiMap, value);
-        synchronized (idMap) {
-            T removed = idMap.remove(value.getId());
-            if (removed != null) {
-                Name name = getMapForValue(idToMameMultiMap, value).remove(value.getId());
-                getMapForValue(nameMultiMap, value).remove(name);
+        synchronized (lock(value.getId())) {
+            doRemove(value);
+        }
+    }
+
+    /**
+     * Removes all {@code values} taking each lock stripe only once for all the values that hash to
+     * it, instead of once per value
+     */
+    @Override
+    public void removeAll(Collection<? extends T> values) {
+        for (Map.Entry<Object, List<T>> group : groupByLock(values).entrySet()) {
+            synchronized (group.getKey()) {
+                group.getValue().forEach(this::doRemove);
+            }
+        }
+    }
+
+    /**
+     * Removes {@code value} from the maps and indexes, to be called holding its id {@link #lock}
+     */
+    protected void doRemove(T value) {
+        final String id = value.getId();
+        T removed = removeById(value);
+        if (removed != null) {
+            Name name =
+                    compact
+                            ? currentName(removed)
+                            : getMapForValue(idToMameMultiMap, value).remove(id);
+            if (name != null) {
+                removeName(getMapForValue(nameMultiMap, value), name, id);
+            }
+            for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+                foreignKeyIndexes.get(i).remove(removed);
             }
         }
     }
@@ -176,24 +532,27 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     @Override
     public void update(T value) {
         checkNotAProxy(value);
-        Map<String, T> idMap = getMapForValue(idMultiMap, value);
-        synchronized (idMap) {
-            CatalogInfo oldValue = idMap.get(value.getId());
+        final String id = value.getId();
+        synchronized (lock(id)) {
+            CatalogInfo oldValue = getMapForValue(idMultiMap, value).get(id);
             if (oldValue == null) {
                 throw new NoSuchElementException(
-                        value.getClass().getSimpleName()
-                                + " with id "
-                                + value.getId()
-                                + " does not exist");
+                        value.getClass().getSimpleName() + " with id " + id + " does not exist");
             }
-            ConcurrentMap<String, Name> idToName = getMapForValue(idToMameMultiMap, value);
-            Name oldName = idToName.get(value.getId());
+            Name oldName = currentName(value);
             Name newName = nameMapper.apply(value);
             if (!Objects.equals(oldName, newName)) {
                 Map<Name, T> nameMap = getMapForValue(nameMultiMap, value);
-                nameMap.remove(oldName);
+                if (oldName != null) {
+                    removeName(nameMap, oldName, id);
+                }
                 nameMap.put(newName, value);
-                idToName.put(value.getId(), newName);
+                if (!compact) {
+                    getMapForValue(idToMameMultiMap, value).put(id, newName);
+                }
+            }
+            for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+                foreignKeyIndexes.get(i).update(value);
             }
         }
     }
@@ -207,23 +566,165 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         idMultiMap.clear();
         nameMultiMap.clear();
         idToMameMultiMap.clear();
+        sizes.clear();
+        invalidateTypeMaps();
+        foreignKeyIndexes.forEach(ForeignKeyIndex::clear);
+    }
+
+    /** Rebuilds the secondary indexes from the contents of the primary maps */
+    protected void reindex() {
+        for (ForeignKeyIndex<T> index : foreignKeyIndexes) {
+            index.clear();
+            for (Map<String, T> typeMap : idMultiMap.values()) {
+                typeMap.values().forEach(index::add);
+            }
+        }
     }
 
     @Override
     public <U extends T> List<U> findAll(Filter filter) {
-        return list(null, toPredicate(filter));
+        @SuppressWarnings("unchecked")
+        Class<U> infoType = (Class<U>) (Class<?>) CatalogInfo.class;
+        return findAll(filter, infoType);
     }
 
+    /**
+     * Resolves the indexable parts of {@code filter} through the id, name, and secondary indexes,
+     * and evaluates the residual filter only on the resulting candidates.
+     *
+     * @see CatalogInfoQueryPlanner
+     */
     @Override
     public <U extends T> List<U> findAll(Filter filter, Class<U> infoType) {
-        return list(infoType, toPredicate(filter));
+        final QueryPlan<T> plan = queryPlanner.plan(filter);
+        logPlan(plan, infoType);
+        final Predicate<U> predicate = toPredicate(plan.getResidual());
+        if (plan.isFullScan()) {
+            return list(infoType, predicate);
+        }
+        final Collection<T> candidates = plan.getCandidates();
+        List<U> result = new ArrayList<>(candidates.size());
+        for (T v : candidates) {
+            if (infoType.isInstance(v)) {
+                U u = infoType.cast(v);
+                if (predicate.test(u)) {
+                    result.add(u);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lazy version of {@link #findAll(Filter, Class)}, the residual filter is evaluated only as the
+     * stream is consumed.
+     */
+    @Override
+    public <U extends T> Stream<U> stream(Filter filter, Class<U> infoType) {
+        final QueryPlan<T> plan = queryPlanner.plan(filter);
+        logPlan(plan, infoType);
+        return execute(plan, infoType);
+    }
+
+    /**
+     * Counts without materializing the matching objects: an unfiltered count adds up the counters
+     * kept per concrete type, in constant time regardless of the map implementation, a filter the
+     * indexes can resolve only visits the index candidates, and any other filter is evaluated on a
+     * streaming scan.
+     */
+    @Override
+    public <U extends T> long count(Class<U> infoType, Filter filter) {
+        final QueryPlan<T> plan = queryPlanner.plan(filter);
+        if (plan.isFullScan() && plan.getResidual() == Filter.INCLUDE) {
+            long count = 0;
+            List<LongAdder> typeSizes = getTypeMaps(infoType).sizes;
+            for (int i = 0; i < typeSizes.size(); i++) {
+                count += typeSizes.get(i).sum();
+            }
+            return count;
+        }
+        logPlan(plan, infoType);
+        return execute(plan, infoType).count();
+    }
+
+    private <U extends T> Stream<U> execute(QueryPlan<T> plan, Class<U> infoType) {
+        final Predicate<U> predicate = toPredicate(plan.getResidual());
+        final Stream<T> candidates;
+        if (plan.isFullScan()) {
+            candidates = getTypeMaps(infoType).nameMaps.stream().flatMap(m -> m.values().stream());
+        } else {
+            candidates = plan.getCandidates().stream();
+        }
+        return candidates.filter(infoType::isInstance).map(infoType::cast).filter(predicate);
+    }
+
+    /**
+     * @return a human readable description of how {@link #findAll(Filter)} would resolve {@code
+     *     filter}, whether it'd use an index or perform a full scan, and which part of the filter
+     *     would be evaluated against each candidate
+     */
+    public String explain(Filter filter) {
+        return queryPlanner.plan(filter).explain();
+    }
+
+    private void logPlan(QueryPlan<T> plan, Class<?> infoType) {
+        Level level = plan.isFullScan() ? Level.FINE : Level.FINER;
+        if (QUERY_LOGGER.isLoggable(level)) {
+            QUERY_LOGGER.log(
+                    level,
+                    String.format("findAll(%s): %s", infoType.getSimpleName(), plan.explain()));
+        }
+    }
+
+    /**
+     * Resolves the objects whose {@code propertyName} matches {@code value} through an index, used
+     * by the {@link CatalogInfoQueryPlanner query planner}. Subclasses may override to resolve
+     * additional properties.
+     *
+     * @return the matching objects, or {@code null} if {@code propertyName} is not indexed
+     */
+    protected @Nullable Collection<T> findIndexed(String propertyName, @Nullable String value) {
+        if ("id".equals(propertyName)) {
+            T found = value == null ? null : findAnyById(value);
+            return found == null ? emptyList() : singletonList(found);
+        }
+        for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+            ForeignKeyIndex<T> index = foreignKeyIndexes.get(i);
+            if (propertyName.equals(index.getPropertyName())) {
+                return index.get(value);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves an object through the name map when the lookup's name mapper produces simple names
+     * (i.e. without a namespace component), for subclasses overriding {@link #findIndexed}
+     */
+    protected Collection<T> findIndexedBySimpleName(@Nullable String name) {
+        if (name == null) {
+            return emptyList();
+        }
+        T found = findByName(new NameImpl(name), infoType());
+        return found == null ? emptyList() : singletonList(found);
+    }
+
+    private Class<T> infoType() {
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) (Class<?>) CatalogInfo.class;
+        return type;
+    }
+
+    private T findAnyById(String id) {
+        return findById(id, infoType());
     }
 
     protected <V> Predicate<V> toPredicate(Filter filter) {
         if (filter == null || filter == Filter.INCLUDE) {
             return CatalogInfoLookup.alwaysTrue();
         }
-        return o -> filter.evaluate(o);
+        final Filter compiled = PropertyPath.compile(filter);
+        return o -> compiled.evaluate(o);
     }
 
     /**
@@ -240,16 +741,12 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         if (clazz == null) {
             clazz = (Class<U>) CatalogInfo.class;
         }
-        for (Class<T> key : nameMultiMap.keySet()) {
-            if (clazz.isAssignableFrom(key)) {
-                Map<Name, T> valueMap = nameMultiMap.get(key);
-                if (valueMap != null) {
-                    for (T v : valueMap.values()) {
-                        final U u = clazz.cast(v);
-                        if (predicate.test(u)) {
-                            result.add(u);
-                        }
-                    }
+        final List<ConcurrentMap<Name, T>> nameMaps = getTypeMaps(clazz).nameMaps;
+        for (int i = 0; i < nameMaps.size(); i++) {
+            for (T v : nameMaps.get(i).values()) {
+                final U u = (U) v;
+                if (predicate.test(u)) {
+                    result.add(u);
                 }
             }
         }
@@ -257,39 +754,46 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         return result;
     }
 
+    /**
+     * Looks up objects of the given class indexed by {@code key} on the given secondary index, at a
+     * cost proportional to the number of objects indexed by {@code key}
+     */
+    <U extends T> List<U> list(Class<U> clazz, ForeignKeyIndex<T> index, @Nullable String key) {
+        Collection<T> matches = index.get(key);
+        List<U> result = new ArrayList<>(matches.size());
+        for (T v : matches) {
+            if (clazz.isInstance(v)) {
+                result.add(clazz.cast(v));
+            }
+        }
+        return result;
+    }
+
     /** Looks up a CatalogInfo by class and identifier */
     @Override
+    @SuppressWarnings("unchecked")
     public <U extends T> U findById(String id, Class<U> clazz) {
-        for (Class<T> key : idMultiMap.keySet()) {
-            if (clazz.isAssignableFrom(key)) {
-                Map<String, T> valueMap = idMultiMap.get(key);
-                if (valueMap != null) {
-                    T t = valueMap.get(id);
-                    if (t != null) {
-                        return clazz.cast(t);
-                    }
-                }
+        final List<ConcurrentMap<String, T>> idMaps = getTypeMaps(clazz).idMaps;
+        for (int i = 0; i < idMaps.size(); i++) {
+            T t = idMaps.get(i).get(id);
+            if (t != null) {
+                return (U) t;
             }
         }
-
         return null;
     }
 
     /** Looks up a CatalogInfo by class and name */
     @Override
+    @SuppressWarnings("unchecked")
     public <U extends T> U findByName(Name name, Class<U> clazz) {
-        for (Class<T> key : nameMultiMap.keySet()) {
-            if (clazz.isAssignableFrom(key)) {
-                Map<Name, T> valueMap = nameMultiMap.get(key);
-                if (valueMap != null) {
-                    T t = valueMap.get(name);
-                    if (t != null) {
-                        return clazz.cast(t);
-                    }
-                }
+        final List<ConcurrentMap<Name, T>> nameMaps = getTypeMaps(clazz).nameMaps;
+        for (int i = 0; i < nameMaps.size(); i++) {
+            T t = nameMaps.get(i).get(name);
+            if (t != null) {
+                return (U) t;
             }
         }
-
         return null;
     }
 
@@ -301,17 +805,14 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
      * with 20k layers go down from 50s to 44s (which is a lot, considering there is a lot of other
      * things going on)
      */
+    @SuppressWarnings("unchecked")
     <U extends CatalogInfo> U findFirst(Class<U> clazz, Predicate<U> predicate) {
-        for (Class<T> key : nameMultiMap.keySet()) {
-            if (clazz.isAssignableFrom(key)) {
-                Map<Name, T> valueMap = nameMultiMap.get(key);
-                if (valueMap != null) {
-                    for (T v : valueMap.values()) {
-                        final U u = clazz.cast(v);
-                        if (predicate.test(u)) {
-                            return u;
-                        }
-                    }
+        final List<ConcurrentMap<Name, T>> nameMaps = getTypeMaps(clazz).nameMaps;
+        for (int i = 0; i < nameMaps.size(); i++) {
+            for (T v : nameMaps.get(i).values()) {
+                final U u = (U) v;
+                if (predicate.test(u)) {
+                    return u;
                 }
             }
         }
@@ -319,17 +820,49 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         return null;
     }
 
+    /**
+     * Looks up the first object of the given class indexed by {@code key} on the given secondary
+     * index, the same one {@link #findFirst(Class, Predicate)} would return for a predicate
+     * matching the indexed property, that is, the first by concrete class order, and then by
+     * registered name, at a cost proportional to the number of objects indexed by {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    <U extends T> U findFirst(Class<U> clazz, ForeignKeyIndex<T> index, @Nullable String key) {
+        final List<Class<T>> types = getTypeMaps(clazz).types;
+        T first = null;
+        int firstType = -1;
+        Name firstName = null;
+        for (T v : index.get(key)) {
+            final int type = types.indexOf(v.getClass());
+            if (type == -1 || (first != null && type > firstType)) {
+                continue;
+            }
+            final Name name = currentName(v);
+            if (name != null
+                    && (first == null || type < firstType || compare(name, firstName) < 0)) {
+                first = v;
+                firstType = type;
+                firstName = name;
+            }
+        }
+        return (U) first;
+    }
+
+    /** Compares names the way the non {@link #compact} name maps sort them */
+    @SuppressWarnings("unchecked")
+    private static int compare(Name n1, Name n2) {
+        return ((Comparable<Object>) n1).compareTo(n2);
+    }
+
+    /**
+     * Applies to {@code target} only the difference with this lookup, so that the objects that
+     * didn't change stay in place and readers of {@code target} never see it empty
+     *
+     * @see RepositoryDelta
+     */
     @Override
     public void syncTo(CatalogInfoRepository<T> target) {
-        if (target instanceof CatalogInfoLookup) {
-            CatalogInfoLookup<T> other = (CatalogInfoLookup<T>) target;
-            other.clear();
-            other.idMultiMap.putAll(this.idMultiMap);
-            other.nameMultiMap.putAll(this.nameMultiMap);
-            other.idToMameMultiMap.putAll(this.idToMameMultiMap);
-        } else {
-            this.idMultiMap.values().forEach(typeMap -> typeMap.values().forEach(target::add));
-        }
+        RepositoryDelta.of(this, target).apply();
     }
 
     /** Sets the specified catalog into all CatalogInfo objects contained in this lookup */
@@ -358,10 +891,23 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
 
     static class NamespaceInfoLookup extends CatalogInfoLookup<NamespaceInfo>
             implements NamespaceRepository {
-        private NamespaceInfo defaultNamespace;
+
+        /**
+         * The default namespace as held by this lookup, kept pointing to the current instance when
+         * it's replaced and cleared when it's removed, so that it's resolved without a lookup
+         */
+        private volatile NamespaceInfo defaultNamespace;
+
+        /** Namespaces by URI, namespaces without URI are indexed under {@code null} */
+        private final ForeignKeyIndex<NamespaceInfo> byURI;
 
         public NamespaceInfoLookup() {
-            super(NAMESPACE_NAME_MAPPER);
+            this(false);
+        }
+
+        public NamespaceInfoLookup(boolean compact) {
+            super(NAMESPACE_NAME_MAPPER, compact);
+            byURI = addForeignKeyIndex("uri", NamespaceInfo::getURI);
         }
 
         public @Override void setDefaultNamespace(NamespaceInfo namespace) {
@@ -373,12 +919,53 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
             return defaultNamespace;
         }
 
-        public @Override NamespaceInfo findOneByURI(String uri) {
-            return findFirst(NamespaceInfo.class, ns -> uri.equals(ns.getURI()));
+        public @Override void replaceAll(Collection<? extends NamespaceInfo> values) {
+            super.replaceAll(values);
+            NamespaceInfo current = defaultNamespace;
+            if (current != null) {
+                setDefaultNamespace(current);
+            }
+        }
+
+        protected @Override void doRemove(NamespaceInfo value) {
+            super.doRemove(value);
+            NamespaceInfo current = defaultNamespace;
+            if (current != null && current.getId().equals(value.getId())) {
+                defaultNamespace = null;
+            }
+        }
+
+        public @Override void dispose() {
+            super.dispose();
+            defaultNamespace = null;
+        }
+
+        /**
+         * @return the first namespace with the given URI, in the same order {@link
+         *     #findAllByURI(String)} would return them, or {@code null} if there's none or {@code
+         *     uri} is {@code null}
+         */
+        public @Override NamespaceInfo findOneByURI(@Nullable String uri) {
+            return uri == null ? null : findFirst(NamespaceInfo.class, byURI, uri);
         }
 
-        public @Override List<NamespaceInfo> findAllByURI(String uri) {
-            return list(NamespaceInfo.class, ns -> ns.getURI().equals(uri));
+        /**
+         * @return the namespaces with the given URI, or an empty list if {@code uri} is {@code
+         *     null}
+         */
+        public @Override List<NamespaceInfo> findAllByURI(@Nullable String uri) {
+            return uri == null ? new ArrayList<>() : list(NamespaceInfo.class, byURI, uri);
+        }
+
+        protected @Override Collection<NamespaceInfo> findIndexed(
+                String propertyName, @Nullable String value) {
+            if ("prefix".equals(propertyName) || "name".equals(propertyName)) {
+                return findIndexedBySimpleName(value);
+            }
+            if ("URI".equalsIgnoreCase(propertyName)) {
+                return byURI.get(value);
+            }
+            return super.findIndexed(propertyName, value);
         }
     }
 
@@ -388,7 +975,11 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         private WorkspaceInfo defaultWorkspace;
 
         public WorkspaceInfoLookup() {
-            super(WORKSPACE_NAME_MAPPER);
+            this(false);
+        }
+
+        public WorkspaceInfoLookup(boolean compact) {
+            super(WORKSPACE_NAME_MAPPER, compact);
         }
 
         public @Override void setDefaultWorkspace(WorkspaceInfo workspace) {
@@ -399,14 +990,34 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         public @Override WorkspaceInfo getDefaultWorkspace() {
             return defaultWorkspace;
         }
+
+        protected @Override Collection<WorkspaceInfo> findIndexed(
+                String propertyName, @Nullable String value) {
+            if ("name".equals(propertyName)) {
+                return findIndexedBySimpleName(value);
+            }
+            return super.findIndexed(propertyName, value);
+        }
     }
 
     static class StoreInfoLookup extends CatalogInfoLookup<StoreInfo> implements StoreRepository {
         /** The default store keyed by workspace id */
         protected ConcurrentMap<String, DataStoreInfo> defaultStores = new ConcurrentHashMap<>();
 
+        /** Stores by workspace id */
+        private final ForeignKeyIndex<StoreInfo> byWorkspace;
+
+        /** Stores by local name, regardless of their workspace */
+        private final ForeignKeyIndex<StoreInfo> byName;
+
         public StoreInfoLookup() {
-            super(STORE_NAME_MAPPER);
+            this(false);
+        }
+
+        public StoreInfoLookup(boolean compact) {
+            super(STORE_NAME_MAPPER, compact);
+            byWorkspace = addForeignKeyIndex("workspace.id", s -> id(s.getWorkspace()));
+            byName = addForeignKeyIndex("name", StoreInfo::getName);
         }
 
         public @Override void setDefaultDataStore(WorkspaceInfo workspace, DataStoreInfo store) {
@@ -435,12 +1046,12 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
         }
 
         public @Override <T extends StoreInfo> T findOneByName(String name, Class<T> clazz) {
-            return findFirst(clazz, s -> name.equals(s.getName()));
+            return findFirst(clazz, byName, name);
         }
 
         public @Override <T extends StoreInfo> List<T> findAllByWorkspace(
                 WorkspaceInfo workspace, Class<T> clazz) {
-            return list(clazz, s -> workspace.getId().equals(s.getWorkspace().getId()));
+            return list(clazz, byWorkspace, workspace.getId());
         }
 
         public @Override <T extends StoreInfo> List<T> findAllByType(Class<T> clazz) {
@@ -450,30 +1061,51 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
 
     static class LayerGroupInfoLookup extends CatalogInfoLookup<LayerGroupInfo>
             implements LayerGroupRepository {
+
+        /** Layer groups by workspace id, global layer groups indexed by {@code null} */
+        private final ForeignKeyIndex<LayerGroupInfo> byWorkspace;
+
+        /** Layer groups by local name, regardless of their workspace */
+        private final ForeignKeyIndex<LayerGroupInfo> byName;
+
         public LayerGroupInfoLookup() {
-            super(LAYERGROUP_NAME_MAPPER);
+            this(false);
+        }
+
+        public LayerGroupInfoLookup(boolean compact) {
+            super(LAYERGROUP_NAME_MAPPER, compact);
+            byWorkspace = addForeignKeyIndex("workspace.id", lg -> id(lg.getWorkspace()));
+            byName = addForeignKeyIndex("name", LayerGroupInfo::getName);
         }
 
         public @Override LayerGroupInfo findOneByName(String name) {
-            return findFirst(LayerGroupInfo.class, lg -> name.equals(lg.getName()));
+            return findFirst(LayerGroupInfo.class, byName, name);
         }
 
         public @Override List<LayerGroupInfo> findAllByWorkspaceIsNull() {
-            return list(LayerGroupInfo.class, lg -> lg.getWorkspace() == null);
+            return list(LayerGroupInfo.class, byWorkspace, null);
         }
 
         public @Override List<LayerGroupInfo> findAllByWorkspace(WorkspaceInfo workspace) {
-            return list(
-                    LayerGroupInfo.class,
-                    lg ->
-                            lg.getWorkspace() != null
-                                    && lg.getWorkspace().getId().equals(workspace.getId()));
+            return list(LayerGroupInfo.class, byWorkspace, workspace.getId());
         }
     }
 
     static class MapInfoLookup extends CatalogInfoLookup<MapInfo> implements MapRepository {
         public MapInfoLookup() {
-            super(MAP_NAME_MAPPER);
+            this(false);
+        }
+
+        public MapInfoLookup(boolean compact) {
+            super(MAP_NAME_MAPPER, compact);
+        }
+
+        protected @Override Collection<MapInfo> findIndexed(
+                String propertyName, @Nullable String value) {
+            if ("name".equals(propertyName)) {
+                return findIndexedBySimpleName(value);
+            }
+            return super.findIndexed(propertyName, value);
         }
     }
 
@@ -486,22 +1118,41 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
             implements ResourceRepository {
         private final LayerInfoLookup layers;
 
+        /** Resources by namespace id */
+        private final ForeignKeyIndex<ResourceInfo> byNamespace;
+
+        /** Resources by store id */
+        private final ForeignKeyIndex<ResourceInfo> byStore;
+
+        /** Resources by local name, regardless of their namespace */
+        private final ForeignKeyIndex<ResourceInfo> byName;
+
         public ResourceInfoLookup(LayerInfoLookup layers) {
-            super(RESOURCE_NAME_MAPPER);
+            this(layers, false);
+        }
+
+        public ResourceInfoLookup(LayerInfoLookup layers, boolean compact) {
+            super(RESOURCE_NAME_MAPPER, compact);
             this.layers = layers;
+            byNamespace = addForeignKeyIndex("namespace.id", r -> id(r.getNamespace()));
+            byStore = addForeignKeyIndex("store.id", r -> id(r.getStore()));
+            byName = addForeignKeyIndex("name", ResourceInfo::getName);
         }
 
         public @Override void update(ResourceInfo value) {
-            Name oldName = getMapForValue(idToMameMultiMap, value).get(value.getId());
-            Name newName = nameMapper.apply(value);
-            super.update(value);
-            if (!newName.equals(oldName)) {
-                layers.updateName(oldName, newName);
+            // hold the lock (reentrant) for the old name not to change before super.update()
+            synchronized (lock(value.getId())) {
+                Name oldName = currentName(value);
+                Name newName = nameMapper.apply(value);
+                super.update(value);
+                if (oldName != null && !newName.equals(oldName)) {
+                    layers.updateName(oldName, newName);
+                }
             }
         }
 
         public @Override <T extends ResourceInfo> T findOneByName(String name, Class<T> clazz) {
-            return findFirst(clazz, r -> name.equals(r.getName()));
+            return findFirst(clazz, byName, name);
         }
 
         public @Override <T extends ResourceInfo> List<T> findAllByType(Class<T> clazz) {
@@ -510,19 +1161,22 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
 
         public @Override <T extends ResourceInfo> List<T> findAllByNamespace(
                 NamespaceInfo ns, Class<T> clazz) {
-            return list(clazz, r -> ns.equals(r.getNamespace()));
+            return list(clazz, byNamespace, id(ns));
         }
 
         public @Override <T extends ResourceInfo> T findByStoreAndName(
                 StoreInfo store, String name, Class<T> clazz) {
-            return findFirst(
-                    clazz,
-                    r -> name.equals(r.getName()) && store.getId().equals(r.getStore().getId()));
+            for (ResourceInfo r : byStore.get(store.getId())) {
+                if (clazz.isInstance(r) && name.equals(r.getName())) {
+                    return clazz.cast(r);
+                }
+            }
+            return null;
         }
 
         @Override
         public <T extends ResourceInfo> List<T> findAllByStore(StoreInfo store, Class<T> clazz) {
-            return list(clazz, r -> store.equals(r.getStore()));
+            return list(clazz, byStore, id(store));
         }
     }
 
@@ -530,42 +1184,79 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
             implements LayerRepository {
 
         public LayerInfoLookup() {
-            super(LAYER_NAME_MAPPER);
+            this(false);
+        }
+
+        /** Reverse index of layers by the ids of their default and alternate styles */
+        private final ForeignKeyIndex<LayerInfo> byStyle;
+
+        /** Layers by local name, regardless of their workspace */
+        private final ForeignKeyIndex<LayerInfo> byName;
+
+        public LayerInfoLookup(boolean compact) {
+            super(LAYER_NAME_MAPPER, compact);
+            byStyle = addMultiValuedIndex(LayerInfoLookup::styleIds);
+            byName = addForeignKeyIndex("name", LayerInfo::getName);
+        }
+
+        private static List<String> styleIds(LayerInfo layer) {
+            Set<StyleInfo> styles = layer.getStyles();
+            List<String> ids = new ArrayList<>(1 + (styles == null ? 0 : styles.size()));
+            ids.add(id(layer.getDefaultStyle()));
+            if (styles != null) {
+                for (StyleInfo style : styles) {
+                    ids.add(id(style));
+                }
+            }
+            return ids;
         }
 
         void updateName(Name oldName, Name newName) {
             ConcurrentMap<Name, LayerInfo> nameLookup =
                     getMapForType(nameMultiMap, LayerInfoImpl.class);
-            LayerInfo layer = nameLookup.remove(oldName);
-            if (layer != null) {
-                nameLookup.put(newName, layer);
-                getMapForType(idToMameMultiMap, LayerInfoImpl.class).put(layer.getId(), newName);
+            LayerInfo layer = nameLookup.get(oldName);
+            if (layer == null) {
+                return;
+            }
+            synchronized (lock(layer.getId())) {
+                if (nameLookup.remove(oldName, layer)) {
+                    nameLookup.put(newName, layer);
+                    if (!compact) {
+                        getMapForType(idToMameMultiMap, LayerInfoImpl.class)
+                                .put(layer.getId(), newName);
+                    }
+                    // the layer name is the resource name
+                    byName.update(layer);
+                }
             }
         }
 
         /** Override to remove by name instead of by id */
-        @Override
-        public void remove(LayerInfo value) {
-            checkNotAProxy(value);
+        protected @Override void doRemove(LayerInfo value) {
             ConcurrentMap<Name, LayerInfo> nameMap = getMapForValue(nameMultiMap, value);
-            synchronized (nameMap) {
-                Name name = nameMapper.apply(value);
-                LayerInfo removed = nameMap.remove(name);
-                if (removed != null) {
-                    getMapForValue(idMultiMap, value).remove(value.getId());
+            Name name = nameMapper.apply(value);
+            LayerInfo removed = nameMap.remove(name);
+            if (removed != null) {
+                removeById(value);
+                if (!compact) {
                     getMapForValue(idToMameMultiMap, value).remove(value.getId());
                 }
+                for (int i = 0; i < foreignKeyIndexes.size(); i++) {
+                    foreignKeyIndexes.get(i).remove(removed);
+                }
             }
         }
 
         public @Override LayerInfo findOneByName(String name) {
-            return findFirst(LayerInfo.class, li -> name.equals(li.getName()));
+            return findFirst(LayerInfo.class, byName, name);
         }
 
         public @Override List<LayerInfo> findAllByDefaultStyleOrStyles(StyleInfo style) {
-            return list(
-                    LayerInfo.class,
-                    li -> style.equals(li.getDefaultStyle()) || li.getStyles().contains(style));
+            return list(LayerInfo.class, byStyle, style.getId());
+        }
+
+        public @Override int countByDefaultStyleOrStyles(StyleInfo style) {
+            return byStyle.count(style.getId());
         }
 
         public @Override List<LayerInfo> findAllByResource(ResourceInfo resource) {
@@ -579,22 +1270,33 @@ class CatalogInfoLookup<T extends CatalogInfo> implements CatalogInfoRepository<
     }
 
     static class StyleInfoLookup extends CatalogInfoLookup<StyleInfo> implements StyleRepository {
+
+        /** Styles by workspace id, global styles indexed by {@code null} */
+        private final ForeignKeyIndex<StyleInfo> byWorkspace;
+
+        /** Styles by local name, regardless of their workspace */
+        private final ForeignKeyIndex<StyleInfo> byName;
+
         public StyleInfoLookup() {
-            super(STYLE_NAME_MAPPER);
+            this(false);
+        }
+
+        public StyleInfoLookup(boolean compact) {
+            super(STYLE_NAME_MAPPER, compact);
+            byWorkspace = addForeignKeyIndex("workspace.id", s -> id(s.getWorkspace()));
+            byName = addForeignKeyIndex("name", StyleInfo::getName);
         }
 
         public @Override StyleInfo findOneByName(String name) {
-            return findFirst(StyleInfo.class, s -> name.equals(s.getName()));
+            return findFirst(StyleInfo.class, byName, name);
         }
 
         public @Override List<StyleInfo> findAllByNullWorkspace() {
-            return list(StyleInfo.class, s -> s.getWorkspace() == null);
+            return list(StyleInfo.class, byWorkspace, null);
         }
 
         public @Override List<StyleInfo> findAllByWorkspace(WorkspaceInfo ws) {
-            return list(
-                    StyleInfo.class,
-                    s -> s.getWorkspace() != null && s.getWorkspace().getId().equals(ws.getId()));
+            return list(StyleInfo.class, byWorkspace, ws.getId());
         }
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+import org.geotools.factory.CommonFactoryFinder;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.Id;
+import org.opengis.filter.MultiValuedFilter.MatchAction;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Simple query planner for {@link CatalogInfoRepository#findAll(Filter)} that resolves the
+ * indexable parts of a {@link Filter} through the repository's indexes, so that only the remaining
+ * (residual) filter needs to be evaluated, and only against the reduced set of candidates.
+ *
+ * <p>The following filters are considered indexable as long as the {@link IndexResolver} can
+ * resolve the property name:
+ *
+ * <ul>
+ *   <li>{@link Id}: resolved as a lookup by id
+ *   <li>{@link PropertyIsEqualTo}: {@code property = 'literal'}, case sensitive, against a {@code
+ *       String} literal
+ *   <li>{@link PropertyIsNull}: {@code property IS NULL}
+ *   <li>{@link And}: resolved through the most selective indexable child, the other children
+ *       become the residual filter
+ *   <li>{@link Or}: resolved as the union of its children, only if all of them are indexable
+ * </ul>
+ *
+ * Any other filter results in a {@link QueryPlan#isFullScan() full scan}.
+ *
+ * @param <T> the type of {@link CatalogInfo} the planned queries run against
+ */
+class CatalogInfoQueryPlanner<T extends CatalogInfo> {
+
+    private static final FilterFactory FF = CommonFactoryFinder.getFilterFactory2();
+
+    /**
+     * Strategy to resolve the objects matching a single property value through an index, provided
+     * by the repository the queries are planned for.
+     */
+    @FunctionalInterface
+    interface IndexResolver<T extends CatalogInfo> {
+        /**
+         * @param propertyName the filter's property name
+         * @param value the value to match, {@code null} to match objects where the property is
+         *     {@code null}
+         * @return the objects whose property matches {@code value}, or {@code null} if the property
+         *     is not indexed, hence the query can't be resolved by this resolver
+         */
+        @Nullable
+        Collection<T> resolve(String propertyName, @Nullable String value);
+    }
+
+    private final IndexResolver<T> resolver;
+
+    CatalogInfoQueryPlanner(@NonNull IndexResolver<T> resolver) {
+        this.resolver = resolver;
+    }
+
+    /** The result of planning a query */
+    static class QueryPlan<T extends CatalogInfo> {
+        private final @Nullable Collection<T> candidates;
+        private final @Getter Filter residual;
+        private final @Getter String strategy;
+
+        QueryPlan(@Nullable Collection<T> candidates, Filter residual, String strategy) {
+            this.candidates = candidates;
+            this.residual = residual;
+            this.strategy = strategy;
+        }
+
+        /**
+         * @return whether the query could not be resolved through any index and all the objects
+         *     need to be evaluated against the {@link #getResidual() residual} filter
+         */
+        public boolean isFullScan() {
+            return candidates == null;
+        }
+
+        /**
+         * @return the objects resolved through the indexes, that still need to be evaluated
+         *     against the {@link #getResidual() residual filter}.
+         * @throws IllegalStateException if this is a {@link #isFullScan() full scan} plan
+         */
+        public Collection<T> getCandidates() {
+            if (candidates == null) {
+                throw new IllegalStateException("full scan plan has no candidates");
+            }
+            return candidates;
+        }
+
+        /** @return a human readable description of how the query is going to be resolved */
+        public String explain() {
+            String cost = isFullScan() ? "full scan" : candidates.size() + " candidates";
+            return String.format("%s -> %s, residual: %s", strategy, cost, residual);
+        }
+
+        public @Override String toString() {
+            return explain();
+        }
+    }
+
+    public QueryPlan<T> plan(@Nullable Filter filter) {
+        if (filter == null || filter == Filter.INCLUDE) {
+            return scan(Filter.INCLUDE);
+        }
+        if (filter == Filter.EXCLUDE) {
+            return new QueryPlan<>(emptyList(), Filter.INCLUDE, "exclude");
+        }
+        QueryPlan<T> plan = null;
+        if (filter instanceof Id) {
+            plan = planId((Id) filter);
+        } else if (filter instanceof PropertyIsEqualTo) {
+            plan = planEqualTo((PropertyIsEqualTo) filter);
+        } else if (filter instanceof PropertyIsNull) {
+            plan = planIsNull((PropertyIsNull) filter);
+        } else if (filter instanceof And) {
+            plan = planAnd((And) filter);
+        } else if (filter instanceof Or) {
+            plan = planOr((Or) filter);
+        }
+        return plan == null ? scan(filter) : plan;
+    }
+
+    private QueryPlan<T> scan(Filter filter) {
+        return new QueryPlan<>(null, filter, "scan");
+    }
+
+    private @Nullable QueryPlan<T> planId(Id filter) {
+        Map<String, T> matches = new LinkedHashMap<>();
+        for (Object id : filter.getIDs()) {
+            if (!(id instanceof String)) {
+                return null;
+            }
+            Collection<T> found = resolver.resolve("id", (String) id);
+            if (found == null) {
+                return null;
+            }
+            found.forEach(v -> matches.put(v.getId(), v));
+        }
+        return new QueryPlan<>(matches.values(), Filter.INCLUDE, "id" + filter.getIDs());
+    }
+
+    private @Nullable QueryPlan<T> planEqualTo(PropertyIsEqualTo filter) {
+        if (!filter.isMatchingCase() || filter.getMatchAction() != MatchAction.ANY) {
+            return null;
+        }
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        PropertyName property;
+        Literal literal;
+        if (e1 instanceof PropertyName && e2 instanceof Literal) {
+            property = (PropertyName) e1;
+            literal = (Literal) e2;
+        } else if (e2 instanceof PropertyName && e1 instanceof Literal) {
+            property = (PropertyName) e2;
+            literal = (Literal) e1;
+        } else {
+            return null;
+        }
+        if (!(literal.getValue() instanceof String)) {
+            return null;
+        }
+        final String propertyName = property.getPropertyName();
+        final String value = (String) literal.getValue();
+        Collection<T> matches = resolver.resolve(propertyName, value);
+        if (matches == null) {
+            return null;
+        }
+        String strategy = String.format("index(%s = '%s')", propertyName, value);
+        return new QueryPlan<>(matches, Filter.INCLUDE, strategy);
+    }
+
+    private @Nullable QueryPlan<T> planIsNull(PropertyIsNull filter) {
+        if (!(filter.getExpression() instanceof PropertyName)) {
+            return null;
+        }
+        final String propertyName = ((PropertyName) filter.getExpression()).getPropertyName();
+        Collection<T> matches = resolver.resolve(propertyName, null);
+        if (matches == null) {
+            // "workspace IS NULL" is equivalent to "workspace.id IS NULL"
+            matches = resolver.resolve(propertyName + ".id", null);
+        }
+        if (matches == null) {
+            return null;
+        }
+        String strategy = String.format("index(%s IS NULL)", propertyName);
+        return new QueryPlan<>(matches, Filter.INCLUDE, strategy);
+    }
+
+    private @Nullable QueryPlan<T> planAnd(And filter) {
+        final List<Filter> children = filter.getChildren();
+        QueryPlan<T> best = null;
+        int bestIndex = -1;
+        for (int i = 0; i < children.size(); i++) {
+            QueryPlan<T> childPlan = plan(children.get(i));
+            if (!childPlan.isFullScan()
+                    && (best == null
+                            || childPlan.getCandidates().size() < best.getCandidates().size())) {
+                best = childPlan;
+                bestIndex = i;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        List<Filter> residuals = new ArrayList<>(children.size());
+        for (int i = 0; i < children.size(); i++) {
+            if (i != bestIndex) {
+                residuals.add(children.get(i));
+            }
+        }
+        if (best.getResidual() != Filter.INCLUDE) {
+            residuals.add(best.getResidual());
+        }
+        Filter residual;
+        if (residuals.isEmpty()) {
+            residual = Filter.INCLUDE;
+        } else if (residuals.size() == 1) {
+            residual = residuals.get(0);
+        } else {
+            residual = FF.and(residuals);
+        }
+        return new QueryPlan<>(best.getCandidates(), residual, "and(" + best.getStrategy() + ")");
+    }
+
+    private @Nullable QueryPlan<T> planOr(Or filter) {
+        Map<String, T> union = new LinkedHashMap<>();
+        List<String> strategies = new ArrayList<>();
+        boolean needsResidual = false;
+        for (Filter child : filter.getChildren()) {
+            QueryPlan<T> childPlan = plan(child);
+            if (childPlan.isFullScan()) {
+                return null;
+            }
+            childPlan.getCandidates().forEach(v -> union.put(v.getId(), v));
+            strategies.add(childPlan.getStrategy());
+            needsResidual |= childPlan.getResidual() != Filter.INCLUDE;
+        }
+        // if any child has a residual, the union is a superset of the result and the whole Or
+        // needs to be evaluated
+        Filter residual = needsResidual ? filter : Filter.INCLUDE;
+        String strategy = "union(" + String.join(", ", strategies) + ")";
+        return new QueryPlan<>(union.values(), residual, strategy);
+    }
+}
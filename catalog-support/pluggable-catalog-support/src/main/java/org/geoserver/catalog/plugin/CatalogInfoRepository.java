@@ -4,7 +4,9 @@
  */
 package org.geoserver.catalog.plugin;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogInfo;
@@ -28,6 +30,35 @@ public interface CatalogInfoRepository<T extends CatalogInfo> {
 
     void remove(T value);
 
+    /**
+     * Adds all {@code values}, allowing implementations to amortize locking and indexing costs
+     * over bulk loads. The default implementation adds them one by one.
+     */
+    default void addAll(Collection<? extends T> values) {
+        values.forEach(this::add);
+    }
+
+    /**
+     * Removes all {@code values}, allowing implementations to amortize locking and indexing costs
+     * over bulk removals. The default implementation removes them one by one.
+     */
+    default void removeAll(Collection<? extends T> values) {
+        values.forEach(this::remove);
+    }
+
+    /**
+     * Replaces the objects with the same ids as {@code values} by them, or adds them if there are
+     * none, such that the replaced objects stay reachable until their replacement is in place
+     * where possible. The default implementation removes and adds them one by one, implementations
+     * are encouraged to override it.
+     */
+    default void replaceAll(Collection<? extends T> values) {
+        for (T value : values) {
+            remove(value);
+            add(value);
+        }
+    }
+
     void update(T value);
 
     void dispose();
@@ -38,6 +69,27 @@ public interface CatalogInfoRepository<T extends CatalogInfo> {
 
     <U extends T> List<U> findAll(Filter filter, Class<U> infoType);
 
+    /**
+     * Lazily streams the objects of type {@code infoType} matching {@code filter}, so that callers
+     * that only need the first results (e.g. a paged query) don't pay for materializing all the
+     * matches. The default implementation streams over the result of {@link #findAll(Filter,
+     * Class)}, implementations are encouraged to override it.
+     */
+    default <U extends T> Stream<U> stream(Filter filter, Class<U> infoType) {
+        return findAll(filter, infoType).stream();
+    }
+
+    /**
+     * Counts the objects of type {@code infoType} matching {@code filter} without materializing
+     * them. The default implementation counts over {@link #stream(Filter, Class)}, implementations
+     * backed by indexes are encouraged to override it.
+     */
+    default <U extends T> long count(Class<U> infoType, Filter filter) {
+        try (Stream<U> stream = stream(filter, infoType)) {
+            return stream.count();
+        }
+    }
+
     /** Looks up a CatalogInfo by class and identifier */
     <U extends T> U findById(String id, Class<U> clazz);
 
@@ -95,6 +147,15 @@ public interface CatalogInfoRepository<T extends CatalogInfo> {
 
         List<LayerInfo> findAllByDefaultStyleOrStyles(StyleInfo style);
 
+        /**
+         * @return the number of layers using {@code style} as their default or alternate style,
+         *     the default implementation counts the results of {@link
+         *     #findAllByDefaultStyleOrStyles(StyleInfo)}
+         */
+        default int countByDefaultStyleOrStyles(StyleInfo style) {
+            return findAllByDefaultStyleOrStyles(style).size();
+        }
+
         List<LayerInfo> findAllByResource(ResourceInfo resource);
     }
 
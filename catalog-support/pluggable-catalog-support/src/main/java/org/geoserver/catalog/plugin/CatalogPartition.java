@@ -0,0 +1,92 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.PublishedInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+
+/**
+ * Subset of the catalog a service instance keeps in memory, given by a set of workspace names.
+ *
+ * <p>The partition includes the workspaces (and namespaces) of the given names, their stores,
+ * resources, layers, layer groups and styles, the global layer groups whose layers are all in the
+ * partition, and the maps. Global styles are included by {@link #includes(CatalogInfo)}, as they
+ * may be referenced by layers added later, and {@link
+ * AbstractCatalogFacade#applyPartition()} removes the ones not referenced by any layer or layer
+ * group in the partition.
+ */
+public class CatalogPartition {
+
+    private final Set<String> workspaces;
+
+    public CatalogPartition(@NonNull Collection<String> workspaces) {
+        this.workspaces = Collections.unmodifiableSet(new HashSet<>(workspaces));
+    }
+
+    /** @return the names of the workspaces in the partition */
+    public Set<String> getWorkspaces() {
+        return workspaces;
+    }
+
+    /** @return whether {@code info} belongs to the partition */
+    public boolean includes(@NonNull CatalogInfo info) {
+        if (info instanceof WorkspaceInfo) return includes((WorkspaceInfo) info);
+        if (info instanceof NamespaceInfo) return includesName(((NamespaceInfo) info).getPrefix());
+        if (info instanceof StoreInfo) return includes(((StoreInfo) info).getWorkspace());
+        if (info instanceof ResourceInfo) return includes((ResourceInfo) info);
+        if (info instanceof LayerInfo) return includes(((LayerInfo) info).getResource());
+        if (info instanceof LayerGroupInfo) return includes((LayerGroupInfo) info);
+        if (info instanceof StyleInfo) {
+            WorkspaceInfo workspace = ((StyleInfo) info).getWorkspace();
+            return workspace == null || includes(workspace);
+        }
+        return true;
+    }
+
+    private boolean includes(@Nullable WorkspaceInfo workspace) {
+        return workspace != null && includesName(workspace.getName());
+    }
+
+    private boolean includesName(@Nullable String workspaceName) {
+        return workspaceName != null && workspaces.contains(workspaceName);
+    }
+
+    private boolean includes(@Nullable ResourceInfo resource) {
+        if (resource == null) return false;
+        StoreInfo store = resource.getStore();
+        if (store != null && store.getWorkspace() != null) {
+            return includes(store.getWorkspace());
+        }
+        NamespaceInfo namespace = resource.getNamespace();
+        return namespace != null && includesName(namespace.getPrefix());
+    }
+
+    private boolean includes(LayerGroupInfo group) {
+        if (group.getWorkspace() != null) {
+            return includes(group.getWorkspace());
+        }
+        // global group, included if all its layers are
+        for (PublishedInfo published : group.getLayers()) {
+            // null for style groups
+            if (published != null && !includes(published)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
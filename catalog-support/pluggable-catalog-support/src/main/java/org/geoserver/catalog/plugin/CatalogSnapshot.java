@@ -0,0 +1,57 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import javax.annotation.Nullable;
+import lombok.Getter;
+import org.geoserver.catalog.CatalogInfo;
+import org.pcollections.HashTreePMap;
+import org.pcollections.PMap;
+
+/**
+ * Immutable, versioned, state of all the {@link SnapshotCatalogInfoRepository repositories} of a
+ * {@link SnapshotCatalogFacade}, published as a whole through a {@link CatalogSnapshotHolder} so
+ * that changes spanning more than one repository (e.g. renaming a resource also renames its layer)
+ * are seen atomically by readers.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0L, HashTreePMap.empty());
+
+    /** Monotonically increasing version number, incremented on each published change */
+    private final @Getter long version;
+
+    /** Repository snapshots keyed by the type of {@link CatalogInfo} each repository holds */
+    private final PMap<Class<?>, RepositorySnapshot<?>> repositories;
+
+    private CatalogSnapshot(long version, PMap<Class<?>, RepositorySnapshot<?>> repositories) {
+        this.version = version;
+        this.repositories = repositories;
+    }
+
+    /** @return the snapshot for the repository of the given type, or {@code null} if empty */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    <T extends CatalogInfo> RepositorySnapshot<T> get(Class<T> repositoryType) {
+        return (RepositorySnapshot<T>) repositories.get(repositoryType);
+    }
+
+    /** @return a copy of this snapshot with the given repository state, with the same version */
+    <T extends CatalogInfo> CatalogSnapshot with(
+            Class<T> repositoryType, RepositorySnapshot<T> state) {
+        if (repositories.get(repositoryType) == state) {
+            return this;
+        }
+        return new CatalogSnapshot(version, repositories.plus(repositoryType, state));
+    }
+
+    CatalogSnapshot withVersion(long version) {
+        return new CatalogSnapshot(version, repositories);
+    }
+
+    public @Override String toString() {
+        return String.format("%s[version: %d]", getClass().getSimpleName(), version);
+    }
+}
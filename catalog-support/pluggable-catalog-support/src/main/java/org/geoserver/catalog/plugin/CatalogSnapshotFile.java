@@ -0,0 +1,577 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import lombok.Getter;
+import lombok.NonNull;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.MapInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+
+/**
+ * Binary snapshot of the contents of an {@link AbstractCatalogFacade}, to load the in-memory
+ * catalog from a single file instead of parsing the XML files of each catalog object in a data
+ * directory.
+ *
+ * <p>The file starts with a fixed size header holding a magic number, the format version, the
+ * snapshot timestamp, and the length and CRC32 checksum of the payload, followed by the payload: a
+ * deflated Java serialization stream of the objects of each type, that preserves the references
+ * among them, so they don't need to be resolved again when loaded. The GeoServer version that
+ * wrote the snapshot is part of the payload, and a snapshot written by a different version is
+ * refused. The file is memory mapped to be read, and written to a temporary file that atomically
+ * replaces the previous snapshot, so that concurrent readers never see a partially written one.
+ *
+ * <p>Only the classes of the catalog objects and the values they hold are written and read, any
+ * other class makes both {@link #save} and {@link #load} fail, yet the snapshot file shall be as
+ * trusted as the data directory it's a snapshot of.
+ */
+public class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x47534353; // GSCS
+
+    static final int FORMAT_VERSION = 1;
+
+    /** magic, format version, timestamp, payload length, and payload checksum */
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The classes of the catalog objects and of the values they hold (including those stored in
+     * their metadata maps and the attribute bindings of feature types), the only ones allowed in a
+     * snapshot besides the {@link #ALLOWED_PACKAGES}
+     */
+    private static final Set<String> ALLOWED_CLASSES =
+            new HashSet<>(
+                    Arrays.asList(
+                            // JDK value types and collections
+                            "java.lang.Object",
+                            "java.lang.Enum",
+                            "java.lang.Number",
+                            "java.lang.String",
+                            "java.lang.String$CaseInsensitiveComparator",
+                            "java.lang.Boolean",
+                            "java.lang.Character",
+                            "java.lang.Byte",
+                            "java.lang.Short",
+                            "java.lang.Integer",
+                            "java.lang.Long",
+                            "java.lang.Float",
+                            "java.lang.Double",
+                            "java.lang.reflect.Proxy",
+                            "java.math.BigDecimal",
+                            "java.math.BigInteger",
+                            "java.net.URI",
+                            "java.sql.Date",
+                            "java.sql.Time",
+                            "java.sql.Timestamp",
+                            "java.awt.Rectangle",
+                            "java.awt.geom.AffineTransform",
+                            "java.util.Date",
+                            "java.util.Locale",
+                            "java.util.UUID",
+                            "java.util.ArrayList",
+                            "java.util.LinkedList",
+                            "java.util.HashMap",
+                            "java.util.LinkedHashMap",
+                            "java.util.TreeMap",
+                            "java.util.HashSet",
+                            "java.util.LinkedHashSet",
+                            "java.util.TreeSet",
+                            "java.util.Arrays$ArrayList",
+                            "java.util.Collections$EmptyList",
+                            "java.util.Collections$EmptySet",
+                            "java.util.Collections$EmptyMap",
+                            "java.util.Collections$SingletonList",
+                            "java.util.Collections$SingletonSet",
+                            "java.util.Collections$SingletonMap",
+                            "java.util.Collections$UnmodifiableCollection",
+                            "java.util.Collections$UnmodifiableList",
+                            "java.util.Collections$UnmodifiableRandomAccessList",
+                            "java.util.Collections$UnmodifiableSet",
+                            "java.util.Collections$UnmodifiableSortedSet",
+                            "java.util.Collections$UnmodifiableMap",
+                            "java.util.Collections$UnmodifiableSortedMap",
+                            "java.util.Collections$SynchronizedCollection",
+                            "java.util.Collections$SynchronizedList",
+                            "java.util.Collections$SynchronizedRandomAccessList",
+                            "java.util.Collections$SynchronizedSet",
+                            "java.util.Collections$SynchronizedMap",
+                            "java.util.concurrent.CopyOnWriteArrayList",
+                            // catalog objects
+                            "org.geoserver.catalog.impl.WorkspaceInfoImpl",
+                            "org.geoserver.catalog.impl.NamespaceInfoImpl",
+                            "org.geoserver.catalog.impl.StoreInfoImpl",
+                            "org.geoserver.catalog.impl.DataStoreInfoImpl",
+                            "org.geoserver.catalog.impl.CoverageStoreInfoImpl",
+                            "org.geoserver.catalog.impl.WMSStoreInfoImpl",
+                            "org.geoserver.catalog.impl.WMTSStoreInfoImpl",
+                            "org.geoserver.catalog.impl.ResourceInfoImpl",
+                            "org.geoserver.catalog.impl.FeatureTypeInfoImpl",
+                            "org.geoserver.catalog.impl.CoverageInfoImpl",
+                            "org.geoserver.catalog.impl.WMSLayerInfoImpl",
+                            "org.geoserver.catalog.impl.WMTSLayerInfoImpl",
+                            "org.geoserver.catalog.impl.LayerInfoImpl",
+                            "org.geoserver.catalog.impl.LayerGroupInfoImpl",
+                            "org.geoserver.catalog.impl.StyleInfoImpl",
+                            "org.geoserver.catalog.impl.MapInfoImpl",
+                            // unresolved references
+                            "org.geoserver.catalog.impl.ProxyBase",
+                            "org.geoserver.catalog.impl.ResolvingProxy",
+                            // values held by the catalog objects
+                            "org.geoserver.catalog.impl.AttributeTypeInfoImpl",
+                            "org.geoserver.catalog.impl.AttributionInfoImpl",
+                            "org.geoserver.catalog.impl.AuthorityURL",
+                            "org.geoserver.catalog.impl.CoverageDimensionImpl",
+                            "org.geoserver.catalog.impl.DataLinkInfoImpl",
+                            "org.geoserver.catalog.impl.DimensionInfoImpl",
+                            "org.geoserver.catalog.impl.LayerIdentifier",
+                            "org.geoserver.catalog.impl.LegendInfoImpl",
+                            "org.geoserver.catalog.impl.MetadataLinkInfoImpl",
+                            "org.geoserver.catalog.CoverageView",
+                            "org.geoserver.catalog.CoverageView$CompositionType",
+                            "org.geoserver.catalog.CoverageView$CoverageBand",
+                            "org.geoserver.catalog.CoverageView$EnvelopeCompositionType",
+                            "org.geoserver.catalog.CoverageView$InputCoverageBand",
+                            "org.geoserver.catalog.CoverageView$SelectedResolution",
+                            "org.geoserver.catalog.DimensionDefaultValueSetting",
+                            "org.geoserver.catalog.DimensionDefaultValueSetting$Strategy",
+                            "org.geoserver.catalog.DimensionPresentation",
+                            "org.geoserver.catalog.Keyword",
+                            "org.geoserver.catalog.LayerGroupInfo$Mode",
+                            "org.geoserver.catalog.LayerInfo$WMSInterpolation",
+                            "org.geoserver.catalog.MetadataMap",
+                            "org.geoserver.catalog.ProjectionPolicy",
+                            "org.geoserver.catalog.PublishedType",
+                            "org.geotools.jdbc.RegexpValidator",
+                            "org.geotools.jdbc.VirtualTable",
+                            "org.geotools.jdbc.VirtualTableParameter",
+                            // interfaces of the unresolved reference proxies
+                            "org.geoserver.catalog.Info",
+                            "org.geoserver.catalog.CatalogInfo",
+                            "org.geoserver.catalog.WorkspaceInfo",
+                            "org.geoserver.catalog.NamespaceInfo",
+                            "org.geoserver.catalog.StoreInfo",
+                            "org.geoserver.catalog.DataStoreInfo",
+                            "org.geoserver.catalog.CoverageStoreInfo",
+                            "org.geoserver.catalog.WMSStoreInfo",
+                            "org.geoserver.catalog.WMTSStoreInfo",
+                            "org.geoserver.catalog.ResourceInfo",
+                            "org.geoserver.catalog.FeatureTypeInfo",
+                            "org.geoserver.catalog.CoverageInfo",
+                            "org.geoserver.catalog.WMSLayerInfo",
+                            "org.geoserver.catalog.WMTSLayerInfo",
+                            "org.geoserver.catalog.PublishedInfo",
+                            "org.geoserver.catalog.LayerInfo",
+                            "org.geoserver.catalog.LayerGroupInfo",
+                            "org.geoserver.catalog.StyleInfo",
+                            "org.geoserver.catalog.MapInfo"));
+
+    /**
+     * Packages of the geometry, referencing, and units of measure value types the catalog objects
+     * hold (e.g. the CRS of the bounding boxes, or the grid geometry of a coverage), whose
+     * implementation classes are too many to list
+     */
+    private static final String[] ALLOWED_PACKAGES = {
+        "org.geotools.coverage.grid.",
+        "org.geotools.geometry.",
+        "org.geotools.measure.",
+        "org.geotools.metadata.",
+        "org.geotools.referencing.",
+        "org.geotools.util.",
+        "org.opengis.coverage.",
+        "org.opengis.metadata.",
+        "org.opengis.referencing.",
+        "org.opengis.util.",
+        "org.locationtech.jts.geom.",
+        "javax.measure.",
+        "tec.uom.",
+        "si.uom.",
+        "systems.uom.",
+        "tech.units."
+    };
+
+    private final @Getter Path file;
+
+    public CatalogSnapshotFile(@NonNull Path file) {
+        this.file = file;
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * Reads the snapshot timestamp from the file header, without reading the payload
+     *
+     * @return the timestamp the snapshot was {@link #save saved} with, in milliseconds since the
+     *     epoch
+     * @throws StreamCorruptedException if the file is not a snapshot or has a different format
+     *     version
+     */
+    public long getTimestamp() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) {
+                    throw new StreamCorruptedException("Not a catalog snapshot: " + file);
+                }
+            }
+            header.flip();
+            return readHeader(header, channel.size()).timestamp;
+        }
+    }
+
+    /**
+     * Saves the contents of {@code facade} to the snapshot file, replacing the existing one if
+     * any.
+     *
+     * @param timestamp the snapshot timestamp, usually the time at which the catalog started to be
+     *     loaded, so that the snapshot is considered stale if any catalog file changed afterwards
+     * @return the number of catalog objects saved
+     * @throws InvalidClassException if a catalog object holds a value whose class is not allowed
+     */
+    public int save(@NonNull AbstractCatalogFacade facade, long timestamp) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            final int count;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+                CRC32 crc = new CRC32();
+                OutputStream channelOut = Channels.newOutputStream(channel);
+                CheckedOutputStream checked =
+                        new CheckedOutputStream(
+                                new BufferedOutputStream(channelOut, BUFFER_SIZE), crc);
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try {
+                    DeflaterOutputStream deflated =
+                            new DeflaterOutputStream(checked, deflater, BUFFER_SIZE);
+                    ObjectOutputStream out = new SnapshotOutputStream(deflated);
+                    count = writeContents(facade, out);
+                    out.flush();
+                    deflated.finish();
+                    checked.flush();
+                } finally {
+                    deflater.end();
+                }
+                final long payloadLength = channel.position() - HEADER_SIZE;
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC);
+                header.putInt(FORMAT_VERSION);
+                header.putLong(timestamp);
+                header.putLong(payloadLength);
+                header.putLong(crc.getValue());
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(
+                    tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Loads the snapshot contents into the repositories of {@code target}, which is expected to be
+     * empty, and sets its catalog to the loaded objects. The whole snapshot is read before adding
+     * any object to {@code target}, which is left untouched on error.
+     *
+     * @return the number of catalog objects loaded
+     * @throws StreamCorruptedException if the file is not a snapshot, has a different format
+     *     version, or the payload doesn't match its checksum
+     * @throws InvalidClassException if the snapshot was written by a different GeoServer version
+     *     or contains classes that are not allowed
+     */
+    public int load(@NonNull AbstractCatalogFacade target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new StreamCorruptedException("Not a catalog snapshot: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+            Header header = readHeader(buffer.duplicate(), size);
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(HEADER_SIZE);
+            payload.limit(HEADER_SIZE + (int) header.payloadLength);
+            payload = payload.slice();
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != header.checksum) {
+                throw new StreamCorruptedException("Catalog snapshot checksum mismatch: " + file);
+            }
+            Inflater inflater = new Inflater();
+            try (ObjectInputStream in =
+                    new SnapshotInputStream(
+                            new InflaterInputStream(
+                                    new ByteBufferInputStream(payload), inflater, BUFFER_SIZE))) {
+                return readContents(in, target);
+            } catch (ClassNotFoundException e) {
+                throw new InvalidClassException(e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private int writeContents(AbstractCatalogFacade facade, ObjectOutputStream out)
+            throws IOException {
+        out.writeUTF(geoserverVersion());
+        int count = 0;
+        count += writeAll(facade.workspaces.findAll(), out);
+        count += writeAll(facade.namespaces.findAll(), out);
+        count += writeAll(facade.stores.findAll(), out);
+        count += writeAll(facade.styles.findAll(), out);
+        count += writeAll(facade.resources.findAll(), out);
+        count += writeAll(facade.layers.findAll(), out);
+        count += writeAll(facade.layerGroups.findAll(), out);
+        count += writeAll(facade.maps.findAll(), out);
+        out.writeObject(facade.workspaces.getDefaultWorkspace());
+        out.writeObject(facade.namespaces.getDefaultNamespace());
+        out.writeObject(new ArrayList<>(facade.stores.getDefaultDataStores()));
+        return count;
+    }
+
+    private int writeAll(List<? extends CatalogInfo> values, ObjectOutputStream out)
+            throws IOException {
+        out.writeObject(new ArrayList<>(values));
+        return values.size();
+    }
+
+    private int readContents(ObjectInputStream in, AbstractCatalogFacade target)
+            throws IOException, ClassNotFoundException {
+        final String version = in.readUTF();
+        if (!Objects.equals(geoserverVersion(), version)) {
+            throw new InvalidClassException(
+                    String.format(
+                            "Catalog snapshot written by GeoServer %s, running %s",
+                            version, geoserverVersion()));
+        }
+        // read everything before adding anything, not to leave the target half loaded on error
+        List<WorkspaceInfo> workspaces = readList(in);
+        List<NamespaceInfo> namespaces = readList(in);
+        List<StoreInfo> stores = readList(in);
+        List<StyleInfo> styles = readList(in);
+        List<ResourceInfo> resources = readList(in);
+        List<LayerInfo> layers = readList(in);
+        List<LayerGroupInfo> layerGroups = readList(in);
+        List<MapInfo> maps = readList(in);
+        WorkspaceInfo defaultWorkspace = (WorkspaceInfo) in.readObject();
+        NamespaceInfo defaultNamespace = (NamespaceInfo) in.readObject();
+        List<DataStoreInfo> defaultDataStores = readList(in);
+
+        target.workspaces.addAll(workspaces);
+        target.namespaces.addAll(namespaces);
+        target.stores.addAll(stores);
+        target.styles.addAll(styles);
+        target.resources.addAll(resources);
+        target.layers.addAll(layers);
+        target.layerGroups.addAll(layerGroups);
+        target.maps.addAll(maps);
+        if (defaultWorkspace != null) {
+            target.workspaces.setDefaultWorkspace(defaultWorkspace);
+        }
+        if (defaultNamespace != null) {
+            target.namespaces.setDefaultNamespace(defaultNamespace);
+        }
+        for (DataStoreInfo store : defaultDataStores) {
+            target.stores.setDefaultDataStore(store.getWorkspace(), store);
+        }
+        // the catalog references are transient, set them on the loaded objects
+        Catalog catalog = target.getCatalog();
+        target.setCatalog(catalog);
+        return workspaces.size()
+                + namespaces.size()
+                + stores.size()
+                + styles.size()
+                + resources.size()
+                + layers.size()
+                + layerGroups.size()
+                + maps.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readList(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        return (List<T>) in.readObject();
+    }
+
+    static String geoserverVersion() {
+        String version = Catalog.class.getPackage().getImplementationVersion();
+        return version == null ? "" : version;
+    }
+
+    private Header readHeader(ByteBuffer buffer, long fileSize) throws StreamCorruptedException {
+        if (fileSize < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a catalog snapshot: " + file);
+        }
+        final int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new StreamCorruptedException(
+                    String.format(
+                            "Unsupported catalog snapshot format version %d, expected %d: %s",
+                            formatVersion, FORMAT_VERSION, file));
+        }
+        Header header = new Header();
+        header.timestamp = buffer.getLong();
+        header.payloadLength = buffer.getLong();
+        header.checksum = buffer.getLong();
+        if (header.payloadLength != fileSize - HEADER_SIZE
+                || header.payloadLength > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Truncated catalog snapshot: " + file);
+        }
+        return header;
+    }
+
+    private static class Header {
+        long timestamp;
+        long payloadLength;
+        long checksum;
+    }
+
+    /** Reads a (memory mapped) {@link ByteBuffer} without copying it to the heap up front */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public @Override int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        public @Override int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        public @Override int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * @return whether the class, given its {@link Class#getName() name}, is one of the {@link
+     *     #ALLOWED_CLASSES} or belongs to the {@link #ALLOWED_PACKAGES}, array classes are allowed
+     *     if their component class is
+     */
+    static boolean isAllowed(String className) {
+        String name = className;
+        // array classes, e.g. [Ljava.lang.Object; or [B
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            return true; // primitive array component
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        if (ALLOWED_CLASSES.contains(name)) {
+            return true;
+        }
+        for (String prefix : ALLOWED_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Refuses to write the classes that {@link SnapshotInputStream} would refuse to read */
+    private static class SnapshotOutputStream extends ObjectOutputStream {
+
+        SnapshotOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        protected @Override void annotateClass(Class<?> cl) throws IOException {
+            if (!isAllowed(cl.getName())) {
+                throw new InvalidClassException(cl.getName(), "not allowed in catalog snapshot");
+            }
+        }
+
+        protected @Override void annotateProxyClass(Class<?> cl) throws IOException {
+            for (Class<?> type : cl.getInterfaces()) {
+                annotateClass(type);
+            }
+        }
+    }
+
+    /** Only resolves the {@link #isAllowed(String) allowed} classes */
+    private static class SnapshotInputStream extends ObjectInputStream {
+
+        SnapshotInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        protected @Override Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "not allowed in catalog snapshot");
+            }
+            return super.resolveClass(desc);
+        }
+
+        protected @Override Class<?> resolveProxyClass(String[] interfaces)
+                throws IOException, ClassNotFoundException {
+            for (String name : interfaces) {
+                if (!isAllowed(name)) {
+                    throw new InvalidClassException(name, "not allowed in catalog snapshot");
+                }
+            }
+            return super.resolveProxyClass(interfaces);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current {@link CatalogSnapshot} of a {@link SnapshotCatalogFacade} in a single atomic
+ * reference.
+ *
+ * <p>Readers never lock, they just get the current snapshot (or the one {@link #pin() pinned} by
+ * the calling thread). Writers compute the new snapshot out of the current one and publish it
+ * with a compare-and-set, retrying if another writer published first, hence the update functions
+ * must be free of side effects.
+ */
+public class CatalogSnapshotHolder {
+
+    private final AtomicReference<CatalogSnapshot> current =
+            new AtomicReference<>(CatalogSnapshot.EMPTY);
+
+    private final ThreadLocal<CatalogSnapshot> pinned = new ThreadLocal<>();
+
+    /**
+     * Represents a snapshot pinned to the calling thread until {@link #close() closed}, meant to be
+     * used in a try-with-resources block
+     */
+    public interface Pin extends AutoCloseable {
+        /** @return the version of the pinned snapshot */
+        long getVersion();
+
+        /** Releases the pinned snapshot, overrides {@code AutoCloseable} to not throw */
+        @Override
+        void close();
+    }
+
+    /** @return the version of the current snapshot */
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * @return the snapshot pinned to the calling thread, or the current snapshot if there's no
+     *     pinned one
+     */
+    CatalogSnapshot get() {
+        CatalogSnapshot snapshot = pinned.get();
+        return snapshot == null ? current.get() : snapshot;
+    }
+
+    /**
+     * Atomically publishes the result of applying {@code update} to the current snapshot.
+     *
+     * <p>If the calling thread has a pinned snapshot, it's moved forward to the published one, so
+     * that the caller sees its own changes.
+     *
+     * @param update side-effect free function to compute the new snapshot out of the current one,
+     *     may be called more than once if there are concurrent writers
+     */
+    CatalogSnapshot update(UnaryOperator<CatalogSnapshot> update) {
+        CatalogSnapshot published =
+                current.updateAndGet(
+                        snapshot -> {
+                            CatalogSnapshot updated = update.apply(snapshot);
+                            return updated == snapshot
+                                    ? snapshot
+                                    : updated.withVersion(snapshot.getVersion() + 1);
+                        });
+        if (pinned.get() != null) {
+            pinned.set(published);
+        }
+        return published;
+    }
+
+    /**
+     * Pins the current snapshot to the calling thread, so that all the reads performed by it see
+     * the same consistent version of the catalog until the returned {@link Pin} is closed.
+     * Pinning when a snapshot is already pinned keeps the outer one, and closing the inner pin
+     * does not release it.
+     */
+    public Pin pin() {
+        final CatalogSnapshot previous = pinned.get();
+        final CatalogSnapshot snapshot = previous == null ? current.get() : previous;
+        pinned.set(snapshot);
+        return new Pin() {
+            public @Override long getVersion() {
+                return snapshot.getVersion();
+            }
+
+            public @Override void close() {
+                if (previous == null) {
+                    pinned.remove();
+                }
+            }
+        };
+    }
+}
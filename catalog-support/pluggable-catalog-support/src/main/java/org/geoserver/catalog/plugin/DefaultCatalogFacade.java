@@ -8,14 +8,6 @@ import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogFacade;
 import org.geoserver.catalog.CatalogInfo;
 import org.geoserver.catalog.CatalogRepository;
-import org.geoserver.catalog.LayerGroupInfo;
-import org.geoserver.catalog.LayerInfo;
-import org.geoserver.catalog.MapInfo;
-import org.geoserver.catalog.NamespaceInfo;
-import org.geoserver.catalog.ResourceInfo;
-import org.geoserver.catalog.StyleInfo;
-import org.geoserver.catalog.WorkspaceInfo;
-import org.geoserver.catalog.impl.StoreInfoImpl;
 import org.geoserver.catalog.plugin.CatalogInfoLookup.LayerGroupInfoLookup;
 import org.geoserver.catalog.plugin.CatalogInfoLookup.LayerInfoLookup;
 import org.geoserver.catalog.plugin.CatalogInfoLookup.MapInfoLookup;
@@ -31,89 +23,77 @@ import org.geoserver.catalog.plugin.CatalogInfoLookup.WorkspaceInfoLookup;
  */
 public class DefaultCatalogFacade extends AbstractCatalogFacade implements CatalogFacade {
 
+    private final boolean compact;
+
     public DefaultCatalogFacade() {
         this(null);
     }
 
     public DefaultCatalogFacade(Catalog catalog) {
+        this(catalog, false);
+    }
+
+    /**
+     * @param compact whether to use the memory compact layout of the {@link CatalogInfoLookup}
+     *     repositories, meant for catalogs with a large number of objects, at the expense of
+     *     returning unsorted results when not explicitly sorted
+     */
+    public DefaultCatalogFacade(Catalog catalog, boolean compact) {
         super(catalog);
-        setNamespaces(new NamespaceInfoLookup());
-        setWorkspaces(new WorkspaceInfoLookup());
-        setStores(new StoreInfoLookup());
-        setLayers(new LayerInfoLookup());
-        setResources(new ResourceInfoLookup((LayerInfoLookup) layers));
-        setLayerGroups(new LayerGroupInfoLookup());
-        setMaps(new MapInfoLookup());
-        setStyles(new StyleInfoLookup());
+        this.compact = compact;
+        setNamespaces(new NamespaceInfoLookup(compact));
+        setWorkspaces(new WorkspaceInfoLookup(compact));
+        setStores(new StoreInfoLookup(compact));
+        setLayers(new LayerInfoLookup(compact));
+        setResources(new ResourceInfoLookup((LayerInfoLookup) layers, compact));
+        setLayerGroups(new LayerGroupInfoLookup(compact));
+        setMaps(new MapInfoLookup(compact));
+        setStyles(new StyleInfoLookup(compact));
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Resolves all the objects, one type at a time in dependency order, and the objects of each
+     * type in parallel, see {@link #resolveAll}
+     */
     public @Override void resolve() {
         // JD creation checks are done here b/c when xstream depersists
         // some members may be left null
-
-        // workspaces
         if (workspaces == null) {
-            workspaces = new WorkspaceInfoLookup();
+            workspaces = new WorkspaceInfoLookup(compact);
         }
-        for (WorkspaceInfo ws : workspaces.findAll()) {
-            resolve(ws);
-        }
-
-        // namespaces
         if (namespaces == null) {
-            namespaces = new NamespaceInfoLookup();
-        }
-        for (NamespaceInfo ns : namespaces.findAll()) {
-            resolve(ns);
+            namespaces = new NamespaceInfoLookup(compact);
         }
-
-        // stores
         if (stores == null) {
-            stores = new StoreInfoLookup();
-        }
-        for (Object o : stores.findAll()) {
-            resolve((StoreInfoImpl) o);
+            stores = new StoreInfoLookup(compact);
         }
-
-        // styles
         if (styles == null) {
-            styles = new StyleInfoLookup();
+            styles = new StyleInfoLookup(compact);
         }
-        for (StyleInfo s : styles.findAll()) {
-            resolve(s);
-        }
-
-        // layers
         if (layers == null) {
-            layers = new LayerInfoLookup();
+            layers = new LayerInfoLookup(compact);
         }
-
-        // resources
         if (resources == null) {
-            resources = new ResourceInfoLookup((LayerInfoLookup) layers);
-        }
-
-        for (Object o : resources.findAll()) {
-            resolve((ResourceInfo) o);
-        }
-        for (LayerInfo l : layers.findAll()) {
-            resolve(l);
+            resources = new ResourceInfoLookup((LayerInfoLookup) layers, compact);
         }
-
-        // layer groups
         if (layerGroups == null) {
-            layerGroups = new LayerGroupInfoLookup();
-        }
-        for (LayerGroupInfo lg : layerGroups.findAll()) {
-            resolve(lg);
+            layerGroups = new LayerGroupInfoLookup(compact);
         }
-
-        // maps
         if (maps == null) {
-            maps = new MapInfoLookup();
-        }
-        for (MapInfo m : maps.findAll()) {
-            resolve(m);
+            maps = new MapInfoLookup(compact);
         }
+
+        resolveAll(workspaces.findAll(), this::resolve);
+        resolveAll(namespaces.findAll(), this::resolve);
+        resolveAll(stores.findAll(), this::resolve);
+        resolveAll(styles.findAll(), this::resolve);
+        resolveAll(resources.findAll(), this::resolve);
+        resolveAll(layers.findAll(), this::resolve);
+        resolveAll(layerGroups.findAll(), this::resolve);
+        resolveAll(maps.findAll(), this::resolve);
     }
 }
@@ -0,0 +1,191 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static java.util.Collections.emptyList;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+
+/**
+ * Secondary index of {@link CatalogInfo} objects by the id of another catalog object they refer
+ * to, like the workspace id of a store, or the namespace id of a resource, used by {@link
+ * CatalogInfoLookup} to resolve "find all by workspace/namespace/store" queries at a cost
+ * proportional to the size of the result instead of the size of the catalog.
+ *
+ * <p>The key of each indexed object is tracked by object id, since by the time {@link #update} is
+ * called the object has already been modified and its former key can no longer be obtained from
+ * it, for example when a store is moved to another workspace.
+ *
+ * <p>Objects whose key is {@code null} (e.g. global styles and layer groups) are indexed under an
+ * internal key, so that lookups by {@code null} are also resolved by the index.
+ *
+ * <p>A {@link #multiValued multi-valued} index indexes each object under several keys (e.g. a
+ * layer under the ids of its default and alternate styles), and doesn't index {@code null} keys.
+ *
+ * @param <T> the type of indexed object
+ */
+class ForeignKeyIndex<T extends CatalogInfo> {
+
+    /** Internal key for objects whose foreign key is {@code null}, can't clash with an object id */
+    private static final String NULL_KEY = "\u0000null";
+
+    /**
+     * The property path of the indexed key as used in OGC filters against the indexed type (e.g.
+     * {@code workspace.id}), or {@code null} if the index can't resolve filters (i.e. it's {@link
+     * #multiValued})
+     */
+    private final @Getter String propertyName;
+
+    private final Function<T, String> keyMapper;
+
+    private final Function<T, ? extends Collection<String>> keysMapper;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, T>> index = new ConcurrentHashMap<>();
+
+    /**
+     * The key or keys each object is indexed with, values are either a {@code String} or a {@code
+     * Set<String>} of more than one key, not to pay for a collection per object on single valued
+     * indexes
+     */
+    private final ConcurrentMap<String, Object> idToKey = new ConcurrentHashMap<>();
+
+    ForeignKeyIndex(@NonNull String propertyName, @NonNull Function<T, String> keyMapper) {
+        this.propertyName = propertyName;
+        this.keyMapper = keyMapper;
+        this.keysMapper = null;
+    }
+
+    private ForeignKeyIndex(@NonNull Function<T, ? extends Collection<String>> keysMapper) {
+        this.propertyName = null;
+        this.keyMapper = null;
+        this.keysMapper = keysMapper;
+    }
+
+    /**
+     * Creates an index of objects by several foreign keys each, e.g. layers by the ids of all the
+     * styles they use.
+     *
+     * @param keysMapper extracts the foreign keys of an object, {@code null} keys are ignored
+     */
+    static <T extends CatalogInfo> ForeignKeyIndex<T> multiValued(
+            Function<T, ? extends Collection<String>> keysMapper) {
+        return new ForeignKeyIndex<>(keysMapper);
+    }
+
+    /** @return the key or keys to index {@code value} with, or {@code null} if none */
+    private @Nullable Object keys(T value) {
+        if (keyMapper != null) {
+            return nonNull(keyMapper.apply(value));
+        }
+        Set<String> keys = new HashSet<>();
+        for (String key : keysMapper.apply(value)) {
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        if (keys.size() < 2) {
+            return keys.isEmpty() ? null : keys.iterator().next();
+        }
+        return keys;
+    }
+
+    private static String nonNull(@Nullable String key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void forEachKey(@Nullable Object keys, Consumer<String> action) {
+        if (keys instanceof String) {
+            action.accept((String) keys);
+        } else if (keys != null) {
+            ((Set<String>) keys).forEach(action);
+        }
+    }
+
+    private static boolean containsKey(@Nullable Object keys, String key) {
+        if (keys instanceof String) {
+            return keys.equals(key);
+        }
+        return keys != null && ((Set<?>) keys).contains(key);
+    }
+
+    public void add(T value) {
+        final String id = value.getId();
+        final Object keys = keys(value);
+        Object oldKeys = keys == null ? idToKey.remove(id) : idToKey.put(id, keys);
+        forEachKey(
+                oldKeys,
+                oldKey -> {
+                    if (!containsKey(keys, oldKey)) {
+                        removeEntry(oldKey, id);
+                    }
+                });
+        forEachKey(keys, key -> addEntry(key, id, value));
+    }
+
+    public void remove(T value) {
+        final String id = value.getId();
+        forEachKey(idToKey.remove(id), key -> removeEntry(key, id));
+    }
+
+    /**
+     * Re-indexes {@code value} in case its keys changed, the former keys are the ones the object
+     * was indexed with when last added or updated.
+     */
+    public void update(T value) {
+        // same logic, add() takes care of removing the entries for the old keys that changed
+        add(value);
+    }
+
+    public void clear() {
+        index.clear();
+        idToKey.clear();
+    }
+
+    /** @return the objects indexed by {@code key}, or an empty collection, never {@code null} */
+    public Collection<T> get(@Nullable String key) {
+        Map<String, T> values = index.get(nonNull(key));
+        return values == null ? emptyList() : values.values();
+    }
+
+    /** @return the number of objects indexed by {@code key} */
+    public int count(@Nullable String key) {
+        Map<String, T> values = index.get(nonNull(key));
+        return values == null ? 0 : values.size();
+    }
+
+    private void addEntry(String key, String id, T value) {
+        // use compute instead of computeIfAbsent().put() to be atomic with removeEntry()
+        index.compute(
+                key,
+                (k, values) -> {
+                    if (values == null) {
+                        values = new ConcurrentHashMap<>();
+                    }
+                    values.put(id, value);
+                    return values;
+                });
+    }
+
+    private void removeEntry(String key, String id) {
+        index.computeIfPresent(
+                key,
+                (k, values) -> {
+                    values.remove(id);
+                    return values.isEmpty() ? null : values;
+                });
+    }
+}
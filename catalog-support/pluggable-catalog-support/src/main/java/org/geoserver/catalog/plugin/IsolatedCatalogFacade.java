@@ -38,8 +38,12 @@ public final class IsolatedCatalogFacade implements CatalogFacade {
     // wrapped catalog facade
     private final CatalogFacade facade;
 
+    // whether the wrapped facade returns objects without modification proxies
+    private final boolean readOnly;
+
     IsolatedCatalogFacade(CatalogFacade facade) {
         this.facade = facade;
+        this.readOnly = facade instanceof ReadOnlyCatalogFacade;
     }
 
     @Override
@@ -663,20 +667,21 @@ public final class IsolatedCatalogFacade implements CatalogFacade {
      * @param objects list of catalog object, wrapped with a modification proxy
      * @param type the class of the list objects
      * @param filter filter that checks if an element should be visible
-     * @return a list wrapped with a modification proxy that contains the visible catalog objects
+     * @return a list wrapped with a modification proxy, unless the wrapped facade is a {@link
+     *     ReadOnlyCatalogFacade}, that contains the visible catalog objects
      */
     private <T extends CatalogInfo> List<T> filterIsolated(
             List<T> objects, Class<T> type, Function<T, T> filter) {
         // unwrap the catalog objects list
         List<T> unwrapped = ModificationProxy.unwrap(objects);
-        // filter the non visible catalog objects and wrap the resulting list with a modification
-        // proxy
-        return ModificationProxy.createList(
+        // filter the non visible catalog objects
+        List<T> visible =
                 unwrapped
                         .stream()
                         .filter(store -> filter.apply(store) != null)
-                        .collect(Collectors.toList()),
-                type);
+                        .collect(Collectors.toList());
+        // wrap the resulting list with a modification proxy, unless the wrapped facade doesn't
+        return readOnly ? visible : ModificationProxy.createList(visible, type);
     }
 
     /**
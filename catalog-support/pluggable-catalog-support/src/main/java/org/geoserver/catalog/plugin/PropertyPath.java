@@ -0,0 +1,305 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.geoserver.ows.util.OwsUtils;
+import org.geotools.filter.visitor.DuplicatingFilterVisitor;
+import org.geotools.util.Converters;
+import org.geotools.util.logging.Logging;
+import org.opengis.filter.Filter;
+import org.opengis.filter.expression.ExpressionVisitor;
+import org.opengis.filter.expression.PropertyName;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * Compiled accessor for a dotted property path (e.g. {@code resource.store.workspace.name}), to
+ * replace the reflective {@link OwsUtils#get(Object, String)} calls when sorting and filtering
+ * catalog objects.
+ *
+ * <p>Each property in the path resolves its getter once per runtime class of the object it's
+ * applied to, and turns it into a {@link Function} through {@link LambdaMetafactory}, so that
+ * evaluating a path is just a chain of (cached) function calls, with no reflection nor
+ * allocations besides the boxing of primitive values.
+ *
+ * <p>{@link #compile(Filter)} replaces the {@link PropertyName} expressions of a {@link Filter} by
+ * compiled ones, falling back to the original expression for anything that's not a plain chain of
+ * getters (e.g. collection valued properties, which the catalog property accessor handles
+ * specially), hence producing the same results.
+ */
+final class PropertyPath {
+
+    private static final Logger LOGGER = Logging.getLogger(PropertyPath.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** Upper bound for the compiled paths cache, paths may come from user provided filters */
+    private static final int MAX_CACHED_PATHS = 1_000;
+
+    private static final ConcurrentMap<String, PropertyPath> CACHE = new ConcurrentHashMap<>();
+
+    /** Marker for properties not resolvable by a plain getter chain */
+    private static final Object UNRESOLVED = new Object();
+
+    private static final Function<Object, Object> NO_GETTER = o -> UNRESOLVED;
+
+    private final @Getter String path;
+
+    private final Property[] properties;
+
+    private PropertyPath(String path) {
+        this.path = path;
+        String[] names = path.split("\\.");
+        this.properties = new Property[names.length];
+        for (int i = 0; i < names.length; i++) {
+            properties[i] = new Property(names[i]);
+        }
+    }
+
+    /** @return the, possibly cached, compiled accessor for the given dotted property path */
+    public static PropertyPath of(@NonNull String path) {
+        PropertyPath compiled = CACHE.get(path);
+        if (compiled == null) {
+            compiled = new PropertyPath(path);
+            if (CACHE.size() < MAX_CACHED_PATHS) {
+                PropertyPath existing = CACHE.putIfAbsent(path, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Evaluates the property path against {@code target}, like {@link OwsUtils#get(Object,
+     * String)} does.
+     *
+     * @return the property value, or {@code null} if any property along the path is {@code null}
+     * @throws IllegalArgumentException if a property in the path does not exist
+     */
+    public Object get(Object target) {
+        Object value = target;
+        for (int i = 0; i < properties.length && value != null; i++) {
+            final Property property = properties[i];
+            Object next = property.get(value);
+            if (next == UNRESOLVED) {
+                if (value instanceof Map) {
+                    next = ((Map<?, ?>) value).get(property.name);
+                } else {
+                    throw new IllegalArgumentException(
+                            "No such property: " + property.name + " in " + value.getClass());
+                }
+            }
+            value = next;
+        }
+        return value;
+    }
+
+    /**
+     * @return the property value if it can be resolved through a plain getter chain, or {@link
+     *     #UNRESOLVED} if a getter is missing or any value along the path is a collection, map, or
+     *     array
+     */
+    private Object tryGet(Object target) {
+        Object value = target;
+        for (int i = 0; i < properties.length && value != null; i++) {
+            if (isMultiValued(value)) {
+                return UNRESOLVED;
+            }
+            value = properties[i].get(value);
+            if (value == UNRESOLVED) {
+                return UNRESOLVED;
+            }
+        }
+        return isMultiValued(value) ? UNRESOLVED : value;
+    }
+
+    private static boolean isMultiValued(Object value) {
+        return value instanceof Collection
+                || value instanceof Map
+                || (value != null && value.getClass().isArray());
+    }
+
+    public @Override String toString() {
+        return path;
+    }
+
+    /** A single property in the path, with its compiled getter per runtime class */
+    private static final class Property {
+        private final String name;
+
+        private final ClassValue<Function<Object, Object>> getters =
+                new ClassValue<Function<Object, Object>>() {
+                    protected @Override Function<Object, Object> computeValue(Class<?> type) {
+                        return compileGetter(type, name);
+                    }
+                };
+
+        Property(String name) {
+            this.name = name;
+        }
+
+        Object get(Object target) {
+            return getters.get(target.getClass()).apply(target);
+        }
+    }
+
+    private static Function<Object, Object> compileGetter(Class<?> type, String property) {
+        final Method getter;
+        try {
+            getter = OwsUtils.getter(type, property, null);
+        } catch (RuntimeException e) {
+            return NO_GETTER;
+        }
+        if (getter == null) {
+            return NO_GETTER;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(getter);
+            CallSite site =
+                    LambdaMetafactory.metafactory(
+                            LOOKUP,
+                            "apply",
+                            MethodType.methodType(Function.class),
+                            MethodType.methodType(Object.class, Object.class),
+                            handle,
+                            handle.type().wrap());
+            @SuppressWarnings("unchecked")
+            Function<Object, Object> function =
+                    (Function<Object, Object>) site.getTarget().invoke();
+            return function;
+        } catch (Throwable e) {
+            LOGGER.log(
+                    Level.FINE,
+                    e,
+                    () -> "Can't compile " + getter + ", falling back to reflection");
+            return reflectiveGetter(getter);
+        }
+    }
+
+    private static Function<Object, Object> reflectiveGetter(Method getter) {
+        return target -> {
+            try {
+                return getter.invoke(target);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * @return a copy of {@code filter} where all the {@link PropertyName} expressions, except the
+     *     ones used as function arguments, are replaced by compiled ones
+     */
+    public static Filter compile(Filter filter) {
+        if (filter == null || filter == Filter.INCLUDE || filter == Filter.EXCLUDE) {
+            return filter;
+        }
+        return (Filter) filter.accept(new FilterCompiler(), null);
+    }
+
+    private static class FilterCompiler extends DuplicatingFilterVisitor {
+
+        public @Override Object visit(PropertyName expression, Object extraData) {
+            if (expression instanceof CompiledPropertyName) {
+                return expression;
+            }
+            String propertyName = expression.getPropertyName();
+            if (propertyName == null
+                    || propertyName.isEmpty()
+                    || propertyName.indexOf('/') != -1
+                    || propertyName.indexOf('[') != -1) {
+                return expression;
+            }
+            return new CompiledPropertyName(expression, PropertyPath.of(propertyName));
+        }
+
+        /** Functions are left untouched, they may rely on their arguments' concrete type */
+        public @Override Object visit(
+                org.opengis.filter.expression.Function function, Object extraData) {
+            return function;
+        }
+    }
+
+    /**
+     * {@link PropertyName} evaluated through a {@link PropertyPath}, delegating to the original
+     * expression when the path can't be resolved as a plain getter chain
+     */
+    static class CompiledPropertyName implements PropertyName {
+        private final PropertyName delegate;
+        private final PropertyPath path;
+
+        CompiledPropertyName(PropertyName delegate, PropertyPath path) {
+            this.delegate = delegate;
+            this.path = path;
+        }
+
+        public @Override String getPropertyName() {
+            return delegate.getPropertyName();
+        }
+
+        public @Override NamespaceSupport getNamespaceContext() {
+            return delegate.getNamespaceContext();
+        }
+
+        public @Override Object evaluate(Object object) {
+            Object value = object == null ? UNRESOLVED : path.tryGet(object);
+            return value == UNRESOLVED ? delegate.evaluate(object) : value;
+        }
+
+        @SuppressWarnings("unchecked")
+        public @Override <T> T evaluate(Object object, Class<T> context) {
+            Object value = object == null ? UNRESOLVED : path.tryGet(object);
+            if (value == UNRESOLVED) {
+                return delegate.evaluate(object, context);
+            }
+            if (value == null || context == null) {
+                return (T) value;
+            }
+            return context.isInstance(value)
+                    ? context.cast(value)
+                    : Converters.convert(value, context);
+        }
+
+        public @Override Object accept(ExpressionVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+
+        public @Override boolean equals(Object o) {
+            return o instanceof CompiledPropertyName
+                    && delegate.equals(((CompiledPropertyName) o).delegate);
+        }
+
+        public @Override int hashCode() {
+            return delegate.hashCode();
+        }
+
+        public @Override String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.Collection;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.ResourcePool;
+import org.geoserver.catalog.Wrapper;
+import org.geoserver.catalog.event.CatalogListener;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.platform.GeoServerResourceLoader;
+
+/**
+ * Read-only {@link CatalogImpl catalog} over the same repositories as a source catalog, returning
+ * the catalog objects as {@link ReadOnlyProxy read-only views} instead of {@link
+ * ModificationProxy modification proxies}.
+ *
+ * <p>Meant for services that only read the catalog (e.g. the OWS services), to save the cost of
+ * the modification proxies on read intensive code paths. The returned objects, and all the
+ * methods that modify the catalog, throw an {@link UnsupportedOperationException} on any attempt
+ * to modify them. Changes to the source catalog are
+ * immediately visible through this one, and the listeners, the resource pool, and the resource
+ * loader are the source catalog's, so that catalog events and cached resources are shared.
+ *
+ * <p>Implements {@link Wrapper} so that code looking for the raw catalog (e.g. the catalog
+ * loaders) finds the source one.
+ *
+ * @see ReadOnlyCatalogFacade
+ */
+@SuppressWarnings("serial")
+public class ReadOnlyCatalog extends CatalogImpl implements Wrapper {
+
+    // null during the super constructor call
+    private final CatalogImpl source;
+
+    /**
+     * @param source the catalog to provide a read-only view of, its {@link
+     *     CatalogImpl#getRawCatalogFacade() raw facade} must be an {@link AbstractCatalogFacade}
+     * @throws IllegalArgumentException if the source catalog facade doesn't support read-only
+     *     views
+     */
+    public ReadOnlyCatalog(@NonNull CatalogImpl source) {
+        super(viewOf(source));
+        this.source = source;
+    }
+
+    /** @return whether {@code source} supports read-only views */
+    public static boolean supports(@NonNull CatalogImpl source) {
+        return source.getRawCatalogFacade() instanceof AbstractCatalogFacade;
+    }
+
+    private static ReadOnlyCatalogFacade viewOf(CatalogImpl source) {
+        CatalogFacade facade = source.getRawCatalogFacade();
+        if (!supports(source)) {
+            throw new IllegalArgumentException(
+                    "Read-only catalog views are not supported by "
+                            + facade.getClass().getName());
+        }
+        return ((AbstractCatalogFacade) facade).readOnlyView();
+    }
+
+    /** @return the catalog this is a read-only view of */
+    public CatalogImpl getSource() {
+        return source;
+    }
+
+    public @Override void addListener(CatalogListener listener) {
+        if (source == null) {
+            super.addListener(listener);
+        } else {
+            source.addListener(listener);
+        }
+    }
+
+    public @Override void removeListener(CatalogListener listener) {
+        if (source == null) {
+            super.removeListener(listener);
+        } else {
+            source.removeListener(listener);
+        }
+    }
+
+    public @Override void removeListeners(Class<? extends CatalogListener> listenerClass) {
+        if (source == null) {
+            super.removeListeners(listenerClass);
+        } else {
+            source.removeListeners(listenerClass);
+        }
+    }
+
+    public @Override Collection<CatalogListener> getListeners() {
+        return source == null ? super.getListeners() : source.getListeners();
+    }
+
+    public @Override ResourcePool getResourcePool() {
+        return source == null ? super.getResourcePool() : source.getResourcePool();
+    }
+
+    public @Override GeoServerResourceLoader getResourceLoader() {
+        return source == null ? super.getResourceLoader() : source.getResourceLoader();
+    }
+
+    /** No-op, the shared resources are disposed of by the source catalog */
+    public @Override void dispose() {
+        // no-op
+    }
+
+    public @Override boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(source);
+    }
+
+    public @Override <T> T unwrap(Class<T> iface) throws IllegalArgumentException {
+        if (iface.isInstance(source)) {
+            return iface.cast(source);
+        }
+        throw new IllegalArgumentException("Cannot unwrap to " + iface.getName());
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.List;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.MapInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerGroupRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.LayerRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.MapRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.NamespaceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.ResourceRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StoreRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.StyleRepository;
+import org.geoserver.catalog.plugin.CatalogInfoRepository.WorkspaceRepository;
+
+/**
+ * Read-only view of an {@link AbstractCatalogFacade}, sharing its repositories, that returns the
+ * catalog objects wrapped in stateless {@link ReadOnlyProxy read-only views} instead of {@link
+ * ModificationProxy modification proxies}, saving the change tracking state and the copies of
+ * collections of the latter on read intensive code paths, like encoding a capabilities document.
+ *
+ * <p>The views share the state of the objects held by the repositories, and throw an {@link
+ * UnsupportedOperationException} on any attempt to modify them, as do all the methods that modify
+ * the catalog. Writes go through the source facade with the usual modification proxy semantics,
+ * and are immediately visible through this view.
+ *
+ * @see AbstractCatalogFacade#readOnlyView()
+ * @see ReadOnlyCatalog
+ */
+public class ReadOnlyCatalogFacade extends AbstractCatalogFacade {
+
+    private final AbstractCatalogFacade source;
+
+    ReadOnlyCatalogFacade(AbstractCatalogFacade source) {
+        super(null);
+        this.source = source;
+        updateRepositories();
+    }
+
+    /** @return the facade this is a view of */
+    public AbstractCatalogFacade getSource() {
+        return source;
+    }
+
+    /** Shares the source facade's current repositories, called whenever it replaces any of them */
+    void updateRepositories() {
+        this.workspaces = source.workspaces;
+        this.namespaces = source.namespaces;
+        this.stores = source.stores;
+        this.resources = source.resources;
+        this.layers = source.layers;
+        this.layerGroups = source.layerGroups;
+        this.styles = source.styles;
+        this.maps = source.maps;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The catalog is read-only");
+    }
+
+    public @Override ReadOnlyCatalogFacade readOnlyView() {
+        return this;
+    }
+
+    /**
+     * Only keeps the reference to {@code catalog}, the shared catalog objects keep referring to
+     * the source facade's catalog
+     */
+    public @Override void setCatalog(Catalog catalog) {
+        this.catalog = (CatalogImpl) catalog;
+    }
+
+    protected @Override <T extends CatalogInfo> T wrapInModificationProxy(T ci, Class<T> clazz) {
+        return ReadOnlyProxy.create(ci);
+    }
+
+    protected @Override <T extends CatalogInfo> List<T> wrapInModificationProxy(
+            List<T> proxyList, Class<T> clazz) {
+        return ReadOnlyProxy.createList(proxyList);
+    }
+
+    /** No-op, the shared objects are resolved by the source facade */
+    public @Override void resolve() {
+        // no-op
+    }
+
+    /** No-op, the shared repositories are disposed of by the source facade */
+    public @Override void dispose() {
+        // no-op
+    }
+
+    public @Override void setNamespaces(NamespaceRepository namespaces) {
+        throw readOnly();
+    }
+
+    public @Override void setWorkspaces(WorkspaceRepository workspaces) {
+        throw readOnly();
+    }
+
+    public @Override void setStores(StoreRepository stores) {
+        throw readOnly();
+    }
+
+    public @Override void setResources(ResourceRepository resources) {
+        throw readOnly();
+    }
+
+    public @Override void setLayers(LayerRepository layers) {
+        throw readOnly();
+    }
+
+    public @Override void setLayerGroups(LayerGroupRepository layerGroups) {
+        throw readOnly();
+    }
+
+    public @Override void setStyles(StyleRepository styles) {
+        throw readOnly();
+    }
+
+    public @Override void setMaps(MapRepository maps) {
+        throw readOnly();
+    }
+
+    public @Override StoreInfo add(StoreInfo store) {
+        throw readOnly();
+    }
+
+    public @Override void remove(StoreInfo store) {
+        throw readOnly();
+    }
+
+    public @Override void save(StoreInfo store) {
+        throw readOnly();
+    }
+
+    public @Override void setDefaultDataStore(WorkspaceInfo workspace, DataStoreInfo store) {
+        throw readOnly();
+    }
+
+    public @Override ResourceInfo add(ResourceInfo resource) {
+        throw readOnly();
+    }
+
+    public @Override void remove(ResourceInfo resource) {
+        throw readOnly();
+    }
+
+    public @Override void save(ResourceInfo resource) {
+        throw readOnly();
+    }
+
+    public @Override LayerInfo add(LayerInfo layer) {
+        throw readOnly();
+    }
+
+    public @Override void remove(LayerInfo layer) {
+        throw readOnly();
+    }
+
+    public @Override void save(LayerInfo layer) {
+        throw readOnly();
+    }
+
+    public @Override MapInfo add(MapInfo map) {
+        throw readOnly();
+    }
+
+    public @Override void remove(MapInfo map) {
+        throw readOnly();
+    }
+
+    public @Override void save(MapInfo map) {
+        throw readOnly();
+    }
+
+    public @Override LayerGroupInfo add(LayerGroupInfo layerGroup) {
+        throw readOnly();
+    }
+
+    public @Override void remove(LayerGroupInfo layerGroup) {
+        throw readOnly();
+    }
+
+    public @Override void save(LayerGroupInfo layerGroup) {
+        throw readOnly();
+    }
+
+    public @Override NamespaceInfo add(NamespaceInfo namespace) {
+        throw readOnly();
+    }
+
+    public @Override void remove(NamespaceInfo namespace) {
+        throw readOnly();
+    }
+
+    public @Override void save(NamespaceInfo namespace) {
+        throw readOnly();
+    }
+
+    public @Override void setDefaultNamespace(NamespaceInfo defaultNamespace) {
+        throw readOnly();
+    }
+
+    public @Override WorkspaceInfo add(WorkspaceInfo workspace) {
+        throw readOnly();
+    }
+
+    public @Override void remove(WorkspaceInfo workspace) {
+        throw readOnly();
+    }
+
+    public @Override void save(WorkspaceInfo workspace) {
+        throw readOnly();
+    }
+
+    public @Override void setDefaultWorkspace(WorkspaceInfo workspace) {
+        throw readOnly();
+    }
+
+    public @Override StyleInfo add(StyleInfo style) {
+        throw readOnly();
+    }
+
+    public @Override void remove(StyleInfo style) {
+        throw readOnly();
+    }
+
+    public @Override void save(StyleInfo style) {
+        throw readOnly();
+    }
+}
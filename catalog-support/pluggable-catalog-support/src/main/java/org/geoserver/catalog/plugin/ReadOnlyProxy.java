@@ -0,0 +1,168 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.MetadataMap;
+import org.geoserver.catalog.impl.ModificationProxy;
+
+/**
+ * Read-only view of a {@link CatalogInfo}, as returned by {@link ReadOnlyCatalogFacade}.
+ *
+ * <p>Unlike a {@link ModificationProxy}, it doesn't track changes, so it holds no state but the
+ * object it wraps, and getters dispatch straight to it. Setters, and any other {@code add*} or
+ * {@code remove*} method, throw an {@link UnsupportedOperationException}. The catalog objects
+ * returned by the getters are read-only views too, and the collections and maps unmodifiable
+ * views, or copies if they hold catalog objects.
+ */
+public class ReadOnlyProxy implements InvocationHandler {
+
+    /** The public interfaces each class implements, including the inherited ones */
+    private static final ClassValue<Class<?>[]> INTERFACES =
+            new ClassValue<Class<?>[]>() {
+                protected @Override Class<?>[] computeValue(Class<?> type) {
+                    Set<Class<?>> interfaces = new LinkedHashSet<>();
+                    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                        addInterfaces(c, interfaces);
+                    }
+                    return interfaces.toArray(new Class<?>[interfaces.size()]);
+                }
+
+                private void addInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+                    for (Class<?> i : type.getInterfaces()) {
+                        if (Modifier.isPublic(i.getModifiers()) && interfaces.add(i)) {
+                            addInterfaces(i, interfaces);
+                        }
+                    }
+                }
+            };
+
+    private final CatalogInfo subject;
+
+    private ReadOnlyProxy(CatalogInfo subject) {
+        this.subject = subject;
+    }
+
+    /**
+     * @return a read-only view of {@code info} implementing all its interfaces, {@code info}
+     *     itself if it's {@code null} or a read-only view already
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends CatalogInfo> T create(@Nullable T info) {
+        if (info == null || isReadOnly(info)) {
+            return info;
+        }
+        final Class<?> type = info.getClass();
+        Object proxy =
+                Proxy.newProxyInstance(
+                        type.getClassLoader(), INTERFACES.get(type), new ReadOnlyProxy(info));
+        return (T) proxy;
+    }
+
+    /** @return read-only views of the objects in {@code list} */
+    public static <T extends CatalogInfo> List<T> createList(List<T> list) {
+        List<T> views = new ArrayList<>(list.size());
+        for (T info : list) {
+            views.add(create(info));
+        }
+        return views;
+    }
+
+    /** @return whether {@code object} is a read-only view */
+    public static boolean isReadOnly(@Nullable Object object) {
+        return object != null
+                && Proxy.isProxyClass(object.getClass())
+                && Proxy.getInvocationHandler(object) instanceof ReadOnlyProxy;
+    }
+
+    /** @return the object wrapped by {@code object} if it's a read-only view, itself otherwise */
+    @SuppressWarnings("unchecked")
+    public static <T> T unwrap(T object) {
+        return isReadOnly(object)
+                ? (T) ((ReadOnlyProxy) Proxy.getInvocationHandler(object)).subject
+                : object;
+    }
+
+    public @Override Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if (name.startsWith("set") || name.startsWith("add") || name.startsWith("remove")) {
+            throw new UnsupportedOperationException(
+                    "Read-only " + subject.getClass().getSimpleName() + ", can't call " + name);
+        }
+        if (args != null) {
+            for (int i = 0; i < args.length; i++) {
+                args[i] = unwrap(args[i]);
+            }
+        }
+        final Object result;
+        try {
+            result = method.invoke(subject, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        return result == subject ? proxy : readOnly(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readOnly(@Nullable Object value) {
+        if (value instanceof CatalogInfo) {
+            return create((CatalogInfo) value);
+        }
+        if (value instanceof MetadataMap) {
+            return new MetadataMap(Collections.unmodifiableMap((MetadataMap) value));
+        }
+        if (value instanceof Map) {
+            return Collections.unmodifiableMap((Map<?, ?>) value);
+        }
+        if (value instanceof Collection) {
+            Collection<Object> collection = (Collection<Object>) value;
+            if (!containsCatalogInfo(collection)) {
+                if (value instanceof List) {
+                    return Collections.unmodifiableList((List<Object>) value);
+                }
+                if (value instanceof Set) {
+                    return Collections.unmodifiableSet((Set<Object>) value);
+                }
+                return Collections.unmodifiableCollection(collection);
+            }
+            Collection<Object> views =
+                    value instanceof Set
+                            ? new LinkedHashSet<>(collection.size())
+                            : new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                views.add(readOnly(element));
+            }
+            if (value instanceof List) {
+                return Collections.unmodifiableList((List<Object>) views);
+            }
+            return value instanceof Set
+                    ? Collections.unmodifiableSet((Set<Object>) views)
+                    : Collections.unmodifiableCollection(views);
+        }
+        return value;
+    }
+
+    private static boolean containsCatalogInfo(Collection<?> collection) {
+        for (Object element : collection) {
+            if (element instanceof CatalogInfo) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
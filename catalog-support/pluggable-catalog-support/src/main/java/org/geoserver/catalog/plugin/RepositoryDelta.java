@@ -0,0 +1,112 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+
+/**
+ * The id level difference between the contents of a source and a target {@link
+ * CatalogInfoRepository}, used to {@link CatalogInfoRepository#syncTo synchronize} the target
+ * incrementally instead of clearing and refilling it.
+ *
+ * <p>An object is <i>added</i> if its id is not in the target, <i>changed</i> if the target holds
+ * a different and not {@link Object#equals equal} object with its id, and <i>removed</i> if its id
+ * is only in the target. Since the {@link CatalogInfo} implementations compare the objects they
+ * refer to by value, an unchanged object kept in the target only refers to objects that are
+ * unchanged too.
+ *
+ * <p>Applying the delta (see {@link #apply()}) writes the additions and replacements before the
+ * removals, so that readers of the target see each object either in its old or new state, but
+ * never missing, unless it's been removed. {@link AbstractCatalogFacade#syncTo} applies the deltas
+ * of all its repositories in two phases, so that no object ever refers to a missing one either.
+ *
+ * @param <T> the type of {@link CatalogInfo} held by the repositories
+ */
+final class RepositoryDelta<T extends CatalogInfo> {
+
+    private final CatalogInfoRepository<T> target;
+
+    private final List<T> added = new ArrayList<>();
+
+    private final List<T> changed = new ArrayList<>();
+
+    private final List<T> removed = new ArrayList<>();
+
+    private RepositoryDelta(CatalogInfoRepository<T> target) {
+        this.target = target;
+    }
+
+    /** Computes the changes {@code target} needs to hold the same objects as {@code source} */
+    public static <T extends CatalogInfo> RepositoryDelta<T> of(
+            @NonNull CatalogInfoRepository<T> source, @NonNull CatalogInfoRepository<T> target) {
+
+        final RepositoryDelta<T> delta = new RepositoryDelta<>(target);
+        final List<T> current = target.findAll();
+        final Map<String, T> byId = new HashMap<>(current.size() * 4 / 3 + 1);
+        for (T value : current) {
+            byId.put(value.getId(), value);
+        }
+        for (T value : source.findAll()) {
+            T old = byId.remove(value.getId());
+            if (old == null) {
+                delta.added.add(value);
+            } else if (old != value && !old.equals(value)) {
+                delta.changed.add(value);
+            }
+        }
+        delta.removed.addAll(byId.values());
+        return delta;
+    }
+
+    /** Adds the new objects and replaces the changed ones, in a single batch each */
+    public void applyAddsAndChanges() {
+        if (!added.isEmpty()) {
+            target.addAll(added);
+        }
+        if (!changed.isEmpty()) {
+            target.replaceAll(changed);
+        }
+    }
+
+    /** Removes the objects that are only in the target, in a single batch */
+    public void applyRemoves() {
+        if (!removed.isEmpty()) {
+            target.removeAll(removed);
+        }
+    }
+
+    /** Applies all the changes, removals last */
+    public void apply() {
+        applyAddsAndChanges();
+        applyRemoves();
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public List<T> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    public List<T> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    public List<T> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    public @Override String toString() {
+        return String.format(
+                "%d added, %d changed, %d removed", added.size(), changed.size(), removed.size());
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.NonNull;
+import org.geoserver.catalog.CatalogInfo;
+import org.opengis.feature.type.Name;
+import org.pcollections.HashTreePMap;
+import org.pcollections.PMap;
+
+/**
+ * Immutable state of a {@link SnapshotCatalogInfoRepository}, built on persistent maps so that
+ * each modification returns a new instance sharing most of its structure with the previous one,
+ * at a {@code O(log n)} cost.
+ *
+ * <p>Objects are indexed by id, by name (per concrete class, like {@link CatalogInfoLookup} does),
+ * and by the {@link Index foreign key indexes} the repository is created with.
+ *
+ * @param <T> the type of {@link CatalogInfo} held by the snapshot
+ */
+final class RepositorySnapshot<T extends CatalogInfo> {
+
+    private final PMap<String, T> byId;
+    private final PMap<Class<?>, PMap<Name, T>> byName;
+    private final PMap<String, Name> idToName;
+    private final PMap<String, Index<T>> indexes;
+    /** Ids of the default objects (e.g. default workspace or default store per workspace) */
+    private final PMap<String, String> defaults;
+
+    private RepositorySnapshot(
+            PMap<String, T> byId,
+            PMap<Class<?>, PMap<Name, T>> byName,
+            PMap<String, Name> idToName,
+            PMap<String, Index<T>> indexes,
+            PMap<String, String> defaults) {
+        this.byId = byId;
+        this.byName = byName;
+        this.idToName = idToName;
+        this.indexes = indexes;
+        this.defaults = defaults;
+    }
+
+    /** @return an empty snapshot maintaining the given foreign key indexes */
+    static <T extends CatalogInfo> RepositorySnapshot<T> empty(List<Index<T>> indexes) {
+        PMap<String, Index<T>> indexMap = HashTreePMap.empty();
+        for (Index<T> index : indexes) {
+            indexMap = indexMap.plus(index.getPropertyName(), index);
+        }
+        return new RepositorySnapshot<>(
+                HashTreePMap.empty(),
+                HashTreePMap.empty(),
+                HashTreePMap.empty(),
+                indexMap,
+                HashTreePMap.empty());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /** @return the number of objects whose concrete class is a subtype of {@code type} */
+    public int size(Class<?> type) {
+        int size = 0;
+        for (Map.Entry<Class<?>, PMap<Name, T>> e : byName.entrySet()) {
+            if (type.isAssignableFrom(e.getKey())) {
+                size += e.getValue().size();
+            }
+        }
+        return size;
+    }
+
+    public @Nullable T get(String id) {
+        return byId.get(id);
+    }
+
+    public @Nullable Name nameOf(String id) {
+        return idToName.get(id);
+    }
+
+    /** @return the object named {@code name} whose concrete class is a subtype of {@code type} */
+    public @Nullable T getByName(Name name, Class<?> type) {
+        for (Map.Entry<Class<?>, PMap<Name, T>> e : byName.entrySet()) {
+            if (type.isAssignableFrom(e.getKey())) {
+                T found = e.getValue().get(name);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Collection<T> values() {
+        return byId.values();
+    }
+
+    /**
+     * @return the objects indexed by {@code key} on the foreign key index for {@code
+     *     propertyName}, or {@code null} if there's no such index
+     */
+    public @Nullable Collection<T> findIndexed(String propertyName, @Nullable String key) {
+        Index<T> index = indexes.get(propertyName);
+        return index == null ? null : index.get(key);
+    }
+
+    public @Nullable T getDefault(String key) {
+        String id = defaults.get(key);
+        return id == null ? null : byId.get(id);
+    }
+
+    public Collection<String> getDefaultKeys() {
+        return defaults.keySet();
+    }
+
+    public RepositorySnapshot<T> withDefault(String key, @Nullable String id) {
+        PMap<String, String> newDefaults =
+                id == null ? defaults.minus(key) : defaults.plus(key, id);
+        return new RepositorySnapshot<>(byId, byName, idToName, indexes, newDefaults);
+    }
+
+    /**
+     * Adds or replaces {@code value} under the given {@code name}, removing the name mapping the
+     * object had before if it was renamed, and re-indexing it on the foreign key indexes.
+     */
+    public RepositorySnapshot<T> put(@NonNull T value, @NonNull Name name) {
+        final String id = value.getId();
+        final Class<?> type = value.getClass();
+        final Name oldName = idToName.get(id);
+
+        PMap<Name, T> names = byName.getOrDefault(type, HashTreePMap.empty());
+        if (oldName != null && !oldName.equals(name)) {
+            names = names.minus(oldName);
+        }
+        names = names.plus(name, value);
+
+        PMap<String, Index<T>> newIndexes = indexes;
+        for (Index<T> index : indexes.values()) {
+            newIndexes = newIndexes.plus(index.getPropertyName(), index.plus(value));
+        }
+        return new RepositorySnapshot<>(
+                byId.plus(id, value),
+                byName.plus(type, names),
+                idToName.plus(id, name),
+                newIndexes,
+                defaults);
+    }
+
+    /** Replaces the object with the same id as {@code value}, keeping its name */
+    public RepositorySnapshot<T> replace(@NonNull T value) {
+        return put(value, idToName.get(value.getId()));
+    }
+
+    /** Moves the object with the given id to {@code newName} */
+    public RepositorySnapshot<T> rename(String id, Name newName) {
+        T value = byId.get(id);
+        return value == null ? this : put(value, newName);
+    }
+
+    public RepositorySnapshot<T> remove(String id) {
+        final T value = byId.get(id);
+        if (value == null) {
+            return this;
+        }
+        final Class<?> type = value.getClass();
+        final Name name = idToName.get(id);
+        PMap<Class<?>, PMap<Name, T>> newByName = byName;
+        PMap<Name, T> names = byName.get(type);
+        if (names != null && name != null) {
+            newByName = byName.plus(type, names.minus(name));
+        }
+        PMap<String, Index<T>> newIndexes = indexes;
+        for (Index<T> index : indexes.values()) {
+            newIndexes = newIndexes.plus(index.getPropertyName(), index.minus(id));
+        }
+        return new RepositorySnapshot<>(
+                byId.minus(id), newByName, idToName.minus(id), newIndexes, defaults);
+    }
+
+    /**
+     * Immutable counterpart of {@link ForeignKeyIndex}, objects whose key is {@code null} are
+     * indexed under an internal key, except on {@link #multiValued} indexes, which ignore {@code
+     * null} keys
+     */
+    static final class Index<T extends CatalogInfo> {
+        private static final String NULL_KEY = "\u0000null";
+
+        /**
+         * The property path of the indexed key as used in OGC filters (e.g. {@code workspace.id}),
+         * or for {@link #multiValued} indexes, a name no filter resolves to
+         */
+        private final @Getter String propertyName;
+
+        private final Function<T, ? extends Collection<String>> keysMapper;
+        private final PMap<String, PMap<String, T>> entries;
+        private final PMap<String, Set<String>> idToKeys;
+
+        Index(@NonNull String propertyName, @NonNull Function<T, String> keyMapper) {
+            this(
+                    propertyName,
+                    value -> singleton(nonNull(keyMapper.apply(value))),
+                    HashTreePMap.empty(),
+                    HashTreePMap.empty());
+        }
+
+        private Index(
+                String propertyName,
+                Function<T, ? extends Collection<String>> keysMapper,
+                PMap<String, PMap<String, T>> entries,
+                PMap<String, Set<String>> idToKeys) {
+            this.propertyName = propertyName;
+            this.keysMapper = keysMapper;
+            this.entries = entries;
+            this.idToKeys = idToKeys;
+        }
+
+        /**
+         * Creates an index of objects by several foreign keys each, e.g. layers by the ids of all
+         * the styles they use.
+         *
+         * @param name the name to {@link RepositorySnapshot#findIndexed look up} the index by
+         * @param keysMapper extracts the foreign keys of an object, {@code null} keys are ignored
+         */
+        static <T extends CatalogInfo> Index<T> multiValued(
+                @NonNull String name,
+                @NonNull Function<T, ? extends Collection<String>> keysMapper) {
+            return new Index<>(name, keysMapper, HashTreePMap.empty(), HashTreePMap.empty());
+        }
+
+        private static String nonNull(@Nullable String key) {
+            return key == null ? NULL_KEY : key;
+        }
+
+        private Set<String> keys(T value) {
+            Set<String> keys = new HashSet<>();
+            for (String key : keysMapper.apply(value)) {
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        }
+
+        public Collection<T> get(@Nullable String key) {
+            PMap<String, T> values = entries.get(nonNull(key));
+            return values == null ? emptyList() : values.values();
+        }
+
+        Index<T> plus(T value) {
+            final String id = value.getId();
+            final Set<String> keys = keys(value);
+            final Set<String> oldKeys = idToKeys.getOrDefault(id, emptySet());
+            PMap<String, PMap<String, T>> newEntries = entries;
+            for (String oldKey : oldKeys) {
+                if (!keys.contains(oldKey)) {
+                    newEntries = removeEntry(newEntries, oldKey, id);
+                }
+            }
+            for (String key : keys) {
+                PMap<String, T> values = newEntries.getOrDefault(key, HashTreePMap.empty());
+                newEntries = newEntries.plus(key, values.plus(id, value));
+            }
+            PMap<String, Set<String>> newIdToKeys =
+                    keys.isEmpty() ? idToKeys.minus(id) : idToKeys.plus(id, keys);
+            return new Index<>(propertyName, keysMapper, newEntries, newIdToKeys);
+        }
+
+        Index<T> minus(String id) {
+            final Set<String> keys = idToKeys.get(id);
+            if (keys == null) {
+                return this;
+            }
+            PMap<String, PMap<String, T>> newEntries = entries;
+            for (String key : keys) {
+                newEntries = removeEntry(newEntries, key, id);
+            }
+            return new Index<>(propertyName, keysMapper, newEntries, idToKeys.minus(id));
+        }
+
+        private static <T> PMap<String, PMap<String, T>> removeEntry(
+                PMap<String, PMap<String, T>> entries, String key, String id) {
+            PMap<String, T> values = entries.get(key);
+            if (values == null) {
+                return entries;
+            }
+            values = values.minus(id);
+            return values.isEmpty() ? entries.minus(key) : entries.plus(key, values);
+        }
+    }
+}
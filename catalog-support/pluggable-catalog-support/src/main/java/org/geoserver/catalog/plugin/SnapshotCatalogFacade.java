@@ -0,0 +1,114 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import java.lang.reflect.Proxy;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.LockingCatalogFacade;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.impl.ProxyUtils;
+import org.geoserver.catalog.plugin.CatalogSnapshotHolder.Pin;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.LayerGroupSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.LayerSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.MapSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.NamespaceSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.ResourceSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.StoreSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.StyleSnapshotRepository;
+import org.geoserver.catalog.plugin.SnapshotCatalogInfoRepository.WorkspaceSnapshotRepository;
+
+/**
+ * In-memory catalog facade alternative to {@link DefaultCatalogFacade}, whose repositories keep
+ * their state in immutable {@link CatalogSnapshot snapshots} published through a single atomic
+ * reference, so that reads never lock and always see a consistent catalog.
+ *
+ * <p>The objects of a published snapshot are never modified, saving an object publishes an updated
+ * copy of it instead, so a snapshot can be shared with another facade through {@link #syncTo}.
+ *
+ * <p>Use {@link #pin()} for a request to see the same version of the catalog for its whole
+ * lifetime:
+ *
+ * <pre>{@code
+ * try (Pin pin = facade.pin()) {
+ *     ...
+ * }
+ * }</pre>
+ */
+public class SnapshotCatalogFacade extends AbstractCatalogFacade implements CatalogFacade {
+
+    private final CatalogSnapshotHolder snapshots = new CatalogSnapshotHolder();
+
+    public SnapshotCatalogFacade() {
+        this(null);
+    }
+
+    public SnapshotCatalogFacade(Catalog catalog) {
+        super(catalog);
+        LayerSnapshotRepository layerRepository = new LayerSnapshotRepository(snapshots);
+        setNamespaces(new NamespaceSnapshotRepository(snapshots));
+        setWorkspaces(new WorkspaceSnapshotRepository(snapshots));
+        setStores(new StoreSnapshotRepository(snapshots));
+        setLayers(layerRepository);
+        setResources(new ResourceSnapshotRepository(snapshots, layerRepository));
+        setLayerGroups(new LayerGroupSnapshotRepository(snapshots));
+        setMaps(new MapSnapshotRepository(snapshots));
+        setStyles(new StyleSnapshotRepository(snapshots));
+    }
+
+    /** @return the version of the current catalog snapshot */
+    public long getVersion() {
+        return snapshots.getVersion();
+    }
+
+    /**
+     * Pins the current catalog snapshot to the calling thread until the returned {@link Pin} is
+     * closed, changes made by the calling thread itself are still visible to it.
+     */
+    public Pin pin() {
+        return snapshots.pin();
+    }
+
+    /**
+     * Publishes this facade's current snapshot as the one of {@code dao} if it's a {@code
+     * SnapshotCatalogFacade} too, switching the whole catalog at once since snapshots are
+     * immutable, otherwise falls back to the {@link AbstractCatalogFacade#syncTo incremental sync}
+     */
+    public @Override void syncTo(CatalogFacade dao) {
+        CatalogFacade target = ProxyUtils.unwrap(dao, LockingCatalogFacade.class);
+        if (target instanceof SnapshotCatalogFacade) {
+            final CatalogSnapshot snapshot = snapshots.get();
+            SnapshotCatalogFacade other = (SnapshotCatalogFacade) target;
+            other.snapshots.update(current -> snapshot);
+            other.setCatalog(catalog);
+        } else {
+            super.syncTo(dao);
+        }
+    }
+
+    /**
+     * Commits the proxy's changes to a copy of the object it wraps, which is shared with the
+     * snapshots other threads may have pinned, and returns the copy to be published in its place
+     */
+    protected @Override <T extends CatalogInfo> T commitProxy(T object) {
+        ModificationProxy h = (ModificationProxy) Proxy.getInvocationHandler(object);
+        T copy = CatalogInfoCopier.copy(ModificationProxy.unwrap(object));
+        CatalogInfoCopier.commit(h, copy);
+        return copy;
+    }
+
+    public @Override void resolve() {
+        // same order as DefaultCatalogFacade
+        resolveAll(workspaces.findAll(), this::resolve);
+        resolveAll(namespaces.findAll(), this::resolve);
+        resolveAll(stores.findAll(), this::resolve);
+        resolveAll(styles.findAll(), this::resolve);
+        resolveAll(resources.findAll(), this::resolve);
+        resolveAll(layers.findAll(), this::resolve);
+        resolveAll(layerGroups.findAll(), this::resolve);
+        resolveAll(maps.findAll(), this::resolve);
+    }
+}
@@ -0,0 +1,848 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.MapInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.PublishedInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.plugin.CatalogInfoQueryPlanner.QueryPlan;
+import org.geoserver.catalog.plugin.RepositorySnapshot.Index;
+import org.geoserver.ows.util.OwsUtils;
+import org.geotools.feature.NameImpl;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.Filter;
+
+/**
+ * {@link CatalogInfoRepository} whose state is an immutable {@link RepositorySnapshot} that's part
+ * of the {@link CatalogSnapshot} shared by all the repositories of a {@link
+ * SnapshotCatalogFacade}.
+ *
+ * <p>Reads are lock-free and run against a single snapshot, the one pinned by the calling thread
+ * if any (see {@link CatalogSnapshotHolder#pin()}), or the current one otherwise. Each write
+ * publishes a new snapshot as a whole.
+ *
+ * <p>The {@link CatalogInfo} objects of a published snapshot are never modified in place, since
+ * older snapshots share them. Updates publish a copy instead (see {@link
+ * SnapshotCatalogFacade#commitProxy}), and replace the objects referring to the updated one by
+ * copies referring to the new instance, so the new snapshot doesn't reach the old instances.
+ *
+ * @param <T> the type of {@link CatalogInfo} held by the repository
+ */
+abstract class SnapshotCatalogInfoRepository<T extends CatalogInfo>
+        implements CatalogInfoRepository<T> {
+
+    static final Logger LOGGER = Logging.getLogger(SnapshotCatalogInfoRepository.class);
+
+    private static final List<Class<? extends CatalogInfo>> REPOSITORY_TYPES =
+            Arrays.asList(
+                    WorkspaceInfo.class,
+                    NamespaceInfo.class,
+                    StoreInfo.class,
+                    ResourceInfo.class,
+                    LayerInfo.class,
+                    LayerGroupInfo.class,
+                    StyleInfo.class,
+                    MapInfo.class);
+
+    protected final CatalogSnapshotHolder snapshots;
+
+    protected final Class<T> infoType;
+
+    protected final Function<T, Name> nameMapper;
+
+    private final RepositorySnapshot<T> empty;
+
+    @SafeVarargs
+    protected SnapshotCatalogInfoRepository(
+            @NonNull CatalogSnapshotHolder snapshots,
+            @NonNull Class<T> infoType,
+            @NonNull Function<T, Name> nameMapper,
+            Index<T>... indexes) {
+        this.snapshots = snapshots;
+        this.infoType = infoType;
+        this.nameMapper = nameMapper;
+        this.empty = RepositorySnapshot.empty(Arrays.asList(indexes));
+    }
+
+    /** @return this repository's state on the snapshot visible to the calling thread */
+    protected RepositorySnapshot<T> state() {
+        return state(snapshots.get());
+    }
+
+    protected RepositorySnapshot<T> state(CatalogSnapshot snapshot) {
+        RepositorySnapshot<T> state = snapshot.get(infoType);
+        return state == null ? empty : state;
+    }
+
+    /**
+     * Publishes a new catalog snapshot with this repository's state replaced by the result of
+     * applying the side-effect free {@code update} function to its current state
+     */
+    protected void publish(UnaryOperator<RepositorySnapshot<T>> update) {
+        snapshots.update(snapshot -> snapshot.with(infoType, update.apply(state(snapshot))));
+    }
+
+    private static void checkNotAProxy(CatalogInfo value) {
+        if (Proxy.isProxyClass(value.getClass())) {
+            throw new IllegalArgumentException(
+                    "Proxy values shall not be passed to SnapshotCatalogInfoRepository");
+        }
+    }
+
+    public @Override void add(T value) {
+        checkNotAProxy(value);
+        final Name name = nameMapper.apply(value);
+        publish(state -> state.put(value, name));
+    }
+
+    public @Override void remove(T value) {
+        checkNotAProxy(value);
+        final String id = value.getId();
+        publish(state -> state.remove(id));
+    }
+
+    /** Adds all {@code values} publishing a single new snapshot */
+    public @Override void addAll(Collection<? extends T> values) {
+        final List<T> added = new ArrayList<>(values.size());
+        final List<Name> names = new ArrayList<>(values.size());
+        for (T value : values) {
+            checkNotAProxy(value);
+            added.add(value);
+            names.add(nameMapper.apply(value));
+        }
+        publish(
+                state -> {
+                    RepositorySnapshot<T> result = state;
+                    for (int i = 0; i < added.size(); i++) {
+                        result = result.put(added.get(i), names.get(i));
+                    }
+                    return result;
+                });
+    }
+
+    /** Removes all {@code values} publishing a single new snapshot */
+    public @Override void removeAll(Collection<? extends T> values) {
+        final List<String> ids = new ArrayList<>(values.size());
+        for (T value : values) {
+            checkNotAProxy(value);
+            ids.add(value.getId());
+        }
+        publish(
+                state -> {
+                    RepositorySnapshot<T> result = state;
+                    for (String id : ids) {
+                        result = result.remove(id);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Replaces or adds all {@code values} publishing a single new snapshot, an object whose
+     * concrete type changed is removed first so it doesn't stay registered under its old type
+     */
+    public @Override void replaceAll(Collection<? extends T> values) {
+        final List<T> replaced = new ArrayList<>(values.size());
+        final List<Name> names = new ArrayList<>(values.size());
+        for (T value : values) {
+            checkNotAProxy(value);
+            replaced.add(value);
+            names.add(nameMapper.apply(value));
+        }
+        publish(
+                state -> {
+                    RepositorySnapshot<T> result = state;
+                    for (int i = 0; i < replaced.size(); i++) {
+                        T value = replaced.get(i);
+                        T old = result.get(value.getId());
+                        if (old != null && !old.getClass().equals(value.getClass())) {
+                            result = result.remove(value.getId());
+                        }
+                        result = result.put(value, names.get(i));
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Replaces the object with the same id as {@code value}, and the objects referring to it by
+     * copies referring to {@code value}, in a single new snapshot
+     */
+    public @Override void update(T value) {
+        checkNotAProxy(value);
+        final Name name = nameMapper.apply(value);
+        snapshots.update(
+                snapshot -> {
+                    RepositorySnapshot<T> state = checkExists(state(snapshot), value);
+                    return rebindReferrers(snapshot.with(infoType, state.put(value, name)), value);
+                });
+    }
+
+    /**
+     * Replaces the objects of {@code snapshot} that refer to {@code updated}, directly or through
+     * other objects (e.g. the layers of the resources of an updated store), by copies referring to
+     * the new instances.
+     */
+    static CatalogSnapshot rebindReferrers(CatalogSnapshot snapshot, CatalogInfo updated) {
+        final Map<String, CatalogInfo> copies = new LinkedHashMap<>();
+        final Deque<CatalogInfo> pending = new ArrayDeque<>();
+        copies.put(updated.getId(), updated);
+        pending.add(updated);
+        while (!pending.isEmpty()) {
+            for (CatalogInfo referrer : referrers(snapshot, pending.poll())) {
+                if (!copies.containsKey(referrer.getId())) {
+                    copies.put(referrer.getId(), CatalogInfoCopier.copy(referrer));
+                    pending.add(referrer);
+                }
+            }
+        }
+        CatalogSnapshot result = snapshot;
+        for (CatalogInfo copy : copies.values()) {
+            if (copy != updated) {
+                CatalogInfoCopier.rebind(copy, ref -> copies.getOrDefault(ref.getId(), ref));
+                result = replace(result, copy);
+            }
+        }
+        return result;
+    }
+
+    /** @return the objects of {@code snapshot} holding a direct reference to {@code referred} */
+    private static List<CatalogInfo> referrers(CatalogSnapshot snapshot, CatalogInfo referred) {
+        final String id = referred.getId();
+        final List<CatalogInfo> referrers = new ArrayList<>();
+        if (referred instanceof WorkspaceInfo) {
+            referrers.addAll(indexed(snapshot, StoreInfo.class, "workspace.id", id));
+            referrers.addAll(indexed(snapshot, StyleInfo.class, "workspace.id", id));
+            referrers.addAll(indexed(snapshot, LayerGroupInfo.class, "workspace.id", id));
+        } else if (referred instanceof NamespaceInfo) {
+            referrers.addAll(indexed(snapshot, ResourceInfo.class, "namespace.id", id));
+        } else if (referred instanceof StoreInfo) {
+            referrers.addAll(indexed(snapshot, ResourceInfo.class, "store.id", id));
+        } else if (referred instanceof ResourceInfo) {
+            referrers.addAll(indexed(snapshot, LayerInfo.class, "resource.id", id));
+        } else if (referred instanceof StyleInfo) {
+            referrers.addAll(
+                    indexed(snapshot, LayerInfo.class, LayerSnapshotRepository.BY_STYLE, id));
+        }
+        if (referred instanceof StyleInfo || referred instanceof PublishedInfo) {
+            for (LayerGroupInfo group : values(snapshot, LayerGroupInfo.class)) {
+                if (id.equals(CatalogInfoLookup.id(group.getRootLayer()))
+                        || id.equals(CatalogInfoLookup.id(group.getRootLayerStyle()))
+                        || ids(group.getLayers()).contains(id)
+                        || ids(group.getStyles()).contains(id)) {
+                    referrers.add(group);
+                }
+            }
+        }
+        return referrers;
+    }
+
+    private static List<String> ids(Collection<? extends CatalogInfo> infos) {
+        List<String> ids = new ArrayList<>(infos.size());
+        for (CatalogInfo info : infos) {
+            ids.add(CatalogInfoLookup.id(info));
+        }
+        return ids;
+    }
+
+    private static <T extends CatalogInfo> Collection<T> values(
+            CatalogSnapshot snapshot, Class<T> type) {
+        RepositorySnapshot<T> state = snapshot.get(type);
+        return state == null ? emptyList() : state.values();
+    }
+
+    private static <T extends CatalogInfo> Collection<T> indexed(
+            CatalogSnapshot snapshot, Class<T> type, String propertyName, String key) {
+        RepositorySnapshot<T> state = snapshot.get(type);
+        return state == null ? emptyList() : state.findIndexed(propertyName, key);
+    }
+
+    /** Replaces {@code value} in the snapshot of the repository it belongs to */
+    @SuppressWarnings("unchecked")
+    private static <T extends CatalogInfo> CatalogSnapshot replace(
+            CatalogSnapshot snapshot, T value) {
+        final Class<T> type = (Class<T>) repositoryType(value);
+        return snapshot.with(type, snapshot.get(type).replace(value));
+    }
+
+    private static Class<? extends CatalogInfo> repositoryType(CatalogInfo info) {
+        for (Class<? extends CatalogInfo> type : REPOSITORY_TYPES) {
+            if (type.isInstance(info)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown CatalogInfo type " + info.getClass());
+    }
+
+    /** @return {@code id} if {@code state} has an object with that id, {@code null} otherwise */
+    protected static @Nullable String existing(RepositorySnapshot<?> state, @Nullable String id) {
+        return id == null || state.get(id) == null ? null : id;
+    }
+
+    protected RepositorySnapshot<T> checkExists(RepositorySnapshot<T> state, T value) {
+        if (state.get(value.getId()) == null) {
+            throw new NoSuchElementException(
+                    value.getClass().getSimpleName()
+                            + " with id "
+                            + value.getId()
+                            + " does not exist");
+        }
+        return state;
+    }
+
+    public @Override void dispose() {
+        publish(state -> empty);
+    }
+
+    public @Override List<T> findAll() {
+        return new ArrayList<>(state().values());
+    }
+
+    public @Override <U extends T> List<U> findAll(Filter filter) {
+        @SuppressWarnings("unchecked")
+        Class<U> type = (Class<U>) infoType;
+        return findAll(filter, type);
+    }
+
+    /**
+     * Resolves the indexable parts of {@code filter} through the snapshot indexes, as {@link
+     * CatalogInfoLookup#findAll(Filter, Class)} does, all against the same snapshot
+     */
+    public @Override <U extends T> List<U> findAll(Filter filter, Class<U> type) {
+        final RepositorySnapshot<T> state = state();
+        final QueryPlan<T> plan =
+                new CatalogInfoQueryPlanner<T>((p, v) -> findIndexed(state, p, v)).plan(filter);
+        final Predicate<U> predicate = toPredicate(plan.getResidual());
+        final Collection<T> candidates =
+                plan.isFullScan() ? state.values() : plan.getCandidates();
+        return list(type, candidates, predicate);
+    }
+
+    /** Lazy version of {@link #findAll(Filter, Class)}, against a single snapshot */
+    public @Override <U extends T> Stream<U> stream(Filter filter, Class<U> type) {
+        final RepositorySnapshot<T> state = state();
+        final QueryPlan<T> plan =
+                new CatalogInfoQueryPlanner<T>((p, v) -> findIndexed(state, p, v)).plan(filter);
+        return execute(state, plan, type);
+    }
+
+    /**
+     * Counts against a single snapshot, an unfiltered count adds up the sizes of the concrete type
+     * maps, and filters resolved through the indexes only visit the index candidates.
+     */
+    public @Override <U extends T> long count(Class<U> type, Filter filter) {
+        final RepositorySnapshot<T> state = state();
+        final QueryPlan<T> plan =
+                new CatalogInfoQueryPlanner<T>((p, v) -> findIndexed(state, p, v)).plan(filter);
+        if (plan.isFullScan() && plan.getResidual() == Filter.INCLUDE) {
+            return state.size(type);
+        }
+        return execute(state, plan, type).count();
+    }
+
+    private <U extends T> Stream<U> execute(
+            RepositorySnapshot<T> state, QueryPlan<T> plan, Class<U> type) {
+        final Predicate<U> predicate = toPredicate(plan.getResidual());
+        final Collection<T> candidates =
+                plan.isFullScan() ? state.values() : plan.getCandidates();
+        return candidates.stream().filter(type::isInstance).map(type::cast).filter(predicate);
+    }
+
+    /**
+     * Resolves the objects whose {@code propertyName} matches {@code value} through {@code state}'s
+     * indexes, subclasses may override to resolve additional properties.
+     *
+     * @return the matching objects, or {@code null} if {@code propertyName} is not indexed
+     */
+    protected @Nullable Collection<T> findIndexed(
+            RepositorySnapshot<T> state, String propertyName, @Nullable String value) {
+        if ("id".equals(propertyName)) {
+            T found = value == null ? null : state.get(value);
+            return found == null ? emptyList() : singletonList(found);
+        }
+        return state.findIndexed(propertyName, value);
+    }
+
+    protected Collection<T> findIndexedBySimpleName(
+            RepositorySnapshot<T> state, @Nullable String name) {
+        T found = name == null ? null : state.getByName(new NameImpl(name), infoType);
+        return found == null ? emptyList() : singletonList(found);
+    }
+
+    private <V> Predicate<V> toPredicate(Filter filter) {
+        if (filter == null || filter == Filter.INCLUDE) {
+            return CatalogInfoLookup.alwaysTrue();
+        }
+        return PropertyPath.compile(filter)::evaluate;
+    }
+
+    protected <U extends CatalogInfo> List<U> list(
+            Class<U> type, Collection<T> values, Predicate<U> predicate) {
+        List<U> result = new ArrayList<>();
+        for (T v : values) {
+            if (type.isInstance(v)) {
+                U u = type.cast(v);
+                if (predicate.test(u)) {
+                    result.add(u);
+                }
+            }
+        }
+        return result;
+    }
+
+    protected <U extends CatalogInfo> List<U> list(Class<U> type, Predicate<U> predicate) {
+        return list(type, state().values(), predicate);
+    }
+
+    protected <U extends CatalogInfo> List<U> list(
+            Class<U> type, String indexProperty, @Nullable String key) {
+        Collection<T> values = state().findIndexed(indexProperty, key);
+        return list(type, values, CatalogInfoLookup.alwaysTrue());
+    }
+
+    /**
+     * Looks up the first object of the given type indexed by {@code key}, deterministically like
+     * {@link CatalogInfoLookup#findFirst(Class, ForeignKeyIndex, String)} does
+     * rather than in the snapshot's hash order, that is, the first by concrete class, and then by
+     * registered name. Concrete classes are ordered by name, since unlike {@link
+     * CatalogInfoLookup} snapshots don't keep the order they were first added in.
+     */
+    protected <U extends CatalogInfo> U findFirst(
+            Class<U> type, String indexProperty, @Nullable String key) {
+        final RepositorySnapshot<T> state = state();
+        T first = null;
+        Name firstName = null;
+        for (T v : state.findIndexed(indexProperty, key)) {
+            if (!type.isInstance(v)) {
+                continue;
+            }
+            final Name name = state.nameOf(v.getId());
+            if (first == null) {
+                first = v;
+                firstName = name;
+                continue;
+            }
+            int c = v.getClass().getName().compareTo(first.getClass().getName());
+            if (c == 0) {
+                c = compare(name, firstName);
+            }
+            if (c < 0) {
+                first = v;
+                firstName = name;
+            }
+        }
+        return type.cast(first);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(@Nullable Name n1, @Nullable Name n2) {
+        if (n1 == null || n2 == null) {
+            return n1 == null ? (n2 == null ? 0 : 1) : -1;
+        }
+        return ((Comparable<Object>) n1).compareTo(n2);
+    }
+
+    public @Override <U extends T> U findById(String id, Class<U> clazz) {
+        T found = state().get(id);
+        return clazz.isInstance(found) ? clazz.cast(found) : null;
+    }
+
+    public @Override <U extends T> U findByName(Name name, Class<U> clazz) {
+        T found = state().getByName(name, clazz);
+        return found == null ? null : clazz.cast(found);
+    }
+
+    /**
+     * Shares this repository's current snapshot with {@code target} if it's a repository of the
+     * same kind, at no cost and atomically since snapshots are immutable, otherwise applies only
+     * the {@link RepositoryDelta difference} with it
+     */
+    public @Override void syncTo(CatalogInfoRepository<T> target) {
+        if (target != null && target.getClass().equals(getClass())) {
+            final RepositorySnapshot<T> state = state();
+            ((SnapshotCatalogInfoRepository<T>) target).publish(targetState -> state);
+        } else {
+            RepositoryDelta.of(this, target).apply();
+        }
+    }
+
+    /** Sets the specified catalog into all CatalogInfo objects contained in this repository */
+    public @Override void setCatalog(Catalog catalog) {
+        for (T v : state().values()) {
+            Method setter = OwsUtils.setter(v.getClass(), "catalog", Catalog.class);
+            if (setter != null) {
+                try {
+                    setter.invoke(v, catalog);
+                } catch (Exception e) {
+                    LOGGER.log(Level.FINE, "Failed to switch CatalogInfo to new catalog impl", e);
+                }
+            }
+        }
+    }
+
+    static class NamespaceSnapshotRepository extends SnapshotCatalogInfoRepository<NamespaceInfo>
+            implements NamespaceRepository {
+
+        private static final String DEFAULT_KEY = "defaultNamespace";
+
+        public NamespaceSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(
+                    snapshots,
+                    NamespaceInfo.class,
+                    CatalogInfoLookup.NAMESPACE_NAME_MAPPER,
+                    new Index<>("uri", NamespaceInfo::getURI));
+        }
+
+        public @Override void setDefaultNamespace(NamespaceInfo namespace) {
+            final String id = namespace == null ? null : namespace.getId();
+            publish(state -> state.withDefault(DEFAULT_KEY, existing(state, id)));
+        }
+
+        public @Override NamespaceInfo getDefaultNamespace() {
+            return state().getDefault(DEFAULT_KEY);
+        }
+
+        /** @return {@code null} if there's no namespace with that URI or it's {@code null} */
+        public @Override NamespaceInfo findOneByURI(@Nullable String uri) {
+            if (uri == null) {
+                return null;
+            }
+            Iterator<NamespaceInfo> matches = state().findIndexed("uri", uri).iterator();
+            return matches.hasNext() ? matches.next() : null;
+        }
+
+        /** @return an empty list if there's no namespace with that URI or it's {@code null} */
+        public @Override List<NamespaceInfo> findAllByURI(@Nullable String uri) {
+            return uri == null ? new ArrayList<>() : list(NamespaceInfo.class, "uri", uri);
+        }
+
+        protected @Override Collection<NamespaceInfo> findIndexed(
+                RepositorySnapshot<NamespaceInfo> state,
+                String propertyName,
+                @Nullable String value) {
+            if ("prefix".equals(propertyName) || "name".equals(propertyName)) {
+                return findIndexedBySimpleName(state, value);
+            }
+            if ("URI".equalsIgnoreCase(propertyName)) {
+                return state.findIndexed("uri", value);
+            }
+            return super.findIndexed(state, propertyName, value);
+        }
+    }
+
+    static class WorkspaceSnapshotRepository extends SnapshotCatalogInfoRepository<WorkspaceInfo>
+            implements WorkspaceRepository {
+
+        private static final String DEFAULT_KEY = "defaultWorkspace";
+
+        public WorkspaceSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(snapshots, WorkspaceInfo.class, CatalogInfoLookup.WORKSPACE_NAME_MAPPER);
+        }
+
+        public @Override void setDefaultWorkspace(WorkspaceInfo workspace) {
+            final String id = workspace == null ? null : workspace.getId();
+            publish(state -> state.withDefault(DEFAULT_KEY, existing(state, id)));
+        }
+
+        public @Override WorkspaceInfo getDefaultWorkspace() {
+            return state().getDefault(DEFAULT_KEY);
+        }
+
+        protected @Override Collection<WorkspaceInfo> findIndexed(
+                RepositorySnapshot<WorkspaceInfo> state,
+                String propertyName,
+                @Nullable String value) {
+            if ("name".equals(propertyName)) {
+                return findIndexedBySimpleName(state, value);
+            }
+            return super.findIndexed(state, propertyName, value);
+        }
+    }
+
+    static class StoreSnapshotRepository extends SnapshotCatalogInfoRepository<StoreInfo>
+            implements StoreRepository {
+
+        public StoreSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(
+                    snapshots,
+                    StoreInfo.class,
+                    CatalogInfoLookup.STORE_NAME_MAPPER,
+                    new Index<>("workspace.id", s -> CatalogInfoLookup.id(s.getWorkspace())),
+                    new Index<>("name", StoreInfo::getName));
+        }
+
+        /** Default data stores are keyed by workspace id */
+        public @Override void setDefaultDataStore(WorkspaceInfo workspace, DataStoreInfo store) {
+            java.util.Objects.requireNonNull(workspace);
+            final String wsId = workspace.getId();
+            final String id = store == null ? null : store.getId();
+            publish(
+                    state ->
+                            state.withDefault(
+                                    wsId,
+                                    id != null && state.get(id) instanceof DataStoreInfo
+                                            ? id
+                                            : null));
+        }
+
+        public @Override DataStoreInfo getDefaultDataStore(WorkspaceInfo workspace) {
+            return (DataStoreInfo) state().getDefault(workspace.getId());
+        }
+
+        public @Override List<DataStoreInfo> getDefaultDataStores() {
+            final RepositorySnapshot<StoreInfo> state = state();
+            List<DataStoreInfo> defaults = new ArrayList<>();
+            for (String wsId : state.getDefaultKeys()) {
+                StoreInfo store = state.getDefault(wsId);
+                if (store != null) {
+                    defaults.add((DataStoreInfo) store);
+                }
+            }
+            return defaults;
+        }
+
+        public @Override <U extends StoreInfo> U findOneByName(String name, Class<U> clazz) {
+            return findFirst(clazz, "name", name);
+        }
+
+        public @Override <U extends StoreInfo> List<U> findAllByWorkspace(
+                WorkspaceInfo workspace, Class<U> clazz) {
+            return list(clazz, "workspace.id", workspace.getId());
+        }
+
+        public @Override <U extends StoreInfo> List<U> findAllByType(Class<U> clazz) {
+            return list(clazz, CatalogInfoLookup.alwaysTrue());
+        }
+    }
+
+    /**
+     * Resource repository that renames the linked {@code LayerInfo} in the same snapshot the
+     * resource is renamed in, given that {@code LayerInfo.getName() ==
+     * LayerInfo.getResource().getName()}
+     */
+    static class ResourceSnapshotRepository extends SnapshotCatalogInfoRepository<ResourceInfo>
+            implements ResourceRepository {
+
+        private final LayerSnapshotRepository layers;
+
+        public ResourceSnapshotRepository(
+                CatalogSnapshotHolder snapshots, LayerSnapshotRepository layers) {
+            super(
+                    snapshots,
+                    ResourceInfo.class,
+                    CatalogInfoLookup.RESOURCE_NAME_MAPPER,
+                    new Index<>("namespace.id", r -> CatalogInfoLookup.id(r.getNamespace())),
+                    new Index<>("store.id", r -> CatalogInfoLookup.id(r.getStore())),
+                    new Index<>("name", ResourceInfo::getName));
+            this.layers = layers;
+        }
+
+        public @Override void update(ResourceInfo value) {
+            checkNotAProxy(value);
+            final Name newName = nameMapper.apply(value);
+            snapshots.update(
+                    snapshot -> {
+                        RepositorySnapshot<ResourceInfo> state = state(snapshot);
+                        checkExists(state, value);
+                        final Name oldName = state.nameOf(value.getId());
+                        CatalogSnapshot updated =
+                                snapshot.with(infoType, state.put(value, newName));
+                        if (oldName != null && !oldName.equals(newName)) {
+                            updated = layers.renamed(updated, oldName, newName);
+                        }
+                        return rebindReferrers(updated, value);
+                    });
+        }
+
+        public @Override <U extends ResourceInfo> U findOneByName(String name, Class<U> clazz) {
+            return findFirst(clazz, "name", name);
+        }
+
+        public @Override <U extends ResourceInfo> List<U> findAllByType(Class<U> clazz) {
+            return list(clazz, CatalogInfoLookup.alwaysTrue());
+        }
+
+        public @Override <U extends ResourceInfo> List<U> findAllByNamespace(
+                NamespaceInfo ns, Class<U> clazz) {
+            return list(clazz, "namespace.id", CatalogInfoLookup.id(ns));
+        }
+
+        public @Override <U extends ResourceInfo> U findByStoreAndName(
+                StoreInfo store, String name, Class<U> clazz) {
+            for (ResourceInfo r : state().findIndexed("store.id", store.getId())) {
+                if (clazz.isInstance(r) && name.equals(r.getName())) {
+                    return clazz.cast(r);
+                }
+            }
+            return null;
+        }
+
+        public @Override <U extends ResourceInfo> List<U> findAllByStore(
+                StoreInfo store, Class<U> clazz) {
+            return list(clazz, "store.id", CatalogInfoLookup.id(store));
+        }
+    }
+
+    static class LayerSnapshotRepository extends SnapshotCatalogInfoRepository<LayerInfo>
+            implements LayerRepository {
+
+        /** Name of the reverse index of layers by the ids of their default and alternate styles */
+        static final String BY_STYLE = "defaultStyleOrStyles.id";
+
+        public LayerSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(
+                    snapshots,
+                    LayerInfo.class,
+                    CatalogInfoLookup.LAYER_NAME_MAPPER,
+                    new Index<>("resource.id", l -> CatalogInfoLookup.id(l.getResource())),
+                    new Index<>("name", LayerInfo::getName),
+                    Index.multiValued(BY_STYLE, LayerSnapshotRepository::styleIds));
+        }
+
+        private static List<String> styleIds(LayerInfo layer) {
+            Set<StyleInfo> styles = layer.getStyles();
+            List<String> ids = new ArrayList<>(1 + (styles == null ? 0 : styles.size()));
+            ids.add(CatalogInfoLookup.id(layer.getDefaultStyle()));
+            if (styles != null) {
+                for (StyleInfo style : styles) {
+                    ids.add(CatalogInfoLookup.id(style));
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * @return a copy of {@code snapshot} where the layer named {@code oldName} is renamed to
+         *     {@code newName}, or {@code snapshot} itself if there's no such layer
+         */
+        CatalogSnapshot renamed(CatalogSnapshot snapshot, Name oldName, Name newName) {
+            RepositorySnapshot<LayerInfo> state = state(snapshot);
+            LayerInfo layer = state.getByName(oldName, LayerInfo.class);
+            if (layer == null) {
+                return snapshot;
+            }
+            return snapshot.with(infoType, state.rename(layer.getId(), newName));
+        }
+
+        public @Override LayerInfo findOneByName(String name) {
+            return findFirst(LayerInfo.class, "name", name);
+        }
+
+        public @Override List<LayerInfo> findAllByDefaultStyleOrStyles(StyleInfo style) {
+            return list(LayerInfo.class, BY_STYLE, style.getId());
+        }
+
+        public @Override int countByDefaultStyleOrStyles(StyleInfo style) {
+            return state().findIndexed(BY_STYLE, style.getId()).size();
+        }
+
+        public @Override List<LayerInfo> findAllByResource(ResourceInfo resource) {
+            // a direct lookup is possible since the layer name is the resource name
+            Name name = CatalogInfoLookup.RESOURCE_NAME_MAPPER.apply(resource);
+            LayerInfo layer = findByName(name, LayerInfo.class);
+            return layer == null ? emptyList() : singletonList(layer);
+        }
+    }
+
+    static class LayerGroupSnapshotRepository
+            extends SnapshotCatalogInfoRepository<LayerGroupInfo> implements LayerGroupRepository {
+
+        public LayerGroupSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(
+                    snapshots,
+                    LayerGroupInfo.class,
+                    CatalogInfoLookup.LAYERGROUP_NAME_MAPPER,
+                    new Index<>("workspace.id", lg -> CatalogInfoLookup.id(lg.getWorkspace())),
+                    new Index<>("name", LayerGroupInfo::getName));
+        }
+
+        public @Override LayerGroupInfo findOneByName(String name) {
+            return findFirst(LayerGroupInfo.class, "name", name);
+        }
+
+        public @Override List<LayerGroupInfo> findAllByWorkspaceIsNull() {
+            return list(LayerGroupInfo.class, "workspace.id", null);
+        }
+
+        public @Override List<LayerGroupInfo> findAllByWorkspace(WorkspaceInfo workspace) {
+            return list(LayerGroupInfo.class, "workspace.id", workspace.getId());
+        }
+    }
+
+    static class MapSnapshotRepository extends SnapshotCatalogInfoRepository<MapInfo>
+            implements MapRepository {
+
+        public MapSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(snapshots, MapInfo.class, CatalogInfoLookup.MAP_NAME_MAPPER);
+        }
+
+        protected @Override Collection<MapInfo> findIndexed(
+                RepositorySnapshot<MapInfo> state, String propertyName, @Nullable String value) {
+            if ("name".equals(propertyName)) {
+                return findIndexedBySimpleName(state, value);
+            }
+            return super.findIndexed(state, propertyName, value);
+        }
+    }
+
+    static class StyleSnapshotRepository extends SnapshotCatalogInfoRepository<StyleInfo>
+            implements StyleRepository {
+
+        public StyleSnapshotRepository(CatalogSnapshotHolder snapshots) {
+            super(
+                    snapshots,
+                    StyleInfo.class,
+                    CatalogInfoLookup.STYLE_NAME_MAPPER,
+                    new Index<>("workspace.id", s -> CatalogInfoLookup.id(s.getWorkspace())),
+                    new Index<>("name", StyleInfo::getName));
+        }
+
+        public @Override StyleInfo findOneByName(String name) {
+            return findFirst(StyleInfo.class, "name", name);
+        }
+
+        public @Override List<StyleInfo> findAllByNullWorkspace() {
+            return list(StyleInfo.class, "workspace.id", null);
+        }
+
+        public @Override List<StyleInfo> findAllByWorkspace(WorkspaceInfo ws) {
+            return list(StyleInfo.class, "workspace.id", ws.getId());
+        }
+    }
+}
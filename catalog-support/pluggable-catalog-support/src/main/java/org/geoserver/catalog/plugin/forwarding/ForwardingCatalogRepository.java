@@ -4,7 +4,9 @@
  */
 package org.geoserver.catalog.plugin.forwarding;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogInfo;
 import org.geoserver.catalog.plugin.CatalogInfoRepository;
@@ -32,6 +34,18 @@ public abstract class ForwardingCatalogRepository<I extends CatalogInfo>
         subject.remove(value);
     }
 
+    public @Override void addAll(Collection<? extends I> values) {
+        subject.addAll(values);
+    }
+
+    public @Override void removeAll(Collection<? extends I> values) {
+        subject.removeAll(values);
+    }
+
+    public @Override void replaceAll(Collection<? extends I> values) {
+        subject.replaceAll(values);
+    }
+
     public @Override void update(I value) {
         subject.update(value);
     }
@@ -52,6 +66,14 @@ public abstract class ForwardingCatalogRepository<I extends CatalogInfo>
         return subject.findAll(filter, infoType);
     }
 
+    public @Override <U extends I> Stream<U> stream(Filter filter, Class<U> infoType) {
+        return subject.stream(filter, infoType);
+    }
+
+    public @Override <U extends I> long count(Class<U> infoType, Filter filter) {
+        return subject.count(infoType, filter);
+    }
+
     public @Override <U extends I> U findById(String id, Class<U> clazz) {
         return subject.findById(id, clazz);
     }
@@ -25,6 +25,10 @@ public class ForwardingLayerRepository extends ForwardingCatalogRepository<Layer
         return ((LayerRepository) subject).findAllByDefaultStyleOrStyles(style);
     }
 
+    public @Override int countByDefaultStyleOrStyles(StyleInfo style) {
+        return ((LayerRepository) subject).countByDefaultStyleOrStyles(style);
+    }
+
     public @Override List<LayerInfo> findAllByResource(ResourceInfo resource) {
         return ((LayerRepository) subject).findAllByResource(resource);
     }
@@ -0,0 +1,174 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.impl.ResolvingProxy;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.catalog.util.CloseableIterator;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+
+public class AbstractCatalogFacadeTest {
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    @Test
+    public void testSortedTopK() {
+        List<Integer> values = new ArrayList<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            values.add(random.nextInt(100));
+        }
+        List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+
+        for (int k : new int[] {0, 1, 10, 999, 1000, 2000}) {
+            List<Integer> expected = sorted.subList(0, Math.min(k, sorted.size()));
+            List<Integer> actual =
+                    AbstractCatalogFacade.sortedTopK(
+                            values.stream(), Comparator.naturalOrder(), k);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSortedTopKWithHugeK() {
+        // shall not allocate room for k elements up front
+        List<Integer> values = Arrays.asList(3, 1, 2);
+        assertEquals(
+                Arrays.asList(1, 2, 3),
+                AbstractCatalogFacade.sortedTopK(
+                        values.stream(), Comparator.naturalOrder(), Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testListSortedWithHugeCount() throws Exception {
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        CatalogImpl catalog = new CatalogImpl(facade);
+        CatalogTestData.empty(() -> catalog).createObjects().addObjects();
+        List<String> expected = new ArrayList<>();
+        facade.workspaces.findAll().forEach(ws -> expected.add(ws.getName()));
+        Collections.sort(expected);
+
+        SortBy byName = Predicates.sortBy("name", true);
+        List<String> names = new ArrayList<>();
+        try (CloseableIterator<WorkspaceInfo> it =
+                facade.list(
+                        WorkspaceInfo.class,
+                        Filter.INCLUDE,
+                        0,
+                        Integer.MAX_VALUE - 1,
+                        byName)) {
+            it.forEachRemaining(ws -> names.add(ws.getName()));
+        }
+        assertEquals(expected, names);
+    }
+
+    @Test
+    public void testParallelResolve() {
+        DefaultCatalogFacade facade = new DefaultCatalogFacade();
+        new CatalogImpl(facade);
+        assertTrue(facade.isParallelResolve());
+
+        WorkspaceInfoImpl workspace = new WorkspaceInfoImpl();
+        workspace.setId("ws-id");
+        workspace.setName("ws");
+        facade.workspaces.add(workspace);
+        // more than a single fork-join task's batch
+        final int count = 5000;
+        for (int i = 0; i < count; i++) {
+            DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+            store.setId("ds" + i);
+            store.setName("ds" + i);
+            store.setWorkspace(ResolvingProxy.create(workspace.getId(), WorkspaceInfo.class));
+            facade.stores.add(store);
+        }
+
+        facade.resolve();
+
+        List<StoreInfo> stores = facade.stores.findAll();
+        assertEquals(count, stores.size());
+        for (StoreInfo store : stores) {
+            assertSame(workspace, store.getWorkspace());
+        }
+    }
+
+    @Test
+    public void testSortedTopKIsStable() {
+        // sort by the first char only, elements comparing equal shall keep their encounter order
+        List<String> values = Arrays.asList("b1", "a1", "c1", "a2", "b2", "a3", "c2", "b3");
+        Comparator<String> firstChar = Comparator.comparing(s -> s.charAt(0));
+        assertEquals(
+                Arrays.asList("a1", "a2", "a3", "b1", "b2"),
+                AbstractCatalogFacade.sortedTopK(values.stream(), firstChar, 5));
+        assertEquals(
+                Arrays.asList("c1", "c2", "b1"),
+                AbstractCatalogFacade.sortedTopK(values.stream(), firstChar.reversed(), 3));
+    }
+
+    @Test
+    public void testSyncToAppliesOnlyTheDifference() throws Exception {
+        DefaultCatalogFacade source = new DefaultCatalogFacade();
+        CatalogImpl sourceCatalog = new CatalogImpl(source);
+        CatalogTestData data =
+                CatalogTestData.empty(() -> sourceCatalog).createObjects().addObjects();
+
+        DefaultCatalogFacade target = new DefaultCatalogFacade();
+        new CatalogImpl(target);
+        source.syncTo(target);
+        assertEquals(source.workspaces.findAll().size(), target.workspaces.findAll().size());
+        assertEquals(source.layers.findAll().size(), target.layers.findAll().size());
+        assertEquals(data.workspaceA.getId(), target.getDefaultWorkspace().getId());
+
+        DataStoreInfo changed =
+                data.createDataStore(
+                        data.dataStoreA.getId(),
+                        data.workspaceA,
+                        data.dataStoreA.getName(),
+                        "changed",
+                        true);
+        WorkspaceInfo added = data.createWorkspace("added");
+        source.stores.replaceAll(Collections.singletonList(changed));
+        source.workspaces.add(added);
+        source.layerGroups.remove(data.layerGroup1);
+        source.setDefaultWorkspace(data.workspaceB);
+
+        final WorkspaceInfo unchanged =
+                target.workspaces.findById(data.workspaceC.getId(), WorkspaceInfo.class);
+        source.syncTo(target);
+
+        assertSame(
+                unchanged,
+                target.workspaces.findById(data.workspaceC.getId(), WorkspaceInfo.class));
+        assertSame(added, target.workspaces.findById(added.getId(), WorkspaceInfo.class));
+        assertSame(changed, target.stores.findById(changed.getId(), StoreInfo.class));
+        assertNull(target.layerGroups.findById(data.layerGroup1.getId(), LayerGroupInfo.class));
+        assertEquals(data.workspaceB.getId(), target.getDefaultWorkspace().getId());
+        assertEquals(source.workspaces.findAll().size(), target.workspaces.findAll().size());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.Keyword;
+import org.geoserver.catalog.impl.FeatureTypeInfoImpl;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.junit.Test;
+
+public class CatalogInfoCopierTest {
+
+    @Test
+    public void testCopyHasItsOwnCollections() {
+        FeatureTypeInfoImpl original = new FeatureTypeInfoImpl(null);
+        original.setId("ft1");
+        original.setName("ft");
+        original.getKeywords().add(new Keyword("k1"));
+        original.getMetadata().put("key", "value");
+
+        FeatureTypeInfoImpl copy = CatalogInfoCopier.copy(original);
+        assertNotSame(original, copy);
+        assertEquals("ft1", copy.getId());
+        assertEquals(original.getKeywords(), copy.getKeywords());
+        assertNotSame(original.getKeywords(), copy.getKeywords());
+        assertNotSame(original.getMetadata(), copy.getMetadata());
+
+        copy.getKeywords().add(new Keyword("k2"));
+        copy.getMetadata().put("key", "changed");
+        assertEquals(1, original.getKeywords().size());
+        assertEquals("value", original.getMetadata().get("key"));
+    }
+
+    @Test
+    public void testCopyReplacesImmutableCollections() {
+        Holder original = new Holder();
+        original.list = Collections.unmodifiableList(new ArrayList<>(Arrays.asList("a", "b")));
+        original.set = new TreeSet<>(Comparator.reverseOrder());
+        original.set.addAll(Arrays.asList("a", "b"));
+
+        Holder copy = CatalogInfoCopier.copy(original);
+        assertEquals(original.list, copy.list);
+        copy.list.add("c");
+        assertEquals(2, original.list.size());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(copy.set));
+    }
+
+    @Test
+    public void testCopyFailsInsteadOfSharingCollections() {
+        UncopyableHolder original = new UncopyableHolder();
+        original.list = new FixedList("a", "b");
+        try {
+            CatalogInfoCopier.copy(original);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("list"));
+        }
+    }
+
+    @Test
+    public void testCommitLeavesProxiedObjectUnchanged() {
+        FeatureTypeInfoImpl original = new FeatureTypeInfoImpl(null);
+        original.setId("ft1");
+        original.setName("ft");
+        original.getKeywords().add(new Keyword("k1"));
+
+        FeatureTypeInfo proxy = ModificationProxy.create(original, FeatureTypeInfo.class);
+        proxy.setName("renamed");
+        proxy.getKeywords().add(new Keyword("k2"));
+
+        FeatureTypeInfoImpl copy = CatalogInfoCopier.copy(original);
+        CatalogInfoCopier.commit((ModificationProxy) Proxy.getInvocationHandler(proxy), copy);
+
+        assertEquals("renamed", copy.getName());
+        assertEquals(2, copy.getKeywords().size());
+
+        assertEquals("ft", original.getName());
+        assertEquals(1, original.getKeywords().size());
+        assertSame(original, ModificationProxy.unwrap(proxy));
+    }
+
+    private static class Holder {
+        List<String> list;
+        Set<String> set;
+    }
+
+    private static class UncopyableHolder {
+        FixedList list;
+    }
+
+    /** A list that can't be instantiated, and an ArrayList can't replace */
+    private static class FixedList extends AbstractList<String> {
+        private final String[] values;
+
+        FixedList(String... values) {
+            this.values = values;
+        }
+
+        public @Override String get(int index) {
+            return values[index];
+        }
+
+        public @Override int size() {
+            return values.length;
+        }
+    }
+}
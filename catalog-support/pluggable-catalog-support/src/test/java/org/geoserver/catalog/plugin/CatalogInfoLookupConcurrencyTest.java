@@ -0,0 +1,163 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.DataStoreInfoImpl;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.StoreInfoLookup;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.Filter;
+
+/**
+ * Stress test for the {@link CatalogInfoLookup} write path, checking the id, name, and id to name
+ * maps, and the secondary indexes, are left consistent after concurrent adds, renames, and
+ * removals, including objects contending for the same names.
+ */
+public class CatalogInfoLookupConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int OBJECTS_PER_THREAD = 2000;
+
+    /** Number of distinct names the objects are added with, for threads to contend on them */
+    private static final int SHARED_NAMES = 50;
+
+    private CatalogTestData data;
+
+    private ExecutorService executor;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        CatalogImpl catalog = new CatalogImpl();
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    public @After void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConcurrentAddRenameRemove() throws Exception {
+        testConcurrentAddRenameRemove(new StoreInfoLookup());
+    }
+
+    @Test
+    public void testConcurrentAddRenameRemoveCompact() throws Exception {
+        testConcurrentAddRenameRemove(new StoreInfoLookup(true));
+    }
+
+    private void testConcurrentAddRenameRemove(StoreInfoLookup stores) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            Callable<Void> writer =
+                    () -> {
+                        start.await();
+                        write(stores, thread);
+                        return null;
+                    };
+            futures.add(executor.submit(writer));
+        }
+        start.countDown();
+        for (Future<Void> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+
+        // odd objects survive, renamed to a unique name
+        final int expected = THREADS * OBJECTS_PER_THREAD / 2;
+        assertConsistent(stores, expected);
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < OBJECTS_PER_THREAD; i++) {
+                String id = id(t, i);
+                StoreInfo store = stores.findById(id, StoreInfo.class);
+                if (i % 2 == 0) {
+                    assertNull(store);
+                } else {
+                    assertEquals(renamed(t, i), store.getName());
+                    assertSame(store, stores.findOneByName(renamed(t, i), StoreInfo.class));
+                }
+            }
+        }
+        for (int n = 0; n < SHARED_NAMES; n++) {
+            assertNull(stores.findOneByName("name-" + n, StoreInfo.class));
+        }
+    }
+
+    private void write(StoreInfoLookup stores, int thread) {
+        for (int i = 0; i < OBJECTS_PER_THREAD; i++) {
+            WorkspaceInfo ws = i % 2 == 0 ? data.workspaceA : data.workspaceB;
+            DataStoreInfoImpl store = new DataStoreInfoImpl(null);
+            store.setId(id(thread, i));
+            store.setName("name-" + (i % SHARED_NAMES));
+            store.setWorkspace(ws);
+            stores.add(store);
+
+            store.setName(renamed(thread, i));
+            stores.update(store);
+            if (i % 2 == 0) {
+                stores.remove(store);
+            }
+        }
+    }
+
+    private void assertConsistent(StoreInfoLookup stores, int expected) {
+        Map<String, StoreInfo> idMap =
+                stores.getMapForType(stores.idMultiMap, DataStoreInfoImpl.class);
+        Map<Name, StoreInfo> nameMap =
+                stores.getMapForType(stores.nameMultiMap, DataStoreInfoImpl.class);
+        assertEquals(expected, idMap.size());
+        assertEquals(expected, nameMap.size());
+        assertEquals(expected, stores.count(DataStoreInfo.class, Filter.INCLUDE));
+        for (StoreInfo store : idMap.values()) {
+            Name name = CatalogInfoLookup.STORE_NAME_MAPPER.apply(store);
+            assertSame(store, nameMap.get(name));
+            assertEquals(name, stores.currentName(store));
+        }
+        if (!stores.compact) {
+            Map<String, Name> idToName =
+                    stores.getMapForType(stores.idToMameMultiMap, DataStoreInfoImpl.class);
+            assertEquals(expected, idToName.size());
+        }
+        int byWorkspace =
+                stores.findAllByWorkspace(data.workspaceA, DataStoreInfo.class).size()
+                        + stores.findAllByWorkspace(data.workspaceB, DataStoreInfo.class).size();
+        assertEquals(expected, byWorkspace);
+    }
+
+    private static String id(int thread, int i) {
+        return "ds-" + thread + "-" + i;
+    }
+
+    private static String renamed(int thread, int i) {
+        return "renamed-" + thread + "-" + i;
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.geoserver.catalog.Predicates.equal;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.CoverageStoreInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.NamespaceInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.LayerGroupInfoLookup;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.LayerInfoLookup;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.NamespaceInfoLookup;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.ResourceInfoLookup;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.StoreInfoLookup;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.StyleInfoLookup;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+/** Unit tests for {@link CatalogInfoLookup} behavior not covered by the conformance tests */
+public class CatalogInfoLookupTest {
+
+    private static final FilterFactory FF = CommonFactoryFinder.getFilterFactory();
+
+    private CatalogTestData data;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        CatalogImpl catalog = new CatalogImpl();
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+    }
+
+    @Test
+    public void testStoresByWorkspaceIndex() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        stores.add(data.dataStoreA);
+        stores.add(data.coverageStoreA);
+        stores.add(data.dataStoreB);
+
+        assertIds(stores.findAllByWorkspace(data.workspaceA, StoreInfo.class), "ds1", "cs1");
+        assertIds(stores.findAllByWorkspace(data.workspaceA, DataStoreInfo.class), "ds1");
+        assertIds(stores.findAllByWorkspace(data.workspaceA, CoverageStoreInfo.class), "cs1");
+        assertIds(stores.findAllByWorkspace(data.workspaceB, StoreInfo.class), "ds2");
+        assertIds(stores.findAllByWorkspace(data.workspaceC, StoreInfo.class));
+
+        // move to another workspace
+        data.dataStoreA.setWorkspace(data.workspaceB);
+        stores.update(data.dataStoreA);
+        assertIds(stores.findAllByWorkspace(data.workspaceA, StoreInfo.class), "cs1");
+        assertIds(stores.findAllByWorkspace(data.workspaceB, StoreInfo.class), "ds1", "ds2");
+
+        stores.remove(data.dataStoreA);
+        assertIds(stores.findAllByWorkspace(data.workspaceB, StoreInfo.class), "ds2");
+    }
+
+    @Test
+    public void testResourcesByNamespaceAndStoreIndexes() {
+        ResourceInfoLookup resources = new ResourceInfoLookup(new LayerInfoLookup());
+        resources.add(data.featureTypeA);
+        resources.add(data.wmsLayerA);
+
+        assertIds(
+                resources.findAllByNamespace(data.namespaceA, ResourceInfo.class),
+                "ft1",
+                "wmsl-1");
+        assertIds(resources.findAllByNamespace(data.namespaceA, FeatureTypeInfo.class), "ft1");
+        assertIds(resources.findAllByStore(data.dataStoreA, ResourceInfo.class), "ft1");
+        assertSame(
+                data.featureTypeA,
+                resources.findByStoreAndName(data.dataStoreA, "ftName", ResourceInfo.class));
+
+        // rename and move to another store and namespace
+        data.featureTypeA.setName("renamed");
+        data.featureTypeA.setNamespace(data.namespaceB);
+        data.featureTypeA.setStore(data.dataStoreB);
+        resources.update(data.featureTypeA);
+
+        assertIds(resources.findAllByNamespace(data.namespaceA, ResourceInfo.class), "wmsl-1");
+        assertIds(resources.findAllByNamespace(data.namespaceB, ResourceInfo.class), "ft1");
+        assertIds(resources.findAllByStore(data.dataStoreA, ResourceInfo.class));
+        assertIds(resources.findAllByStore(data.dataStoreB, ResourceInfo.class), "ft1");
+        assertNull(resources.findByStoreAndName(data.dataStoreB, "ftName", ResourceInfo.class));
+        assertSame(
+                data.featureTypeA,
+                resources.findByStoreAndName(data.dataStoreB, "renamed", ResourceInfo.class));
+
+        resources.remove(data.featureTypeA);
+        assertIds(resources.findAllByNamespace(data.namespaceB, ResourceInfo.class));
+        assertIds(resources.findAllByStore(data.dataStoreB, ResourceInfo.class));
+    }
+
+    @Test
+    public void testStylesAndLayerGroupsByWorkspaceIndex() {
+        StyleInfoLookup styles = new StyleInfoLookup();
+        StyleInfo wsStyle = data.createStyle("wsstyle-id", data.workspaceA, "wsstyle", "s.sld");
+        styles.add(data.style1);
+        styles.add(data.style2);
+        styles.add(wsStyle);
+
+        assertIds(styles.findAllByNullWorkspace(), "style1", "style2");
+        assertIds(styles.findAllByWorkspace(data.workspaceA), "wsstyle-id");
+
+        data.style1.setWorkspace(data.workspaceA);
+        styles.update(data.style1);
+        assertIds(styles.findAllByNullWorkspace(), "style2");
+        assertIds(styles.findAllByWorkspace(data.workspaceA), "wsstyle-id", "style1");
+
+        LayerGroupInfoLookup groups = new LayerGroupInfoLookup();
+        LayerGroupInfo wsGroup =
+                data.createLayerGroup(
+                        "lg2", data.workspaceA, "lg2", data.layerFeatureTypeA, data.style1);
+        groups.add(data.layerGroup1);
+        groups.add(wsGroup);
+        assertIds(groups.findAllByWorkspaceIsNull(), "lg1");
+        assertIds(groups.findAllByWorkspace(data.workspaceA), "lg2");
+
+        wsGroup.setWorkspace(null);
+        groups.update(wsGroup);
+        assertIds(groups.findAllByWorkspaceIsNull(), "lg1", "lg2");
+        assertIds(groups.findAllByWorkspace(data.workspaceA));
+    }
+
+    @Test
+    public void testTypeMapsCacheInvalidatedOnNewConcreteType() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        stores.add(data.dataStoreA);
+        assertSame(data.dataStoreA, stores.findById("ds1", StoreInfo.class));
+        assertNull(stores.findById("cs1", StoreInfo.class));
+        assertEquals(1, stores.getTypeMaps(StoreInfo.class).idMaps.size());
+        assertEquals(0, stores.getTypeMaps(CoverageStoreInfo.class).idMaps.size());
+
+        // first CoverageStoreInfoImpl added after StoreInfo and CoverageStoreInfo were resolved
+        stores.add(data.coverageStoreA);
+        assertEquals(2, stores.getTypeMaps(StoreInfo.class).idMaps.size());
+        assertSame(data.coverageStoreA, stores.findById("cs1", StoreInfo.class));
+        assertSame(data.coverageStoreA, stores.findById("cs1", CoverageStoreInfo.class));
+        assertNull(stores.findById("cs1", DataStoreInfo.class));
+        assertSame(
+                data.coverageStoreA,
+                stores.findByName(
+                        CatalogInfoLookup.STORE_NAME_MAPPER.apply(data.coverageStoreA),
+                        StoreInfo.class));
+        assertIds(stores.findAllByType(StoreInfo.class), "ds1", "cs1");
+
+        StoreInfoLookup target = new StoreInfoLookup();
+        target.add(data.wmsStoreA);
+        assertSame(data.wmsStoreA, target.findById("wms1", StoreInfo.class));
+        stores.syncTo(target);
+        assertNull(target.findById("wms1", StoreInfo.class));
+        assertIds(target.findAllByType(StoreInfo.class), "ds1", "cs1");
+
+        stores.clear();
+        assertNull(stores.findById("ds1", StoreInfo.class));
+        assertEquals(0, stores.getTypeMaps(StoreInfo.class).idMaps.size());
+    }
+
+    @Test
+    public void testQueryPlanner() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        stores.add(data.dataStoreA);
+        stores.add(data.coverageStoreA);
+        stores.add(data.wmsStoreA);
+        stores.add(data.dataStoreB);
+        data.wmsStoreA.setEnabled(false);
+        stores.update(data.wmsStoreA);
+
+        Filter filter = equal("id", "ds1");
+        assertTrue(stores.explain(filter).startsWith("index(id = 'ds1') -> 1 candidates"));
+        assertIds(stores.findAll(filter), "ds1");
+
+        filter = Predicates.and(equal("workspace.id", "ws1"), equal("enabled", true));
+        assertTrue(stores.explain(filter).startsWith("and(index(workspace.id = 'ws1'))"));
+        assertIds(stores.findAll(filter), "ds1", "cs1");
+        assertIds(stores.findAll(filter, DataStoreInfo.class), "ds1");
+
+        filter = Predicates.or(equal("workspace.id", "ws2"), equal("id", "wms1"));
+        assertTrue(stores.explain(filter).startsWith("union("));
+        assertIds(stores.findAll(filter), "ds2", "wms1");
+
+        filter = FF.id(FF.featureId("cs1"), FF.featureId("ds2"));
+        assertIds(stores.findAll(filter), "cs1", "ds2");
+
+        filter = equal("name", "dsName");
+        assertTrue(stores.explain(filter).startsWith("index(name = 'dsName') -> 1 candidates"));
+        assertIds(stores.findAll(filter), "ds1");
+
+        filter = equal("enabled", false);
+        assertTrue(stores.explain(filter).startsWith("scan -> full scan"));
+        assertIds(stores.findAll(filter), "wms1");
+
+        StyleInfoLookup styles = new StyleInfoLookup();
+        styles.add(data.style1);
+        styles.add(data.createStyle("wsstyle-id", data.workspaceA, "wsstyle", "s.sld"));
+        filter = Predicates.isNull("workspace");
+        assertTrue(styles.explain(filter).startsWith("index(workspace IS NULL)"));
+        assertIds(styles.findAll(filter), "style1");
+    }
+
+    @Test
+    public void testCompactModeRename() {
+        LayerInfoLookup layers = new LayerInfoLookup(true);
+        ResourceInfoLookup resources = new ResourceInfoLookup(layers, true);
+        resources.add(data.featureTypeA);
+        layers.add(data.layerFeatureTypeA);
+        assertTrue(resources.idToMameMultiMap.isEmpty());
+        assertTrue(layers.idToMameMultiMap.isEmpty());
+
+        Name oldName = CatalogInfoLookup.RESOURCE_NAME_MAPPER.apply(data.featureTypeA);
+        assertEquals(oldName, resources.currentName(data.featureTypeA));
+
+        // renamed in place, as ModificationProxy.commit() does
+        data.featureTypeA.setName("renamed");
+        Name newName = CatalogInfoLookup.RESOURCE_NAME_MAPPER.apply(data.featureTypeA);
+        assertEquals(oldName, resources.currentName(data.featureTypeA));
+        resources.update(data.featureTypeA);
+        assertEquals(newName, resources.currentName(data.featureTypeA));
+
+        assertNull(resources.findByName(oldName, ResourceInfo.class));
+        assertSame(data.featureTypeA, resources.findByName(newName, ResourceInfo.class));
+        assertNull(layers.findByName(oldName, LayerInfo.class));
+        assertSame(data.layerFeatureTypeA, layers.findByName(newName, LayerInfo.class));
+
+        resources.remove(data.featureTypeA);
+        layers.remove(data.layerFeatureTypeA);
+        assertNull(resources.findByName(newName, ResourceInfo.class));
+        assertNull(layers.findByName(newName, LayerInfo.class));
+        assertEquals(0, resources.count(ResourceInfo.class, Filter.INCLUDE));
+    }
+
+    @Test
+    public void testCount() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        assertEquals(0, stores.count(StoreInfo.class, Filter.INCLUDE));
+        stores.add(data.dataStoreA);
+        stores.add(data.coverageStoreA);
+        stores.add(data.wmsStoreA);
+        stores.add(data.dataStoreB);
+        data.wmsStoreA.setEnabled(false);
+        stores.update(data.wmsStoreA);
+
+        assertEquals(4, stores.count(StoreInfo.class, Filter.INCLUDE));
+        assertEquals(2, stores.count(DataStoreInfo.class, Filter.INCLUDE));
+        assertEquals(1, stores.count(CoverageStoreInfo.class, Filter.INCLUDE));
+        assertEquals(0, stores.count(StoreInfo.class, Filter.EXCLUDE));
+
+        // indexed
+        Filter filter = equal("workspace.id", "ws1");
+        assertEquals(3, stores.count(StoreInfo.class, filter));
+        assertEquals(1, stores.count(DataStoreInfo.class, filter));
+        filter = Predicates.and(equal("workspace.id", "ws1"), equal("enabled", true));
+        assertEquals(2, stores.count(StoreInfo.class, filter));
+
+        // scan
+        assertEquals(3, stores.count(StoreInfo.class, equal("enabled", true)));
+
+        stores.remove(data.dataStoreA);
+        assertEquals(3, stores.count(StoreInfo.class, Filter.INCLUDE));
+        assertEquals(1, stores.count(DataStoreInfo.class, Filter.INCLUDE));
+
+        // removing or replacing what's already gone or there doesn't change the counts
+        stores.remove(data.dataStoreA);
+        stores.add(data.dataStoreB);
+        stores.replaceAll(Arrays.asList(data.coverageStoreA, data.wmsStoreA));
+        assertEquals(3, stores.count(StoreInfo.class, Filter.INCLUDE));
+        stores.removeAll(Arrays.asList(data.coverageStoreA, data.wmsStoreA));
+        assertEquals(1, stores.count(StoreInfo.class, Filter.INCLUDE));
+        stores.dispose();
+        assertEquals(0, stores.count(StoreInfo.class, Filter.INCLUDE));
+    }
+
+    @Test
+    public void testLayersByStyleIndex() {
+        LayerInfoLookup layers = new LayerInfoLookup();
+        StyleInfo style3 = data.createStyle("style3");
+        LayerInfo layer2 =
+                data.createLayer(
+                        "layer2", data.wmsLayerA, "Layer2", true, data.style2, data.style1);
+        layers.add(data.layerFeatureTypeA);
+        layers.add(layer2);
+
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style1), "layer1", "layer2");
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style2), "layer2");
+        assertIds(layers.findAllByDefaultStyleOrStyles(style3));
+        assertEquals(2, layers.countByDefaultStyleOrStyles(data.style1));
+        assertEquals(0, layers.countByDefaultStyleOrStyles(style3));
+
+        // used both as default and alternate style
+        data.layerFeatureTypeA.getStyles().add(data.style1);
+        data.layerFeatureTypeA.getStyles().add(style3);
+        layers.update(data.layerFeatureTypeA);
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style1), "layer1", "layer2");
+        assertIds(layers.findAllByDefaultStyleOrStyles(style3), "layer1");
+
+        layer2.setDefaultStyle(style3);
+        layer2.getStyles().clear();
+        layers.update(layer2);
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style1), "layer1");
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style2));
+        assertIds(layers.findAllByDefaultStyleOrStyles(style3), "layer1", "layer2");
+
+        layers.remove(data.layerFeatureTypeA);
+        assertIds(layers.findAllByDefaultStyleOrStyles(data.style1));
+        assertEquals(1, layers.countByDefaultStyleOrStyles(style3));
+    }
+
+    @Test
+    public void testFindOneByNameIndex() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        DataStoreInfo sameNameB =
+                data.createDataStore("ds4", data.workspaceB, "dsName", null, true);
+        stores.add(sameNameB);
+        stores.add(data.dataStoreA);
+        stores.add(data.coverageStoreA);
+        // same match as a linear scan, the first by concrete type and then by name
+        assertSame(
+                stores.findFirst(StoreInfo.class, s -> "dsName".equals(s.getName())),
+                stores.findOneByName("dsName", StoreInfo.class));
+        assertSame(data.coverageStoreA, stores.findOneByName("csName", StoreInfo.class));
+        assertNull(stores.findOneByName("csName", DataStoreInfo.class));
+
+        data.dataStoreA.setName("renamed");
+        stores.update(data.dataStoreA);
+        assertSame(sameNameB, stores.findOneByName("dsName", StoreInfo.class));
+        assertSame(data.dataStoreA, stores.findOneByName("renamed", DataStoreInfo.class));
+
+        // layer names follow their resource's
+        LayerInfoLookup layers = new LayerInfoLookup();
+        ResourceInfoLookup resources = new ResourceInfoLookup(layers);
+        resources.add(data.featureTypeA);
+        layers.add(data.layerFeatureTypeA);
+        assertSame(data.layerFeatureTypeA, layers.findOneByName("ftName"));
+        data.featureTypeA.setName("renamedFt");
+        resources.update(data.featureTypeA);
+        assertNull(layers.findOneByName("ftName"));
+        assertSame(data.layerFeatureTypeA, layers.findOneByName("renamedFt"));
+        assertSame(data.featureTypeA, resources.findOneByName("renamedFt", ResourceInfo.class));
+    }
+
+    @Test
+    public void testAddAllRemoveAll() {
+        StoreInfoLookup stores = new StoreInfoLookup();
+        stores.addAll(
+                Arrays.asList(
+                        data.dataStoreA, data.coverageStoreA, data.wmsStoreA, data.dataStoreB));
+        assertEquals(4, stores.count(StoreInfo.class, Filter.INCLUDE));
+        assertIds(
+                stores.findAllByWorkspace(data.workspaceA, StoreInfo.class), "ds1", "cs1", "wms1");
+        assertSame(
+                data.coverageStoreA,
+                stores.findByName(
+                        CatalogInfoLookup.STORE_NAME_MAPPER.apply(data.coverageStoreA),
+                        StoreInfo.class));
+
+        stores.removeAll(Arrays.asList(data.dataStoreA, data.wmsStoreA));
+        assertIds(stores.findAll(), "cs1", "ds2");
+        assertIds(stores.findAllByWorkspace(data.workspaceA, StoreInfo.class), "cs1");
+        assertNull(stores.findById(data.dataStoreA.getId(), StoreInfo.class));
+
+        LayerInfoLookup layers = new LayerInfoLookup();
+        layers.addAll(Arrays.asList(data.layerFeatureTypeA));
+        layers.removeAll(Arrays.asList(data.layerFeatureTypeA));
+        assertEquals(0, layers.count(LayerInfo.class, Filter.INCLUDE));
+    }
+
+    @Test
+    public void testSyncToUsesAddAll() {
+        StoreInfoLookup source = new StoreInfoLookup();
+        source.addAll(Arrays.asList(data.dataStoreA, data.coverageStoreA, data.dataStoreB));
+        List<StoreInfo> added = new ArrayList<>();
+        StoreInfoLookup target =
+                new StoreInfoLookup(true) {
+                    public @Override void addAll(Collection<? extends StoreInfo> values) {
+                        added.addAll(values);
+                        super.addAll(values);
+                    }
+                };
+        source.syncTo(target);
+        assertIds(added, "ds1", "cs1", "ds2");
+        assertIds(target.findAll(), "ds1", "cs1", "ds2");
+    }
+
+    @Test
+    public void testSyncToAppliesOnlyTheDifference() {
+        StoreInfoLookup source = new StoreInfoLookup();
+        source.addAll(Arrays.asList(data.dataStoreA, data.coverageStoreA, data.dataStoreB));
+
+        CoverageStoreInfo oldCoverageStore =
+                data.createCoverageStore(
+                        data.coverageStoreA.getId(), data.workspaceA, "oldName", "GeoTIFF", "");
+        DataStoreInfo oldDataStoreB =
+                data.createDataStore(
+                        data.dataStoreB.getId(), data.workspaceB, "dsNameA", "old", true);
+        List<StoreInfo> added = new ArrayList<>();
+        List<StoreInfo> replaced = new ArrayList<>();
+        List<StoreInfo> removed = new ArrayList<>();
+        StoreInfoLookup target =
+                new StoreInfoLookup() {
+                    public @Override void addAll(Collection<? extends StoreInfo> values) {
+                        added.addAll(values);
+                        super.addAll(values);
+                    }
+
+                    public @Override void replaceAll(Collection<? extends StoreInfo> values) {
+                        replaced.addAll(values);
+                        super.replaceAll(values);
+                    }
+
+                    public @Override void removeAll(Collection<? extends StoreInfo> values) {
+                        removed.addAll(values);
+                        super.removeAll(values);
+                    }
+                };
+        target.addAll(
+                Arrays.asList(data.dataStoreA, oldCoverageStore, oldDataStoreB, data.wmsStoreA));
+        added.clear();
+
+        source.syncTo(target);
+        assertIds(added);
+        assertIds(replaced, "cs1", "ds2");
+        assertIds(removed, "wms1");
+
+        assertIds(target.findAll(), "ds1", "cs1", "ds2");
+        assertSame(data.dataStoreA, target.findById("ds1", StoreInfo.class));
+        assertSame(data.coverageStoreA, target.findById("cs1", StoreInfo.class));
+        assertSame(data.dataStoreB, target.findById("ds2", DataStoreInfo.class));
+        // renamed by the replacement
+        Name oldName = CatalogInfoLookup.STORE_NAME_MAPPER.apply(oldCoverageStore);
+        Name newName = CatalogInfoLookup.STORE_NAME_MAPPER.apply(data.coverageStoreA);
+        assertNull(target.findByName(oldName, StoreInfo.class));
+        assertSame(data.coverageStoreA, target.findByName(newName, StoreInfo.class));
+        assertIds(target.findAllByWorkspace(data.workspaceA, StoreInfo.class), "ds1", "cs1");
+
+        // nothing to do the second time
+        added.clear();
+        replaced.clear();
+        removed.clear();
+        source.syncTo(target);
+        assertTrue(added.isEmpty() && replaced.isEmpty() && removed.isEmpty());
+    }
+
+    @Test
+    public void testReplaceAllConcreteTypeChange() {
+        StoreInfoLookup stores = new StoreInfoLookup(true);
+        stores.add(data.dataStoreA);
+        CoverageStoreInfo sameId =
+                data.createCoverageStore(
+                        data.dataStoreA.getId(), data.workspaceA, "cs", "GeoTIFF", "");
+        stores.replaceAll(Arrays.asList(sameId));
+        assertIds(stores.findAll(), "ds1");
+        assertNull(stores.findById("ds1", DataStoreInfo.class));
+        assertSame(sameId, stores.findById("ds1", StoreInfo.class));
+        assertIds(stores.findAllByWorkspace(data.workspaceA, StoreInfo.class), "ds1");
+    }
+
+    @Test
+    public void testNamespacesByURIIndex() {
+        NamespaceInfoLookup namespaces = new NamespaceInfoLookup();
+        NamespaceInfo noURI = data.createNamespace("nouri", null);
+        NamespaceInfo sameURI = data.createNamespace("sameuri", data.namespaceA.getURI());
+        namespaces.addAll(Arrays.asList(data.namespaceA, data.namespaceB, noURI, sameURI));
+
+        assertIds(namespaces.findAllByURI(data.namespaceA.getURI()), "ns1", "sameuri-id");
+        assertIds(namespaces.findAllByURI(data.namespaceB.getURI()), "ns2");
+        assertIds(namespaces.findAllByURI("http://unknown"));
+        assertIds(namespaces.findAllByURI(null));
+        assertNull(namespaces.findOneByURI(null));
+        assertSame(data.namespaceB, namespaces.findOneByURI(data.namespaceB.getURI()));
+        // same one a scan in name order would find
+        assertSame(sameURI, namespaces.findOneByURI(data.namespaceA.getURI()));
+        assertIds(namespaces.findAll(equal("URI", data.namespaceB.getURI())), "ns2");
+
+        String oldURI = data.namespaceB.getURI();
+        data.namespaceB.setURI("http://changed");
+        namespaces.update(data.namespaceB);
+        assertNull(namespaces.findOneByURI(oldURI));
+        assertSame(data.namespaceB, namespaces.findOneByURI("http://changed"));
+
+        namespaces.remove(sameURI);
+        assertIds(namespaces.findAllByURI(data.namespaceA.getURI()), "ns1");
+    }
+
+    @Test
+    public void testDefaultNamespaceFollowsReplaceAndRemove() {
+        NamespaceInfoLookup namespaces = new NamespaceInfoLookup();
+        namespaces.addAll(Arrays.asList(data.namespaceA, data.namespaceB));
+        namespaces.setDefaultNamespace(data.namespaceA);
+        assertSame(data.namespaceA, namespaces.getDefaultNamespace());
+
+        NamespaceInfo replacement =
+                data.createNamespace(
+                        data.namespaceA.getId(), data.namespaceA.getPrefix(), "http://new");
+        namespaces.replaceAll(Arrays.asList(replacement));
+        assertSame(replacement, namespaces.getDefaultNamespace());
+        assertSame(replacement, namespaces.findOneByURI("http://new"));
+
+        namespaces.remove(replacement);
+        assertNull(namespaces.getDefaultNamespace());
+    }
+
+    private void assertIds(Collection<? extends CatalogInfo> actual, String... expected) {
+        Set<String> actualIds = new HashSet<>();
+        actual.forEach(i -> actualIds.add(i.getId()));
+        assertEquals(Sets.newHashSet(expected), actualIds);
+        assertEquals("duplicate results", actualIds.size(), actual.size());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.event.CatalogAddEvent;
+import org.geoserver.catalog.event.CatalogListener;
+import org.geoserver.catalog.event.CatalogModifyEvent;
+import org.geoserver.catalog.event.CatalogPostModifyEvent;
+import org.geoserver.catalog.event.CatalogRemoveEvent;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for {@link CatalogPartition} and {@link AbstractCatalogFacade#applyPartition()} */
+public class CatalogPartitionTest {
+
+    private DefaultCatalogFacade facade;
+    private CatalogImpl catalog;
+    private CatalogTestData data;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        facade = new DefaultCatalogFacade();
+        catalog = new CatalogImpl(facade);
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+    }
+
+    private static CatalogPartition partition(String workspace) {
+        return new CatalogPartition(Collections.singleton(workspace));
+    }
+
+    @Test
+    public void testIncludes() {
+        CatalogPartition partition = partition(data.workspaceA.getName());
+        assertTrue(partition.includes(data.workspaceA));
+        assertFalse(partition.includes(data.workspaceB));
+        assertTrue(partition.includes(data.namespaceA));
+        assertFalse(partition.includes(data.namespaceC));
+        assertTrue(partition.includes(data.dataStoreA));
+        assertFalse(partition.includes(data.dataStoreB));
+        assertTrue(partition.includes(data.featureTypeA));
+        assertTrue(partition.includes(data.coverageA));
+        assertTrue(partition.includes(data.layerFeatureTypeA));
+        // global styles are included, applyPartition() prunes the unused ones
+        assertTrue(partition.includes(data.style1));
+        // global layer group whose layers are all in the partition
+        assertTrue(partition.includes(data.layerGroup1));
+
+        partition = partition(data.workspaceB.getName());
+        assertFalse(partition.includes(data.featureTypeA));
+        assertFalse(partition.includes(data.layerFeatureTypeA));
+        assertFalse(partition.includes(data.layerGroup1));
+
+        LayerGroupInfo wsGroup =
+                data.createLayerGroup(
+                        "lg2", data.workspaceB, "wsGroup", data.layerFeatureTypeA, null);
+        assertTrue(partition.includes(wsGroup));
+        StyleInfo wsStyle = data.createStyle("wsStyle", data.workspaceA, "wsStyle", "ws.sld");
+        assertFalse(partition.includes(wsStyle));
+    }
+
+    @Test
+    public void testAddSkipsObjectsOutsidePartition() {
+        facade.setPartition(partition(data.workspaceA.getName()));
+        facade.add(data.workspaceA);
+        facade.add(data.workspaceB);
+        facade.add(data.namespaceA);
+        facade.add(data.namespaceB);
+        facade.add(data.dataStoreA);
+        facade.add(data.dataStoreB);
+
+        assertNotNull(facade.getWorkspace(data.workspaceA.getId()));
+        assertNull(facade.getWorkspace(data.workspaceB.getId()));
+        assertNotNull(facade.getNamespace(data.namespaceA.getId()));
+        assertNull(facade.getNamespace(data.namespaceB.getId()));
+        assertNotNull(facade.getStore(data.dataStoreA.getId(), StoreInfo.class));
+        assertNull(facade.getStore(data.dataStoreB.getId(), StoreInfo.class));
+    }
+
+    @Test
+    public void testAddOutsidePartitionReturnsNull() {
+        facade.setPartition(partition(data.workspaceA.getName()));
+        assertNull(facade.add(data.workspaceB));
+        assertNull(facade.add(data.namespaceB));
+        assertNull(facade.add(data.dataStoreB));
+        assertNotNull(facade.add(data.workspaceA));
+    }
+
+    @Test
+    public void testCatalogAddOutsidePartitionFiresNoEvent() {
+        final List<CatalogAddEvent> events = new ArrayList<>();
+        catalog.addListener(
+                new CatalogListener() {
+                    public @Override void handleAddEvent(CatalogAddEvent event) {
+                        events.add(event);
+                    }
+
+                    public @Override void handleRemoveEvent(CatalogRemoveEvent event) {}
+
+                    public @Override void handleModifyEvent(CatalogModifyEvent event) {}
+
+                    public @Override void handlePostModifyEvent(CatalogPostModifyEvent event) {}
+
+                    public @Override void reloaded() {}
+                });
+        facade.setPartition(partition(data.workspaceA.getName()));
+
+        catalog.add(data.workspaceB);
+        catalog.add(data.namespaceB);
+        catalog.add(data.dataStoreB);
+        assertTrue(events.isEmpty());
+        assertNull(catalog.getWorkspace(data.workspaceB.getId()));
+        assertNull(catalog.getDataStore(data.dataStoreB.getId()));
+
+        catalog.add(data.workspaceA);
+        assertEquals(1, events.size());
+        assertEquals(data.workspaceA.getId(), events.get(0).getSource().getId());
+    }
+
+    @Test
+    public void testApplyPartitionNoPartition() {
+        data.addObjects();
+        assertEquals(0, facade.applyPartition());
+        assertEquals(3, facade.getWorkspaces().size());
+    }
+
+    @Test
+    public void testApplyPartition() {
+        data.addObjects();
+        assertEquals(data.workspaceA.getId(), facade.getDefaultWorkspace().getId());
+
+        facade.setPartition(partition(data.workspaceB.getName()));
+        assertTrue(facade.applyPartition() > 0);
+
+        assertEquals(1, facade.getWorkspaces().size());
+        assertNotNull(facade.getWorkspace(data.workspaceB.getId()));
+        assertEquals(1, facade.getNamespaces().size());
+        assertNotNull(facade.getNamespace(data.namespaceB.getId()));
+        assertEquals(1, facade.getStores(StoreInfo.class).size());
+        assertNotNull(facade.getStore(data.dataStoreB.getId(), StoreInfo.class));
+        assertTrue(facade.getLayers().isEmpty());
+        assertTrue(facade.getLayerGroups().isEmpty());
+        // no layer or layer group uses the global styles anymore
+        assertTrue(facade.getStyles().isEmpty());
+
+        WorkspaceInfo defaultWorkspace = facade.getDefaultWorkspace();
+        assertNotNull(defaultWorkspace);
+        assertEquals(data.workspaceB.getId(), defaultWorkspace.getId());
+        assertEquals(data.namespaceB.getId(), facade.getDefaultNamespace().getId());
+        assertNull(facade.getDefaultDataStore(data.workspaceA));
+    }
+
+    @Test
+    public void testApplyPartitionKeepsUsedGlobalStyles() {
+        data.addObjects();
+        facade.setPartition(partition(data.workspaceA.getName()));
+        facade.applyPartition();
+
+        assertEquals(1, facade.getWorkspaces().size());
+        assertNotNull(facade.getLayer(data.layerFeatureTypeA.getId()));
+        assertNotNull(facade.getLayerGroup(data.layerGroup1.getId()));
+        assertNotNull(facade.getStyle(data.style1.getId()));
+        assertNull(facade.getStyle(data.style2.getId()));
+        assertNotNull(facade.getDefaultDataStore(data.workspaceA));
+    }
+}
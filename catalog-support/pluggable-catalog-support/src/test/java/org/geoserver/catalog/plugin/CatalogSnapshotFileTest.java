@@ -0,0 +1,212 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.impl.ResourceInfoImpl;
+import org.geoserver.catalog.impl.StoreInfoImpl;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link CatalogSnapshotFile} */
+public class CatalogSnapshotFileTest {
+
+    public @Rule TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private DefaultCatalogFacade source;
+    private CatalogTestData data;
+    private CatalogSnapshotFile snapshot;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        source = new DefaultCatalogFacade();
+        CatalogImpl catalog = new CatalogImpl(source);
+        data = CatalogTestData.empty(() -> catalog).createObjects().addObjects();
+        Path file = tmpFolder.getRoot().toPath().resolve("catalog.snapshot");
+        snapshot = new CatalogSnapshotFile(file);
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        assertFalse(snapshot.exists());
+        final int saved = snapshot.save(source, 1000L);
+        assertTrue(snapshot.exists());
+        assertEquals(1000L, snapshot.getTimestamp());
+
+        DefaultCatalogFacade target = new DefaultCatalogFacade();
+        CatalogImpl catalog = new CatalogImpl(target);
+        assertEquals(saved, snapshot.load(target));
+
+        assertEquals(source.workspaces.findAll().size(), target.workspaces.findAll().size());
+        assertEquals(source.layers.findAll().size(), target.layers.findAll().size());
+        assertLoaded(data.workspaceA, catalog.getWorkspace(data.workspaceA.getId()));
+        assertLoaded(data.namespaceB, catalog.getNamespace(data.namespaceB.getId()));
+        assertLoaded(data.dataStoreC, catalog.getDataStore(data.dataStoreC.getId()));
+        assertLoaded(data.coverageA, catalog.getCoverage(data.coverageA.getId()));
+        assertLoaded(data.style2, catalog.getStyle(data.style2.getId()));
+        assertLoaded(data.layerFeatureTypeA, catalog.getLayer(data.layerFeatureTypeA.getId()));
+        assertLoaded(data.layerGroup1, catalog.getLayerGroup(data.layerGroup1.getId()));
+
+        assertEquals(data.workspaceA.getId(), catalog.getDefaultWorkspace().getId());
+        assertEquals(data.namespaceA.getId(), catalog.getDefaultNamespace().getId());
+        DataStoreInfo defaultStore = catalog.getDefaultDataStore(data.workspaceA);
+        assertNotNull(defaultStore);
+        assertEquals(data.dataStoreA.getId(), defaultStore.getId());
+
+        // references are preserved, no need to resolve
+        LayerInfo layer = target.layers.findById(data.layerFeatureTypeA.getId(), LayerInfo.class);
+        ResourceInfo resource =
+                target.resources.findById(layer.getResource().getId(), ResourceInfo.class);
+        assertSame(resource, layer.getResource());
+        StoreInfo store = target.stores.findById(resource.getStore().getId(), StoreInfo.class);
+        assertSame(store, resource.getStore());
+
+        // transient catalog references are set
+        assertSame(catalog, ((StoreInfoImpl) store).getCatalog());
+        assertSame(catalog, ((ResourceInfoImpl) resource).getCatalog());
+    }
+
+    private void assertLoaded(CatalogInfo expected, CatalogInfo loaded) {
+        assertNotNull(loaded);
+        assertEquals(ModificationProxy.unwrap(expected), ModificationProxy.unwrap(loaded));
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        snapshot.save(source, System.currentTimeMillis());
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.getFile().toFile(), "rw")) {
+            long pos = CatalogSnapshotFile.HEADER_SIZE + 10;
+            file.seek(pos);
+            int b = file.read();
+            file.seek(pos);
+            file.write(~b);
+        }
+        try {
+            snapshot.load(new DefaultCatalogFacade());
+            fail("expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void testAllowedClasses() {
+        assertTrue(CatalogSnapshotFile.isAllowed("org.geoserver.catalog.impl.WorkspaceInfoImpl"));
+        assertTrue(CatalogSnapshotFile.isAllowed("org.geoserver.catalog.MetadataMap"));
+        assertTrue(CatalogSnapshotFile.isAllowed("java.util.ArrayList"));
+        assertTrue(CatalogSnapshotFile.isAllowed("[Ljava.lang.String;"));
+        assertTrue(CatalogSnapshotFile.isAllowed("[B"));
+        assertTrue(
+                CatalogSnapshotFile.isAllowed("org.geotools.referencing.crs.DefaultGeographicCRS"));
+
+        assertFalse(CatalogSnapshotFile.isAllowed("java.util.PriorityQueue"));
+        assertFalse(CatalogSnapshotFile.isAllowed("java.net.URL"));
+        assertFalse(CatalogSnapshotFile.isAllowed("[Ljava.util.PriorityQueue;"));
+        assertFalse(
+                CatalogSnapshotFile.isAllowed("javax.management.BadAttributeValueExpException"));
+        assertFalse(
+                CatalogSnapshotFile.isAllowed(
+                        "org.geoserver.platform.resource.FileSystemResourceStore"));
+        assertFalse(CatalogSnapshotFile.isAllowed("org.geotools.data.DataUtilities"));
+    }
+
+    @Test
+    public void testSaveRejectsClassNotAllowed() throws IOException {
+        WorkspaceInfo workspace =
+                ModificationProxy.unwrap(
+                        source.workspaces.findById(data.workspaceA.getId(), WorkspaceInfo.class));
+        workspace.getMetadata().put("queue", new PriorityQueue<>());
+        try {
+            snapshot.save(source, System.currentTimeMillis());
+            fail("expected InvalidClassException");
+        } catch (InvalidClassException expected) {
+            assertTrue(expected.getMessage().contains(PriorityQueue.class.getName()));
+        }
+        assertFalse(snapshot.exists());
+    }
+
+    @Test
+    public void testLoadRejectsClassNotAllowed() throws IOException {
+        writeSnapshot(new ArrayList<>(Collections.singleton(new PriorityQueue<>())));
+        DefaultCatalogFacade target = new DefaultCatalogFacade();
+        try {
+            snapshot.load(target);
+            fail("expected InvalidClassException");
+        } catch (InvalidClassException expected) {
+            assertTrue(expected.getMessage().contains(PriorityQueue.class.getName()));
+        }
+        assertTrue(target.workspaces.findAll().isEmpty());
+    }
+
+    /** Writes a snapshot file whose payload is {@code list}, bypassing the save-time checks */
+    private void writeSnapshot(List<?> list) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(payload))) {
+            out.writeUTF(CatalogSnapshotFile.geoserverVersion());
+            out.writeObject(list);
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer header = ByteBuffer.allocate(CatalogSnapshotFile.HEADER_SIZE);
+        header.putInt(CatalogSnapshotFile.MAGIC);
+        header.putInt(CatalogSnapshotFile.FORMAT_VERSION);
+        header.putLong(System.currentTimeMillis());
+        header.putLong(bytes.length);
+        header.putLong(crc.getValue());
+        try (OutputStream out = Files.newOutputStream(snapshot.getFile())) {
+            out.write(header.array());
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    public void testNotASnapshot() throws IOException {
+        Files.write(snapshot.getFile(), "<catalog/>".getBytes());
+        try {
+            snapshot.getTimestamp();
+            fail("expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+            // expected
+        }
+    }
+}
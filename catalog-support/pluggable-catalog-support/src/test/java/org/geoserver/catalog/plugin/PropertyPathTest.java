@@ -0,0 +1,83 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+public class PropertyPathTest {
+
+    private CatalogTestData data;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        CatalogImpl catalog = new CatalogImpl(new DefaultCatalogFacade());
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+    }
+
+    @Test
+    public void testGet() {
+        LayerInfo layer = data.layerFeatureTypeA;
+        assertEquals(layer.getName(), PropertyPath.of("name").get(layer));
+        assertEquals(
+                data.workspaceA.getName(),
+                PropertyPath.of("resource.store.workspace.name").get(layer));
+        assertEquals(layer.isEnabled(), PropertyPath.of("enabled").get(layer));
+        assertSame(PropertyPath.of("resource.name"), PropertyPath.of("resource.name"));
+    }
+
+    @Test
+    public void testGetNullIntermediateValue() {
+        data.layerFeatureTypeA.getResource().setStore(null);
+        assertNull(PropertyPath.of("resource.store.workspace.name").get(data.layerFeatureTypeA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetNoSuchProperty() {
+        PropertyPath.of("resource.nonExistent").get(data.layerFeatureTypeA);
+    }
+
+    @Test
+    public void testCompiledFilter() {
+        String wsName = data.workspaceA.getName();
+        assertCompiled(Predicates.equal("resource.store.workspace.name", wsName), true);
+        assertCompiled(Predicates.equal("resource.store.workspace.name", "nope"), false);
+        assertCompiled(Predicates.equal("enabled", Boolean.TRUE), true);
+        assertCompiled(Predicates.isNull("resource.store.workspace.name"), false);
+    }
+
+    @Test
+    public void testCompiledFilterMultiValuedPropertyFallsBackToOriginal() {
+        String layerName = data.layerFeatureTypeA.getName();
+        Filter filter = Predicates.equal("layers.name", layerName);
+        Filter compiled = PropertyPath.compile(filter);
+        assertTrue(filter.evaluate(data.layerGroup1));
+        assertTrue(compiled.evaluate(data.layerGroup1));
+        Filter nonMatching = PropertyPath.compile(Predicates.equal("layers.name", "nope"));
+        assertFalse(nonMatching.evaluate(data.layerGroup1));
+    }
+
+    private void assertCompiled(Filter filter, boolean expected) {
+        Filter compiled = PropertyPath.compile(filter);
+        LayerInfo layer = data.layerFeatureTypeA;
+        assertEquals(filter.evaluate(layer), compiled.evaluate(layer));
+        assertEquals(expected, compiled.evaluate(layer));
+    }
+}
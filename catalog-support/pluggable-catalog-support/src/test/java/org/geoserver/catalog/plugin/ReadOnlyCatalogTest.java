@@ -0,0 +1,200 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.Keyword;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.event.CatalogAddEvent;
+import org.geoserver.catalog.event.CatalogListener;
+import org.geoserver.catalog.event.CatalogModifyEvent;
+import org.geoserver.catalog.event.CatalogPostModifyEvent;
+import org.geoserver.catalog.event.CatalogRemoveEvent;
+import org.geoserver.catalog.impl.ModificationProxy;
+import org.geoserver.catalog.impl.WorkspaceInfoImpl;
+import org.geoserver.catalog.plugin.CatalogInfoLookup.WorkspaceInfoLookup;
+import org.geoserver.catalog.util.CloseableIterator;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+/** Tests for {@link ReadOnlyCatalog} and {@link ReadOnlyCatalogFacade} */
+public class ReadOnlyCatalogTest {
+
+    private DefaultCatalogFacade facade;
+    private CatalogImpl rawCatalog;
+    private ReadOnlyCatalog catalog;
+    private CatalogTestData data;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        facade = new DefaultCatalogFacade();
+        rawCatalog = new CatalogImpl(facade);
+        data = CatalogTestData.empty(() -> rawCatalog).createObjects().addObjects();
+        catalog = new ReadOnlyCatalog(rawCatalog);
+    }
+
+    @Test
+    public void testReturnsReadOnlyViews() {
+        assertReadOnlyView(catalog.getWorkspace(data.workspaceA.getId()));
+        assertReadOnlyView(catalog.getDefaultWorkspace());
+        assertReadOnlyView(catalog.getFeatureTypeByName(data.featureTypeA.prefixedName()));
+        assertReadOnlyView(catalog.getLayerByName(data.layerFeatureTypeA.prefixedName()));
+        catalog.getLayers().forEach(this::assertReadOnlyView);
+        catalog.getStyles().forEach(this::assertReadOnlyView);
+        try (CloseableIterator<LayerInfo> it = catalog.list(LayerInfo.class, Filter.INCLUDE)) {
+            it.forEachRemaining(this::assertReadOnlyView);
+        }
+
+        LayerInfo layer = catalog.getLayer(data.layerFeatureTypeA.getId());
+        LayerInfo stored = facade.layers.findById(layer.getId(), LayerInfo.class);
+        assertSame(stored, ReadOnlyProxy.unwrap(layer));
+        assertEquals(layer, stored);
+        assertEquals(stored.hashCode(), layer.hashCode());
+        assertReadOnlyView(layer.getResource());
+        assertReadOnlyView(layer.getDefaultStyle());
+        assertTrue(layer.getResource() instanceof FeatureTypeInfo);
+
+        // the raw catalog still returns modification proxies
+        LayerInfo proxied = rawCatalog.getLayer(layer.getId());
+        assertTrue(Proxy.getInvocationHandler(proxied) instanceof ModificationProxy);
+    }
+
+    private void assertReadOnlyView(CatalogInfo info) {
+        assertNotNull(info);
+        assertTrue(ReadOnlyProxy.isReadOnly(info));
+    }
+
+    @Test
+    public void testReadOnlyViewsCantBeModified() {
+        final String id = data.featureTypeA.getId();
+        final FeatureTypeInfo stored = facade.resources.findById(id, FeatureTypeInfo.class);
+        final String title = stored.getTitle();
+        final int keywords = stored.getKeywords().size();
+
+        FeatureTypeInfo ft = catalog.getFeatureType(id);
+        assertReadOnly(() -> ft.setTitle("changed"));
+        assertReadOnly(() -> ft.getKeywords().add(new Keyword("changed")));
+        assertReadOnly(() -> ft.getKeywords().clear());
+        assertReadOnly(() -> ft.getStore().setEnabled(false));
+        try {
+            ft.getMetadata().put("changed", "changed");
+        } catch (UnsupportedOperationException expected) {
+            // expected, unless the MetadataMap is a copy
+        }
+        LayerInfo layer = catalog.getLayer(data.layerFeatureTypeA.getId());
+        assertReadOnly(() -> layer.getStyles().clear());
+        assertReadOnly(() -> layer.getResource().setName("changed"));
+
+        assertEquals(title, stored.getTitle());
+        assertEquals(keywords, stored.getKeywords().size());
+        assertFalse(stored.getMetadata().containsKey("changed"));
+        assertTrue(stored.getStore().isEnabled());
+        assertEquals(data.featureTypeA.getName(), stored.getName());
+    }
+
+    @Test
+    public void testWritesNotSupported() {
+        WorkspaceInfoImpl ws = new WorkspaceInfoImpl();
+        ws.setName("newws");
+        assertReadOnly(() -> catalog.add(ws));
+        assertReadOnly(() -> catalog.remove(data.layerFeatureTypeA));
+        assertReadOnly(() -> catalog.save(catalog.getWorkspace(data.workspaceA.getId())));
+        assertReadOnly(() -> catalog.setDefaultWorkspace(data.workspaceB));
+        assertNull(rawCatalog.getWorkspaceByName("newws"));
+        assertEquals(data.workspaceA.getId(), rawCatalog.getDefaultWorkspace().getId());
+    }
+
+    private void assertReadOnly(Runnable write) {
+        try {
+            write.run();
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSeesSourceChanges() {
+        FeatureTypeInfo ft = rawCatalog.getFeatureType(data.featureTypeA.getId());
+        ft.setTitle("new title");
+        rawCatalog.save(ft);
+        assertEquals("new title", catalog.getFeatureType(ft.getId()).getTitle());
+
+        rawCatalog.remove(data.layerGroup1);
+        rawCatalog.remove(data.layerFeatureTypeA);
+        assertNull(catalog.getLayer(data.layerFeatureTypeA.getId()));
+    }
+
+    @Test
+    public void testListenersRegisteredOnSource() {
+        List<CatalogAddEvent> events = new ArrayList<>();
+        CatalogListener listener =
+                new CatalogListener() {
+                    public @Override void handleAddEvent(CatalogAddEvent event) {
+                        events.add(event);
+                    }
+
+                    public @Override void handleRemoveEvent(CatalogRemoveEvent event) {}
+
+                    public @Override void handleModifyEvent(CatalogModifyEvent event) {}
+
+                    public @Override void handlePostModifyEvent(CatalogPostModifyEvent event) {}
+
+                    public @Override void reloaded() {}
+                };
+        catalog.addListener(listener);
+        assertTrue(rawCatalog.getListeners().contains(listener));
+
+        WorkspaceInfoImpl ws = new WorkspaceInfoImpl();
+        ws.setId("newws-id");
+        ws.setName("newws");
+        rawCatalog.add(ws);
+        assertEquals(1, events.size());
+        assertEquals(ws.getId(), events.get(0).getSource().getId());
+
+        catalog.removeListener(listener);
+        assertFalse(rawCatalog.getListeners().contains(listener));
+    }
+
+    @Test
+    public void testSharesResourcePoolAndUnwrapsToSource() {
+        assertSame(rawCatalog.getResourcePool(), catalog.getResourcePool());
+        assertTrue(catalog.isWrapperFor(Catalog.class));
+        assertSame(rawCatalog, catalog.unwrap(Catalog.class));
+    }
+
+    @Test
+    public void testFollowsSourceRepositoryReplacement() {
+        WorkspaceInfoLookup workspaces = new WorkspaceInfoLookup();
+        WorkspaceInfo ws = rawCatalog.getWorkspace(data.workspaceB.getId());
+        workspaces.add(ModificationProxy.unwrap(ws));
+        facade.setWorkspaces(workspaces);
+
+        assertEquals(1, catalog.getWorkspaces().size());
+        assertNull(catalog.getWorkspace(data.workspaceA.getId()));
+        assertNotNull(catalog.getWorkspace(data.workspaceB.getId()));
+    }
+}
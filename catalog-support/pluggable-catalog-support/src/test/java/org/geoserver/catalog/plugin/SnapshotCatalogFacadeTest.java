@@ -0,0 +1,232 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.catalog.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.geoserver.catalog.CoverageInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.Keyword;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StoreInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.impl.StyleInfoImpl;
+import org.geoserver.catalog.plugin.CatalogSnapshotHolder.Pin;
+import org.geoserver.cloud.test.CatalogTestData;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for the {@link SnapshotCatalogFacade} behavior not covered by the conformance tests */
+public class SnapshotCatalogFacadeTest {
+
+    private SnapshotCatalogFacade facade;
+    private CatalogImpl catalog;
+    private CatalogTestData data;
+
+    public static @BeforeClass void oneTimeSetup() {
+        GeoServerExtensionsHelper.setIsSpringContext(false);
+    }
+
+    public @Before void setUp() throws Exception {
+        facade = new SnapshotCatalogFacade();
+        catalog = new CatalogImpl(facade);
+        data = CatalogTestData.empty(() -> catalog).createObjects();
+        catalog.add(data.workspaceA);
+        catalog.add(data.namespaceA);
+        catalog.add(data.dataStoreA);
+        catalog.add(data.featureTypeA);
+        catalog.add(data.style1);
+        catalog.add(data.layerFeatureTypeA);
+    }
+
+    @Test
+    public void testPinnedSnapshotIsolatedFromOtherThreadsChanges() throws Exception {
+        final long version = facade.getVersion();
+        try (Pin pin = facade.pin()) {
+            assertEquals(version, pin.getVersion());
+            CompletableFuture.runAsync(() -> catalog.add(data.workspaceB)).get();
+
+            assertTrue(facade.getVersion() > version);
+            assertNull(catalog.getWorkspaceByName(data.workspaceB.getName()));
+            assertEquals(1, catalog.getWorkspaces().size());
+        }
+        assertNotNull(catalog.getWorkspaceByName(data.workspaceB.getName()));
+        assertEquals(2, catalog.getWorkspaces().size());
+    }
+
+    @Test
+    public void testPinnedSnapshotIsolatedFromOtherThreadsSaves() throws Exception {
+        final String id = data.featureTypeA.getId();
+        final String oldName = data.featureTypeA.getName();
+        final String oldTitle = data.featureTypeA.getTitle();
+        final int oldKeywords = data.featureTypeA.getKeywords().size();
+        try (Pin pin = facade.pin()) {
+            CompletableFuture.runAsync(
+                            () -> {
+                                FeatureTypeInfo ft = catalog.getFeatureType(id);
+                                ft.setName("renamed");
+                                ft.setTitle("new title");
+                                ft.getKeywords().add(new Keyword("newKeyword"));
+                                ft.getMetadata().put("newKey", "value");
+                                catalog.save(ft);
+                            })
+                    .get();
+
+            FeatureTypeInfo pinned = catalog.getFeatureType(id);
+            assertEquals(oldName, pinned.getName());
+            assertEquals(oldTitle, pinned.getTitle());
+            assertEquals(oldKeywords, pinned.getKeywords().size());
+            assertFalse(pinned.getMetadata().containsKey("newKey"));
+            LayerInfo layer = catalog.getLayer(data.layerFeatureTypeA.getId());
+            assertEquals(oldTitle, layer.getResource().getTitle());
+        }
+        FeatureTypeInfo current = catalog.getFeatureType(id);
+        assertEquals("renamed", current.getName());
+        assertEquals("new title", current.getTitle());
+        assertEquals(oldKeywords + 1, current.getKeywords().size());
+        assertEquals("value", current.getMetadata().get("newKey"));
+        // the layer in the new snapshot refers to the new resource instance
+        LayerInfo layer = catalog.getLayer(data.layerFeatureTypeA.getId());
+        assertEquals("new title", layer.getResource().getTitle());
+    }
+
+    @Test
+    public void testSaveRebindsIndirectReferrers() {
+        WorkspaceInfo ws = catalog.getWorkspace(data.workspaceA.getId());
+        ws.setName("newName");
+        catalog.save(ws);
+
+        StoreInfo store = catalog.getStore(data.dataStoreA.getId(), StoreInfo.class);
+        assertEquals("newName", store.getWorkspace().getName());
+        ResourceInfo resource = catalog.getResource(data.featureTypeA.getId(), ResourceInfo.class);
+        assertEquals("newName", resource.getStore().getWorkspace().getName());
+        LayerInfo layer = catalog.getLayer(data.layerFeatureTypeA.getId());
+        assertEquals("newName", layer.getResource().getStore().getWorkspace().getName());
+    }
+
+    @Test
+    public void testPinnedThreadSeesItsOwnChanges() {
+        try (Pin pin = facade.pin()) {
+            catalog.add(data.workspaceB);
+            assertNotNull(catalog.getWorkspaceByName(data.workspaceB.getName()));
+        }
+    }
+
+    @Test
+    public void testRenameResourceRenamesLayerInSameSnapshot() {
+        final long version = facade.getVersion();
+        FeatureTypeInfo ft = catalog.getFeatureType(data.featureTypeA.getId());
+        ft.setName("renamed");
+        catalog.save(ft);
+
+        assertEquals("a single snapshot should be published", version + 1, facade.getVersion());
+        LayerInfo layer = catalog.getLayerByName(data.namespaceA.getPrefix() + ":renamed");
+        assertNotNull(layer);
+        assertEquals(data.layerFeatureTypeA.getId(), layer.getId());
+        assertNull(catalog.getLayerByName(data.namespaceA.getPrefix() + ":ftName"));
+    }
+
+    @Test
+    public void testFindOneByNameFollowsRenames() {
+        final String oldName = data.featureTypeA.getName();
+        FeatureTypeInfo ft = catalog.getFeatureType(data.featureTypeA.getId());
+        ft.setName("renamed");
+        catalog.save(ft);
+
+        assertNull(facade.resources.findOneByName(oldName, ResourceInfo.class));
+        ResourceInfo resource = facade.resources.findOneByName("renamed", ResourceInfo.class);
+        assertEquals(ft.getId(), resource.getId());
+        assertNull(facade.resources.findOneByName("renamed", CoverageInfo.class));
+        assertNull(facade.layers.findOneByName(oldName));
+        assertEquals(
+                data.layerFeatureTypeA.getId(), facade.layers.findOneByName("renamed").getId());
+
+        StyleInfo style = catalog.getStyle(data.style1.getId());
+        style.setName("newStyleName");
+        catalog.save(style);
+        assertNull(facade.styles.findOneByName(data.style1.getName()));
+        assertEquals(style.getId(), facade.styles.findOneByName("newStyleName").getId());
+    }
+
+    @Test
+    public void testFindOneByNameIsDeterministic() {
+        catalog.add(data.workspaceC);
+        catalog.add(data.workspaceB);
+        final String name = data.dataStoreA.getName();
+        catalog.add(data.createDataStore("ds3", data.workspaceC, name, "", true));
+        catalog.add(data.createDataStore("ds2", data.workspaceB, name, "", true));
+
+        // the first by registered name, regardless of the order they were added in
+        assertEquals(
+                data.dataStoreA.getId(),
+                facade.stores.findOneByName(name, StoreInfo.class).getId());
+        assertEquals(
+                data.dataStoreA.getId(),
+                facade.stores.findOneByName(name, DataStoreInfo.class).getId());
+
+        // then the first by concrete class
+        catalog.add(
+                data.createCoverageStore(
+                        "cs3", data.workspaceC, name, "fakeCoverageType", "file://fake"));
+        assertEquals("cs3", facade.stores.findOneByName(name, StoreInfo.class).getId());
+        assertEquals(
+                data.dataStoreA.getId(),
+                facade.stores.findOneByName(name, DataStoreInfo.class).getId());
+    }
+
+    @Test
+    public void testFindAllByDefaultStyleOrStylesMatchesById() {
+        catalog.add(data.style2);
+        final String layerId = data.layerFeatureTypeA.getId();
+        LayerInfo layer = catalog.getLayer(layerId);
+        layer.getStyles().add(catalog.getStyle(data.style2.getId()));
+        catalog.save(layer);
+
+        // a different instance, as held by a remote event, matches by id
+        StyleInfoImpl style2 = new StyleInfoImpl(null);
+        style2.setId(data.style2.getId());
+        List<LayerInfo> layers = facade.layers.findAllByDefaultStyleOrStyles(style2);
+        assertEquals(1, layers.size());
+        assertEquals(layerId, layers.get(0).getId());
+        assertEquals(1, facade.layers.countByDefaultStyleOrStyles(style2));
+        assertEquals(1, facade.layers.countByDefaultStyleOrStyles(data.style1));
+
+        layer = catalog.getLayer(layerId);
+        layer.getStyles().clear();
+        layer.setDefaultStyle(catalog.getStyle(data.style2.getId()));
+        catalog.save(layer);
+        assertEquals(0, facade.layers.findAllByDefaultStyleOrStyles(data.style1).size());
+        assertEquals(1, facade.layers.findAllByDefaultStyleOrStyles(style2).size());
+    }
+
+    @Test
+    public void testSyncToSharesTheWholeSnapshot() {
+        SnapshotCatalogFacade target = new SnapshotCatalogFacade();
+        new CatalogImpl(target);
+        target.workspaces.add(data.workspaceC);
+        final long version = target.getVersion();
+
+        facade.syncTo(target);
+        assertEquals(version + 1, target.getVersion());
+        assertNull(target.workspaces.findById(data.workspaceC.getId(), WorkspaceInfo.class));
+        String layerId = data.layerFeatureTypeA.getId();
+        assertSame(
+                facade.layers.findById(layerId, LayerInfo.class),
+                target.layers.findById(layerId, LayerInfo.class));
+        assertEquals(data.workspaceA.getId(), target.getDefaultWorkspace().getId());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.config.catalog;
+
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.Info;
+import org.geoserver.catalog.Predicates;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.cloud.bus.RemoteEventFilter;
+import org.geoserver.cloud.bus.event.RemoteInfoEvent;
+import org.geoserver.cloud.bus.event.catalog.RemoteCatalogAddEvent;
+
+/**
+ * {@link RemoteEventFilter} that drops the remote catalog events about objects outside the {@link
+ * CatalogPartition} of this service instance.
+ *
+ * <p>An event is accepted if its object is held by the local catalog, or its payload belongs to the
+ * partition. Add events without payload are accepted since there's no way to tell, and events
+ * about the catalog itself or the configuration objects are always accepted.
+ */
+@Slf4j(topic = "org.geoserver.cloud.bus.incoming")
+public class CatalogPartitionRemoteEventFilter implements RemoteEventFilter {
+
+    private final Catalog rawCatalog;
+
+    private final CatalogPartition partition;
+
+    public CatalogPartitionRemoteEventFilter(
+            @NonNull Catalog rawCatalog, @NonNull CatalogPartition partition) {
+        this.rawCatalog = rawCatalog;
+        this.partition = partition;
+    }
+
+    public @Override boolean accept(RemoteInfoEvent<?, ?> event) {
+        final Class<? extends Info> type = event.getInfoType().getType();
+        if (!CatalogInfo.class.isAssignableFrom(type) || Catalog.class.isAssignableFrom(type)) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Class<? extends CatalogInfo> catalogInfoType = (Class<? extends CatalogInfo>) type;
+        final String id = event.getObjectId();
+        if (id != null && rawCatalog.get(catalogInfoType, Predicates.equal("id", id)) != null) {
+            return true;
+        }
+        Optional<? extends Info> payload = event.object();
+        if (payload.isPresent()) {
+            boolean included = partition.includes((CatalogInfo) payload.get());
+            if (!included) {
+                log.trace("{} is outside the catalog partition", id);
+            }
+            return included;
+        }
+        return event instanceof RemoteCatalogAddEvent;
+    }
+}
@@ -4,10 +4,43 @@
  */
 package org.geoserver.cloud.config.catalog;
 
+import java.util.HashSet;
+import java.util.Set;
 import lombok.Data;
+import org.geoserver.catalog.plugin.CatalogPartition;
 
 public @Data class CatalogProperties {
     private boolean secure = true;
     private boolean localWorkspace = true;
     private boolean advertised = true;
+    /**
+     * Whether to use a {@link org.geoserver.catalog.plugin.ReadOnlyCatalog} that returns read-only
+     * views of the catalog objects instead of modification proxies, for services that never modify
+     * the catalog. Ignored with a warning if the catalog backend doesn't support it (e.g.
+     * jdbcconfig), it does with the data directory one.
+     */
+    private boolean readOnly = false;
+
+    private Partition partition = new Partition();
+
+    /**
+     * Restricts the catalog held by the service instance to a set of workspaces, for replicas
+     * specialised in serving only part of the catalog
+     */
+    public static @Data class Partition {
+        /**
+         * Names of the workspaces to keep, along with their stores, resources, layers, layer
+         * groups and styles, and the global styles they use. Empty for the whole catalog. The data
+         * directory loader skips the directories of the other workspaces, but still parses the
+         * global styles and layer groups, discarding the ones outside the partition.
+         */
+        private Set<String> workspaces = new HashSet<>();
+
+        /** @return the {@link CatalogPartition}, or {@code null} if there are no workspaces */
+        public CatalogPartition toCatalogPartition() {
+            return workspaces == null || workspaces.isEmpty()
+                    ? null
+                    : new CatalogPartition(workspaces);
+        }
+    }
 }
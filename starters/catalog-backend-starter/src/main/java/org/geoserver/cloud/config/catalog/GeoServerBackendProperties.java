@@ -24,6 +24,35 @@ public @Data class GeoServerBackendProperties {
     public static @Data class DataDirectoryProperties {
         private boolean enabled;
         private Path location;
+        /**
+         * The in-memory catalog implementation, {@code default} for the concurrent map based one,
+         * {@code compact} for its memory compact layout for very large catalogs, or {@code
+         * snapshot} for the one based on immutable snapshots, with lock-free reads
+         */
+        private CatalogFacadeType catalogFacade = CatalogFacadeType.DEFAULT;
+
+        /** Binary catalog snapshot to load the catalog from at startup */
+        private SnapshotProperties snapshot = new SnapshotProperties();
+
+        public static enum CatalogFacadeType {
+            DEFAULT,
+            COMPACT,
+            SNAPSHOT
+        }
+
+        public static @Data class SnapshotProperties {
+            /**
+             * Whether to load the catalog from the snapshot file when it's newer than all the
+             * catalog files in the data directory
+             */
+            private boolean enabled;
+            /**
+             * Snapshot file location, defaults to {@code catalog.snapshot} in the data directory
+             */
+            private Path location;
+            /** Whether to save the snapshot after loading the catalog from the data directory */
+            private boolean saveOnLoad = true;
+        }
     }
 
     /**
@@ -8,10 +8,15 @@ import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogFacade;
 import org.geoserver.catalog.LayerGroupVisibilityPolicy;
 import org.geoserver.catalog.impl.AdvertisedCatalog;
-import org.geoserver.catalog.impl.CatalogImpl;
 import org.geoserver.catalog.impl.LocalWorkspaceCatalog;
+import org.geoserver.catalog.plugin.AbstractCatalogFacade;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.catalog.plugin.ReadOnlyCatalog;
+import org.geoserver.cloud.bus.RemoteEventFilter;
 import org.geoserver.platform.GeoServerResourceLoader;
 import org.geoserver.security.SecureCatalogImpl;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -22,25 +27,88 @@ public interface GeoServerCatalogConfigurer {
 
     public @Bean CatalogFacade catalogFacade();
 
+    /**
+     * @throws IllegalArgumentException if a {@link CatalogProperties#getPartition() partition} is
+     *     configured but the catalog facade doesn't support it
+     */
     @DependsOn({"resourceLoader", "catalogFacade"})
     default @Bean Catalog rawCatalog(
-            GeoServerResourceLoader resourceLoader, CatalogFacade catalogFacadeImpl) {
-        CatalogImpl catalog = new org.geoserver.catalog.plugin.CatalogImpl(catalogFacadeImpl);
+            GeoServerResourceLoader resourceLoader,
+            CatalogFacade catalogFacadeImpl,
+            CatalogProperties properties) {
+        org.geoserver.catalog.plugin.CatalogImpl catalog =
+                new org.geoserver.catalog.plugin.CatalogImpl(catalogFacadeImpl);
         catalog.setResourceLoader(resourceLoader);
+        CatalogPartition partition = properties.getPartition().toCatalogPartition();
+        if (partition != null) {
+            CatalogFacade rawFacade = catalog.getRawCatalogFacade();
+            if (!(rawFacade instanceof AbstractCatalogFacade)) {
+                throw new IllegalArgumentException(
+                        "geoserver.catalog.partition is not supported by "
+                                + rawFacade.getClass().getName());
+            }
+            ((AbstractCatalogFacade) rawFacade).setPartition(partition);
+        }
         return catalog;
     }
 
+    /**
+     * Removes the objects outside the catalog {@link CatalogProperties#getPartition() partition}
+     * once the catalog is loaded. The catalog facade doesn't store the ones added afterwards.
+     */
+    default @Bean SmartInitializingSingleton catalogPartitionInitializer(
+            @Qualifier("rawCatalog") Catalog rawCatalog) {
+        return () -> {
+            if (rawCatalog instanceof org.geoserver.catalog.plugin.CatalogImpl) {
+                CatalogFacade rawFacade =
+                        ((org.geoserver.catalog.plugin.CatalogImpl) rawCatalog)
+                                .getRawCatalogFacade();
+                if (rawFacade instanceof AbstractCatalogFacade) {
+                    ((AbstractCatalogFacade) rawFacade).applyPartition();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a {@link RemoteEventFilter} that drops the remote events about objects outside the
+     *     catalog {@link CatalogProperties#getPartition() partition}, if any
+     */
+    default @Bean RemoteEventFilter catalogPartitionRemoteEventFilter(
+            @Qualifier("rawCatalog") Catalog rawCatalog, CatalogProperties properties) {
+        CatalogPartition partition = properties.getPartition().toCatalogPartition();
+        return partition == null
+                ? RemoteEventFilter.ACCEPT_ALL
+                : new CatalogPartitionRemoteEventFilter(rawCatalog, partition);
+    }
+
     /**
      * @return {@link SecureCatalogImpl} decorator if {@code properties.isSecure() == true}, {@code
-     *     rawCatalog} otherwise.
+     *     rawCatalog} otherwise, either one over a {@link ReadOnlyCatalog} view of {@code
+     *     rawCatalog} if {@code properties.isReadOnly() == true} and the catalog backend {@link
+     *     ReadOnlyCatalog#supports supports it}
      */
     default @Bean Catalog secureCatalog(
             @Qualifier("rawCatalog") Catalog rawCatalog,
             CatalogProperties properties,
             @Value("${geoserver.security.enabled:true}") boolean securityEnabled)
             throws Exception {
-        if (securityEnabled && properties.isSecure()) return new SecureCatalogImpl(rawCatalog);
-        return rawCatalog;
+        Catalog catalog = rawCatalog;
+        if (properties.isReadOnly()) {
+            if (rawCatalog instanceof org.geoserver.catalog.plugin.CatalogImpl
+                    && ReadOnlyCatalog.supports(
+                            (org.geoserver.catalog.plugin.CatalogImpl) rawCatalog)) {
+                catalog =
+                        new ReadOnlyCatalog((org.geoserver.catalog.plugin.CatalogImpl) rawCatalog);
+            } else {
+                LoggerFactory.getLogger(GeoServerCatalogConfigurer.class)
+                        .warn(
+                                "The catalog backend doesn't support geoserver.catalog.readOnly,"
+                                        + " ignoring it");
+            }
+        }
+        if (securityEnabled && properties.isSecure()) return new SecureCatalogImpl(catalog);
+        return catalog;
     }
 
     /**
@@ -0,0 +1,183 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.config.datadirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.plugin.AbstractCatalogFacade;
+import org.geoserver.catalog.plugin.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogSnapshotFile;
+import org.geoserver.config.DefaultGeoServerLoader;
+import org.geoserver.config.util.XStreamPersister;
+import org.geoserver.platform.GeoServerResourceLoader;
+
+/**
+ * {@link DefaultGeoServerLoader} that loads the catalog from a {@link CatalogSnapshotFile} when
+ * it's newer than all the catalog files in the data directory, and falls back to reading the
+ * catalog files otherwise, saving a new snapshot afterwards if {@code saveOnLoad == true}.
+ *
+ * <p>Only the catalog is loaded from the snapshot, the configuration (global settings, services,
+ * logging) is still loaded from the data directory.
+ */
+@Slf4j
+public class CatalogSnapshotGeoServerLoader extends DefaultGeoServerLoader {
+
+    /** Data directory folders holding catalog object files */
+    private static final List<String> CATALOG_DIRECTORIES =
+            Arrays.asList("workspaces", "styles", "layergroups");
+
+    private final CatalogSnapshotFile snapshot;
+
+    private final boolean saveOnLoad;
+
+    private AbstractCatalogFacade facade;
+
+    public CatalogSnapshotGeoServerLoader(
+            GeoServerResourceLoader resourceLoader,
+            @NonNull CatalogSnapshotFile snapshot,
+            boolean saveOnLoad) {
+        super(resourceLoader);
+        this.snapshot = snapshot;
+        this.saveOnLoad = saveOnLoad;
+    }
+
+    protected @Override void readCatalog(Catalog catalog, XStreamPersister xp) throws Exception {
+        this.facade = snapshotCapableFacade(catalog);
+        if (facade != null && loadSnapshot(facade)) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        super.readCatalog(catalog, xp);
+        if (facade != null && facade.getPartition() != null) {
+            // the facade didn't store the objects outside the partition
+            log.info("Not saving catalog snapshot {} of partitioned catalog", snapshot.getFile());
+        } else if (facade != null && saveOnLoad) {
+            try {
+                save(facade, timestamp);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Error saving catalog snapshot {}", snapshot.getFile(), e);
+            }
+        }
+    }
+
+    /**
+     * Saves a snapshot of the current catalog on demand
+     *
+     * @throws IllegalStateException if the catalog has not been loaded yet, its facade doesn't
+     *     support snapshots, or it only holds a partition of the catalog
+     */
+    public void saveSnapshot() throws IOException {
+        if (facade == null) {
+            throw new IllegalStateException("Catalog not loaded or snapshots not supported");
+        }
+        if (facade.getPartition() != null) {
+            throw new IllegalStateException("Can't save a snapshot of a partitioned catalog");
+        }
+        save(facade, System.currentTimeMillis());
+    }
+
+    private void save(AbstractCatalogFacade facade, long timestamp) throws IOException {
+        long start = System.nanoTime();
+        int count = snapshot.save(facade, timestamp);
+        log.info(
+                "Saved {} catalog objects to snapshot {} in {}ms",
+                count,
+                snapshot.getFile(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private AbstractCatalogFacade snapshotCapableFacade(Catalog catalog) {
+        if (catalog instanceof CatalogImpl) {
+            CatalogFacade rawFacade = ((CatalogImpl) catalog).getRawCatalogFacade();
+            if (rawFacade instanceof AbstractCatalogFacade) {
+                return (AbstractCatalogFacade) rawFacade;
+            }
+        }
+        log.info("Catalog snapshots not supported by {}", catalog.getClass().getName());
+        return null;
+    }
+
+    private boolean loadSnapshot(AbstractCatalogFacade facade) {
+        if (!snapshot.exists()) {
+            log.info("Catalog snapshot {} not found", snapshot.getFile());
+            return false;
+        }
+        try {
+            final long timestamp = snapshot.getTimestamp();
+            if (isModifiedSince(timestamp)) {
+                log.info(
+                        "Catalog snapshot {} is older than the data directory", snapshot.getFile());
+                return false;
+            }
+            long start = System.nanoTime();
+            int count = snapshot.load(facade);
+            log.info(
+                    "Loaded {} catalog objects from snapshot {} in {}ms",
+                    count,
+                    snapshot.getFile(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn(
+                    "Error loading catalog snapshot {}, loading the data directory",
+                    snapshot.getFile(),
+                    e);
+            return false;
+        }
+    }
+
+    /**
+     * @return whether any catalog file or directory in the data directory was modified after
+     *     {@code timestamp}, directories account for added, renamed, and deleted files
+     */
+    private boolean isModifiedSince(final long timestamp) throws IOException {
+        final File baseDirectory = resourceLoader.getBaseDirectory();
+        final AtomicBoolean modified = new AtomicBoolean();
+        for (String name : CATALOG_DIRECTORIES) {
+            Path dir = baseDirectory.toPath().resolve(name);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            Files.walkFileTree(
+                    dir,
+                    new SimpleFileVisitor<Path>() {
+                        public @Override FileVisitResult preVisitDirectory(
+                                Path d, BasicFileAttributes attrs) {
+                            return visit(d, attrs);
+                        }
+
+                        public @Override FileVisitResult visitFile(
+                                Path file, BasicFileAttributes attrs) {
+                            return visit(file, attrs);
+                        }
+
+                        private FileVisitResult visit(Path path, BasicFileAttributes attrs) {
+                            if (attrs.lastModifiedTime().toMillis() > timestamp) {
+                                log.debug("{} modified after the catalog snapshot", path);
+                                modified.set(true);
+                                return FileVisitResult.TERMINATE;
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+            if (modified.get()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.config.datadirectory;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import lombok.NonNull;
+import org.geoserver.catalog.plugin.CatalogSnapshotHolder.Pin;
+import org.geoserver.catalog.plugin.SnapshotCatalogFacade;
+import org.geoserver.filters.GeoServerFilter;
+
+/**
+ * Pins the current {@link SnapshotCatalogFacade} snapshot to the request thread for the whole
+ * request, so that an OWS or REST request sees a single consistent version of the catalog even if
+ * other threads change it meanwhile, while its own changes are still visible to it.
+ *
+ * <p>Loaded as a {@link GeoServerFilter} by GeoServer's {@code SpringDelegatingFilter}, hence
+ * applied to all the requests dispatched by the servlet container.
+ */
+public class CatalogSnapshotPinFilter implements GeoServerFilter {
+
+    private final SnapshotCatalogFacade facade;
+
+    public CatalogSnapshotPinFilter(@NonNull SnapshotCatalogFacade facade) {
+        this.facade = facade;
+    }
+
+    public @Override void init(FilterConfig filterConfig) throws ServletException {
+        // no-op
+    }
+
+    public @Override void doFilter(
+            ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try (Pin pin = facade.pin()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    public @Override void destroy() {
+        // no-op
+    }
+}
@@ -10,14 +10,21 @@ import javax.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.geoserver.catalog.CatalogFacade;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.catalog.plugin.CatalogSnapshotFile;
+import org.geoserver.catalog.plugin.SnapshotCatalogFacade;
+import org.geoserver.cloud.config.catalog.CatalogProperties;
 import org.geoserver.cloud.config.catalog.GeoServerBackendConfigurer;
 import org.geoserver.cloud.config.catalog.GeoServerBackendProperties;
+import org.geoserver.cloud.config.catalog.GeoServerBackendProperties.DataDirectoryProperties.CatalogFacadeType;
+import org.geoserver.cloud.config.catalog.GeoServerBackendProperties.DataDirectoryProperties.SnapshotProperties;
 import org.geoserver.config.DefaultGeoServerLoader;
 import org.geoserver.config.GeoServerFacade;
 import org.geoserver.config.GeoServerLoader;
 import org.geoserver.platform.GeoServerResourceLoader;
 import org.geoserver.platform.resource.ResourceStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,24 +36,77 @@ public class DataDirectoryBackendConfigurer implements GeoServerBackendConfigure
 
     private @Autowired @Getter ApplicationContext context;
     private @Autowired GeoServerBackendProperties configProperties;
+    private @Autowired CatalogProperties catalogProperties;
 
     public @PostConstruct void log() {
         log.info("Loading geoserver config backend with {}", getClass().getSimpleName());
     }
 
     public @Override @Bean CatalogFacade catalogFacade() {
+        CatalogFacadeType type = configProperties.getDataDirectory().getCatalogFacade();
+        log.debug("geoserver.backend.data-directory.catalog-facade:" + type);
+        if (type == CatalogFacadeType.SNAPSHOT) {
+            return new SnapshotCatalogFacade();
+        }
+        if (type == CatalogFacadeType.COMPACT) {
+            return new org.geoserver.catalog.plugin.DefaultCatalogFacade(null, true);
+        }
         return new org.geoserver.catalog.plugin.DefaultCatalogFacade();
     }
 
+    /**
+     * Pins the catalog snapshot to each request's thread for the whole request, when the catalog
+     * facade is the {@code snapshot} one
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "geoserver.backend.data-directory.catalog-facade",
+        havingValue = "snapshot"
+    )
+    public CatalogSnapshotPinFilter catalogSnapshotPinFilter() {
+        return new CatalogSnapshotPinFilter((SnapshotCatalogFacade) catalogFacade());
+    }
+
     public @Override @Bean GeoServerFacade geoserverFacade() {
         return new org.geoserver.catalog.plugin.DefaultGeoServerFacade();
     }
 
     public @Override @Bean GeoServerLoader geoServerLoaderImpl() {
-        GeoServerResourceLoader resourceLoader = resourceLoader();
+        GeoServerResourceLoader resourceLoader = loaderResourceLoader();
+        SnapshotProperties snapshot = configProperties.getDataDirectory().getSnapshot();
+        if (snapshot.isEnabled()) {
+            Path location = snapshot.getLocation();
+            if (location == null) {
+                location = configProperties.getDataDirectory().getLocation();
+                location = location.resolve("catalog.snapshot");
+            }
+            log.debug("geoserver.backend.data-directory.snapshot.location:" + location);
+            return new CatalogSnapshotGeoServerLoader(
+                    resourceLoader, new CatalogSnapshotFile(location), snapshot.isSaveOnLoad());
+        }
         return new DefaultGeoServerLoader(resourceLoader);
     }
 
+    /**
+     * @return the resource loader for the {@link #geoServerLoaderImpl() loader}, that skips the
+     *     workspace directories outside the catalog partition if any, or the {@link
+     *     #resourceLoader() shared one} otherwise
+     */
+    private GeoServerResourceLoader loaderResourceLoader() {
+        CatalogPartition partition = catalogProperties.getPartition().toCatalogPartition();
+        if (partition == null) {
+            return resourceLoader();
+        }
+        log.info("Loading the data directory workspaces {} only", partition.getWorkspaces());
+        Path location = configProperties.getDataDirectory().getLocation();
+        File dataDirectory = location.toFile();
+        GeoServerResourceLoader resourceLoader =
+                new GeoServerResourceLoader(
+                        new PartitionedDataDirectoryResourceStore(dataDirectory, partition));
+        resourceLoader.setBaseDirectory(dataDirectory);
+        return resourceLoader;
+    }
+
     public @Override @Bean GeoServerResourceLoader resourceLoader() {
         ResourceStore resourceStore = resourceStoreImpl();
         GeoServerResourceLoader resourceLoader = new GeoServerResourceLoader(resourceStore);
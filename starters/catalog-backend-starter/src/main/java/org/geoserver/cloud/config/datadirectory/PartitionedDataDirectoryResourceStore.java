@@ -0,0 +1,92 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.config.datadirectory;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.config.GeoServerLoader;
+import org.geoserver.platform.resource.Resource;
+import org.geoserver.platform.resource.Resource.Type;
+
+/**
+ * {@link NoServletContextDataDirectoryResourceStore} that hides the directories of the workspaces
+ * outside a {@link CatalogPartition} from the listing of the {@code workspaces} directory, for
+ * the {@link GeoServerLoader} to skip parsing their stores, resources, layers, styles and service
+ * settings altogether.
+ *
+ * <p>Relies on the data directory convention of naming the workspace directories after the
+ * workspaces. Only meant to be used by the loader, the listing of the other directories, like the
+ * global {@code styles} and {@code layergroups} ones, is left untouched, and their objects outside
+ * the partition are discarded by the catalog facade.
+ */
+@SuppressWarnings("serial")
+public class PartitionedDataDirectoryResourceStore
+        extends NoServletContextDataDirectoryResourceStore {
+
+    private static final String WORKSPACES = "workspaces";
+
+    private final CatalogPartition partition;
+
+    public PartitionedDataDirectoryResourceStore(
+            File resourceDirectory, @NonNull CatalogPartition partition) {
+        super(resourceDirectory);
+        this.partition = partition;
+    }
+
+    public @Override Resource get(String path) {
+        Resource resource = super.get(path);
+        return WORKSPACES.equals(normalize(path)) ? filtered(resource) : resource;
+    }
+
+    private static String normalize(String path) {
+        String normalized = path == null ? "" : path;
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+
+    /** @return a view of the workspaces directory that only lists the partition's directories */
+    private Resource filtered(Resource workspaces) {
+        return (Resource)
+                Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[] {Resource.class},
+                        (proxy, method, args) -> {
+                            try {
+                                Object result = method.invoke(workspaces, args);
+                                if ("list".equals(method.getName())
+                                        && method.getParameterCount() == 0) {
+                                    return filter(castList(result));
+                                }
+                                return result;
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+    }
+
+    private List<Resource> filter(List<Resource> children) {
+        return children.stream()
+                .filter(
+                        r ->
+                                r.getType() != Type.DIRECTORY
+                                        || partition.getWorkspaces().contains(r.name()))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Resource> castList(Object list) {
+        return (List<Resource>) list;
+    }
+}
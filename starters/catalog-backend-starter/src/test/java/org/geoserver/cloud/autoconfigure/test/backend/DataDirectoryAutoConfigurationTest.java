@@ -9,10 +9,12 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.geoserver.cloud.autoconfigure.catalog.DataDirectoryAutoConfiguration;
 import org.geoserver.cloud.autoconfigure.testconfiguration.AutoConfigurationTestConfiguration;
 import org.geoserver.cloud.config.catalog.GeoServerBackendProperties;
+import org.geoserver.cloud.config.datadirectory.CatalogSnapshotPinFilter;
 import org.geoserver.cloud.config.datadirectory.DataDirectoryBackendConfigurer;
 import org.geoserver.cloud.config.datadirectory.NoServletContextDataDirectoryResourceStore;
 import org.geoserver.config.DefaultGeoServerLoader;
@@ -77,6 +79,10 @@ public class DataDirectoryAutoConfigurationTest extends GeoServerBackendConfigur
         assertThat(geoserverLoader, instanceOf(DefaultGeoServerLoader.class));
     }
 
+    public @Test void testCatalogSnapshotPinFilter() throws Exception {
+        assertTrue(context.getBeansOfType(CatalogSnapshotPinFilter.class).isEmpty());
+    }
+
     public @Test void testResourceStoreImpl() {
         assertThat(resourceStoreImpl, instanceOf(NoServletContextDataDirectoryResourceStore.class));
     }
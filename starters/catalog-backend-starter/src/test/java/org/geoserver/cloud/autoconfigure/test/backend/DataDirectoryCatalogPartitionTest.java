@@ -0,0 +1,46 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.autoconfigure.test.backend;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import org.geoserver.catalog.plugin.AbstractCatalogFacade;
+import org.geoserver.catalog.plugin.CatalogImpl;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.cloud.autoconfigure.testconfiguration.AutoConfigurationTestConfiguration;
+import org.geoserver.cloud.bus.RemoteEventFilter;
+import org.geoserver.cloud.config.catalog.CatalogPartitionRemoteEventFilter;
+import org.geoserver.cloud.config.datadirectory.DataDirectoryBackendConfigurer;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Test {@link DataDirectoryBackendConfigurer} when {@code
+ * geoserver.catalog.partition.workspaces} is set
+ */
+@SpringBootTest(
+    classes = AutoConfigurationTestConfiguration.class,
+    properties = {
+        "geoserver.backend.data-directory.enabled=true",
+        "geoserver.backend.data-directory.location=/tmp/data_dir_autoconfiguration_test",
+        "geoserver.catalog.partition.workspaces=topp"
+    }
+)
+public class DataDirectoryCatalogPartitionTest extends DataDirectoryAutoConfigurationTest {
+
+    private @Autowired RemoteEventFilter remoteEventFilter;
+
+    public @Test void testCatalogPartition() {
+        AbstractCatalogFacade facade =
+                (AbstractCatalogFacade) ((CatalogImpl) rawCatalog).getRawCatalogFacade();
+        CatalogPartition partition = facade.getPartition();
+        assertEquals(Collections.singleton("topp"), partition.getWorkspaces());
+        assertThat(remoteEventFilter, instanceOf(CatalogPartitionRemoteEventFilter.class));
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.autoconfigure.test.backend;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+
+import org.geoserver.cloud.autoconfigure.testconfiguration.AutoConfigurationTestConfiguration;
+import org.geoserver.cloud.config.datadirectory.CatalogSnapshotGeoServerLoader;
+import org.geoserver.cloud.config.datadirectory.DataDirectoryBackendConfigurer;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Test {@link DataDirectoryBackendConfigurer} when {@code
+ * geoserver.backend.data-directory.snapshot.enabled=true}
+ */
+@SpringBootTest(
+    classes = AutoConfigurationTestConfiguration.class,
+    properties = {
+        "geoserver.backend.data-directory.enabled=true",
+        "geoserver.backend.data-directory.location=/tmp/data_dir_autoconfiguration_test",
+        "geoserver.backend.data-directory.snapshot.enabled=true"
+    }
+)
+public class DataDirectoryCatalogSnapshotTest extends DataDirectoryAutoConfigurationTest {
+
+    public @Override @Test void testGeoserverLoader() {
+        assertThat(geoserverLoader, instanceOf(CatalogSnapshotGeoServerLoader.class));
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.autoconfigure.test.backend;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.geoserver.cloud.autoconfigure.testconfiguration.AutoConfigurationTestConfiguration;
+import org.geoserver.cloud.config.datadirectory.DataDirectoryBackendConfigurer;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Test {@link DataDirectoryBackendConfigurer} when {@code
+ * geoserver.backend.data-directory.catalog-facade=compact}
+ */
+@SpringBootTest(
+    classes = AutoConfigurationTestConfiguration.class,
+    properties = {
+        "geoserver.backend.data-directory.enabled=true",
+        "geoserver.backend.data-directory.location=/tmp/data_dir_autoconfiguration_test",
+        "geoserver.backend.data-directory.catalog-facade=compact"
+    }
+)
+public class DataDirectoryCompactCatalogFacadeTest extends DataDirectoryAutoConfigurationTest {
+
+    public @Override @Test void testCatalogFacade() {
+        assertThat(
+                rawCatalogFacade,
+                instanceOf(org.geoserver.catalog.plugin.DefaultCatalogFacade.class));
+        assertTrue(
+                ((org.geoserver.catalog.plugin.DefaultCatalogFacade) rawCatalogFacade).isCompact());
+        assertSame(
+                rawCatalogFacade,
+                ((org.geoserver.catalog.plugin.CatalogImpl) rawCatalog).getRawCatalogFacade());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.autoconfigure.test.backend;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.cloud.autoconfigure.testconfiguration.AutoConfigurationTestConfiguration;
+import org.geoserver.cloud.config.datadirectory.CatalogSnapshotPinFilter;
+import org.geoserver.cloud.config.datadirectory.DataDirectoryBackendConfigurer;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Test {@link DataDirectoryBackendConfigurer} when {@code
+ * geoserver.backend.data-directory.catalog-facade=snapshot}
+ */
+@SpringBootTest(
+    classes = AutoConfigurationTestConfiguration.class,
+    properties = {
+        "geoserver.backend.data-directory.enabled=true",
+        "geoserver.backend.data-directory.location=/tmp/data_dir_autoconfiguration_test",
+        "geoserver.backend.data-directory.catalog-facade=snapshot"
+    }
+)
+public class DataDirectorySnapshotCatalogFacadeTest extends DataDirectoryAutoConfigurationTest {
+
+    public @Override @Test void testCatalogFacade() {
+        assertThat(
+                rawCatalogFacade,
+                instanceOf(org.geoserver.catalog.plugin.SnapshotCatalogFacade.class));
+        assertSame(
+                rawCatalogFacade,
+                ((org.geoserver.catalog.plugin.CatalogImpl) rawCatalog).getRawCatalogFacade());
+    }
+
+    public @Override @Test void testCatalogSnapshotPinFilter() throws Exception {
+        CatalogSnapshotPinFilter filter = context.getBean(CatalogSnapshotPinFilter.class);
+        WorkspaceInfo workspace = rawCatalog.getFactory().createWorkspace();
+        workspace.setName("pinFilterTest");
+        try {
+            filter.doFilter(
+                    null,
+                    null,
+                    (request, response) -> {
+                        try {
+                            CompletableFuture.runAsync(() -> rawCatalog.add(workspace)).get();
+                        } catch (InterruptedException | ExecutionException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        // the request keeps seeing the catalog as it was when it started
+                        assertNull(rawCatalog.getWorkspaceByName("pinFilterTest"));
+                    });
+            assertNotNull(rawCatalog.getWorkspaceByName("pinFilterTest"));
+        } finally {
+            WorkspaceInfo added = rawCatalog.getWorkspaceByName("pinFilterTest");
+            if (added != null) {
+                rawCatalog.remove(added);
+            }
+        }
+    }
+}
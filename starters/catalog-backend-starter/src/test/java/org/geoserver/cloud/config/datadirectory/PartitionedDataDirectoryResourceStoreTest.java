@@ -0,0 +1,54 @@
+/*
+ * (c) 2020 Open Source Geospatial Foundation - all rights reserved This code is licensed under the
+ * GPL 2.0 license, available at the root application directory.
+ */
+package org.geoserver.cloud.config.datadirectory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.geoserver.catalog.plugin.CatalogPartition;
+import org.geoserver.platform.resource.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PartitionedDataDirectoryResourceStoreTest {
+
+    public @Rule TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private PartitionedDataDirectoryResourceStore store;
+
+    public @Before void setUp() throws Exception {
+        File dataDirectory = tmpFolder.getRoot();
+        for (String ws : Arrays.asList("topp", "tiger", "sf")) {
+            new File(dataDirectory, "workspaces/" + ws).mkdirs();
+        }
+        new File(dataDirectory, "workspaces/default.xml").createNewFile();
+        new File(dataDirectory, "styles").mkdirs();
+        new File(dataDirectory, "styles/point.sld").createNewFile();
+        CatalogPartition partition = new CatalogPartition(Collections.singleton("topp"));
+        store = new PartitionedDataDirectoryResourceStore(dataDirectory, partition);
+    }
+
+    @Test
+    public void testWorkspacesListingHidesOtherWorkspaces() {
+        assertEquals(Arrays.asList("default.xml", "topp"), names(store.get("workspaces")));
+    }
+
+    @Test
+    public void testOtherResourcesUntouched() {
+        assertEquals(Arrays.asList("point.sld"), names(store.get("styles")));
+        assertEquals("tiger", store.get("workspaces/tiger").name());
+        assertEquals(Resource.Type.DIRECTORY, store.get("workspaces/tiger").getType());
+    }
+
+    private List<String> names(Resource dir) {
+        return dir.list().stream().map(Resource::name).sorted().collect(Collectors.toList());
+    }
+}